@@ -0,0 +1,76 @@
+package com.thinkbiganalytics.rest;
+
+/*-
+ * #%L
+ * thinkbig-commons-rest-client
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+/**
+ * Reads the remainder of a response entity before it is closed.
+ *
+ * <p>The Apache connector closes the response before the entity stream, which discards the connection unless the entity has been fully read. JSON readers stop at the end of the document so
+ * the connection would never be returned to the pool. Entities larger than {@link #MAX_REMAINING} bytes are not read and the connection is discarded instead.</p>
+ */
+class ConsumingResponseFilter implements ClientResponseFilter {
+
+    /**
+     * Maximum number of unread bytes to read before closing
+     */
+    static final long MAX_REMAINING = 64 * 1024;
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+        if (responseContext.hasEntity()) {
+            responseContext.setEntityStream(new ConsumingInputStream(responseContext.getEntityStream()));
+        }
+    }
+
+    /**
+     * Reads the remaining bytes of the stream when closed.
+     */
+    private static class ConsumingInputStream extends FilterInputStream {
+
+        ConsumingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                final byte[] buffer = new byte[4096];
+                long total = 0;
+                int count;
+                while (total < MAX_REMAINING && (count = in.read(buffer)) != -1) {
+                    total += count;
+                }
+            } catch (final IOException e) {
+                // connection will be discarded
+            } finally {
+                super.close();
+            }
+        }
+    }
+}
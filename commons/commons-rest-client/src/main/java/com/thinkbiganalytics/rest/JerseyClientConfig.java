@@ -50,10 +50,24 @@ public class JerseyClientConfig {
     private Integer connectTimeout = null;
 
     /**
-     * flag to use the PoolingHttpClientConnectionManager from Apache instead of the Jersey Manager The PoolingHttpClientConnectionManager doesnt support some JSON header which is why this is set to
-     * false by default
+     * flag to use the Apache connector with a PoolingHttpClientConnectionManager, keeping connections alive between requests, instead of the Jersey HttpURLConnection connector
      **/
-    private boolean useConnectionPooling = false;
+    private boolean useConnectionPooling = true;
+
+    /**
+     * maximum number of pooled connections to a single host
+     */
+    private int maxConnectionsPerRoute = 100;
+
+    /**
+     * maximum number of pooled connections to all hosts
+     */
+    private int maxConnections = 200;
+
+    /**
+     * time in milliseconds that a pooled connection may be idle before it is closed
+     */
+    private long connectionIdleTimeout = 60000;
     private EncryptionService encryptionService;
 
     public JerseyClientConfig() {
@@ -194,6 +208,30 @@ public class JerseyClientConfig {
         this.useConnectionPooling = useConnectionPooling;
     }
 
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public long getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+
+    public void setConnectionIdleTimeout(long connectionIdleTimeout) {
+        this.connectionIdleTimeout = connectionIdleTimeout;
+    }
+
     public Integer getPort() {
         return port;
     }
@@ -252,6 +290,9 @@ public class JerseyClientConfig {
                ", readTimeout=" + readTimeout +
                ", connectTimeout=" + connectTimeout +
                ", useConnectionPooling=" + useConnectionPooling +
+               ", maxConnectionsPerRoute=" + maxConnectionsPerRoute +
+               ", maxConnections=" + maxConnections +
+               ", connectionIdleTimeout=" + connectionIdleTimeout +
                ", encryptionService=" + encryptionService +
                '}';
     }
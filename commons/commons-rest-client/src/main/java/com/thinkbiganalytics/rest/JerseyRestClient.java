@@ -35,10 +35,11 @@ import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.glassfish.jersey.SslConfigurator;
 import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
-import org.glassfish.jersey.client.HttpUrlConnectorProvider;
 import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.glassfish.jersey.client.RequestEntityProcessing;
 import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import org.glassfish.jersey.media.multipart.Boundary;
@@ -50,10 +51,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.util.Map;
 import java.util.concurrent.Future;
 
-import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 import javax.ws.rs.NotAcceptableException;
 import javax.ws.rs.client.Client;
@@ -103,10 +104,9 @@ public class JerseyRestClient {
     private ObjectMapper objectMapper;
 
     /**
-     * flag to use the PoolingHttpClientConnectionManager from Apache instead of the Jersey Manager The PoolingHttpClientConnectionManager doesnt support some JSON header which is why this is turned
-     * off by default.
+     * flag to use the Apache connector with a PoolingHttpClientConnectionManager instead of the Jersey HttpURLConnection connector
      */
-    private boolean useConnectionPooling = false;
+    private boolean useConnectionPooling = true;
 
 
     public JerseyRestClient(JerseyClientConfig config) {
@@ -172,32 +172,20 @@ public class JerseyRestClient {
         }
 
         if (useConnectionPooling) {
-
-            PoolingHttpClientConnectionManager connectionManager = null;
-            if (sslContext != null) {
-
-                HostnameVerifier defaultHostnameVerifier = new DefaultHostnameVerifier();
-
-                LayeredConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(
-                    sslContext,
-                    defaultHostnameVerifier);
-
-                final Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
-                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
-                    .register("https", sslSocketFactory)
-                    .build();
-
-                connectionManager = new PoolingHttpClientConnectionManager(registry);
-            } else {
-                connectionManager = new PoolingHttpClientConnectionManager();
-            }
-            connectionManager.setDefaultMaxPerRoute(100); // # of connections allowed per host/address
-            connectionManager.setMaxTotal(200); // number of connections allowed in total
-
+            final LayeredConnectionSocketFactory sslSocketFactory = (sslContext != null) ? new SSLConnectionSocketFactory(sslContext, new DefaultHostnameVerifier())
+                                                                                         : SSLConnectionSocketFactory.getSocketFactory();
+            final Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory)
+                .build();
+
+            // Connections and their TLS sessions are kept alive and reused by later requests
+            final PoolingHttpClientConnectionManager connectionManager = new PooledConnectionManager(registry, config.getMaxConnectionsPerRoute(), config.getMaxConnections(),
+                                                                                                     config.getConnectionIdleTimeout());
             clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
-            HttpUrlConnectorProvider connectorProvider = new HttpUrlConnectorProvider();
-            clientConfig.connectorProvider(connectorProvider);
-
+            clientConfig.property(ApacheClientProperties.DISABLE_COOKIES, true);
+            clientConfig.register(new ConsumingResponseFilter());
+            clientConfig.connectorProvider(new ApacheConnectorProvider());
         }
 
         clientConfig.register(MultiPartFeature.class);
@@ -485,7 +473,7 @@ public class JerseyRestClient {
      */
     public Response post(String path, Object o) {
         WebTarget target = buildTarget(path, null);
-        return target.request().post(Entity.entity(o, MediaType.APPLICATION_JSON_TYPE));
+        return bufferedRequest(target).post(Entity.entity(o, MediaType.APPLICATION_JSON_TYPE));
     }
 
 
@@ -548,7 +536,7 @@ public class JerseyRestClient {
      */
     public <T> T post(String path, Object object, Class<T> returnType) {
         WebTarget target = buildTarget(path, null);
-        return target.request().post(Entity.entity(object, MediaType.APPLICATION_JSON), returnType);
+        return bufferedRequest(target).post(Entity.entity(object, MediaType.APPLICATION_JSON), returnType);
     }
 
     /**
@@ -561,7 +549,7 @@ public class JerseyRestClient {
      */
     public <T> T put(String path, Object object, Class<T> returnType) {
         WebTarget target = buildTarget(path, null);
-        return target.request().put(Entity.entity(object, MediaType.APPLICATION_JSON), returnType);
+        return bufferedRequest(target).put(Entity.entity(object, MediaType.APPLICATION_JSON), returnType);
     }
 
     /**
@@ -587,7 +575,7 @@ public class JerseyRestClient {
      */
     public <T> T postForm(String path, Form form, Class<T> returnType) {
         WebTarget target = buildTarget(path, null);
-        return target.request().post(Entity.entity(form, MediaType.APPLICATION_FORM_URLENCODED_TYPE), returnType);
+        return bufferedRequest(target).post(Entity.entity(form, MediaType.APPLICATION_FORM_URLENCODED_TYPE), returnType);
     }
 
     /**
@@ -600,7 +588,19 @@ public class JerseyRestClient {
      */
     public <T> Future<T> postAsync(String path, Object object, Class<T> returnType) {
         WebTarget target = buildTarget(path, null);
-        return target.request().async().post(Entity.entity(object, MediaType.APPLICATION_JSON), returnType);
+        return bufferedRequest(target).async().post(Entity.entity(object, MediaType.APPLICATION_JSON), returnType);
+    }
+
+    /**
+     * Starts a request that sends its entity with a Content-Length header. The Apache connector uses chunked transfer encoding by default, which some servers do not
+     * accept for JSON. Multipart requests are not buffered so that uploads are streamed rather than held in memory.
+     *
+     * @param target the WebTarget
+     * @return the request builder
+     */
+    private Invocation.Builder bufferedRequest(WebTarget target) {
+        Invocation.Builder builder = target.request();
+        return useConnectionPooling ? builder.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED) : builder;
     }
 
     /**
@@ -617,13 +617,15 @@ public class JerseyRestClient {
         T obj = null;
         try {
             //the response didnt link getting data in JSON.. attempt to get it in TEXT and convert to JSON
-            String jsonString = target.request(MediaType.APPLICATION_JSON_TYPE).accept(MediaType.TEXT_PLAIN_TYPE).get(String.class);
-            if (StringUtils.isNotBlank(jsonString)) {
-                try {
-                    obj = objectMapper.readValue(jsonString, clazz);
-                } catch (Exception ex) {
-                    //unable to deserialize string
-                    log.error("Unable to deserialize request to JSON for string {}, for target {} returning class {} ", jsonString, target, clazz);
+            //stream the response into the mapper instead of buffering it as a string
+            try (PushbackInputStream jsonStream = new PushbackInputStream(target.request(MediaType.APPLICATION_JSON_TYPE).accept(MediaType.TEXT_PLAIN_TYPE).get(InputStream.class))) {
+                if (!isBlank(jsonStream)) {
+                    try {
+                        obj = objectMapper.readValue(jsonStream, clazz);
+                    } catch (Exception ex) {
+                        //unable to deserialize string
+                        log.error("Unable to deserialize request to JSON for target {} returning class {} ", target, clazz, ex);
+                    }
                 }
             }
         } catch (Exception ex1) {
@@ -633,5 +635,17 @@ public class JerseyRestClient {
         return obj;
     }
 
-
+    /**
+     * Indicates the rest of the stream is only whitespace. Otherwise the first other character is pushed back.
+     */
+    private static boolean isBlank(PushbackInputStream stream) throws IOException {
+        int next = stream.read();
+        while (next != -1 && Character.isWhitespace(next)) {
+            next = stream.read();
+        }
+        if (next != -1) {
+            stream.unread(next);
+        }
+        return next == -1;
+    }
 }
@@ -0,0 +1,118 @@
+package com.thinkbiganalytics.rest;
+
+/*-
+ * #%L
+ * thinkbig-commons-rest-client
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A connection pool for the Apache connector of a {@link JerseyRestClient}.
+ *
+ * <p>Every request of a client uses the same credentials so connections are pooled without regard to their user token. Otherwise HTTPS connections that authenticate with a client certificate
+ * would be tagged with the certificate principal and never reused. Connections that are idle longer than the idle timeout are closed in the background.</p>
+ */
+class PooledConnectionManager extends PoolingHttpClientConnectionManager {
+
+    /**
+     * Closes idle connections for all pools
+     */
+    private static final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setThreadFactory(Executors.defaultThreadFactory())
+            .setDaemon(true)
+            .setNameFormat("rest-client-connection-evictor-%d")
+            .build()
+    );
+
+    /**
+     * Indicates the pool has been shut down
+     */
+    private volatile boolean isShutdown;
+
+    /**
+     * Constructs a {@code PooledConnectionManager}.
+     *
+     * @param registry              the socket factories by scheme
+     * @param maxConnectionsPerRoute maximum number of connections to a single host
+     * @param maxConnections        maximum number of connections to all hosts
+     * @param idleTimeout           time in milliseconds that a connection may be idle before it is closed, or {@code 0} to keep idle connections
+     */
+    PooledConnectionManager(@Nonnull final Registry<ConnectionSocketFactory> registry, int maxConnectionsPerRoute, int maxConnections, long idleTimeout) {
+        super(registry);
+        setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        setMaxTotal(maxConnections);
+        if (idleTimeout > 0) {
+            scheduleEviction(this, idleTimeout);
+        }
+    }
+
+    /**
+     * Periodically closes the expired and idle connections of the specified pool until it is shut down or garbage collected.
+     */
+    private static void scheduleEviction(@Nonnull final PooledConnectionManager manager, final long idleTimeout) {
+        final WeakReference<PooledConnectionManager> reference = new WeakReference<>(manager);
+        final AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+        final long period = Math.max(idleTimeout / 2, 1000L);
+        task.set(evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                final PooledConnectionManager pool = reference.get();
+                if (pool == null || pool.isShutdown) {
+                    task.get().cancel(false);
+                } else {
+                    pool.closeExpiredConnections();
+                    pool.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+        return super.requestConnection(route, null);
+    }
+
+    @Override
+    public void releaseConnection(final HttpClientConnection managedConn, final Object state, final long keepalive, final TimeUnit tunit) {
+        super.releaseConnection(managedConn, null, keepalive, tunit);
+    }
+
+    @Override
+    public void shutdown() {
+        isShutdown = true;
+        super.shutdown();
+    }
+}
@@ -0,0 +1,239 @@
+package com.thinkbiganalytics.rest;
+
+/*-
+ * #%L
+ * thinkbig-commons-rest-client
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs requests through a {@link JerseyRestClient} against an embedded HTTP server.
+ */
+public class JerseyRestClientTest {
+
+    /**
+     * Remote addresses of the connections accepted by the server
+     */
+    private final Set<InetSocketAddress> connections = Collections.newSetFromMap(new ConcurrentHashMap<InetSocketAddress, Boolean>());
+
+    /**
+     * Request headers received by the server
+     */
+    private final Map<String, String> postHeaders = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/item", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                connections.add(exchange.getRemoteAddress());
+                respond(exchange, "{\"name\":\"item\",\"value\":42}");
+            }
+        });
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                connections.add(exchange.getRemoteAddress());
+                postHeaders.put("Content-Type", String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type")));
+                postHeaders.put("Content-Length", String.valueOf(exchange.getRequestHeaders().getFirst("Content-Length")));
+                postHeaders.put("Transfer-Encoding", String.valueOf(exchange.getRequestHeaders().getFirst("Transfer-Encoding")));
+                respond(exchange, new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            }
+        });
+        server.createContext("/text", new PlainTextHandler("{\"value\":3}"));
+        server.createContext("/empty", new PlainTextHandler(""));
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    /**
+     * Verify concurrent requests reuse a bounded number of kept-alive connections.
+     */
+    @Test
+    public void testPooledConnectionsReused() throws Exception {
+        final JerseyClientConfig config = newConfig();
+        config.setMaxConnectionsPerRoute(4);
+        final JerseyRestClient client = new JerseyRestClient(config);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Item>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                results.add(executor.submit(new Callable<Item>() {
+                    @Override
+                    public Item call() {
+                        return client.get("/item", null, Item.class);
+                    }
+                }));
+            }
+            for (Future<Item> result : results) {
+                Assert.assertEquals(42, result.get().value);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertTrue("Expected at most 4 connections but was " + connections.size(), connections.size() <= 4);
+    }
+
+    /**
+     * Verify JSON entities are sent with a Content-Length header by the pooled connector.
+     */
+    @Test
+    public void testPostJsonWithContentLength() {
+        final JerseyRestClient client = new JerseyRestClient(newConfig());
+
+        final Item item = new Item();
+        item.name = "posted";
+        item.value = 7;
+        final Item response = client.post("/echo", item, Item.class);
+
+        Assert.assertEquals("posted", response.name);
+        Assert.assertEquals(7, response.value);
+        Assert.assertTrue(postHeaders.get("Content-Type").startsWith("application/json"));
+        Assert.assertEquals("null", postHeaders.get("Transfer-Encoding"));
+        Assert.assertNotEquals("null", postHeaders.get("Content-Length"));
+    }
+
+    /**
+     * Verify multipart uploads are streamed with chunked transfer encoding instead of being buffered.
+     */
+    @Test
+    public void testPostMultiPartChunked() {
+        final JerseyRestClient client = new JerseyRestClient(newConfig());
+
+        final String response = client.postMultiPartStream("/echo", "template", "template.zip", new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)), String.class);
+
+        Assert.assertTrue(response.contains("content"));
+        Assert.assertTrue(postHeaders.get("Content-Type").startsWith("multipart/form-data"));
+        Assert.assertEquals("chunked", postHeaders.get("Transfer-Encoding"));
+        Assert.assertEquals("null", postHeaders.get("Content-Length"));
+    }
+
+    /**
+     * Verify a plain text response is read as JSON, and an empty response is null.
+     */
+    @Test
+    public void testGetPlainText() {
+        final JerseyRestClient client = new JerseyRestClient(newConfig());
+
+        Assert.assertEquals(3, client.get("/text", null, Item.class).value);
+        Assert.assertNull(client.get("/empty", null, Item.class));
+    }
+
+    /**
+     * Verify requests are still sent when connection pooling is disabled.
+     */
+    @Test
+    public void testWithoutConnectionPooling() {
+        final JerseyClientConfig config = newConfig();
+        config.setUseConnectionPooling(false);
+        final JerseyRestClient client = new JerseyRestClient(config);
+
+        Assert.assertEquals("item", client.get("/item", null, Item.class).name);
+    }
+
+    private JerseyClientConfig newConfig() {
+        final JerseyClientConfig config = new JerseyClientConfig();
+        config.setHost("localhost");
+        config.setPort(server.getAddress().getPort());
+        return config;
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Responds with JSON as plain text, and rejects requests that do not accept plain text.
+     */
+    private static class PlainTextHandler implements HttpHandler {
+
+        private final byte[] body;
+
+        PlainTextHandler(String body) {
+            this.body = body.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (String.valueOf(exchange.getRequestHeaders().getFirst("Accept")).contains("text/plain")) {
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(200, (body.length > 0) ? body.length : -1);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } else {
+                exchange.sendResponseHeaders(406, -1);
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * A JSON response.
+     */
+    public static class Item {
+
+        public String name;
+
+        public int value;
+    }
+}
@@ -74,4 +74,16 @@ public interface SearchResult {
      * set an error message to the result
      */
     void setError(String error);
+
+    /**
+     * Return the token identifying the position after the last record in {@link #getData()}, if more records follow
+     *
+     * @return the token to request the next records, or null if there are no more records
+     */
+    String getContinuationToken();
+
+    /**
+     * set the token identifying the position after the last record in {@link #getData()}
+     */
+    void setContinuationToken(String continuationToken);
 }
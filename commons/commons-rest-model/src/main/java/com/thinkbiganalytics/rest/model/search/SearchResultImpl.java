@@ -34,6 +34,7 @@ public class SearchResultImpl implements SearchResult {
     private Long recordsTotal;
     private Long recordsFiltered;
     private String error;
+    private String continuationToken;
 
     @Override
     public List<? extends Object> getData() {
@@ -74,4 +75,14 @@ public class SearchResultImpl implements SearchResult {
     public void setError(String error) {
         this.error = error;
     }
+
+    @Override
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    @Override
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
 }
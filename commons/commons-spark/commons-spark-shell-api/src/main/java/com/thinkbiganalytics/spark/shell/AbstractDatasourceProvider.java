@@ -24,12 +24,16 @@ import com.thinkbiganalytics.spark.rest.model.Datasource;
 import com.thinkbiganalytics.spark.rest.model.JdbcDatasource;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.spark.SparkConf;
 import org.apache.spark.sql.SQLContext;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
 
 import javax.annotation.Nonnull;
 
@@ -40,6 +44,46 @@ import javax.annotation.Nonnull;
  */
 public abstract class AbstractDatasourceProvider<T> implements DatasourceProvider<T> {
 
+    /**
+     * Default number of rows to fetch per round trip
+     */
+    static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Default maximum number of concurrent connections to a data source from this Spark application
+     */
+    static final int DEFAULT_MAX_CONNECTIONS = 8;
+
+    /**
+     * Default maximum number of partitions, and so concurrent connections, for one read of a table
+     */
+    static final int DEFAULT_MAX_PARTITIONS_PER_READ = 4;
+
+    /**
+     * Name of the setting for the number of rows to fetch per round trip
+     */
+    static final String FETCH_SIZE = "fetchSize";
+
+    /**
+     * Name of the setting for the maximum number of concurrent connections to a data source from this Spark application, or 0 for no limit
+     */
+    static final String MAX_CONNECTIONS = "maxConnections";
+
+    /**
+     * Name of the setting for the maximum number of partitions for one read of a table
+     */
+    static final String MAX_PARTITIONS_PER_READ = "maxPartitionsPerRead";
+
+    /**
+     * Prefix of Spark configuration properties for data sources, optionally followed by a data source name
+     */
+    static final String SETTING_PREFIX = "spark.kylo.datasource.";
+
+    /**
+     * Permits for the connections to each data source by data source id. Providers are created for each request, so the permits are shared by all providers.
+     */
+    private static final ConcurrentMap<String, Semaphore> connectionPermits = new ConcurrentHashMap<>();
+
     /**
      * Map of id to data source.
      */
@@ -72,8 +116,33 @@ public abstract class AbstractDatasourceProvider<T> implements DatasourceProvide
     @Nonnull
     @Override
     public final T getTableFromDatasource(@Nonnull final String table, @Nonnull final Datasource datasource, @Nonnull final SQLContext sqlContext) {
+        return getTableFromDatasource(table, datasource, new JdbcReadOptions(), sqlContext);
+    }
+
+    @Nonnull
+    @Override
+    public final T getTableFromDatasource(@Nonnull final String table, @Nonnull final String datasourceId, @Nonnull final SQLContext sqlContext) {
+        return getTableFromDatasource(table, findById(datasourceId), sqlContext);
+    }
+
+    @Nonnull
+    @Override
+    public final T getTableFromDatasource(@Nonnull final String table, @Nonnull final String datasourceId, final long limit, @Nonnull final SQLContext sqlContext) {
+        return getTableFromDatasource(table, findById(datasourceId), new JdbcReadOptions().setLimit(limit), sqlContext);
+    }
+
+    @Nonnull
+    @Override
+    public final T getTableFromDatasource(@Nonnull final String table, @Nonnull final String datasourceId, @Nonnull final JdbcReadOptions options, @Nonnull final SQLContext sqlContext) {
+        return getTableFromDatasource(table, findById(datasourceId), options, sqlContext);
+    }
+
+    @Nonnull
+    @Override
+    public final T getTableFromDatasource(@Nonnull final String table, @Nonnull final Datasource datasource, @Nonnull final JdbcReadOptions options, @Nonnull final SQLContext sqlContext) {
         if (datasource instanceof JdbcDatasource) {
             final JdbcDatasource jdbcDatasource = (JdbcDatasource) datasource;
+            final SparkConf conf = sqlContext.sparkContext().getConf();
             final Properties properties = new Properties();
             properties.put("driver", jdbcDatasource.getDatabaseDriverClassName());
             if (StringUtils.isNotBlank(jdbcDatasource.getDatabaseUser())) {
@@ -83,18 +152,94 @@ public abstract class AbstractDatasourceProvider<T> implements DatasourceProvide
                 properties.put("password", jdbcDatasource.getPassword());
             }
 
-            return readJdbcTable(jdbcDatasource.getDatabaseConnectionUrl(), table, properties, sqlContext);
+            // Avoid a round trip per row, or buffering the whole table, with drivers that have a poor default
+            final int fetchSize = (options.getFetchSize() > 0) ? options.getFetchSize() : getSetting(conf, datasource, FETCH_SIZE, DEFAULT_FETCH_SIZE);
+            if (fetchSize > 0) {
+                properties.put("fetchsize", Integer.toString(fetchSize));
+            }
+
+            // Push the limit and filter down to the database
+            final String url = jdbcDatasource.getDatabaseConnectionUrl();
+            final String query = JdbcQueries.toTable(url, table, options.getFilter(), options.getLimit());
+
+            // Partition unlimited reads, with one connection per partition
+            final int maxConnections = getSetting(conf, datasource, MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+            String[] predicates = null;
+            if (options.getLimit() <= 0 && options.getPartitionColumn() != null && options.getLowerBound() != null && options.getUpperBound() != null) {
+                int numPartitions = Math.min(options.getNumPartitions(), getSetting(conf, datasource, MAX_PARTITIONS_PER_READ, DEFAULT_MAX_PARTITIONS_PER_READ));
+                if (maxConnections > 0) {
+                    numPartitions = Math.min(numPartitions, maxConnections);
+                }
+                if (numPartitions > 1) {
+                    predicates = JdbcQueries.toPartitionPredicates(options.getPartitionColumn(), options.getLowerBound(), options.getUpperBound(), numPartitions);
+                }
+            }
+            final boolean partitioned = predicates != null && predicates.length > 0;
+
+            if (maxConnections <= 0) {
+                return partitioned ? readJdbcTable(url, query, predicates, properties, sqlContext) : readJdbcTable(url, query, properties, sqlContext);
+            }
+
+            // Read the table while holding a permit for each connection, so that concurrent reads do not exceed the maximum connections to the data source
+            final Semaphore permits = getConnectionPermits(datasource, maxConnections);
+            final int connections = partitioned ? predicates.length : 1;
+            try {
+                permits.acquire(connections);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a connection to data source: " + datasource.getName(), e);
+            }
+            try {
+                return cache(partitioned ? readJdbcTable(url, query, predicates, properties, sqlContext) : readJdbcTable(url, query, properties, sqlContext));
+            } finally {
+                permits.release(connections);
+            }
         } else {
             throw new IllegalArgumentException("Datasource does not provide tables: " + datasource);
         }
     }
 
+    /**
+     * Gets the permits for the connections to the specified data source.
+     *
+     * @param datasource     the data source
+     * @param maxConnections the number of permits, if the data source has none yet
+     * @return the permits
+     */
     @Nonnull
-    @Override
-    public final T getTableFromDatasource(@Nonnull final String table, @Nonnull final String datasourceId, @Nonnull final SQLContext sqlContext) {
-        return getTableFromDatasource(table, findById(datasourceId), sqlContext);
+    private static Semaphore getConnectionPermits(@Nonnull final Datasource datasource, final int maxConnections) {
+        final Semaphore permits = connectionPermits.get(datasource.getId());
+        if (permits != null) {
+            return permits;
+        }
+        final Semaphore newPermits = new Semaphore(maxConnections, true);
+        final Semaphore existingPermits = connectionPermits.putIfAbsent(datasource.getId(), newPermits);
+        return (existingPermits != null) ? existingPermits : newPermits;
     }
 
+    /**
+     * Gets the value of a data source setting from the Spark configuration. The setting for the data source overrides the setting for all data sources.
+     *
+     * @param conf         the Spark configuration
+     * @param datasource   the data source
+     * @param name         the setting name
+     * @param defaultValue the value if the setting is not defined
+     * @return the setting value
+     */
+    private int getSetting(@Nonnull final SparkConf conf, @Nonnull final Datasource datasource, @Nonnull final String name, final int defaultValue) {
+        final String value = conf.get(SETTING_PREFIX + name, Integer.toString(defaultValue));
+        return Integer.parseInt((datasource.getName() != null) ? conf.get(SETTING_PREFIX + datasource.getName() + "." + name, value) : value);
+    }
+
+    /**
+     * Reads the specified data set into the cache of the Spark application, so that later actions do not connect to the data source.
+     *
+     * @param dataset the data set
+     * @return the cached data set
+     */
+    @Nonnull
+    protected abstract T cache(@Nonnull T dataset);
+
     /**
      * Constructs a data set representing the specified database table accessible via JDBC.
      *
@@ -106,4 +251,17 @@ public abstract class AbstractDatasourceProvider<T> implements DatasourceProvide
      */
     @Nonnull
     protected abstract T readJdbcTable(@Nonnull String url, @Nonnull String table, @Nonnull Properties properties, @Nonnull SQLContext sqlContext);
+
+    /**
+     * Constructs a data set representing the specified database table accessible via JDBC, with one partition for each WHERE clause.
+     *
+     * @param url        the JDBC connection URL
+     * @param table      the table reference
+     * @param predicates the WHERE clause of each partition
+     * @param properties the JDBC connection properties
+     * @param sqlContext the Spark SQL context
+     * @return the data set
+     */
+    @Nonnull
+    protected abstract T readJdbcTable(@Nonnull String url, @Nonnull String table, @Nonnull String[] predicates, @Nonnull Properties properties, @Nonnull SQLContext sqlContext);
 }
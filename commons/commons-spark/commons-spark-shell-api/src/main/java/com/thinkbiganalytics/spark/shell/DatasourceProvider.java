@@ -66,4 +66,46 @@ public interface DatasourceProvider<T> {
     @SuppressWarnings("unused")  // method is used by generated Scala code
     // @formatter:on
     T getTableFromDatasource(@Nonnull String table, @Nonnull String datasourceId, @Nonnull SQLContext sqlContext);
+
+    /**
+     * Gets at most the specified number of rows of the specified table from the specified data source. The limit is applied by the database.
+     *
+     * @param table        the table name
+     * @param datasourceId the data source id
+     * @param limit        the maximum number of rows, or 0 for all rows
+     * @param sqlContext   the Spark SQL context
+     * @return the table dataset
+     * @throws IllegalArgumentException if the data source does not exist or does not provide tables
+     */
+    @Nonnull
+    // @formatter:off
+    @SuppressWarnings("unused")  // method is used by generated Scala code
+    // @formatter:on
+    T getTableFromDatasource(@Nonnull String table, @Nonnull String datasourceId, long limit, @Nonnull SQLContext sqlContext);
+
+    /**
+     * Gets the specified table from the specified data source using the specified options.
+     *
+     * @param table        the table name
+     * @param datasourceId the data source id
+     * @param options      the limit, filter, and partitioning of the read
+     * @param sqlContext   the Spark SQL context
+     * @return the table dataset
+     * @throws IllegalArgumentException if the data source does not exist or does not provide tables, or the partition bounds are not valid
+     */
+    @Nonnull
+    T getTableFromDatasource(@Nonnull String table, @Nonnull String datasourceId, @Nonnull JdbcReadOptions options, @Nonnull SQLContext sqlContext);
+
+    /**
+     * Gets the specified table from the specified data source using the specified options.
+     *
+     * @param table      the table name
+     * @param datasource the data source
+     * @param options    the limit, filter, and partitioning of the read
+     * @param sqlContext the Spark SQL context
+     * @return the table dataset
+     * @throws IllegalArgumentException if the data source does not provide tables, or the partition bounds are not valid
+     */
+    @Nonnull
+    T getTableFromDatasource(@Nonnull String table, @Nonnull Datasource datasource, @Nonnull JdbcReadOptions options, @Nonnull SQLContext sqlContext);
 }
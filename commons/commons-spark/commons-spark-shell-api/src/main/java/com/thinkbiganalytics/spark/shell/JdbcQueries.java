@@ -0,0 +1,166 @@
+package com.thinkbiganalytics.spark.shell;
+
+/*-
+ * #%L
+ * Kylo Commons Spark Shell
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Generates the SQL for reading a table from a JDBC data source.
+ */
+class JdbcQueries {
+
+    /**
+     * Alias of the subquery that applies the limit and filter
+     */
+    static final String QUERY_ALIAS = "KYLO_JDBC_QUERY";
+
+    private JdbcQueries() {
+    }
+
+    /**
+     * Gets the table reference for reading at most the specified number of rows matching the filter. The limit uses the syntax of the database in the JDBC URL.
+     *
+     * @param url    the JDBC connection URL
+     * @param table  the table name or an aliased subquery
+     * @param filter the SQL condition, or {@code null} to read all rows
+     * @param limit  the maximum number of rows, or 0 to read all rows
+     * @return the table reference
+     */
+    @Nonnull
+    static String toTable(@Nonnull final String url, @Nonnull final String table, @Nullable final String filter, final long limit) {
+        if (limit <= 0 && StringUtils.isBlank(filter)) {
+            return table;
+        }
+
+        final String where = StringUtils.isNotBlank(filter) ? " WHERE (" + filter + ")" : "";
+        final String sql;
+        if (limit <= 0) {
+            sql = "SELECT * FROM " + table + where;
+        } else if (url.startsWith("jdbc:sqlserver:") || url.startsWith("jdbc:jtds:") || url.startsWith("jdbc:teradata:")) {
+            sql = "SELECT TOP " + limit + " * FROM " + table + where;
+        } else if (url.startsWith("jdbc:oracle:")) {
+            sql = "SELECT * FROM " + table + (where.isEmpty() ? " WHERE " : where + " AND ") + "ROWNUM <= " + limit;
+        } else if (url.startsWith("jdbc:db2:") || url.startsWith("jdbc:derby:")) {
+            sql = "SELECT * FROM " + table + where + " FETCH FIRST " + limit + " ROWS ONLY";
+        } else {
+            sql = "SELECT * FROM " + table + where + " LIMIT " + limit;
+        }
+        return "(" + sql + ") " + QUERY_ALIAS;
+    }
+
+    /**
+     * Gets the WHERE clause of each partition for a read partitioned by ranges of a column. Rows below the lower bound or with a {@code null} value are read by the first
+     * partition, and rows above the upper bound are read by the last partition.
+     *
+     * @param column        the integer, decimal, date, or timestamp column
+     * @param lowerBound    the lower bound as an integer, a decimal, or a date in JDBC escape format
+     * @param upperBound    the upper bound in the same format as the lower bound
+     * @param numPartitions the maximum number of partitions
+     * @return the WHERE clause of each partition, or an empty array if the read should not be partitioned
+     * @throws IllegalArgumentException if the bounds are not numbers or dates
+     */
+    @Nonnull
+    static String[] toPartitionPredicates(@Nonnull final String column, @Nonnull final String lowerBound, @Nonnull final String upperBound, final int numPartitions) {
+        final String[] boundaries;
+
+        if (isLong(lowerBound) && isLong(upperBound)) {
+            final long lower = Long.parseLong(lowerBound.trim());
+            final long upper = Long.parseLong(upperBound.trim());
+            final int count = (int) Math.min(numPartitions, Math.max(upper - lower, 1));
+            final long stride = upper / count - lower / count;
+            boundaries = new String[count - 1];
+            for (int i = 1; i < count; ++i) {
+                boundaries[i - 1] = Long.toString(lower + stride * i);
+            }
+        } else if (isDecimal(lowerBound) && isDecimal(upperBound)) {
+            final BigDecimal lower = new BigDecimal(lowerBound.trim());
+            final BigDecimal upper = new BigDecimal(upperBound.trim());
+            final int count = (upper.compareTo(lower) > 0) ? numPartitions : 1;
+            final BigDecimal stride = upper.subtract(lower).divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+            boundaries = new String[count - 1];
+            for (int i = 1; i < count; ++i) {
+                boundaries[i - 1] = lower.add(stride.multiply(BigDecimal.valueOf(i))).toPlainString();
+            }
+        } else if (lowerBound.trim().length() > 10 && upperBound.trim().length() > 10) {
+            final long lower = Timestamp.valueOf(lowerBound.trim()).getTime();
+            final long upper = Timestamp.valueOf(upperBound.trim()).getTime();
+            final int count = (int) Math.min(numPartitions, Math.max(upper - lower, 1));
+            final long stride = (upper - lower) / count;
+            boundaries = new String[count - 1];
+            for (int i = 1; i < count; ++i) {
+                boundaries[i - 1] = "{ts '" + new Timestamp(lower + stride * i) + "'}";
+            }
+        } else {
+            final Calendar lower = Calendar.getInstance();
+            lower.setTime(Date.valueOf(lowerBound.trim()));
+            final Calendar upper = Calendar.getInstance();
+            upper.setTime(Date.valueOf(upperBound.trim()));
+            final long days = Math.round((upper.getTimeInMillis() - lower.getTimeInMillis()) / 86400000.0);
+            final int count = (int) Math.min(numPartitions, Math.max(days, 1));
+            final int stride = (int) (days / count);
+            boundaries = new String[count - 1];
+            for (int i = 1; i < count; ++i) {
+                lower.add(Calendar.DAY_OF_MONTH, stride);
+                boundaries[i - 1] = "{d '" + new Date(lower.getTimeInMillis()) + "'}";
+            }
+        }
+
+        if (boundaries.length == 0) {
+            return boundaries;
+        }
+
+        // Predicates are in parentheses as Spark 1 does not add them when combining with other filters
+        final String[] predicates = new String[boundaries.length + 1];
+        predicates[0] = "(" + column + " < " + boundaries[0] + " OR " + column + " IS NULL)";
+        for (int i = 1; i < boundaries.length; ++i) {
+            predicates[i] = "(" + column + " >= " + boundaries[i - 1] + " AND " + column + " < " + boundaries[i] + ")";
+        }
+        predicates[boundaries.length] = "(" + column + " >= " + boundaries[boundaries.length - 1] + ")";
+        return predicates;
+    }
+
+    private static boolean isDecimal(@Nonnull final String value) {
+        try {
+            new BigDecimal(value.trim());
+            return true;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isLong(@Nonnull final String value) {
+        try {
+            Long.parseLong(value.trim());
+            return true;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+}
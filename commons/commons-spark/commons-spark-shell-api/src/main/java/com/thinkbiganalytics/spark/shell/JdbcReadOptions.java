@@ -0,0 +1,155 @@
+package com.thinkbiganalytics.spark.shell;
+
+/*-
+ * #%L
+ * Kylo Commons Spark Shell
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Options for reading a table from a JDBC data source.
+ *
+ * <p>The limit and filter are added to the SQL sent to the database. A partition column splits the read into one query per range of values, which are read concurrently.</p>
+ *
+ * <p>The data wrangler only sets the limit. Partitioned reads are for Scala scripts run by the Spark Shell or Spark interpreter, which bind the {@code datasourceProvider} variable:</p>
+ * <pre>
+ * import com.thinkbiganalytics.spark.shell.JdbcReadOptions
+ * val options = new JdbcReadOptions().setPartitions("sold", "2017-01-01", "2018-01-01", 4).setFilter("amount &gt; 100")
+ * val df = datasourceProvider.getTableFromDatasource("sales.orders", "datasource-id", options, sqlContext)
+ * </pre>
+ *
+ * <p>The number of partitions is capped by the {@code spark.kylo.datasource[.<name>].maxPartitionsPerRead} Spark setting. The connections to a data source from all reads in the
+ * Spark application are limited by {@code spark.kylo.datasource[.<name>].maxConnections}. With that limit, each read waits for a connection per partition and is cached before
+ * the connections are released.</p>
+ */
+public class JdbcReadOptions {
+
+    /**
+     * Maximum number of rows to read, or 0 for all rows
+     */
+    private long limit;
+
+    /**
+     * SQL condition the rows must match
+     */
+    @Nullable
+    private String filter;
+
+    /**
+     * Integer, decimal, date, or timestamp column for partitioning the read
+     */
+    @Nullable
+    private String partitionColumn;
+
+    /**
+     * Lower bound of the partition column, as a number or a date in JDBC escape format
+     */
+    @Nullable
+    private String lowerBound;
+
+    /**
+     * Upper bound of the partition column, as a number or a date in JDBC escape format
+     */
+    @Nullable
+    private String upperBound;
+
+    /**
+     * Number of partitions, limited by the maximum partitions per read and the maximum connections of the data source
+     */
+    private int numPartitions;
+
+    /**
+     * Number of rows to fetch per round trip, or 0 for the data source default
+     */
+    private int fetchSize;
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Sets the maximum number of rows to read. A limited read is never partitioned.
+     */
+    @Nonnull
+    public JdbcReadOptions setLimit(final long limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    @Nullable
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Sets the SQL condition for the WHERE clause, such as {@code amount > 100}.
+     */
+    @Nonnull
+    public JdbcReadOptions setFilter(@Nullable final String filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    @Nullable
+    public String getPartitionColumn() {
+        return partitionColumn;
+    }
+
+    @Nullable
+    public String getLowerBound() {
+        return lowerBound;
+    }
+
+    @Nullable
+    public String getUpperBound() {
+        return upperBound;
+    }
+
+    public int getNumPartitions() {
+        return numPartitions;
+    }
+
+    /**
+     * Partitions the read by ranges of a column. Values outside the bounds are read by the first and last partitions.
+     *
+     * @param column        an integer, decimal, date, or timestamp column
+     * @param lowerBound    the lower bound, such as {@code 0}, {@code 0.5}, {@code 2017-01-01}, or {@code 2017-01-01 00:00:00}
+     * @param upperBound    the upper bound
+     * @param numPartitions the number of partitions
+     */
+    @Nonnull
+    public JdbcReadOptions setPartitions(@Nonnull final String column, @Nonnull final String lowerBound, @Nonnull final String upperBound, final int numPartitions) {
+        this.partitionColumn = column;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.numPartitions = numPartitions;
+        return this;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    @Nonnull
+    public JdbcReadOptions setFetchSize(final int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+}
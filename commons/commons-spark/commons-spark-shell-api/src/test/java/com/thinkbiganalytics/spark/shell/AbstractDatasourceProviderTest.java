@@ -0,0 +1,356 @@
+package com.thinkbiganalytics.spark.shell;
+
+/*-
+ * #%L
+ * Kylo Commons Spark Shell
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.rest.model.Datasource;
+import com.thinkbiganalytics.spark.rest.model.JdbcDatasource;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.SparkContext;
+import org.apache.spark.sql.SQLContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Reads tables from an embedded H2 database by running the queries that Spark would run for each partition.
+ */
+public class AbstractDatasourceProviderTest {
+
+    private static final String URL = "jdbc:h2:mem:kylo-datasource;DB_CLOSE_DELAY=-1";
+
+    /**
+     * Number of rows in the SALES table, including a row with null values
+     */
+    private static final int ROWS = 101;
+
+    private static Connection connection;
+
+    private final SparkConf conf = new SparkConf(false).set("spark.kylo.datasource.capped.maxPartitionsPerRead", "2").set("spark.kylo.datasource.capped.fetchSize", "50")
+        .set("spark.kylo.datasource.limited.maxConnections", "3").set("spark.kylo.datasource.unlimited.maxConnections", "0");
+
+    private final H2DatasourceProvider provider = new H2DatasourceProvider(Arrays.asList(newDatasource("h2"), newDatasource("capped"), newDatasource("limited"),
+                                                                                        newDatasource("unlimited")));
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE SALES (ID INT, AMOUNT INT, SOLD DATE, CREATED TIMESTAMP)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO SALES VALUES (?, ?, DATEADD('DAY', ?, DATE '2017-01-01'), DATEADD('HOUR', ?, TIMESTAMP '2017-01-01 00:00:00'))")) {
+            for (int i = 0; i < ROWS - 1; ++i) {
+                statement.setInt(1, i);
+                statement.setInt(2, i * 10);
+                statement.setInt(3, i);
+                statement.setInt(4, i);
+                statement.execute();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO SALES VALUES (NULL, NULL, NULL, NULL)");
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private static Datasource newDatasource(final String name) {
+        final JdbcDatasource datasource = new JdbcDatasource();
+        datasource.setId(name);
+        datasource.setName(name);
+        datasource.setDatabaseConnectionUrl(URL);
+        datasource.setDatabaseDriverClassName("org.h2.Driver");
+        datasource.setDatabaseUser("sa");
+        return datasource;
+    }
+
+    private SQLContext sqlContext() {
+        final SparkContext sparkContext = Mockito.mock(SparkContext.class);
+        Mockito.when(sparkContext.getConf()).thenReturn(conf);
+        final SQLContext sqlContext = Mockito.mock(SQLContext.class);
+        Mockito.when(sqlContext.sparkContext()).thenReturn(sparkContext);
+        return sqlContext;
+    }
+
+    /**
+     * Verify the whole table is read with a single partition by default.
+     */
+    @Test
+    public void testReadTable() {
+        final Read read = provider.getTableFromDatasource("SALES", "h2", sqlContext());
+        Assert.assertEquals("SALES", read.table);
+        Assert.assertEquals(1, read.partitions.size());
+        Assert.assertEquals(ROWS, read.rowCount());
+        Assert.assertEquals(Integer.toString(AbstractDatasourceProvider.DEFAULT_FETCH_SIZE), read.properties.getProperty("fetchsize"));
+        Assert.assertEquals("org.h2.Driver", read.properties.getProperty("driver"));
+        Assert.assertTrue(read.cached);
+
+        Assert.assertFalse(provider.getTableFromDatasource("SALES", "unlimited", sqlContext()).cached);
+    }
+
+    /**
+     * Verify the limit and filter are applied by the database.
+     */
+    @Test
+    public void testLimitAndFilter() {
+        final Read read = provider.getTableFromDatasource("SALES", "h2", new JdbcReadOptions().setLimit(5).setFilter("AMOUNT >= 500 OR ID IS NULL"), sqlContext());
+        Assert.assertEquals(5, read.rowCount());
+        for (final Integer amount : read.partitions.get(0)) {
+            Assert.assertTrue(amount == null || amount >= 500);
+        }
+
+        Assert.assertEquals(10, provider.getTableFromDatasource("SALES", "h2", 10L, sqlContext()).rowCount());
+        Assert.assertEquals(5, provider.getTableFromDatasource("(SELECT * FROM SALES WHERE ID < 5) AS KYLO_SPARK_QUERY", "h2", 10L, sqlContext()).rowCount());
+        Assert.assertEquals(51, provider.getTableFromDatasource("SALES", "h2", new JdbcReadOptions().setFilter("AMOUNT >= 500 OR ID IS NULL"), sqlContext()).rowCount());
+    }
+
+    /**
+     * Verify a numeric column partitions the read up to the maximum partitions per read, and every row is read once including rows outside the bounds.
+     */
+    @Test
+    public void testNumericPartitions() {
+        final Read read = provider.getTableFromDatasource("SALES", "h2", new JdbcReadOptions().setPartitions("ID", "10", "90", 10), sqlContext());
+        Assert.assertEquals(AbstractDatasourceProvider.DEFAULT_MAX_PARTITIONS_PER_READ, read.partitions.size());
+        Assert.assertEquals(ROWS, read.rowCount());
+        Assert.assertEquals(ROWS, read.distinctCount());
+        for (final List<Integer> partition : read.partitions) {
+            Assert.assertFalse(partition.isEmpty());
+        }
+
+        final Read filtered = provider.getTableFromDatasource("SALES", "h2", new JdbcReadOptions().setPartitions("ID", "0", "100", 4).setFilter("AMOUNT < 200"), sqlContext());
+        Assert.assertEquals(4, filtered.partitions.size());
+        Assert.assertEquals(20, filtered.rowCount());
+    }
+
+    /**
+     * Verify a decimal column partitions the read.
+     */
+    @Test
+    public void testDecimalPartitions() {
+        final Read read = provider.getTableFromDatasource("SALES", "h2", new JdbcReadOptions().setPartitions("AMOUNT", "0.5", "999.5", 4), sqlContext());
+        Assert.assertEquals(4, read.partitions.size());
+        Assert.assertEquals(ROWS, read.rowCount());
+        Assert.assertEquals(ROWS, read.distinctCount());
+
+        Assert.assertArrayEquals(new String[]{"(AMOUNT < 0.5 OR AMOUNT IS NULL)", "(AMOUNT >= 0.5 AND AMOUNT < 1.0)", "(AMOUNT >= 1.0)"},
+                                 JdbcQueries.toPartitionPredicates("AMOUNT", "0", "1.5", 3));
+    }
+
+    /**
+     * Verify concurrent reads of a data source do not exceed its maximum connections, and partitions are limited to the maximum connections.
+     */
+    @Test
+    public void testConnectionLimit() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Read>> reads = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                final int numPartitions = (i % 2 == 0) ? 2 : 4;
+                reads.add(executor.submit(new Callable<Read>() {
+                    @Override
+                    public Read call() {
+                        return provider.getTableFromDatasource("SALES", "limited", new JdbcReadOptions().setPartitions("ID", "0", "100", numPartitions), sqlContext());
+                    }
+                }));
+            }
+            for (final Future<Read> read : reads) {
+                Assert.assertEquals(ROWS, read.get().rowCount());
+                Assert.assertTrue(read.get().partitions.size() <= 3);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertTrue("Expected at most 3 connections but was " + provider.maxConnectionsInUse.get(), provider.maxConnectionsInUse.get() <= 3);
+        Assert.assertTrue(provider.maxConnectionsInUse.get() >= 2);
+    }
+
+    /**
+     * Verify date and timestamp columns partition the read.
+     */
+    @Test
+    public void testDatePartitions() {
+        final Read byDate = provider.getTableFromDatasource("SALES", "h2", new JdbcReadOptions().setPartitions("SOLD", "2017-01-01", "2017-04-10", 3), sqlContext());
+        Assert.assertEquals(3, byDate.partitions.size());
+        Assert.assertEquals(ROWS, byDate.rowCount());
+        Assert.assertEquals(ROWS, byDate.distinctCount());
+
+        final Read byTimestamp = provider.getTableFromDatasource("SALES", "h2", new JdbcReadOptions().setPartitions("CREATED", "2017-01-01 00:00:00", "2017-01-05 04:00:00", 4), sqlContext());
+        Assert.assertEquals(4, byTimestamp.partitions.size());
+        Assert.assertEquals(ROWS, byTimestamp.rowCount());
+        Assert.assertEquals(ROWS, byTimestamp.distinctCount());
+    }
+
+    /**
+     * Verify the settings of a data source limit the partitions, and limited reads are not partitioned.
+     */
+    @Test
+    public void testDatasourceSettings() {
+        final Read capped = provider.getTableFromDatasource("SALES", "capped", new JdbcReadOptions().setPartitions("ID", "0", "100", 10), sqlContext());
+        Assert.assertEquals(2, capped.partitions.size());
+        Assert.assertEquals("50", capped.properties.getProperty("fetchsize"));
+        Assert.assertEquals(ROWS, capped.rowCount());
+
+        final Read limited = provider.getTableFromDatasource("SALES", "h2", new JdbcReadOptions().setPartitions("ID", "0", "100", 10).setLimit(50).setFetchSize(25), sqlContext());
+        Assert.assertEquals(1, limited.partitions.size());
+        Assert.assertEquals("25", limited.properties.getProperty("fetchsize"));
+        Assert.assertEquals(50, limited.rowCount());
+    }
+
+    /**
+     * Verify the limit uses the syntax of the database.
+     */
+    @Test
+    public void testLimitSyntax() {
+        Assert.assertEquals("SALES", JdbcQueries.toTable("jdbc:mysql://localhost/kylo", "SALES", null, 0));
+        Assert.assertEquals("(SELECT * FROM SALES WHERE (ID > 1) LIMIT 10) KYLO_JDBC_QUERY", JdbcQueries.toTable("jdbc:mysql://localhost/kylo", "SALES", "ID > 1", 10));
+        Assert.assertEquals("(SELECT TOP 10 * FROM SALES) KYLO_JDBC_QUERY", JdbcQueries.toTable("jdbc:sqlserver://localhost", "SALES", null, 10));
+        Assert.assertEquals("(SELECT * FROM SALES WHERE (ID > 1) AND ROWNUM <= 10) KYLO_JDBC_QUERY", JdbcQueries.toTable("jdbc:oracle:thin:@localhost:1521:kylo", "SALES", "ID > 1", 10));
+        Assert.assertEquals("(SELECT * FROM SALES FETCH FIRST 10 ROWS ONLY) KYLO_JDBC_QUERY", JdbcQueries.toTable("jdbc:db2://localhost/kylo", "SALES", "", 10));
+    }
+
+    /**
+     * The amounts read by each partition of a table.
+     */
+    private static class Read {
+
+        String table;
+
+        Properties properties;
+
+        boolean cached;
+
+        final List<List<Integer>> partitions = new ArrayList<>();
+
+        int rowCount() {
+            int count = 0;
+            for (final List<Integer> partition : partitions) {
+                count += partition.size();
+            }
+            return count;
+        }
+
+        int distinctCount() {
+            final Set<Integer> amounts = new HashSet<>();
+            for (final List<Integer> partition : partitions) {
+                amounts.addAll(partition);
+            }
+            return amounts.size();
+        }
+    }
+
+    /**
+     * Runs the queries that Spark would run for each partition.
+     */
+    private static class H2DatasourceProvider extends AbstractDatasourceProvider<Read> {
+
+        /**
+         * Connections currently used by reads
+         */
+        final AtomicInteger connectionsInUse = new AtomicInteger();
+
+        /**
+         * Maximum connections used at once by concurrent reads
+         */
+        final AtomicInteger maxConnectionsInUse = new AtomicInteger();
+
+        H2DatasourceProvider(@Nonnull final List<Datasource> datasources) {
+            super(datasources);
+        }
+
+        @Nonnull
+        @Override
+        protected Read cache(@Nonnull final Read dataset) {
+            dataset.cached = true;
+            return dataset;
+        }
+
+        @Nonnull
+        @Override
+        protected Read readJdbcTable(@Nonnull final String url, @Nonnull final String table, @Nonnull final Properties properties, @Nonnull final SQLContext sqlContext) {
+            return readJdbcTable(url, table, new String[]{null}, properties, sqlContext);
+        }
+
+        @Nonnull
+        @Override
+        protected Read readJdbcTable(@Nonnull final String url, @Nonnull final String table, @Nonnull final String[] predicates, @Nonnull final Properties properties,
+                                     @Nonnull final SQLContext sqlContext) {
+            final Read read = new Read();
+            read.table = table;
+            read.properties = properties;
+
+            // Spark uses one connection for each partition
+            final int connections = connectionsInUse.addAndGet(predicates.length);
+            synchronized (maxConnectionsInUse) {
+                maxConnectionsInUse.set(Math.max(maxConnectionsInUse.get(), connections));
+            }
+            try (Connection partitionConnection = DriverManager.getConnection(url, properties)) {
+                for (final String predicate : predicates) {
+                    final List<Integer> amounts = new ArrayList<>();
+                    try (PreparedStatement statement = partitionConnection.prepareStatement("SELECT AMOUNT FROM " + table + ((predicate != null) ? " WHERE " + predicate : ""))) {
+                        statement.setFetchSize(Integer.parseInt(properties.getProperty("fetchsize")));
+                        try (ResultSet rs = statement.executeQuery()) {
+                            while (rs.next()) {
+                                final int amount = rs.getInt(1);
+                                amounts.add(rs.wasNull() ? null : amount);
+                            }
+                        }
+                    }
+                    read.partitions.add(amounts);
+                }
+                Thread.sleep(20);
+            } catch (final SQLException e) {
+                throw new IllegalStateException("Failed to read table: " + table, e);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connectionsInUse.addAndGet(-predicates.length);
+            }
+            return read;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.thinkbiganalytics.spark.rest.model.Datasource;
 
 import org.apache.spark.sql.DataFrame;
 import org.apache.spark.sql.SQLContext;
+import org.apache.spark.storage.StorageLevel;
 
 import java.util.Collection;
 import java.util.Properties;
@@ -44,9 +45,24 @@ public class DatasourceProviderV1 extends AbstractDatasourceProvider<DataFrame>
         super(datasources);
     }
 
+    @Nonnull
+    @Override
+    protected DataFrame cache(@Nonnull final DataFrame dataset) {
+        dataset.persist(StorageLevel.MEMORY_AND_DISK());
+        dataset.count();
+        return dataset;
+    }
+
     @Nonnull
     @Override
     protected DataFrame readJdbcTable(@Nonnull final String url, @Nonnull final String table, @Nonnull final Properties properties, @Nonnull final SQLContext sqlContext) {
         return sqlContext.read().jdbc(url, table, properties);
     }
+
+    @Nonnull
+    @Override
+    protected DataFrame readJdbcTable(@Nonnull final String url, @Nonnull final String table, @Nonnull final String[] predicates, @Nonnull final Properties properties,
+                                      @Nonnull final SQLContext sqlContext) {
+        return sqlContext.read().jdbc(url, table, predicates, properties);
+    }
 }
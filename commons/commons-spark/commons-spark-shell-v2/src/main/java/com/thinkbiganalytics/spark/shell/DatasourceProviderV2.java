@@ -25,6 +25,7 @@ import com.thinkbiganalytics.spark.rest.model.Datasource;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SQLContext;
+import org.apache.spark.storage.StorageLevel;
 
 import java.util.Collection;
 import java.util.Properties;
@@ -45,9 +46,24 @@ public class DatasourceProviderV2 extends AbstractDatasourceProvider<Dataset<Row
         super(datasources);
     }
 
+    @Nonnull
+    @Override
+    protected Dataset<Row> cache(@Nonnull final Dataset<Row> dataset) {
+        dataset.persist(StorageLevel.MEMORY_AND_DISK());
+        dataset.count();
+        return dataset;
+    }
+
     @Nonnull
     @Override
     protected Dataset<Row> readJdbcTable(@Nonnull final String url, @Nonnull final String table, @Nonnull final Properties properties, @Nonnull final SQLContext sqlContext) {
         return sqlContext.read().jdbc(url, table, properties);
     }
+
+    @Nonnull
+    @Override
+    protected Dataset<Row> readJdbcTable(@Nonnull final String url, @Nonnull final String table, @Nonnull final String[] predicates, @Nonnull final Properties properties,
+                                         @Nonnull final SQLContext sqlContext) {
+        return sqlContext.read().jdbc(url, table, predicates, properties);
+    }
 }
@@ -23,9 +23,11 @@ package com.thinkbiganalytics.alerts.api.core;
  * #L%
  */
 
+import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.thinkbiganalytics.alerts.api.Alert;
 import com.thinkbiganalytics.alerts.api.Alert.ID;
+import com.thinkbiganalytics.alerts.api.AlertChangeEvent;
 import com.thinkbiganalytics.alerts.api.AlertCriteria;
 import com.thinkbiganalytics.alerts.api.AlertListener;
 import com.thinkbiganalytics.alerts.api.AlertProvider;
@@ -43,22 +45,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.net.URI;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -80,13 +82,36 @@ public class AggregatingAlertProvider implements AlertProvider, AlertSourceAggre
 
     private static final Logger LOG = LoggerFactory.getLogger(AggregatingAlertProvider.class);
 
+    /**
+     * Orders alerts from newest to oldest
+     */
+    private static final Comparator<Alert> NEWEST_FIRST = (a1, a2) -> a2.getCreatedTime().compareTo(a1.getCreatedTime());
+
+    /**
+     * Orders alerts from oldest to newest
+     */
+    private static final Comparator<Alert> OLDEST_FIRST = (a1, a2) -> a1.getCreatedTime().compareTo(a2.getCreatedTime());
+
+    /**
+     * The default maximum number of alerts retrieved from each source per fetch when alerts become available
+     */
+    private static final int DEFAULT_AVAILABLE_ALERTS_PAGE_SIZE = 100;
+
     private List<AlertResponder> responders;
     private Registration<?, ?> respondersRegistration;
     private Map<AlertListener, Registration<?, ?>> listeners;
     private Map<String, AlertSource> sources;
     private Map<String, AlertManager> managers;
     private Executor availableAlertsExecutor;
+    private int availableAlertsPageSize = DEFAULT_AVAILABLE_ALERTS_PAGE_SIZE;
+    private final AtomicBoolean availableAlertsPending = new AtomicBoolean(false);
+
+    /**
+     * The cursor of alerts already delivered to listeners: the created time of the newest alert seen and the IDs of
+     * the alerts seen with that same time.
+     */
     private volatile DateTime lastAlertsTime = DateTime.now();
+    private final Set<Alert.ID> lastAlertIds = new HashSet<>();
 
     @Inject
     @Named("alertsEventBus")
@@ -127,6 +152,13 @@ public class AggregatingAlertProvider implements AlertProvider, AlertSourceAggre
         this.availableAlertsExecutor = availableAlertsExecutor;
     }
 
+    /**
+     * @param availableAlertsPageSize the maximum number of alerts to retrieve from each source per fetch when alerts become available
+     */
+    public void setAvailableAlertsPageSize(int availableAlertsPageSize) {
+        this.availableAlertsPageSize = Math.max(1, availableAlertsPageSize);
+    }
+
     /* (non-Javadoc)
      * @see reactor.fn.Consumer#accept(java.lang.Object)
      */
@@ -264,7 +296,7 @@ public class AggregatingAlertProvider implements AlertProvider, AlertSourceAggre
     @Override
     public Iterator<? extends Alert> getAlerts(AlertCriteria criteria) {
         Map<String, AlertSource> srcs = snapshotAllSources();
-        return combineAlerts(criteria, srcs).iterator();
+        return combineAlerts(criteria, srcs);
     }
 
 
@@ -305,23 +337,57 @@ public class AggregatingAlertProvider implements AlertProvider, AlertSourceAggre
     public void alertsAvailable(int count) {
         LOG.debug("Alerts available: {}", count);
 
-        this.availableAlertsExecutor.execute(() -> {
-            final AtomicReference<DateTime> sinceTime = new AtomicReference<>(AggregatingAlertProvider.this.lastAlertsTime);
-            Map<String, AlertSource> sources = snapshotAllSources();
-
-            combineAlerts(criteria().asServiceAccount(true).after(sinceTime.get()), sources).forEach(alert -> {
-                LOG.debug("Alert {} received from {}", alert.getId(), alert.getSource());
+        // Notifications received while a fetch is still queued are satisfied by that fetch
+        if (this.availableAlertsPending.compareAndSet(false, true)) {
+            this.availableAlertsExecutor.execute(() -> {
+                this.availableAlertsPending.set(false);
+                fetchAvailableAlerts();
+            });
+        }
+    }
 
-                notifyListeners(alert);
-                if (alert.isActionable()) {
-                    notifyResponders(alert);
+    /**
+     * Pages through the alerts created since the last fetch, oldest first, and notifies the listeners and responders
+     * of each new alert.  Each page is retrieved with a limit and an "after" time so that the sources only return the
+     * alerts following the cursor.
+     */
+    private void fetchAvailableAlerts() {
+        synchronized (this.lastAlertIds) {
+            Map<String, AlertSource> sources = snapshotAllSources();
+            boolean more = true;
+
+            while (more) {
+                // Include alerts created at the cursor time that have not been seen yet, allowing room for those already seen
+                int limit = this.availableAlertsPageSize + this.lastAlertIds.size();
+                Criteria criteria = (Criteria) criteria().asServiceAccount(true).after(this.lastAlertsTime.minusMillis(1)).limit(limit);
+                Iterator<Alert> page = mergeAlerts(criteria, sources, OLDEST_FIRST);
+                int pageSize = 0;
+                int newAlerts = 0;
+
+                while (page.hasNext()) {
+                    Alert alert = page.next();
+                    pageSize++;
+
+                    if (alert.getCreatedTime().isAfter(this.lastAlertsTime)) {
+                        this.lastAlertsTime = alert.getCreatedTime();
+                        this.lastAlertIds.clear();
+                    } else if (alert.getCreatedTime().isBefore(this.lastAlertsTime) || this.lastAlertIds.contains(alert.getId())) {
+                        continue;
+                    }
+
+                    this.lastAlertIds.add(alert.getId());
+                    newAlerts++;
+                    LOG.debug("Alert {} received from {}", alert.getId(), alert.getSource());
+
+                    notifyListeners(alert);
+                    if (alert.isActionable()) {
+                        notifyResponders(alert);
+                    }
                 }
 
-                sinceTime.set(alert.getCreatedTime());
-            });
-
-            AggregatingAlertProvider.this.lastAlertsTime = sinceTime.get();
-        });
+                more = pageSize >= limit && newAlerts > 0;
+            }
+        }
     }
 
     @PostConstruct
@@ -354,19 +420,58 @@ public class AggregatingAlertProvider implements AlertProvider, AlertSourceAggre
         }
     }
 
-    private Stream<Alert> combineAlerts(AlertCriteria criteria, Map<String, AlertSource> srcs) {
+    /**
+     * Combines the alerts of all sources, newest first.  The criteria, including its limit, is pushed down to each source
+     * and the sorted per-source results are k-way merged so that only the alerts returned are compared and wrapped.
+     */
+    private Iterator<Alert> combineAlerts(AlertCriteria criteria, Map<String, AlertSource> srcs) {
         Criteria critImpl = (Criteria) criteria;
 
-        return srcs.values().stream()
-            .map(src -> {
-                AlertCriteria srcCrit = src.criteria();
-                critImpl.transfer(srcCrit);
-                Iterable<Alert> alerts = () -> src.getAlerts(srcCrit);
-                return StreamSupport.stream(alerts.spliterator(), false);
-            })
-            .flatMap(s -> s)
-            .map(alert -> wrapAlert(alert, alert.getSource()))
-            .sorted((a1, a2) -> a2.getCreatedTime().compareTo(a1.getCreatedTime()));
+        // As with the sources, a limit with only an "after" time selects the oldest alerts following that time
+        if (critImpl.getLimit() != Integer.MAX_VALUE && critImpl.getAfterTime() != null && critImpl.getBeforeTime() == null) {
+            List<Alert> oldest = new ArrayList<>();
+            mergeAlerts(critImpl, srcs, OLDEST_FIRST).forEachRemaining(oldest::add);
+            Collections.reverse(oldest);
+            return oldest.iterator();
+        } else {
+            return mergeAlerts(critImpl, srcs, NEWEST_FIRST);
+        }
+    }
+
+    /**
+     * Lazily merges the alerts of each source in the specified order, up to the criteria limit, wrapping each returned alert.
+     */
+    private Iterator<Alert> mergeAlerts(Criteria criteria, Map<String, AlertSource> srcs, Comparator<Alert> order) {
+        List<Iterator<Alert>> sorted = new ArrayList<>(srcs.size());
+
+        for (AlertSource src : srcs.values()) {
+            AlertCriteria srcCrit = src.criteria();
+            criteria.transfer(srcCrit);
+            sorted.add(sortAlerts(src.getAlerts(srcCrit), criteria.getLimit(), order).iterator());
+        }
+
+        Iterator<Alert> merged = Iterators.limit(Iterators.mergeSorted(sorted, order), criteria.getLimit());
+        return Iterators.transform(merged, alert -> wrapAlert(alert, alert.getSource()));
+    }
+
+    /**
+     * Reads at most limit alerts from a source and ensures they are in the specified order.  Sources usually return their
+     * alerts already sorted by created time (in either direction) so this is normally a single pass over the results.
+     */
+    private static List<Alert> sortAlerts(Iterator<Alert> alerts, int limit, Comparator<Alert> order) {
+        List<Alert> list = new ArrayList<>();
+        boolean ordered = true;
+
+        while (alerts != null && alerts.hasNext() && list.size() < limit) {
+            Alert alert = alerts.next();
+            ordered = ordered && (list.isEmpty() || order.compare(list.get(list.size() - 1), alert) <= 0);
+            list.add(alert);
+        }
+
+        if (!ordered) {
+            list.sort(order);
+        }
+        return list;
     }
 
     private Stream<AlertSummary> combineAlertSummary(AlertCriteria criteria, Map<String, AlertSource> srcs) {
@@ -488,50 +593,124 @@ public class AggregatingAlertProvider implements AlertProvider, AlertSourceAggre
     }
 
     private Alert wrapAlert(final SourceAlertID id, final Alert alert) {
-        if (Proxy.isProxyClass(alert.getClass())) {
+        if (alert instanceof SourceAlertView) {
             return alert;
         } else {
-            InvocationHandler handler = new AlertInvocationHandler(alert, id);
-            return (Alert) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[]{Alert.class}, handler);
+            return new SourceAlertView(alert, id);
         }
     }
 
-    public Alert unwrapAlert(Alert proxy) {
-        if (Proxy.isProxyClass(proxy.getClass())) {
-            AlertInvocationHandler handler = (AlertInvocationHandler) Proxy.getInvocationHandler(proxy);
-            return handler.wrapped;
+    public Alert unwrapAlert(Alert alert) {
+        if (alert instanceof SourceAlertView) {
+            return ((SourceAlertView) alert).getWrappedAlert();
         } else {
-            return proxy;  // not a proxy
+            return alert;  // not wrapped
         }
     }
 
-    protected static class AlertInvocationHandler implements InvocationHandler, SourceAlert {
+    /**
+     * A view of an alert from a source that replaces its ID with one identifying the source.
+     */
+    protected static class SourceAlertView implements Alert, SourceAlert {
 
         private final Alert wrapped;
-        private final SourceAlertID proxyId;
+        private final SourceAlertID sourceId;
 
-        public AlertInvocationHandler(Alert wrapped, SourceAlertID proxyId) {
+        public SourceAlertView(Alert wrapped, SourceAlertID sourceId) {
             super();
             this.wrapped = wrapped;
-            this.proxyId = proxyId;
+            this.sourceId = sourceId;
         }
 
         @Override
-        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            if (method.getName().equals("getId")) {
-                return (Alert.ID) this.proxyId;
-            } else {
-                return method.invoke(this.wrapped, args);
-            }
+        public ID getId() {
+            return this.sourceId;
+        }
+
+        @Override
+        public URI getType() {
+            return this.wrapped.getType();
+        }
+
+        @Override
+        public String getSubtype() {
+            return this.wrapped.getSubtype();
+        }
+
+        @Override
+        public String getDescription() {
+            return this.wrapped.getDescription();
+        }
+
+        @Override
+        public Level getLevel() {
+            return this.wrapped.getLevel();
+        }
+
+        @Override
+        public DateTime getCreatedTime() {
+            return this.wrapped.getCreatedTime();
+        }
+
+        @Override
+        public AlertSource getSource() {
+            return this.wrapped.getSource();
+        }
+
+        @Override
+        public boolean isActionable() {
+            return this.wrapped.isActionable();
+        }
+
+        @Override
+        public State getState() {
+            return this.wrapped.getState();
         }
 
+        @Override
+        public boolean isCleared() {
+            return this.wrapped.isCleared();
+        }
+
+        @Override
+        public List<AlertChangeEvent> getEvents() {
+            return this.wrapped.getEvents();
+        }
+
+        @Override
+        public <C extends Serializable> C getContent() {
+            return this.wrapped.getContent();
+        }
+
+        @Override
         public Alert getWrappedAlert() {
             return this.wrapped;
         }
 
         @Override
         public ID getSourceAlertId() {
-            return proxyId;
+            return this.sourceId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SourceAlertView)) {
+                return false;
+            }
+            return Objects.equals(this.sourceId, ((SourceAlertView) obj).sourceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.sourceId.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return this.wrapped.toString();
         }
     }
 
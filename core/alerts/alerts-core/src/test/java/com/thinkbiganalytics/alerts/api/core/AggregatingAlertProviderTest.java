@@ -31,7 +31,7 @@ import com.thinkbiganalytics.alerts.api.AlertCriteria;
 import com.thinkbiganalytics.alerts.api.AlertListener;
 import com.thinkbiganalytics.alerts.api.AlertResponder;
 import com.thinkbiganalytics.alerts.api.AlertResponse;
-import com.thinkbiganalytics.alerts.api.core.AggregatingAlertProvider.AlertInvocationHandler;
+import com.thinkbiganalytics.alerts.api.SourceAlert;
 import com.thinkbiganalytics.alerts.api.core.AggregatingAlertProvider.SourceAlertID;
 import com.thinkbiganalytics.alerts.spi.AlertManager;
 import com.thinkbiganalytics.alerts.spi.AlertSource;
@@ -54,7 +54,6 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.io.Serializable;
-import java.lang.reflect.Proxy;
 import java.net.URI;
 import java.security.Principal;
 import java.util.Arrays;
@@ -73,6 +72,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -306,6 +306,72 @@ public class AggregatingAlertProviderTest {
         verify(this.responder, times(1)).alertChange(any(Alert.class), any(AlertResponse.class));
     }
 
+    @Test
+    public void testGetAlertsMergedNewestFirstWithLimit() {
+        DateTime now = DateTime.now();
+        TestAlert srcAlert1 = new TestAlert(this.source, now.minusSeconds(5));
+        TestAlert srcAlert3 = new TestAlert(this.source, now.minusSeconds(1));
+        TestAlert mgrAlert2 = new TestAlert(this.manager, now.minusSeconds(4));
+        TestAlert mgrAlert4 = new TestAlert(this.manager, now.minusMillis(500));
+
+        this.provider.addAlertSource(this.source);
+        this.provider.addAlertManager(this.manager);
+
+        // Sources may return their alerts in either order
+        when(this.source.getAlerts(any(AlertCriteria.class))).thenAnswer(iteratorAnswer(srcAlert3, srcAlert1));
+        when(this.manager.getAlerts(any(AlertCriteria.class))).thenAnswer(iteratorAnswer(mgrAlert2, mgrAlert4));
+
+        List<Alert> alerts = Lists.newArrayList(Iterators.transform(this.provider.getAlerts(this.provider.criteria().limit(3)), providerToSourceAlertFunction()));
+        assertThat(alerts).containsExactly(mgrAlert4, srcAlert3, mgrAlert2);
+
+        // A limit with only an "after" time selects the oldest alerts after that time
+        alerts = Lists.newArrayList(Iterators.transform(this.provider.getAlerts(this.provider.criteria().after(now.minusSeconds(10)).limit(2)),
+                                                        providerToSourceAlertFunction()));
+        assertThat(alerts).containsExactly(mgrAlert2, srcAlert1);
+    }
+
+    @Test
+    public void testAlertsAvailablePaged() throws InterruptedException {
+        DateTime now = DateTime.now();
+        TestAlert mgrAlert1 = new TestAlert(this.manager, false, now.plusSeconds(1));
+        TestAlert mgrAlert2 = new TestAlert(this.manager, false, now.plusSeconds(2));
+        TestAlert mgrAlert3 = new TestAlert(this.manager, false, now.plusSeconds(3));
+        TestAlert srcAlert2 = new TestAlert(this.source, now.plusSeconds(2));
+
+        this.provider.setAvailableAlertsPageSize(1);
+        this.provider.addAlertSource(this.source);
+        this.provider.addAlertManager(this.manager);
+
+        when(this.source.criteria()).thenAnswer(invocation -> new BaseAlertCriteria());
+        when(this.manager.criteria()).thenAnswer(invocation -> new BaseAlertCriteria());
+        when(this.source.getAlerts(any(AlertCriteria.class))).thenAnswer(criteriaAnswer(srcAlert2));
+        when(this.manager.getAlerts(any(AlertCriteria.class))).thenAnswer(criteriaAnswer(mgrAlert1, mgrAlert2, mgrAlert3));
+
+        this.provider.alertsAvailable(4);
+
+        verify(this.listener, timeout(10000).times(4)).alertChange(any(Alert.class));
+
+        // Only alerts created after the last fetch are delivered
+        TestAlert mgrAlert4 = new TestAlert(this.manager, false, now.plusSeconds(4));
+        doAnswer(criteriaAnswer(mgrAlert1, mgrAlert2, mgrAlert3, mgrAlert4)).when(this.manager).getAlerts(any(AlertCriteria.class));
+
+        this.provider.alertsAvailable(1);
+
+        verify(this.listener, timeout(10000).times(5)).alertChange(any(Alert.class));
+    }
+
+    /**
+     * Answers the alerts matching the criteria, oldest first and limited, as the alert managers do.
+     */
+    private Answer<Iterator<? extends Alert>> criteriaAnswer(final Alert... alerts) {
+        return new Answer<Iterator<? extends Alert>>() {
+            @Override
+            public Iterator<? extends Alert> answer(InvocationOnMock invocation) throws Throwable {
+                BaseAlertCriteria criteria = (BaseAlertCriteria) invocation.getArguments()[0];
+                return Arrays.stream(alerts).filter(criteria).limit(criteria.getLimit()).iterator();
+            }
+        };
+    }
 
     private Answer<Iterator<? extends Alert>> iteratorAnswer(final Alert... alerts) {
         return new Answer<Iterator<? extends Alert>>() {
@@ -324,9 +390,8 @@ public class AggregatingAlertProviderTest {
         return new Function<Alert, Alert>() {
             @Override
             public Alert apply(Alert input) {
-                if (Proxy.isProxyClass(input.getClass())) {
-                    AlertInvocationHandler handler = (AlertInvocationHandler) Proxy.getInvocationHandler(input);
-                    return handler.getWrappedAlert();
+                if (input instanceof SourceAlert) {
+                    return ((SourceAlert) input).getWrappedAlert();
                 } else {
                     return input;
                 }
@@ -0,0 +1,36 @@
+package com.thinkbiganalytics.cluster;
+
+/*-
+ * #%L
+ * kylo-cluster-manager-api
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+
+/**
+ * A message that identifies the item it describes.  When several messages of the same type describe the same item
+ * within the cluster send window, only the latest one is sent.
+ */
+public interface CoalescableMessage extends Serializable {
+
+    /**
+     * The key of the item this message describes
+     * @return the key used to coalesce messages of the same type
+     */
+    Serializable getCoalescingKey();
+}
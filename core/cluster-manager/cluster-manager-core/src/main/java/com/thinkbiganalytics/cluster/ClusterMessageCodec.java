@@ -0,0 +1,182 @@
+package com.thinkbiganalytics.cluster;
+
+/*-
+ * #%L
+ * kylo-cluster-manager-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes a batch of cluster messages into a single frame.
+ *
+ * <p>Message types and common payloads (strings, numbers, booleans and UUIDs) are written directly; other payloads
+ * are written with Java serialization.</p>
+ */
+public class ClusterMessageCodec {
+
+    private static final byte MAGIC = 'K';
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte UUID_VALUE = 5;
+    private static final byte SERIALIZED = 9;
+
+    /**
+     * Encodes the messages into a frame.
+     *
+     * @param messages the messages to encode
+     * @return the frame
+     * @throws IOException if a payload cannot be serialized
+     */
+    public byte[] encode(List<? extends ClusterMessage> messages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * messages.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(messages.size());
+        for (ClusterMessage message : messages) {
+            writeString(out, message.getType());
+            writePayload(out, message.getMessage());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes the messages from a frame.
+     *
+     * @param buffer the buffer containing the frame
+     * @param offset the offset of the frame in the buffer
+     * @param length the length of the frame
+     * @return the messages
+     * @throws IOException if the frame is not valid or a payload cannot be deserialized
+     */
+    public List<ClusterMessage> decode(byte[] buffer, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer, offset, length));
+
+        if (in.readByte() != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Unsupported cluster message frame");
+        }
+
+        int count = in.readInt();
+        List<ClusterMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String type = readString(in);
+            messages.add(new StandardClusterMessage(type, readPayload(in)));
+        }
+        return messages;
+    }
+
+    private void writePayload(DataOutputStream out, Serializable payload) throws IOException {
+        if (payload == null) {
+            out.writeByte(NULL);
+        } else if (payload instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) payload);
+        } else if (payload instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) payload);
+        } else if (payload instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) payload);
+        } else if (payload instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) payload);
+        } else if (payload instanceof UUID) {
+            out.writeByte(UUID_VALUE);
+            out.writeLong(((UUID) payload).getMostSignificantBits());
+            out.writeLong(((UUID) payload).getLeastSignificantBits());
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                objectOut.writeObject(payload);
+            }
+            out.writeByte(SERIALIZED);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    private Serializable readPayload(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case LONG:
+                return in.readLong();
+            case INTEGER:
+                return in.readInt();
+            case BOOLEAN:
+                return in.readBoolean();
+            case UUID_VALUE:
+                return new UUID(in.readLong(), in.readLong());
+            case SERIALIZED:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream objectIn = new ConfigurableObjectInputStream(new ByteArrayInputStream(bytes), ClassUtils.getDefaultClassLoader())) {
+                    return (Serializable) objectIn.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Unable to deserialize cluster message: " + e.getMessage(), e);
+                }
+            default:
+                throw new IOException("Unknown cluster message payload: " + tag);
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+package com.thinkbiganalytics.cluster;
+
+/*-
+ * #%L
+ * kylo-cluster-manager-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers received cluster messages to the message receivers without blocking the JGroups delivery thread.
+ *
+ * <p>Each receiver has its own single thread and bounded queue, so a slow receiver does not delay the others and each
+ * receiver sees messages in the order they were received.  When a receiver's queue is full the calling thread waits for
+ * space, slowing down the delivery of further messages rather than dropping them.</p>
+ */
+public class ClusterMessageDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterMessageDispatcher.class);
+
+    private final int queueCapacity;
+
+    private final Map<ClusterServiceMessageReceiver, ExecutorService> executors = new ConcurrentHashMap<>();
+
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a dispatcher.
+     *
+     * @param queueCapacity the maximum number of messages waiting for each receiver
+     */
+    public ClusterMessageDispatcher(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Queues the message for delivery to the receiver.
+     *
+     * @param receiver the message receiver
+     * @param from     the address of the sending node
+     * @param message  the message
+     */
+    public void dispatch(ClusterServiceMessageReceiver receiver, String from, ClusterMessage message) {
+        Runnable delivery = () -> {
+            try {
+                receiver.onMessageReceived(from, message);
+            } catch (Exception e) {
+                log.error("Cluster message receiver {} failed to process {} message from {}", receiver.getClass().getSimpleName(), message.getType(), from, e);
+            }
+        };
+
+        if (stopped) {
+            delivery.run();
+        } else {
+            executors.computeIfAbsent(receiver, this::createExecutor).execute(delivery);
+        }
+    }
+
+    /**
+     * Gets the total number of messages waiting to be delivered.
+     *
+     * @return the number of queued messages
+     */
+    public int getQueueDepth() {
+        return executors.values().stream()
+            .mapToInt(executor -> ((ThreadPoolExecutor) executor).getQueue().size())
+            .sum();
+    }
+
+    /**
+     * Delivers the queued messages and stops the receiver threads.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     */
+    public void stop(long timeout) {
+        stopped = true;
+        executors.values().forEach(ExecutorService::shutdown);
+
+        long deadline = System.currentTimeMillis() + timeout;
+        for (ExecutorService executor : executors.values()) {
+            try {
+                if (!executor.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                    log.warn("Cluster message delivery did not complete within {} ms", timeout);
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+            }
+        }
+        executors.clear();
+    }
+
+    private ExecutorService createExecutor(ClusterServiceMessageReceiver receiver) {
+        String name = "cluster-receiver-" + receiver.getClass().getSimpleName();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        }, ClusterMessageDispatcher::waitForSpace);
+        return executor;
+    }
+
+    /**
+     * Waits for space in the receiver's queue, or delivers the message on the calling thread if the receiver is stopped.
+     */
+    private static void waitForSpace(Runnable delivery, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            delivery.run();
+        } else {
+            try {
+                executor.getQueue().put(delivery);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                delivery.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.thinkbiganalytics.cluster;
+
+/*-
+ * #%L
+ * kylo-cluster-manager-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.jgroups.Address;
+import org.jgroups.JChannel;
+import org.jgroups.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends cluster messages in batches.
+ *
+ * <p>Messages are held for up to the send window and then sent together in the order they were sent, with one frame for
+ * each run of consecutive messages to the same destination.  While held, a {@link CoalescableMessage} replaces an earlier
+ * message of the same type for the same destination with the same {@link CoalescableMessage#getCoalescingKey() coalescing
+ * key}.  The replacing message takes the place of the last one so receivers still see it after any message sent before it.
+ * Other messages are never coalesced.  The held messages are sent early once they reach the maximum batch size.</p>
+ *
+ * <p>JGroups orders messages to all nodes and messages to a single node independently, so receivers only see the send
+ * order between frames of the same kind.</p>
+ */
+public class CoalescingMessageSender {
+
+    private static final Logger log = LoggerFactory.getLogger(CoalescingMessageSender.class);
+
+    /**
+     * Destination of messages sent to all other nodes
+     */
+    private static final Object OTHERS = new Object();
+
+    /**
+     * Destination of messages sent to all nodes
+     */
+    private static final Object ALL = new Object();
+
+    private final JChannel channel;
+
+    private final long window;
+
+    private final int maxBatchSize;
+
+    private final ClusterMessageCodec codec;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Held messages in send order, keyed by destination, type and coalescing key, or by a unique key if not coalescable
+     */
+    private final LinkedHashMap<Object, PendingMessage> pending = new LinkedHashMap<>();
+
+    /**
+     * Serializes taking and sending batches so frames leave in send order
+     */
+    private final Object sendLock = new Object();
+
+    private final AtomicLong sentFrames = new AtomicLong();
+
+    private final AtomicLong sentMessages = new AtomicLong();
+
+    private final AtomicLong coalescedMessages = new AtomicLong();
+
+    /**
+     * Constructs a sender.
+     *
+     * @param channel      the connected channel
+     * @param window       the time in milliseconds to hold messages before sending them, or 0 to send them immediately
+     * @param maxBatchSize the maximum number of messages in one frame
+     * @param codec        the codec for encoding frames
+     */
+    public CoalescingMessageSender(JChannel channel, long window, int maxBatchSize, ClusterMessageCodec codec) {
+        this.channel = channel;
+        this.window = Math.max(0, window);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.codec = codec;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-message-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sends a message to all nodes including this one.
+     */
+    public void sendToAll(String type, Serializable message) {
+        enqueue(ALL, type, message);
+    }
+
+    /**
+     * Sends a message to all nodes except this one.
+     */
+    public void sendToOthers(String type, Serializable message) {
+        enqueue(OTHERS, type, message);
+    }
+
+    /**
+     * Sends a message to the specified node.
+     */
+    public void sendTo(Address address, String type, Serializable message) {
+        enqueue(address, type, message);
+    }
+
+    /**
+     * Sends all held messages and stops the sender.
+     */
+    public void stop() {
+        flushAll();
+        scheduler.shutdown();
+    }
+
+    /**
+     * Gets the number of frames sent.
+     *
+     * @return the number of frames
+     */
+    public long getSentFrames() {
+        return sentFrames.get();
+    }
+
+    /**
+     * Gets the number of messages sent.
+     *
+     * @return the number of messages
+     */
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    /**
+     * Gets the number of messages that were replaced by a later message before being sent.
+     *
+     * @return the number of coalesced messages
+     */
+    public long getCoalescedMessages() {
+        return coalescedMessages.get();
+    }
+
+    private void enqueue(Object destination, String type, Serializable message) {
+        boolean full;
+        boolean schedule = false;
+
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                schedule = window > 0;
+            }
+
+            Object key = (message instanceof CoalescableMessage) ? Arrays.asList(destination, type, ((CoalescableMessage) message).getCoalescingKey()) : new Object();
+            if (pending.remove(key) != null) {
+                coalescedMessages.incrementAndGet();
+            }
+            pending.put(key, new PendingMessage(destination, new StandardClusterMessage(type, message)));
+            full = window == 0 || pending.size() >= maxBatchSize;
+        }
+
+        if (full) {
+            flushAll();
+        } else if (schedule) {
+            scheduler.schedule(this::flushAll, window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the held messages in send order, one frame for each run of messages to the same destination.
+     */
+    private void flushAll() {
+        synchronized (sendLock) {
+            List<PendingMessage> messages;
+            synchronized (pending) {
+                messages = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+
+            Object destination = null;
+            List<ClusterMessage> batch = new ArrayList<>();
+            for (PendingMessage next : messages) {
+                if (!batch.isEmpty() && !Objects.equals(next.destination, destination)) {
+                    send(destination, batch);
+                    batch = new ArrayList<>();
+                }
+                destination = next.destination;
+                batch.add(next.message);
+            }
+            if (!batch.isEmpty()) {
+                send(destination, batch);
+            }
+        }
+    }
+
+    private void send(Object destination, List<ClusterMessage> batch) {
+        try {
+            Message frame = new Message(destination instanceof Address ? (Address) destination : null, codec.encode(batch));
+            if (destination == OTHERS) {
+                frame.setTransientFlag(Message.TransientFlag.DONT_LOOPBACK);
+            }
+            channel.send(frame);
+            sentFrames.incrementAndGet();
+            sentMessages.addAndGet(batch.size());
+            log.debug("Sent {} cluster messages to {}", batch.size(), destination == ALL ? "all" : destination == OTHERS ? "others" : destination);
+        } catch (Exception e) {
+            log.error("Unable to send {} cluster messages to {}", batch.size(), destination == ALL ? "all" : destination == OTHERS ? "others" : destination, e);
+        }
+    }
+
+    /**
+     * A message waiting to be sent.
+     */
+    private static class PendingMessage {
+
+        final Object destination;
+        final ClusterMessage message;
+
+        PendingMessage(Object destination, ClusterMessage message) {
+            this.destination = destination;
+            this.message = message;
+        }
+    }
+}
@@ -40,10 +40,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
+ * A cluster service using JGroups.
  *
+ * <p>Messages are sent in batches by a {@link CoalescingMessageSender} and encoded with the {@link ClusterMessageCodec}.
+ * Received messages are delivered to the receivers by a {@link ClusterMessageDispatcher} so that processing them does not
+ * block the JGroups delivery thread.</p>
  */
 public class JGroupsClusterService extends ReceiverAdapter implements ClusterService {
 
@@ -56,12 +61,38 @@ public class JGroupsClusterService extends ReceiverAdapter implements ClusterSer
     @Value("${kylo.cluster.jgroupsConfigFile:#{null}}")
     private String jgroupsConfigFile;
 
+    /**
+     * Time in milliseconds to hold outgoing messages so they can be coalesced and sent together, or 0 to send each message immediately
+     */
+    @Value("${kylo.cluster.send.window:50}")
+    long sendWindow = 50;
+
+    /**
+     * Maximum number of messages sent in one frame
+     */
+    @Value("${kylo.cluster.send.maxBatchSize:500}")
+    int maxBatchSize = 500;
+
+    /**
+     * Maximum number of received messages waiting for each receiver
+     */
+    @Value("${kylo.cluster.receive.queueCapacity:1000}")
+    int receiveQueueCapacity = 1000;
+
     private static final String CLUSTER_NAME = "internal-kylo-cluster";
 
+    private static final long STOP_TIMEOUT = 10000L;
+
+
+    private List<ClusterServiceListener> listeners = new CopyOnWriteArrayList<>();
 
-    private List<ClusterServiceListener> listeners = new ArrayList<>();
+    private List<ClusterServiceMessageReceiver> messageReceivers = new CopyOnWriteArrayList<>();
 
-    private List<ClusterServiceMessageReceiver> messageReceivers = new ArrayList<>();
+    private final ClusterMessageCodec codec = new ClusterMessageCodec();
+
+    private CoalescingMessageSender sender;
+
+    private ClusterMessageDispatcher dispatcher;
 
     public void subscribe(ClusterServiceListener listener) {
         listeners.add(listener);
@@ -80,27 +111,58 @@ public class JGroupsClusterService extends ReceiverAdapter implements ClusterSer
             log.info("Kylo cluster has already been started");
         } else if (StringUtils.isNotBlank(jgroupsConfigFile)) {
             try {
-                channel = new JChannel(jgroupsConfigFile);
-
-                String name = Util.generateLocalName();
-                channel.setName("Kylo - " + name);
-                channel.setReceiver(this);
-                channel.addChannelListener(new Listener());
-                channel.connect(CLUSTER_NAME);
+                start(new JChannel(jgroupsConfigFile));
             } catch (FileNotFoundException e) {
                 log.error("Unable to find the jgroups cluster configuration file {}.  Kylo is not clustered ", jgroupsConfigFile);
             }
         }
     }
 
+    /**
+     * Joins the cluster using the specified channel
+     *
+     * @param newChannel an unconnected channel
+     */
+    void start(JChannel newChannel) throws Exception {
+        String name = Util.generateLocalName();
+        newChannel.setName("Kylo - " + name);
+        newChannel.setReceiver(this);
+        newChannel.addChannelListener(new Listener());
+
+        dispatcher = new ClusterMessageDispatcher(receiveQueueCapacity);
+        sender = new CoalescingMessageSender(newChannel, sendWindow, maxBatchSize, codec);
+        channel = newChannel;
+        channel.connect(CLUSTER_NAME);
+    }
+
     public void stop() throws Exception {
         if (channel != null) {
             log.info("Stopping {} ", getAddressAsString());
+            sender.stop();
             channel.disconnect();
+            dispatcher.stop(STOP_TIMEOUT);
         }
 
     }
 
+    /**
+     * Gets the number of received messages waiting to be processed by the receivers
+     *
+     * @return the number of queued messages
+     */
+    public int getReceiveQueueDepth() {
+        return dispatcher != null ? dispatcher.getQueueDepth() : 0;
+    }
+
+    /**
+     * Gets the sender of the messages from this node
+     *
+     * @return the sender, or null if not clustered
+     */
+    public CoalescingMessageSender getSender() {
+        return sender;
+    }
+
     @Override
     public boolean isClustered() {
         return this.channel != null;
@@ -152,12 +214,19 @@ public class JGroupsClusterService extends ReceiverAdapter implements ClusterSer
      * @param msg a message
      */
     public void receive(Message msg) {
-        log.info("Receiving {} : {} ", msg.getSrc(), msg.getObject());
-        messageReceivers.stream().forEach(messageReceiver -> {
-            ClusterMessage clusterMessage = (ClusterMessage) msg.getObject();
-            messageReceiver.onMessageReceived(msg.getSrc().toString(), clusterMessage);
-        });
+        final List<ClusterMessage> clusterMessages;
+        try {
+            clusterMessages = codec.decode(msg.getRawBuffer(), msg.getOffset(), msg.getLength());
+        } catch (Exception e) {
+            log.error("Unable to decode cluster message from {}", msg.getSrc(), e);
+            return;
+        }
 
+        final String from = msg.getSrc().toString();
+        log.debug("Receiving {} messages from {}", clusterMessages.size(), from);
+        for (ClusterMessage clusterMessage : clusterMessages) {
+            messageReceivers.forEach(messageReceiver -> dispatcher.dispatch(messageReceiver, from, clusterMessage));
+        }
     }
 
 
@@ -195,14 +264,8 @@ public class JGroupsClusterService extends ReceiverAdapter implements ClusterSer
     @Override
     public void sendMessage(String type, Serializable message) {
         clusterEnabled();
-        try {
-            log.info("Sending {} from {} ", message, this.channel.getAddressAsString());
-            ClusterMessage msg = new StandardClusterMessage(type, message);
-            channel.send(null, msg);
-        } catch (Exception e) {
-            e.printStackTrace();
-            //throw send exception
-        }
+        log.debug("Sending {} from {} ", message, this.channel.getAddressAsString());
+        sender.sendToAll(type, message);
     }
 
     @Override
@@ -213,8 +276,8 @@ public class JGroupsClusterService extends ReceiverAdapter implements ClusterSer
                 .filter(member -> other.equalsIgnoreCase(member.toString()))
                 .findFirst();
             if (address.isPresent()) {
-                log.info("Sending message to {} from {}", address, channel.getAddressAsString());
-                channel.send(address.get(), new StandardClusterMessage(type, message));
+                log.debug("Sending message to {} from {}", address, channel.getAddressAsString());
+                sender.sendTo(address.get(), type, message);
             } else {
                 throw new IllegalArgumentException("Cluster node does not exist: " + other);
             }
@@ -227,15 +290,9 @@ public class JGroupsClusterService extends ReceiverAdapter implements ClusterSer
     @Override
     public void sendMessageToOthers(String type, Serializable message) {
         clusterEnabled();
-        try {
-            for (Address address : getOtherMembers()) {
-                log.info("Sending message to {} from {} ", address, this.channel.getAddressAsString());
-                ClusterMessage msg = new StandardClusterMessage(type, message);
-                channel.send(address, msg);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            //throw send exception
+        if (!getOtherMembers().isEmpty()) {
+            log.debug("Sending message to others from {} ", this.channel.getAddressAsString());
+            sender.sendToOthers(type, message);
         }
     }
 
@@ -0,0 +1,295 @@
+package com.thinkbiganalytics.cluster;
+
+/*-
+ * #%L
+ * kylo-cluster-manager-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.jgroups.JChannel;
+import org.jgroups.protocols.FRAG2;
+import org.jgroups.protocols.SHARED_LOOPBACK;
+import org.jgroups.protocols.SHARED_LOOPBACK_PING;
+import org.jgroups.protocols.UNICAST3;
+import org.jgroups.protocols.pbcast.GMS;
+import org.jgroups.protocols.pbcast.NAKACK2;
+import org.jgroups.protocols.pbcast.STABLE;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs several cluster nodes in one JVM over the shared loopback transport.
+ */
+public class JGroupsClusterServiceTest {
+
+    private static final long TIMEOUT = 10000L;
+
+    private final List<JGroupsClusterService> nodes = new ArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        for (JGroupsClusterService node : nodes) {
+            node.stop();
+        }
+    }
+
+    /**
+     * Verify messages sent to all nodes are received by every node including the sender.
+     */
+    @Test
+    public void testSendMessage() throws Exception {
+        List<JGroupsClusterService> cluster = startCluster(3, 0);
+        List<RecordingReceiver> receivers = subscribeAll(cluster);
+
+        cluster.get(0).sendMessage("TEST", "hello");
+
+        for (RecordingReceiver receiver : receivers) {
+            receiver.awaitMessages(1);
+            Assert.assertEquals(Collections.singletonList("TEST:hello"), receiver.getMessages());
+            Assert.assertEquals(cluster.get(0).getAddressAsString(), receiver.getSenders().get(0));
+        }
+    }
+
+    /**
+     * Verify messages sent to the other nodes are not received by the sender.
+     */
+    @Test
+    public void testSendMessageToOthers() throws Exception {
+        List<JGroupsClusterService> cluster = startCluster(3, 0);
+        List<RecordingReceiver> receivers = subscribeAll(cluster);
+
+        cluster.get(0).sendMessageToOthers("TEST", "others");
+        cluster.get(0).sendMessageToOther(cluster.get(2).getAddressAsString(), "TEST", "one");
+
+        receivers.get(1).awaitMessages(1);
+        receivers.get(2).awaitMessages(2);
+        cluster.get(0).sendMessage("TEST", "marker");
+        receivers.get(0).awaitMessages(1);
+
+        Assert.assertEquals(Collections.singletonList("TEST:marker"), receivers.get(0).getMessages());
+        Assert.assertEquals(Collections.singletonList("TEST:others"), receivers.get(1).getMessages().subList(0, 1));
+        Assert.assertEquals(Arrays.asList("TEST:others", "TEST:one"), receivers.get(2).getMessages().subList(0, 2));
+    }
+
+    /**
+     * Verify coalescable messages with the same type and key sent within the window are coalesced into one frame, keeping the latest.
+     */
+    @Test
+    public void testCoalescing() throws Exception {
+        List<JGroupsClusterService> cluster = startCluster(2, 500);
+        List<RecordingReceiver> receivers = subscribeAll(cluster);
+
+        JGroupsClusterService node = cluster.get(0);
+        node.sendMessage("A", new KeyedMessage("k1", 1));
+        node.sendMessage("A", new KeyedMessage("k2", 1));
+        node.sendMessage("B", new KeyedMessage("k1", 1));
+        node.sendMessage("A", new KeyedMessage("k1", 2));
+        node.sendMessage("C", "refresh");
+        node.sendMessage("C", "refresh");
+
+        for (RecordingReceiver receiver : receivers) {
+            receiver.awaitMessages(5);
+            Assert.assertEquals(Arrays.asList("A:k2=1", "B:k1=1", "A:k1=2", "C:refresh", "C:refresh"), receiver.getMessages());
+        }
+        Assert.assertEquals(1, node.getSender().getSentFrames());
+        Assert.assertEquals(5, node.getSender().getSentMessages());
+        Assert.assertEquals(1, node.getSender().getCoalescedMessages());
+    }
+
+    /**
+     * Verify messages held for all nodes and for the other nodes are sent in the order they were sent.
+     */
+    @Test
+    public void testOrderAcrossDestinations() throws Exception {
+        List<JGroupsClusterService> cluster = startCluster(2, 500);
+        List<RecordingReceiver> receivers = subscribeAll(cluster);
+
+        JGroupsClusterService node = cluster.get(0);
+        node.sendMessage("TEST", 1);
+        node.sendMessageToOthers("TEST", 2);
+        node.sendMessageToOthers("TEST", 3);
+        node.sendMessage("TEST", 4);
+
+        receivers.get(1).awaitMessages(4);
+        Assert.assertEquals(Arrays.asList("TEST:1", "TEST:2", "TEST:3", "TEST:4"), receivers.get(1).getMessages());
+        receivers.get(0).awaitMessages(2);
+        Assert.assertEquals(Arrays.asList("TEST:1", "TEST:4"), receivers.get(0).getMessages());
+        Assert.assertEquals(3, node.getSender().getSentFrames());
+    }
+
+    /**
+     * Verify a slow receiver does not delay the delivery of messages to the other receivers.
+     */
+    @Test
+    public void testSlowReceiverDoesNotBlockOthers() throws Exception {
+        List<JGroupsClusterService> cluster = startCluster(2, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        cluster.get(1).subscribe((from, message) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        RecordingReceiver receiver = new RecordingReceiver();
+        cluster.get(1).subscribe(receiver);
+
+        for (int i = 0; i < 10; i++) {
+            cluster.get(0).sendMessage("TEST", i);
+        }
+
+        receiver.awaitMessages(10);
+        Assert.assertEquals(10, receiver.getMessages().size());
+        Assert.assertEquals("TEST:9", receiver.getMessages().get(9));
+        release.countDown();
+    }
+
+    /**
+     * Verify the codec decodes the messages it encodes.
+     */
+    @Test
+    public void testCodec() throws Exception {
+        UUID id = UUID.randomUUID();
+        List<ClusterMessage> messages = Arrays.asList(new StandardClusterMessage("STRING", "text é"),
+                                                      new StandardClusterMessage("LONG", 42L),
+                                                      new StandardClusterMessage("INTEGER", 7),
+                                                      new StandardClusterMessage("BOOLEAN", true),
+                                                      new StandardClusterMessage("UUID", id),
+                                                      new StandardClusterMessage("NULL", null),
+                                                      new StandardClusterMessage("OBJECT", new KeyedMessage("k", 3)));
+
+        ClusterMessageCodec codec = new ClusterMessageCodec();
+        byte[] frame = codec.encode(messages);
+        byte[] padded = new byte[frame.length + 4];
+        System.arraycopy(frame, 0, padded, 2, frame.length);
+        List<ClusterMessage> decoded = codec.decode(padded, 2, frame.length);
+
+        Assert.assertEquals(messages.size(), decoded.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Assert.assertEquals(messages.get(i).getType(), decoded.get(i).getType());
+            Assert.assertEquals(messages.get(i).getMessage(), decoded.get(i).getMessage());
+        }
+    }
+
+    private List<JGroupsClusterService> startCluster(int size, long sendWindow) throws Exception {
+        List<JGroupsClusterService> cluster = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            JGroupsClusterService node = new JGroupsClusterService();
+            node.sendWindow = sendWindow;
+            node.start(new JChannel(new SHARED_LOOPBACK(), new SHARED_LOOPBACK_PING(), new NAKACK2(), new UNICAST3(), new STABLE(), new GMS(), new FRAG2()));
+            nodes.add(node);
+            cluster.add(node);
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (cluster.stream().anyMatch(node -> node.getMembers() == null || node.getMembers().size() != size)) {
+            Assert.assertTrue("Cluster did not form", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+        return cluster;
+    }
+
+    private List<RecordingReceiver> subscribeAll(List<JGroupsClusterService> cluster) {
+        List<RecordingReceiver> receivers = new ArrayList<>();
+        for (JGroupsClusterService node : cluster) {
+            RecordingReceiver receiver = new RecordingReceiver();
+            node.subscribe(receiver);
+            receivers.add(receiver);
+        }
+        return receivers;
+    }
+
+    /**
+     * A message coalesced by its key.
+     */
+    private static class KeyedMessage implements CoalescableMessage {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+
+        private final int version;
+
+        KeyedMessage(String key, int version) {
+            this.key = key;
+            this.version = version;
+        }
+
+        @Override
+        public Serializable getCoalescingKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof KeyedMessage && key.equals(((KeyedMessage) o).key) && version == ((KeyedMessage) o).version;
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() * 31 + version;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + version;
+        }
+    }
+
+    /**
+     * Records the messages received.
+     */
+    private static class RecordingReceiver implements ClusterServiceMessageReceiver {
+
+        private final List<String> messages = new ArrayList<>();
+
+        private final List<String> senders = new ArrayList<>();
+
+        @Override
+        public synchronized void onMessageReceived(String from, ClusterMessage message) {
+            messages.add(message.getType() + ":" + message.getMessage());
+            senders.add(from);
+            notifyAll();
+        }
+
+        synchronized void awaitMessages(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (messages.size() < count) {
+                long remaining = deadline - System.currentTimeMillis();
+                Assert.assertTrue("Expected " + count + " messages but received " + messages, remaining > 0);
+                wait(remaining);
+            }
+        }
+
+        synchronized List<String> getMessages() {
+            return new ArrayList<>(messages);
+        }
+
+        synchronized List<String> getSenders() {
+            return new ArrayList<>(senders);
+        }
+    }
+}
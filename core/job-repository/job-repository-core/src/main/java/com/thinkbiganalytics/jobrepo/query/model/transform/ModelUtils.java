@@ -21,6 +21,7 @@ package com.thinkbiganalytics.jobrepo.query.model.transform;
  */
 
 import com.thinkbiganalytics.DateTimeUtil;
+import com.thinkbiganalytics.metadata.api.KeysetPage;
 import com.thinkbiganalytics.rest.model.search.SearchResult;
 import com.thinkbiganalytics.rest.model.search.SearchResultImpl;
 
@@ -63,6 +64,9 @@ public class ModelUtils {
         searchResult.setData(page.getContent());
         searchResult.setRecordsTotal(page.getTotalElements());
         searchResult.setRecordsFiltered(page.getTotalElements());
+        if (page instanceof KeysetPage) {
+            searchResult.setContinuationToken(((KeysetPage) page).getContinuationToken());
+        }
         return searchResult;
 
     }
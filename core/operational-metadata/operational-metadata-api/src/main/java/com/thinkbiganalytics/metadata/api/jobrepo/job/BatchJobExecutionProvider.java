@@ -20,6 +20,7 @@ package com.thinkbiganalytics.metadata.api.jobrepo.job;
  * #L%
  */
 
+import com.thinkbiganalytics.metadata.api.KeysetPage;
 import com.thinkbiganalytics.metadata.api.feed.OpsManagerFeed;
 import com.thinkbiganalytics.nifi.provenance.model.ProvenanceEventRecordDTO;
 
@@ -28,7 +29,9 @@ import org.joda.time.ReadablePeriod;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -149,6 +152,14 @@ public interface BatchJobExecutionProvider extends BatchJobExecutionFilters {
      */
     BatchJobExecution findLatestCompletedJobForFeed(String feedName);
 
+    /**
+     * Returns the latest completed job execution for each of the feeds
+     *
+     * @param feedNames the feeds
+     * @return the job executions by feed name, excluding feeds without a completed job
+     */
+    Map<String, BatchJobExecution> findLatestCompletedJobForFeeds(Collection<String> feedNames);
+
     /**
      * Returns the latest job execution of any status for a feed
      *
@@ -164,6 +175,14 @@ public interface BatchJobExecutionProvider extends BatchJobExecutionFilters {
      */
     BatchJobExecution findLatestFinishedJobForFeed(String feedName);
 
+    /**
+     * Returns the latest job that is finished for each of the feeds
+     *
+     * @param feedNames the feeds
+     * @return the finished jobs by feed name, excluding feeds without a finished job
+     */
+    Map<String, BatchJobExecution> findLatestFinishedJobForFeeds(Collection<String> feedNames);
+
     /**
      * check if a feed is running
      *
@@ -178,6 +197,24 @@ public interface BatchJobExecutionProvider extends BatchJobExecutionFilters {
      */
     Page<? extends BatchJobExecution> findAll(String filter, Pageable pageable);
 
+    /**
+     * find all job executions matching a particular filter string, returning a paged result set whose total is only counted up to a limit
+     *
+     * @param countLimit the number of matching jobs at which counting stops, 0 to report only whether another page follows, or {@link Long#MAX_VALUE} to count every job
+     * @return a paged result set of job executions matching the filter and pageable criteria
+     */
+    Page<? extends BatchJobExecution> findAll(String filter, Pageable pageable, long countLimit);
+
+    /**
+     * find the job executions matching a particular filter string that follow the continuation token, ordered by the most recent start time and then by job execution id
+     *
+     * @param continuationToken the token returned with the previous page, or null for the first page
+     * @param limit             the maximum number of job executions to return
+     * @param countLimit        the number of matching jobs at which counting stops, 0 to not count, or {@link Long#MAX_VALUE} to count every job
+     * @return the page of job executions, with the token for the next page if more follow
+     */
+    KeysetPage<? extends BatchJobExecution> findAllAfter(String filter, String continuationToken, int limit, long countLimit);
+
     /**
      * Return a list of job status objects grouped by day
      *
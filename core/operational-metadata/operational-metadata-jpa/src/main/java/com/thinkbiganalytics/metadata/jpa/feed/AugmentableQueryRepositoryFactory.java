@@ -20,6 +20,7 @@ package com.thinkbiganalytics.metadata.jpa.feed;
  * #L%
  */
 
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.security.AccessController;
 
 import org.slf4j.Logger;
@@ -47,11 +48,13 @@ class AugmentableQueryRepositoryFactory<T, I extends Serializable> extends JpaRe
 
     private final EntityManager em;
     private AccessController accessController;
+    private FeedAclCache aclCache;
 
-    AugmentableQueryRepositoryFactory(EntityManager em, AccessController accessController) {
+    AugmentableQueryRepositoryFactory(EntityManager em, AccessController accessController, FeedAclCache aclCache) {
         super(em);
         this.em = em;
         this.accessController = accessController;
+        this.aclCache = aclCache;
     }
 
     @Override
@@ -69,7 +72,11 @@ class AugmentableQueryRepositoryFactory<T, I extends Serializable> extends JpaRe
             try {
                 assertAugmentableRepositoryImplementsDeclaredMethods(repositoryInterface, repoType);
                 Constructor<? extends AugmentableQueryRepositoryImpl> constructor = repoType.getConstructor(JpaEntityInformation.class, EntityManager.class);
-                return constructor.newInstance(getEntityInformation(domainType), em);
+                AugmentableQueryRepositoryImpl repository = constructor.newInstance(getEntityInformation(domainType), em);
+                if (repository.augmentor instanceof FeedAclIndexQueryAugmentor) {
+                    ((FeedAclIndexQueryAugmentor) repository.augmentor).setAclCache(aclCache);
+                }
+                return repository;
             } catch (Exception e) {
                 throw new IllegalStateException(String.format("Failed to create Augmentable Repository %s", repoType), e);
             }
@@ -20,6 +20,7 @@ package com.thinkbiganalytics.metadata.jpa.feed;
  * #L%
  */
 
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.security.AccessController;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -41,8 +42,11 @@ public class AugmentableQueryRepositoryFactoryBean<R extends JpaRepository<T, I>
     @Inject
     AccessController accessController;
 
+    @Inject
+    FeedAclCache aclCache;
+
     protected RepositoryFactorySupport createRepositoryFactory(EntityManager em) {
-        return new AugmentableQueryRepositoryFactory(em, accessController);
+        return new AugmentableQueryRepositoryFactory(em, accessController, aclCache);
     }
 
 }
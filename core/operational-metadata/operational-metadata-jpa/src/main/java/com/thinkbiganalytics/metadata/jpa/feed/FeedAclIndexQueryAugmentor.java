@@ -28,6 +28,7 @@ import com.querydsl.core.types.dsl.StringTemplate;
 import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.JPQLQuery;
 import com.thinkbiganalytics.metadata.config.RoleSetExposingSecurityExpressionRoot;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.metadata.jpa.feed.security.JpaFeedOpsAclEntry;
 import com.thinkbiganalytics.metadata.jpa.feed.security.JpaFeedOpsAclEntry.PrincipalType;
 import com.thinkbiganalytics.metadata.jpa.feed.security.QJpaFeedOpsAclEntry;
@@ -43,6 +44,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.persistence.EntityManager;
@@ -62,6 +64,8 @@ public abstract class FeedAclIndexQueryAugmentor implements QueryAugmentor {
     private static final StringTemplate CONSTANT_ONE = Expressions.stringTemplate("1");
     private static final BooleanExpression ONE_EQUALS_ONE = CONSTANT_ONE.eq(CONSTANT_ONE);
 
+    private FeedAclCache aclCache;
+
     protected abstract <S, T, ID extends Serializable> Path<Object> getFeedId(JpaEntityInformation<T, ID> entityInformation, Root<S> root);
 
     protected abstract ComparablePath<UUID> getFeedId();
@@ -74,6 +78,15 @@ public abstract class FeedAclIndexQueryAugmentor implements QueryAugmentor {
         LOG.debug("QueryAugmentor.augment");
 
         return (root, query, criteriaBuilder) -> {
+            Set<UUID> accessibleFeedIds = aclCache != null ? aclCache.getAccessibleFeedIds() : null;
+            if (accessibleFeedIds != null && accessibleFeedIds.size() <= aclCache.getMaxIdListSize()) {
+                Path<Object> feedId = getFeedId(entityInformation, root);
+                javax.persistence.criteria.Predicate feedIdAccessible = accessibleFeedIds.isEmpty()
+                                                                        ? criteriaBuilder.disjunction()
+                                                                        : feedId.get("uuid").in(accessibleFeedIds);
+                return spec != null ? criteriaBuilder.and(spec.toPredicate(root, query, criteriaBuilder), feedIdAccessible) : feedIdAccessible;
+            }
+
             Root<JpaFeedOpsAclEntry> fromAcl = query.from(JpaFeedOpsAclEntry.class);
             query.distinct(true);
             if (query.getSelection() == null) {
@@ -108,7 +121,7 @@ public abstract class FeedAclIndexQueryAugmentor implements QueryAugmentor {
         LOG.debug("FeedAclIndexQueryAugmentor.augment(Predicate[])");
         QOpsManagerFeedId feed = getOpsManagerFeedId();
 
-        BooleanExpression exists = generateExistsExpression(feed);
+        BooleanExpression exists = aclCache != null ? aclCache.generateAccessExpression(feed, true) : generateExistsExpression(feed);
 
         List<Predicate> predicates = new ArrayList<>();
         predicates.addAll(Arrays.asList(predicate));
@@ -117,6 +130,16 @@ public abstract class FeedAclIndexQueryAugmentor implements QueryAugmentor {
         return predicates;
     }
 
+    /**
+     * Sets the cache of feeds accessible by each principal set.  When set, queries are limited to a list of the
+     * accessible feed ids rather than joined with the FeedAclIndex table, unless that list is too large.
+     *
+     * @param aclCache the feed ACL cache
+     */
+    public void setAclCache(FeedAclCache aclCache) {
+        this.aclCache = aclCache;
+    }
+
     /**
      * Generates the Exist expression for the feed to feedacl table
      *
@@ -149,15 +172,16 @@ public abstract class FeedAclIndexQueryAugmentor implements QueryAugmentor {
         CriteriaQuery<Long> query = builder.createQuery(Long.class);
         Root<S> root = query.from(domainClass);
 
+        Specification<S> secured = this.augment(spec, domainClass, entityInformation);
+        query.where(secured.toPredicate(root, query, builder));
+
+        // the ACL join marks the query distinct, so it must be secured before choosing how to count
         if (query.isDistinct()) {
             query.select(builder.countDistinct(root));
         } else {
             query.select(builder.count(root));
         }
 
-        Specification<S> secured = this.augment(spec, domainClass, entityInformation);
-        query.where(secured.toPredicate(root, query, builder));
-
         return query;
     }
 
@@ -41,6 +41,7 @@ import com.thinkbiganalytics.metadata.api.jobrepo.ExecutionConstants;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecution;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecutionProvider;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.JobStatusCount;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.metadata.jpa.jobrepo.job.JpaBatchJobExecutionStatusCounts;
 import com.thinkbiganalytics.metadata.jpa.jobrepo.job.QJpaBatchJobExecution;
 import com.thinkbiganalytics.metadata.jpa.jobrepo.job.QJpaBatchJobInstance;
@@ -88,6 +89,9 @@ public class OpsFeedManagerFeedProvider implements OpsManagerFeedProvider {
     @Inject
     private AccessController accessController;
 
+    @Inject
+    private FeedAclCache aclCache;
+
     @Inject
     private AlertProvider alertProvider;
 
@@ -260,7 +264,7 @@ public class OpsFeedManagerFeedProvider implements OpsManagerFeedProvider {
             .innerJoin(feed).on(jobInstance.feed.id.eq(feed.id))
             .where(jobExecution.startTime.goe(DateTime.now().minus(period))
                        .and(feed.name.eq(feedName))
-                       .and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, accessController.isEntityAccessControlled())))
+                       .and(aclCache.generateAccessExpression(feed.id, accessController.isEntityAccessControlled())))
             .groupBy(jobExecution.status,
                      jobExecution.startYear,
                      jobExecution.startMonth,
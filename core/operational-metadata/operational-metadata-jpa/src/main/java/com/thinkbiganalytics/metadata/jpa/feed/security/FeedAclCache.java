@@ -0,0 +1,341 @@
+package com.thinkbiganalytics.metadata.jpa.feed.security;
+
+/*-
+ * #%L
+ * kylo-operational-metadata-jpa
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringTemplate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.thinkbiganalytics.cluster.ClusterMessage;
+import com.thinkbiganalytics.cluster.ClusterService;
+import com.thinkbiganalytics.cluster.ClusterServiceMessageReceiver;
+import com.thinkbiganalytics.metadata.config.RoleSetExposingSecurityExpressionRoot;
+import com.thinkbiganalytics.metadata.jpa.feed.FeedAclIndexQueryAugmentor;
+import com.thinkbiganalytics.metadata.jpa.feed.QOpsManagerFeedId;
+import com.thinkbiganalytics.metadata.jpa.feed.security.JpaFeedOpsAclEntry.PrincipalType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+/**
+ * Caches the Ops Manager feed ids accessible to each distinct set of principals (a user together with its groups)
+ * so that secured queries can test feed ids against a bounded list instead of correlating every row with
+ * FEED_ACL_INDEX.
+ * <p>
+ * Grants and revocations made through {@link JpaFeedOpsAccessControlProvider} are applied to the cached sets once
+ * their transaction commits, and other cluster members are told to drop their cached sets.  Entries also expire
+ * after {@code security.entity.access.feed.cache.expireSeconds} to pick up changes made outside of the provider.
+ */
+public class FeedAclCache implements ClusterServiceMessageReceiver {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedAclCache.class);
+
+    /**
+     * Cluster message type sent when the feed ACLs change on this node
+     */
+    public static final String FEED_ACL_CHANGED = "FEED_ACL_CHANGED";
+
+    private static final StringTemplate CONSTANT_ONE = Expressions.stringTemplate("1");
+    private static final BooleanExpression ONE_EQUALS_ONE = CONSTANT_ONE.eq(CONSTANT_ONE);
+    private static final BooleanExpression ONE_EQUALS_ZERO = CONSTANT_ONE.eq(Expressions.stringTemplate("0"));
+
+    @Inject
+    private JPAQueryFactory factory;
+
+    @Inject
+    private ClusterService clusterService;
+
+    /**
+     * Largest number of feed ids that will be inlined into a query before falling back to the EXISTS subquery
+     */
+    @Value("${security.entity.access.feed.cache.maxIdListSize:1000}")
+    private int maxIdListSize = 1000;
+
+    @Value("${security.entity.access.feed.cache.maxPrincipalSets:10000}")
+    private long maxPrincipalSets = 10000;
+
+    @Value("${security.entity.access.feed.cache.expireSeconds:300}")
+    private long expireSeconds = 300;
+
+    /**
+     * Incremented whenever the ACLs change so that a set loaded concurrently with a change is not cached
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private Cache<Set<String>, AccessSet> accessSets;
+
+    @PostConstruct
+    public void init() {
+        accessSets = CacheBuilder.newBuilder()
+            .maximumSize(maxPrincipalSets)
+            .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+            .build();
+        clusterService.subscribe(this);
+    }
+
+    /**
+     * Generates the expression limiting the feed to those accessible by the current user.
+     *
+     * @param feedId                 the feed id path
+     * @param entityAccessControlled true if entity access control is enabled
+     * @return an IN list of the accessible feed ids, or the EXISTS subquery if there are too many to list
+     */
+    public BooleanExpression generateAccessExpression(QOpsManagerFeedId feedId, boolean entityAccessControlled) {
+        if (!entityAccessControlled) {
+            return ONE_EQUALS_ONE;
+        }
+
+        Set<UUID> feedIds = getAccessibleFeedIds();
+        if (feedIds.isEmpty()) {
+            return ONE_EQUALS_ZERO;
+        } else if (feedIds.size() <= maxIdListSize) {
+            return feedId.uuid.in(feedIds);
+        } else {
+            return FeedAclIndexQueryAugmentor.generateExistsExpression(feedId, true);
+        }
+    }
+
+    /**
+     * @return the largest number of feed ids that should be inlined into a query
+     */
+    public int getMaxIdListSize() {
+        return maxIdListSize;
+    }
+
+    /**
+     * Gets the ids of the Ops Manager feeds accessible by the current user or any of its groups.
+     *
+     * @return the accessible feed ids
+     */
+    public Set<UUID> getAccessibleFeedIds() {
+        RoleSetExposingSecurityExpressionRoot userCxt = new RoleSetExposingSecurityExpressionRoot(SecurityContextHolder.getContext().getAuthentication());
+        return getAccessibleFeedIds(userCxt.getName(), userCxt.getGroups());
+    }
+
+    /**
+     * Gets the ids of the Ops Manager feeds accessible by a user or any of its groups.
+     *
+     * @param userName   the user name
+     * @param groupNames the group names
+     * @return the accessible feed ids
+     */
+    public Set<UUID> getAccessibleFeedIds(String userName, Set<String> groupNames) {
+        Set<String> principals = principalKeys(userName, groupNames);
+        boolean pendingChanges = TransactionSynchronizationManager.hasResource(this);
+        AccessSet cached = pendingChanges ? null : accessSets.getIfPresent(principals);
+        if (cached != null) {
+            return cached.getFeedIds();
+        }
+
+        long loadGeneration = generation.get();
+        QJpaFeedOpsAclEntry aclEntry = QJpaFeedOpsAclEntry.jpaFeedOpsAclEntry;
+        BooleanExpression userMatch = aclEntry.principalName.eq(userName).and(aclEntry.principalType.eq(PrincipalType.USER));
+        List<JpaFeedOpsAclEntry> entries = factory.selectFrom(aclEntry)
+            .where(groupNames.isEmpty() ? userMatch : userMatch.or(aclEntry.principalName.in(groupNames).and(aclEntry.principalType.eq(PrincipalType.GROUP))))
+            .fetch();
+        AccessSet loaded = new AccessSet(principals, entries);
+
+        if (!pendingChanges && generation.get() == loadGeneration) {
+            AccessSet existing = accessSets.asMap().putIfAbsent(principals, loaded);
+            return existing != null ? existing.getFeedIds() : loaded.getFeedIds();
+        } else {
+            log.debug("Feed ACLs changed while loading the accessible feeds for {}; not caching", userName);
+            return loaded.getFeedIds();
+        }
+    }
+
+    /**
+     * Adds a feed to the cached sets of the specified principals once the current transaction commits.
+     */
+    void accessGranted(UUID feedId, Collection<JpaFeedOpsAclEntry> entries) {
+        Set<String> keys = new HashSet<>();
+        entries.forEach(entry -> keys.add(principalKey(entry.getId().getPrincipalType(), entry.getId().getPrincipalName())));
+        afterCommit(accessSet -> accessSet.grant(feedId, keys));
+    }
+
+    /**
+     * Removes a feed from the cached sets of the specified principals once the current transaction commits.
+     */
+    void accessRevoked(UUID feedId, Collection<JpaFeedOpsAclEntry> entries) {
+        Set<String> keys = new HashSet<>();
+        entries.forEach(entry -> keys.add(principalKey(entry.getId().getPrincipalType(), entry.getId().getPrincipalName())));
+        afterCommit(accessSet -> accessSet.revoke(feedId, keys));
+    }
+
+    /**
+     * Removes a feed from all cached sets once the current transaction commits.
+     */
+    void allAccessRevoked(UUID feedId) {
+        afterCommit(accessSet -> accessSet.revokeFeed(feedId));
+    }
+
+    /**
+     * Removes all feeds granted to the principals with the specified names once the current transaction commits.
+     */
+    void allAccessRevoked(Set<String> principalNames) {
+        Set<String> keys = new HashSet<>();
+        principalNames.forEach(name -> {
+            keys.add(principalKey(PrincipalType.USER, name));
+            keys.add(principalKey(PrincipalType.GROUP, name));
+        });
+        afterCommit(accessSet -> accessSet.revokePrincipals(keys));
+    }
+
+    /**
+     * Discards all cached sets, such as after the FEED_ACL_INDEX table has been modified directly.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        accessSets.invalidateAll();
+    }
+
+    @Override
+    public void onMessageReceived(String from, ClusterMessage message) {
+        if (FEED_ACL_CHANGED.equals(message.getType())) {
+            log.debug("Feed ACLs changed on {}; invalidating cached feed access", from);
+            invalidateAll();
+        }
+    }
+
+    private void afterCommit(Consumer<AccessSet> change) {
+        generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // queries within this transaction must see its own changes so bypass the cache until it completes
+            if (!TransactionSynchronizationManager.hasResource(this)) {
+                TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FeedAclCache.this);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<AccessSet> change) {
+        generation.incrementAndGet();
+        accessSets.asMap().values().forEach(change);
+        if (clusterService.isClustered()) {
+            clusterService.sendMessageToOthers(FEED_ACL_CHANGED, generation.get());
+        }
+    }
+
+    private static Set<String> principalKeys(String userName, Set<String> groupNames) {
+        ImmutableSet.Builder<String> keys = ImmutableSet.builder();
+        keys.add(principalKey(PrincipalType.USER, userName));
+        groupNames.forEach(name -> keys.add(principalKey(PrincipalType.GROUP, name)));
+        return keys.build();
+    }
+
+    private static String principalKey(PrincipalType type, String name) {
+        return type.name() + ":" + name;
+    }
+
+    /**
+     * The feeds accessible to one set of principals, tracking which of the principals grant access to each feed
+     * so that a revocation only removes the feed once no principal in the set still grants it.
+     */
+    private static class AccessSet {
+
+        private final Set<String> principals;
+        private final Map<UUID, Set<String>> grants = new HashMap<>();
+        private volatile Set<UUID> feedIds;
+
+        AccessSet(Set<String> principals, List<JpaFeedOpsAclEntry> entries) {
+            this.principals = principals;
+            // read the embedded id as the other columns are unset on entries persisted within the current session
+            entries.forEach(entry -> grants.computeIfAbsent(entry.getId().getUuid(), id -> new HashSet<>())
+                .add(principalKey(entry.getId().getPrincipalType(), entry.getId().getPrincipalName())));
+            this.feedIds = ImmutableSet.copyOf(grants.keySet());
+        }
+
+        Set<UUID> getFeedIds() {
+            return feedIds;
+        }
+
+        synchronized void grant(UUID feedId, Set<String> keys) {
+            keys.stream()
+                .filter(principals::contains)
+                .forEach(key -> grants.computeIfAbsent(feedId, id -> new HashSet<>()).add(key));
+            refresh();
+        }
+
+        synchronized void revoke(UUID feedId, Set<String> keys) {
+            Set<String> granted = grants.get(feedId);
+            if (granted != null) {
+                granted.removeAll(keys);
+                if (granted.isEmpty()) {
+                    grants.remove(feedId);
+                }
+                refresh();
+            }
+        }
+
+        synchronized void revokeFeed(UUID feedId) {
+            if (grants.remove(feedId) != null) {
+                refresh();
+            }
+        }
+
+        synchronized void revokePrincipals(Set<String> keys) {
+            if (principals.stream().anyMatch(keys::contains)) {
+                grants.values().forEach(granted -> granted.removeAll(keys));
+                grants.values().removeIf(Set::isEmpty);
+                refresh();
+            }
+        }
+
+        private void refresh() {
+            if (grants.size() != feedIds.size() || !feedIds.containsAll(grants.keySet())) {
+                feedIds = ImmutableSet.copyOf(grants.keySet());
+            }
+        }
+    }
+}
@@ -38,4 +38,9 @@ public class FeedOpsAccessControlConfig {
     public FeedOpsAccessControlProvider feedOpsAccessControlProvider() {
         return new JpaFeedOpsAccessControlProvider();
     }
+
+    @Bean
+    public FeedAclCache feedAclCache() {
+        return new FeedAclCache();
+    }
 }
@@ -47,6 +47,9 @@ public class JpaFeedOpsAccessControlProvider implements FeedOpsAccessControlProv
     @Inject
     private FeedOpsAccessControlRepository repository;
 
+    @Inject
+    private FeedAclCache aclCache;
+
     /* (non-Javadoc)
      * @see com.thinkbiganalytics.metadata.api.feed.security.FeedOpsAccessControlProvider#grantAccess(com.thinkbiganalytics.metadata.api.feed.Feed.ID, java.security.Principal, java.security.Principal[])
      */
@@ -54,6 +57,7 @@ public class JpaFeedOpsAccessControlProvider implements FeedOpsAccessControlProv
     public void grantAccess(ID feedId, Principal principal, Principal... more) {
         Set<JpaFeedOpsAclEntry> entries = createEntries(feedId, Stream.concat(Stream.of(principal), Arrays.stream(more)));
         this.repository.save(entries);
+        this.aclCache.accessGranted(UUID.fromString(feedId.toString()), entries);
     }
 
     /* (non-Javadoc)
@@ -72,6 +76,7 @@ public class JpaFeedOpsAccessControlProvider implements FeedOpsAccessControlProv
     public void grantAccess(ID feedId, Set<Principal> principals) {
         Set<JpaFeedOpsAclEntry> entries = createEntries(feedId, principals.stream());
         this.repository.save(entries);
+        this.aclCache.accessGranted(UUID.fromString(feedId.toString()), entries);
     }
 
     /* (non-Javadoc)
@@ -90,6 +95,7 @@ public class JpaFeedOpsAccessControlProvider implements FeedOpsAccessControlProv
     public void revokeAccess(ID feedId, Principal principal, Principal... more) {
         Set<JpaFeedOpsAclEntry> entries = createEntries(feedId, Stream.concat(Stream.of(principal), Arrays.stream(more)));
         this.repository.delete(entries);
+        this.aclCache.accessRevoked(UUID.fromString(feedId.toString()), entries);
     }
     
     /* (non-Javadoc)
@@ -99,6 +105,7 @@ public class JpaFeedOpsAccessControlProvider implements FeedOpsAccessControlProv
     public void revokeAccess(ID feedId, Set<Principal> principals) {
         Set<JpaFeedOpsAclEntry> entries = createEntries(feedId, principals.stream());
         this.repository.delete(entries);
+        this.aclCache.accessRevoked(UUID.fromString(feedId.toString()), entries);
     }
 
     /* (non-Javadoc)
@@ -110,6 +117,7 @@ public class JpaFeedOpsAccessControlProvider implements FeedOpsAccessControlProv
                         .map(Principal::getName)
                         .collect(Collectors.toSet());
         this.repository.deleteForPrincipals(principalNames);
+        this.aclCache.allAccessRevoked(principalNames);
     }
 
     /* (non-Javadoc)
@@ -121,6 +129,7 @@ public class JpaFeedOpsAccessControlProvider implements FeedOpsAccessControlProv
                         .map(Principal::getName)
                         .collect(Collectors.toSet());
         this.repository.deleteForPrincipals(principalNames);
+        this.aclCache.allAccessRevoked(principalNames);
     }
 
     /* (non-Javadoc)
@@ -128,7 +137,9 @@ public class JpaFeedOpsAccessControlProvider implements FeedOpsAccessControlProv
      */
     @Override
     public void revokeAllAccess(ID feedId) {
-        this.repository.deleteForFeed(UUID.fromString(feedId.toString()));
+        UUID uuid = UUID.fromString(feedId.toString());
+        this.repository.deleteForFeed(uuid);
+        this.aclCache.allAccessRevoked(uuid);
     }
 
     /* (non-Javadoc)
@@ -82,6 +82,10 @@ public class JpaFeedOpsAclEntry {
     }
     
     
+    public EntryId getId() {
+        return this.id;
+    }
+
     public UUID getFeedId() {
         return this.feedId;
     }
@@ -142,6 +146,14 @@ public class JpaFeedOpsAclEntry {
             this.principalName = principalName;
         }
 
+        public PrincipalType getPrincipalType() {
+            return principalType;
+        }
+
+        public void setPrincipalType(PrincipalType principalType) {
+            this.principalType = principalType;
+        }
+
         @Override
         public int hashCode() {
             return Objects.hash(getUuid(), getPrincipalName());
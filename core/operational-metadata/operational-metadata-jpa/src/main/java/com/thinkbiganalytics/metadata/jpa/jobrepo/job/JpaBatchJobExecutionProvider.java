@@ -20,8 +20,10 @@ package com.thinkbiganalytics.metadata.jpa.jobrepo.job;
  * #L%
  */
 
+import com.google.common.collect.Iterables;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.ConstructorExpression;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.Projections;
 import com.querydsl.jpa.JPAExpressions;
@@ -35,6 +37,7 @@ import com.thinkbiganalytics.alerts.spi.AlertManager;
 import com.thinkbiganalytics.alerts.spi.DefaultAlertChangeEventContent;
 import com.thinkbiganalytics.jobrepo.common.constants.CheckDataStepConstants;
 import com.thinkbiganalytics.jobrepo.common.constants.FeedConstants;
+import com.thinkbiganalytics.metadata.api.KeysetPage;
 import com.thinkbiganalytics.metadata.api.MetadataAccess;
 import com.thinkbiganalytics.metadata.api.SearchCriteria;
 import com.thinkbiganalytics.metadata.api.alerts.OperationalAlerts;
@@ -53,11 +56,11 @@ import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedStats;
 import com.thinkbiganalytics.metadata.api.jobrepo.step.BatchStepExecutionProvider;
 import com.thinkbiganalytics.metadata.api.op.FeedOperation;
 import com.thinkbiganalytics.metadata.config.RoleSetExposingSecurityExpressionRoot;
-import com.thinkbiganalytics.metadata.jpa.feed.FeedAclIndexQueryAugmentor;
 import com.thinkbiganalytics.metadata.jpa.feed.JpaOpsManagerFeed;
 import com.thinkbiganalytics.metadata.jpa.feed.OpsManagerFeedRepository;
 import com.thinkbiganalytics.metadata.jpa.feed.QJpaOpsManagerFeed;
 import com.thinkbiganalytics.metadata.jpa.feed.QOpsManagerFeedId;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.metadata.jpa.jobrepo.nifi.JpaNifiEventJobExecution;
 import com.thinkbiganalytics.metadata.jpa.jobrepo.nifi.NifiRelatedRootFlowFilesRepository;
 import com.thinkbiganalytics.metadata.jpa.support.CommonFilterTranslations;
@@ -89,6 +92,7 @@ import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -110,6 +114,13 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
 
     private static final Logger log = LoggerFactory.getLogger(JpaBatchJobExecutionProvider.class);
 
+    private static final String KEYSET_TOKEN_SEPARATOR = "_";
+
+    /**
+     * Maximum number of feed names in a single query
+     */
+    private static final int FEED_NAME_BATCH_SIZE = 500;
+
     private static String PARAM_TB_JOB_TYPE = "tb.jobType";
 
     @Autowired
@@ -135,6 +146,9 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
     @Inject
     private AccessController controller;
 
+    @Inject
+    private FeedAclCache aclCache;
+
     @Inject
     private MetadataEventService eventService;
 
@@ -635,6 +649,35 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
         }
     }
 
+    @Override
+    public Map<String, BatchJobExecution> findLatestCompletedJobForFeeds(Collection<String> feedNames) {
+        Map<String, BatchJobExecution> jobExecutions = new HashMap<>();
+        for (List<String> batch : Iterables.partition(new HashSet<>(feedNames), FEED_NAME_BATCH_SIZE)) {
+            putFirstJobForFeed(jobExecutionRepository.findLatestCompletedJobForFeeds(batch), jobExecutions);
+        }
+        return jobExecutions;
+    }
+
+    @Override
+    public Map<String, BatchJobExecution> findLatestFinishedJobForFeeds(Collection<String> feedNames) {
+        Map<String, BatchJobExecution> jobExecutions = new HashMap<>();
+        for (List<String> batch : Iterables.partition(new HashSet<>(feedNames), FEED_NAME_BATCH_SIZE)) {
+            putFirstJobForFeed(jobExecutionRepository.findLatestFinishedJobForFeeds(batch), jobExecutions);
+        }
+        return jobExecutions;
+    }
+
+    /**
+     * Adds the first job of each feed from rows of feed name and job execution
+     */
+    private void putFirstJobForFeed(List<Object[]> rows, Map<String, BatchJobExecution> jobExecutions) {
+        if (rows != null) {
+            for (Object[] row : rows) {
+                jobExecutions.putIfAbsent((String) row[0], (BatchJobExecution) row[1]);
+            }
+        }
+    }
+
     @Override
     public BatchJobExecution findLatestJobForFeed(String feedName) {
         List<JpaBatchJobExecution> jobExecutions = jobExecutionRepository.findLatestJobForFeed(feedName);
@@ -658,18 +701,17 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
      */
     @Override
     public Page<? extends BatchJobExecution> findAll(String filter, Pageable pageable) {
+        return findAll(filter, pageable, COUNT_ALL);
+    }
+
+    @Override
+    public Page<? extends BatchJobExecution> findAll(String filter, Pageable pageable, long countLimit) {
         QJpaBatchJobExecution jobExecution = QJpaBatchJobExecution.jpaBatchJobExecution;
         //if the filter contains a filter on the feed then delegate to the findAllForFeed method to include any check data jobs
         List<SearchCriteria> searchCriterias = GenericQueryDslFilter.parseFilterString(filter);
-        SearchCriteria feedFilter = searchCriterias.stream().map(searchCriteria -> searchCriteria.withKey(CommonFilterTranslations.resolvedFilter(jobExecution, searchCriteria.getKey()))).filter(
-            sc -> sc.getKey().equalsIgnoreCase(CommonFilterTranslations.jobExecutionFeedNameFilterKey)).findFirst().orElse(null);
-        if (feedFilter != null && feedFilter.getPreviousSearchCriteria() != null && !feedFilter.isValueCollection()) {
-            //remove the feed filter from the list and filter by this feed
-            searchCriterias.remove(feedFilter.getPreviousSearchCriteria());
-            String feedValue = feedFilter.getValue().toString();
-            //remove any quotes around the feedValue
-            feedValue = feedValue.replaceAll("^\"|\"$", "");
-            return findAllForFeed(feedValue, searchCriterias, pageable);
+        String feedName = removeFeedFilter(jobExecution, searchCriterias);
+        if (feedName != null) {
+            return findAllForFeed(feedName, searchCriterias, pageable, countLimit);
         } else {
             pageable = CommonFilterTranslations.resolveSortFilters(jobExecution, pageable);
             QJpaBatchJobInstance jobInstancePath = new QJpaBatchJobInstance("jobInstance");
@@ -677,7 +719,9 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
 
             return findAllWithFetch(jobExecution,
                                     GenericQueryDslFilter.buildFilter(jobExecution, filter).and(augment(feedPath.id)),
+                                    false,
                                     pageable,
+                                    countLimit,
                                     QueryDslFetchJoin.innerJoin(jobExecution.nifiEventJobExecution),
                                     QueryDslFetchJoin.innerJoin(jobExecution.jobInstance, jobInstancePath),
                                     QueryDslFetchJoin.innerJoin(jobInstancePath.feed, feedPath)
@@ -686,8 +730,89 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
 
     }
 
+    /**
+     * Finds the job executions following the continuation token.  Jobs are ordered by start time and job execution id, both descending, and the token holds these values for the last job of the
+     * previous page; the next page is selected by comparing against them, which the START_TIME, JOB_EXECUTION_ID index answers without reading the preceding jobs.
+     * Job executions are given their start time when created.
+     */
+    @Override
+    public KeysetPage<? extends BatchJobExecution> findAllAfter(String filter, String continuationToken, int limit, long countLimit) {
+        QJpaBatchJobExecution jobExecution = QJpaBatchJobExecution.jpaBatchJobExecution;
+        Predicate seek = continuationToken != null ? seekAfter(jobExecution, continuationToken) : null;
+        OrderSpecifier<?>[] order = {jobExecution.startTimeMillis.desc(), jobExecution.jobExecutionId.desc()};
+
+        List<SearchCriteria> searchCriterias = GenericQueryDslFilter.parseFilterString(filter);
+        String feedName = removeFeedFilter(jobExecution, searchCriterias);
+        if (feedName != null) {
+            return findAllAfter(createFeedQuery(feedName, searchCriterias), seek, limit, countLimit, JpaBatchJobExecutionProvider::keysetToken, order);
+        } else {
+            QJpaBatchJobInstance jobInstancePath = new QJpaBatchJobInstance("jobInstance");
+            QJpaOpsManagerFeed feedPath = new QJpaOpsManagerFeed("feed");
+
+            return findAllAfterWithFetch(jobExecution,
+                                         GenericQueryDslFilter.buildFilter(jobExecution, filter).and(augment(feedPath.id)),
+                                         seek,
+                                         limit,
+                                         countLimit,
+                                         JpaBatchJobExecutionProvider::keysetToken,
+                                         order,
+                                         QueryDslFetchJoin.innerJoin(jobExecution.nifiEventJobExecution),
+                                         QueryDslFetchJoin.innerJoin(jobExecution.jobInstance, jobInstancePath),
+                                         QueryDslFetchJoin.innerJoin(jobInstancePath.feed, feedPath)
+            );
+        }
+    }
+
+    /**
+     * Creates the continuation token identifying the position of the job execution, as {@code startTimeMillis_jobExecutionId}
+     */
+    private static String keysetToken(JpaBatchJobExecution jobExecution) {
+        return jobExecution.getStartTimeMillis() + KEYSET_TOKEN_SEPARATOR + jobExecution.getJobExecutionId();
+    }
+
+    /**
+     * Creates the predicate selecting the job executions that follow the continuation token in the keyset order
+     */
+    private Predicate seekAfter(QJpaBatchJobExecution jobExecution, String continuationToken) {
+        String[] keys = continuationToken.split(KEYSET_TOKEN_SEPARATOR, -1);
+        try {
+            if (keys.length != 2) {
+                throw new NumberFormatException();
+            }
+            Long jobExecutionId = Long.valueOf(keys[1]);
+            if ("null".equals(keys[0])) {
+                return jobExecution.startTimeMillis.isNull().and(jobExecution.jobExecutionId.lt(jobExecutionId));
+            } else {
+                Long startTime = Long.valueOf(keys[0]);
+                return jobExecution.startTimeMillis.lt(startTime)
+                    .or(jobExecution.startTimeMillis.eq(startTime).and(jobExecution.jobExecutionId.lt(jobExecutionId)));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + continuationToken);
+        }
+    }
+
+    /**
+     * Removes a filter on a single feed from the search criteria
+     *
+     * @return the name of the feed, or null if the criteria do not filter on a single feed
+     */
+    private String removeFeedFilter(QJpaBatchJobExecution jobExecution, List<SearchCriteria> searchCriterias) {
+        SearchCriteria feedFilter = searchCriterias.stream().map(searchCriteria -> searchCriteria.withKey(CommonFilterTranslations.resolvedFilter(jobExecution, searchCriteria.getKey()))).filter(
+            sc -> sc.getKey().equalsIgnoreCase(CommonFilterTranslations.jobExecutionFeedNameFilterKey)).findFirst().orElse(null);
+        if (feedFilter != null && feedFilter.getPreviousSearchCriteria() != null && !feedFilter.isValueCollection()) {
+            //remove the feed filter from the list and filter by this feed
+            searchCriterias.remove(feedFilter.getPreviousSearchCriteria());
+            String feedValue = feedFilter.getValue().toString();
+            //remove any quotes around the feedValue
+            return feedValue.replaceAll("^\"|\"$", "");
+        } else {
+            return null;
+        }
+    }
+
     private Predicate augment(QOpsManagerFeedId id) {
-        return FeedAclIndexQueryAugmentor.generateExistsExpression(id, controller.isEntityAccessControlled());
+        return aclCache.generateAccessExpression(id, controller.isEntityAccessControlled());
     }
 
 
@@ -696,15 +821,20 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
         return new RoleSetExposingSecurityExpressionRoot(authentication);
     }
 
-    private Page<? extends BatchJobExecution> findAllForFeed(String feedName, List<SearchCriteria> filters, Pageable pageable) {
+    private Page<? extends BatchJobExecution> findAllForFeed(String feedName, List<SearchCriteria> filters, Pageable pageable, long countLimit) {
+        QJpaBatchJobExecution jobExecution = QJpaBatchJobExecution.jpaBatchJobExecution;
+        pageable = CommonFilterTranslations.resolveSortFilters(jobExecution, pageable);
+        return findAll(createFeedQuery(feedName, filters), pageable, countLimit);
+    }
+
+    private JPAQuery<JpaBatchJobExecution> createFeedQuery(String feedName, List<SearchCriteria> filters) {
         QJpaBatchJobExecution jobExecution = QJpaBatchJobExecution.jpaBatchJobExecution;
         QJpaOpsManagerFeed feed = QJpaOpsManagerFeed.jpaOpsManagerFeed;
         QJpaOpsManagerFeed checkDataFeed = new QJpaOpsManagerFeed("checkDataFeed");
         QJpaBatchJobInstance jobInstance = QJpaBatchJobInstance.jpaBatchJobInstance;
         JPQLQuery checkFeedQuery = JPAExpressions.select(checkDataFeed.id).from(feed).join(feed.checkDataFeeds, checkDataFeed).where(feed.name.eq(feedName));
 
-        JPAQuery
-            query = factory.select(jobExecution)
+        return factory.select(jobExecution)
             .from(jobExecution)
             .join(jobExecution.jobInstance, jobInstance)
             .join(jobInstance.feed, feed)
@@ -712,9 +842,6 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
                        .and(GenericQueryDslFilter.buildFilter(jobExecution, filters)
                                 .and(augment(feed.id))))
             .fetchAll();
-
-        pageable = CommonFilterTranslations.resolveSortFilters(jobExecution, pageable);
-        return findAll(query, pageable);
     }
 
 
@@ -746,7 +873,7 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
             .innerJoin(jobInstance).on(jobExecution.jobInstance.jobInstanceId.eq(jobInstance.jobInstanceId))
             .innerJoin(feed).on(jobInstance.feed.id.eq(feed.id))
             .where(whereBuilder.and(feed.isStream.eq(false))
-                       .and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, controller.isEntityAccessControlled())))
+                       .and(aclCache.generateAccessExpression(feed.id, controller.isEntityAccessControlled())))
             .groupBy(jobExecution.status);
         List<JobStatusCount> stats = (List<JobStatusCount>) query.fetch();
 
@@ -795,7 +922,7 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
             .from(jobExecution)
             .innerJoin(jobInstance).on(jobExecution.jobInstance.jobInstanceId.eq(jobInstance.jobInstanceId))
             .innerJoin(feed).on(jobInstance.feed.id.eq(feed.id))
-            .where(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, controller.isEntityAccessControlled()))
+            .where(aclCache.generateAccessExpression(feed.id, controller.isEntityAccessControlled()))
             .groupBy(jobExecution.status, jobExecution.startYear, jobExecution.startMonth, jobExecution.startDay);
 
         return (List<JobStatusCount>) query.fetch();
@@ -834,7 +961,7 @@ public class JpaBatchJobExecutionProvider extends QueryDslPagingSupport<JpaBatch
             .innerJoin(jobInstance).on(jobExecution.jobInstance.jobInstanceId.eq(jobInstance.jobInstanceId))
             .innerJoin(feed).on(jobInstance.feed.id.eq(feed.id))
             .where(whereBuilder
-                       .and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, controller.isEntityAccessControlled())))
+                       .and(aclCache.generateAccessExpression(feed.id, controller.isEntityAccessControlled())))
             .groupBy(jobExecution.status, jobExecution.startYear, jobExecution.startMonth, jobExecution.startDay);
 
         return (List<JobStatusCount>) query.fetch();
@@ -29,8 +29,8 @@ import com.thinkbiganalytics.metadata.api.common.ItemLastModified;
 import com.thinkbiganalytics.metadata.api.common.ItemLastModifiedProvider;
 import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorErrors;
 import com.thinkbiganalytics.metadata.api.jobrepo.nifi.NifiFeedProcessorStats;
-import com.thinkbiganalytics.metadata.jpa.feed.FeedAclIndexQueryAugmentor;
 import com.thinkbiganalytics.metadata.jpa.feed.QJpaOpsManagerFeed;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.security.AccessController;
 
 import org.apache.commons.lang3.StringUtils;
@@ -67,6 +67,9 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
     @Inject
     private AccessController accessController;
 
+    @Inject
+    private FeedAclCache aclCache;
+
     @Autowired
     public NifiFeedProcessorStatisticsProvider(NifiFeedProcessorStatisticsRepository repository, NifiEventRepository nifiEventRepository) {
         this.statisticsRepository = repository;
@@ -159,7 +162,7 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
             .from(stats)
             .innerJoin(feed).on(feed.name.eq(stats.feedName))
             .where(stats.feedName.eq(feedName)
-                       .and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, accessController.isEntityAccessControlled()))
+                       .and(aclCache.generateAccessExpression(feed.id, accessController.isEntityAccessControlled()))
                        .and(stats.minEventTime.goe(start)
                                 .and(stats.maxEventTime.loe(end))))
             .groupBy(stats.feedName, stats.processorId, stats.processorName)
@@ -189,7 +192,7 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
             .from(stats)
             .innerJoin(feed).on(feed.name.eq(stats.feedName))
             .where(stats.feedName.eq(feedName)
-                       .and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, accessController.isEntityAccessControlled()))
+                       .and(aclCache.generateAccessExpression(feed.id, accessController.isEntityAccessControlled()))
                        .and(stats.minEventTime.goe(start)
                                 .and(stats.maxEventTime.loe(end))))
             .groupBy(stats.feedName, stats.processorName)
@@ -221,7 +224,7 @@ public class NifiFeedProcessorStatisticsProvider implements com.thinkbiganalytic
             .from(stats)
             .innerJoin(feed).on(feed.name.eq(stats.feedName))
             .where(stats.feedName.eq(feedName)
-                       .and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, accessController.isEntityAccessControlled()))
+                       .and(aclCache.generateAccessExpression(feed.id, accessController.isEntityAccessControlled()))
                        .and(stats.minEventTime.goe(start)
                                 .and(stats.maxEventTime.loe(end))))
 
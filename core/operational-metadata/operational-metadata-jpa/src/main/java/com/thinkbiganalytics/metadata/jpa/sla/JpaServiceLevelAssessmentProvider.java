@@ -27,8 +27,8 @@ import com.google.common.collect.ImmutableMap;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.ConstantImpl;
 import com.querydsl.core.types.ExpressionUtils;
-import com.thinkbiganalytics.metadata.jpa.feed.FeedAclIndexQueryAugmentor;
 import com.thinkbiganalytics.metadata.jpa.feed.QJpaOpsManagerFeed;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.metadata.jpa.support.CommonFilterTranslations;
 import com.thinkbiganalytics.metadata.jpa.support.GenericQueryDslFilter;
 import com.thinkbiganalytics.metadata.jpa.support.QueryDslFetchJoin;
@@ -70,6 +70,9 @@ public class JpaServiceLevelAssessmentProvider extends QueryDslPagingSupport<Jpa
     @Inject
     private AccessController accessController;
 
+    @Inject
+    private FeedAclCache aclCache;
+
     public static final ImmutableMap<String, String> slaAssessmentFilters =
         new ImmutableMap.Builder<String, String>()
             .put("sla", "serviceLevelAgreementDescription.name")
@@ -224,7 +227,7 @@ public class JpaServiceLevelAssessmentProvider extends QueryDslPagingSupport<Jpa
         if (invalidQuery) {
             predicate.and(ExpressionUtils.eq(ConstantImpl.create("1"), ConstantImpl.create("2")));
         }
-        predicate.and(feed.isNull().or(feed.isNotNull().and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, accessController.isEntityAccessControlled()))));
+        predicate.and(feed.isNull().or(feed.isNotNull().and(aclCache.generateAccessExpression(feed.id, accessController.isEntityAccessControlled()))));
 
         return findAllWithFetch(serviceLevelAssessment,
                                 predicate,
@@ -20,38 +20,67 @@ package com.thinkbiganalytics.metadata.jpa.support;
  * #L%
  */
 
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
+import com.thinkbiganalytics.metadata.api.KeysetPage;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.QueryDslRepositorySupport;
 import org.springframework.data.querydsl.QPageRequest;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Spring data provides out of the box capability to get paging results via a direct JPA object, but doesn't expose it for JPA queries. This class allows a provider to get page results from a QueryDSL
  * JPAQuery
+ * <p>
+ * Counting every matching row can cost more than fetching the page itself, so the total may be limited by a count limit: {@link #COUNT_ALL} counts every row, 0 skips the count and reports only
+ * whether another page follows, and any other value stops counting once that many rows are found.
  */
 public class QueryDslPagingSupport<E> extends QueryDslRepositorySupport {
 
+    /**
+     * Count limit indicating that every matching row should be counted
+     */
+    public static final long COUNT_ALL = Long.MAX_VALUE;
+
+    /**
+     * Selected by the limited count queries in place of the entity, so no entities are loaded to be counted
+     */
+    private static final Expression<Integer> ROW = Expressions.numberTemplate(Integer.class, "1");
+
     public QueryDslPagingSupport(Class<E> clazz) {
         super(clazz);
     }
 
     protected Page<E> findAll(JPAQuery query, Pageable pageable) {
+        return findAll(query, pageable, COUNT_ALL);
+    }
+
+    protected Page<E> findAll(JPAQuery query, Pageable pageable, long countLimit) {
         if (pageable == null) {
             pageable = new QPageRequest(0, Integer.MAX_VALUE);
         }
-        long total = query.clone(super.getEntityManager()).fetchCount();
-        JPQLQuery pagedQuery = getQuerydsl().applyPagination(pageable, query);
-        List<E> content = total > pageable.getOffset() ? pagedQuery.fetch() : Collections.<E>emptyList();
-        return new PageImpl<>(content, pageable, total);
+        if (countLimit == COUNT_ALL) {
+            long total = query.clone(super.getEntityManager()).fetchCount();
+            JPQLQuery pagedQuery = getQuerydsl().applyPagination(pageable, query);
+            List<E> content = total > pageable.getOffset() ? pagedQuery.fetch() : Collections.<E>emptyList();
+            return new PageImpl<>(content, pageable, total);
+        } else {
+            JPQLQuery<E> pagedQuery = getQuerydsl().applyPagination(pageable, query.clone(super.getEntityManager()));
+            return fetchPage(pagedQuery, pageable, countLimit, () -> query.clone(super.getEntityManager()));
+        }
     }
 
     public Page<E> findAllWithFetch(EntityPathBase<E> path, Predicate predicate, Pageable pageable, QueryDslFetchJoin... joins) {
@@ -59,32 +88,116 @@ public class QueryDslPagingSupport<E> extends QueryDslRepositorySupport {
     }
 
     public Page<E> findAllWithFetch(EntityPathBase<E> path, Predicate predicate,boolean distinct, Pageable pageable, QueryDslFetchJoin... joins) {
+        return findAllWithFetch(path, predicate, distinct, pageable, COUNT_ALL, joins);
+    }
+
+    public Page<E> findAllWithFetch(EntityPathBase<E> path, Predicate predicate, boolean distinct, Pageable pageable, long countLimit, QueryDslFetchJoin... joins) {
         if (pageable == null) {
             pageable = new QPageRequest(0, Integer.MAX_VALUE);
         }
-        long total = createFetchQuery(path, predicate,distinct,joins).fetchCount();
+        if (countLimit == COUNT_ALL) {
+            long total = createFetchQuery(path, predicate, distinct, joins).fetchCount();
+
+            JPQLQuery pagedQuery = getQuerydsl().applyPagination(pageable, createFetchQuery(path, predicate, distinct, joins));
 
-        JPQLQuery pagedQuery = getQuerydsl().applyPagination(pageable, createFetchQuery(path, predicate, distinct,joins));
+            List<E> content = total > pageable.getOffset() ? pagedQuery.fetch() : Collections.<E>emptyList();
+            return new PageImpl<>(content, pageable, total);
+        } else {
+            JPQLQuery<E> pagedQuery = getQuerydsl().applyPagination(pageable, createFetchQuery(path, predicate, distinct, joins));
+            return fetchPage(pagedQuery, pageable, countLimit, () -> createCountQuery(path, predicate, distinct, joins));
+        }
+    }
+
+    /**
+     * Finds the results that follow a keyset position.  The seek predicate selects the rows after the last row of the previous page in the specified order, so the database can start from that
+     * position in an index instead of reading and discarding every preceding row.
+     *
+     * @param query      the query without the seek predicate
+     * @param seek       the predicate selecting the rows after the previous page, or null for the first page
+     * @param limit      the maximum number of results
+     * @param countLimit the count limit for the total of all rows matching the query
+     * @param keyset     produces the continuation token identifying the position of a result
+     * @param order      the keyset order, which must be total
+     * @return the page of results, with a continuation token if more results follow
+     */
+    protected KeysetPage<E> findAllAfter(JPAQuery<E> query, Predicate seek, int limit, long countLimit, Function<? super E, String> keyset, OrderSpecifier<?>... order) {
+        JPQLQuery<E> pagedQuery = query.clone(super.getEntityManager()).where(seek).orderBy(order);
+        return fetchKeysetPage(pagedQuery, limit, countLimit, keyset, () -> query.clone(super.getEntityManager()));
+    }
+
+    /**
+     * Finds the results that follow a keyset position, fetching the specified joins.
+     *
+     * @see #findAllAfter(JPAQuery, Predicate, int, long, Function, OrderSpecifier[])
+     */
+    public KeysetPage<E> findAllAfterWithFetch(EntityPathBase<E> path, Predicate predicate, Predicate seek, int limit, long countLimit, Function<? super E, String> keyset,
+                                               OrderSpecifier<?>[] order, QueryDslFetchJoin... joins) {
+        JPQLQuery<E> pagedQuery = createFetchQuery(path, predicate, false, joins).where(seek).orderBy(order);
+        return fetchKeysetPage(pagedQuery, limit, countLimit, keyset, () -> createCountQuery(path, predicate, false, joins));
+    }
+
+    /**
+     * Fetches one row beyond the page, which shows whether another page follows without counting.
+     */
+    private Page<E> fetchPage(JPQLQuery<E> pagedQuery, Pageable pageable, long countLimit, Supplier<JPQLQuery<?>> countQuery) {
+        final boolean lookAhead = pageable.getPageSize() < Integer.MAX_VALUE;
+        if (lookAhead) {
+            pagedQuery.limit(pageable.getPageSize() + 1L);
+        }
+        List<E> content = pagedQuery.fetch();
+        final boolean hasMore = lookAhead && content.size() > pageable.getPageSize();
+        if (hasMore) {
+            content = content.subList(0, pageable.getPageSize());
+        }
 
-        List<E> content = total > pageable.getOffset() ? pagedQuery.fetch() : Collections.<E>emptyList();
+        long total = pageable.getOffset() + content.size() + (hasMore ? 1 : 0);
+        if (countLimit > 0 && (hasMore || (content.isEmpty() && pageable.getOffset() > 0))) {
+            total = Math.max(total, countRows(countQuery.get(), countLimit));
+        }
         return new PageImpl<>(content, pageable, total);
     }
 
+    private KeysetPage<E> fetchKeysetPage(JPQLQuery<E> pagedQuery, int limit, long countLimit, Function<? super E, String> keyset, Supplier<JPQLQuery<?>> countQuery) {
+        List<E> content = pagedQuery.limit(limit + 1L).fetch();
+        String continuationToken = null;
+        if (content.size() > limit) {
+            content = content.subList(0, limit);
+            continuationToken = keyset.apply(content.get(content.size() - 1));
+        }
 
-    private JPQLQuery createFetchCountQuery(EntityPathBase<E> path, Predicate predicate,boolean distinct) {
-        JPQLQuery query = null;
-        if(distinct){
-            query =from(path).distinct();
+        Pageable pageable = new PageRequest(0, Math.max(1, limit));
+        if (countLimit > 0) {
+            return new KeysetPage<>(content, pageable, Math.max(content.size(), countRows(countQuery.get(), countLimit)), continuationToken);
+        } else {
+            return new KeysetPage<>(content, pageable, continuationToken);
         }
-        else {
-            query = from(path);
+    }
+
+    /**
+     * Counts the rows of the query, stopping at the count limit.
+     */
+    private long countRows(JPQLQuery<?> query, long countLimit) {
+        if (countLimit == COUNT_ALL || query.getMetadata().isDistinct()) {
+            // distinct rows cannot be counted by a placeholder
+            return query.fetchCount();
+        } else {
+            return query.select(ROW).limit(countLimit).fetch().size();
         }
-        query.where(predicate);
-        return query;
     }
 
-    private JPQLQuery createFetchQuery(EntityPathBase<E> path, Predicate predicate, boolean distinct, QueryDslFetchJoin... joins) {
-        JPQLQuery query = null;
+    private JPQLQuery<E> createFetchQuery(EntityPathBase<E> path, Predicate predicate, boolean distinct, QueryDslFetchJoin... joins) {
+        return createQuery(path, predicate, distinct, true, joins);
+    }
+
+    /**
+     * Creates the query joining the same paths as the fetch query, without fetching them, so a projection other than the entity can be selected.
+     */
+    private JPQLQuery<E> createCountQuery(EntityPathBase<E> path, Predicate predicate, boolean distinct, QueryDslFetchJoin... joins) {
+        return createQuery(path, predicate, distinct, false, joins);
+    }
+
+    private JPQLQuery<E> createQuery(EntityPathBase<E> path, Predicate predicate, boolean distinct, boolean fetch, QueryDslFetchJoin... joins) {
+        JPQLQuery<E> query = null;
         if(distinct){
             query =from(path).distinct();
         }
@@ -92,78 +205,86 @@ public class QueryDslPagingSupport<E> extends QueryDslRepositorySupport {
             query = from(path);
         }
         for (QueryDslFetchJoin joinDescriptor : joins) {
-            join(joinDescriptor, query);
+            join(joinDescriptor, query, fetch);
         }
         query.where(predicate);
         return query;
     }
 
-    private JPQLQuery join(QueryDslFetchJoin join, JPQLQuery query) {
+    private JPQLQuery join(QueryDslFetchJoin join, JPQLQuery query, boolean fetch) {
+        if (join.joinPath == null && join.collectionExpression == null) {
+            return query;
+        }
         switch (join.type) {
             case INNER:
                 if(join.joinPath != null){
-                    query.innerJoin(join.joinPath).fetchJoin();
+                    query.innerJoin(join.joinPath);
                 }
-                else if(join.collectionExpression != null) {
-                    query.innerJoin(join.collectionExpression).fetch();
+                else {
+                    query.innerJoin(join.collectionExpression);
                 }
                 break;
             case JOIN:
                 if(join.joinPath != null){
-                    query.join(join.joinPath).fetchJoin();
+                    query.join(join.joinPath);
                 }
-                else if(join.collectionExpression != null) {
-                    query.join(join.collectionExpression).fetchJoin();
+                else {
+                    query.join(join.collectionExpression);
                 }
                 break;
             case LEFT:
                 if(join.joinPath != null){
-                    query.leftJoin(join.joinPath).fetchJoin();
+                    query.leftJoin(join.joinPath);
                 }
-                else if(join.collectionExpression != null) {
-                    query.leftJoin(join.collectionExpression).fetchJoin();
+                else {
+                    query.leftJoin(join.collectionExpression);
                 }
                 break;
             case RIGHT:
                 if(join.joinPath != null){
-                    query.rightJoin(join.joinPath).fetchJoin();
+                    query.rightJoin(join.joinPath);
                 }
-                else if(join.collectionExpression != null) {
-                    query.rightJoin(join.collectionExpression).fetchJoin();
+                else {
+                    query.rightJoin(join.collectionExpression);
                 }
                 break;
             case INNER_ALIAS:
                 if(join.joinPath != null){
-                    query.innerJoin(join.joinPath, join.alias).fetchJoin();
+                    query.innerJoin(join.joinPath, join.alias);
                 }
-                else if(join.collectionExpression != null) {
-                    query.innerJoin(join.collectionExpression, join.alias).fetchJoin();
+                else {
+                    query.innerJoin(join.collectionExpression, join.alias);
                 }
                 break;
             case JOIN_ALIAS:
                 if(join.joinPath != null){
-                    query.join(join.joinPath, join.alias).fetchJoin();
+                    query.join(join.joinPath, join.alias);
                 }
-                else if(join.collectionExpression != null) {
-                    query.join(join.collectionExpression, join.alias).fetchJoin();
+                else {
+                    query.join(join.collectionExpression, join.alias);
                 }
                 break;
             case LEFT_ALIAS:
                 if(join.joinPath != null){
-                    query.leftJoin(join.joinPath, join.alias).fetchJoin();
+                    query.leftJoin(join.joinPath, join.alias);
                 }
-                else if(join.collectionExpression != null) {
-                    query.leftJoin(join.collectionExpression, join.alias).fetchJoin();
+                else {
+                    query.leftJoin(join.collectionExpression, join.alias);
                 }
                 break;
             case RIGHT_ALIAS:
                 if(join.joinPath != null){
-                    query.rightJoin(join.joinPath, join.alias).fetchJoin();
+                    query.rightJoin(join.joinPath, join.alias);
                 }
-                else if(join.collectionExpression != null) {
-                    query.rightJoin(join.collectionExpression, join.alias).fetchJoin();
+                else {
+                    query.rightJoin(join.collectionExpression, join.alias);
                 }
                 break;
+            default:
+                return query;
+        }
+        if (fetch) {
+            query.fetchJoin();
         }
         return query;
     }
@@ -23,6 +23,7 @@ package com.thinkbiganalytics.metadata.jpa.feed;
 import com.thinkbiganalytics.metadata.config.OperationalMetadataConfig;
 import com.thinkbiganalytics.metadata.core.feed.BaseFeed;
 import com.thinkbiganalytics.metadata.jpa.TestJpaConfiguration;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.metadata.jpa.feed.security.FeedOpsAccessControlConfig;
 import com.thinkbiganalytics.metadata.jpa.feed.security.FeedOpsAccessControlRepository;
 import com.thinkbiganalytics.metadata.jpa.feed.security.JpaFeedOpsAclEntry;
@@ -31,6 +32,7 @@ import com.thinkbiganalytics.spring.CommonsSpringConfiguration;
 import com.thinkbiganalytics.test.security.WithMockJaasUser;
 
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -71,6 +73,17 @@ public class FeedHealthRepositoryTest {
     @Inject
     FeedOpsAccessControlRepository aclRepo;
 
+    @Inject
+    FeedAclCache aclCache;
+
+    /**
+     * ACL entries are saved directly to the repository rather than through the provider, so drop any feed ids cached by previous tests
+     */
+    @Before
+    public void invalidateAclCache() {
+        aclCache.invalidateAll();
+    }
+
     @WithMockJaasUser(username = "dladmin",
                       password = "secret",
                       authorities = {"admin", "user"})
@@ -27,6 +27,7 @@ import com.thinkbiganalytics.metadata.api.jobrepo.job.JobStatusCount;
 import com.thinkbiganalytics.metadata.config.OperationalMetadataConfig;
 import com.thinkbiganalytics.metadata.core.feed.BaseFeed;
 import com.thinkbiganalytics.metadata.jpa.TestJpaConfiguration;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.metadata.jpa.feed.security.FeedOpsAccessControlRepository;
 import com.thinkbiganalytics.metadata.jpa.feed.security.JpaFeedOpsAclEntry;
 import com.thinkbiganalytics.security.AccessController;
@@ -56,6 +57,9 @@ public class JpaFeedProviderTest {
     @Inject
     private FeedOpsAccessControlRepository aclRepo;
 
+    @Inject
+    private FeedAclCache aclCache;
+
     @Inject
     private OpsFeedManagerFeedProvider feedProvider;
 
@@ -89,6 +93,8 @@ public class JpaFeedProviderTest {
         final JpaFeedOpsAclEntry adminAcl = new JpaFeedOpsAclEntry(feedId, "admin", JpaFeedOpsAclEntry.PrincipalType.GROUP);
         aclRepo.save(userAcl);
         aclRepo.save(adminAcl);
+        // saved directly rather than through the provider, so drop the feed ids cached while saving the feed
+        aclCache.invalidateAll();
 
         // Verify access to feeds
         metadataAccess.read(() -> {
@@ -0,0 +1,223 @@
+package com.thinkbiganalytics.metadata.jpa.feed.security;
+
+/*-
+ * #%L
+ * kylo-operational-metadata-jpa
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.feed.Feed;
+import com.thinkbiganalytics.metadata.api.feed.security.FeedOpsAccessControlProvider;
+import com.thinkbiganalytics.metadata.config.OperationalMetadataConfig;
+import com.thinkbiganalytics.metadata.core.feed.BaseFeed;
+import com.thinkbiganalytics.metadata.jpa.TestJpaConfiguration;
+import com.thinkbiganalytics.metadata.jpa.feed.FeedAclIndexQueryAugmentor;
+import com.thinkbiganalytics.metadata.jpa.feed.JpaOpsManagerFeed;
+import com.thinkbiganalytics.metadata.jpa.feed.OpsManagerFeedId;
+import com.thinkbiganalytics.metadata.jpa.feed.OpsManagerFeedRepository;
+import com.thinkbiganalytics.metadata.jpa.feed.QJpaOpsManagerFeed;
+import com.thinkbiganalytics.security.AccessController;
+import com.thinkbiganalytics.security.GroupPrincipal;
+import com.thinkbiganalytics.security.UsernamePrincipal;
+import com.thinkbiganalytics.spring.CommonsSpringConfiguration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import javax.inject.Inject;
+
+/**
+ * Verifies that limiting queries with the {@link FeedAclCache} selects the same feeds as the FEED_ACL_INDEX EXISTS subquery,
+ * including after grants and revocations.
+ */
+@SuppressWarnings("SpringJavaAutowiringInspection")
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = "classpath:test-application.properties")
+@SpringApplicationConfiguration(classes = {CommonsSpringConfiguration.class, OperationalMetadataConfig.class, TestJpaConfiguration.class, FeedAclCacheTest.class,
+                                           FeedOpsAccessControlConfig.class})
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+@Configuration
+public class FeedAclCacheTest {
+
+    private static final UsernamePrincipal ALICE = new UsernamePrincipal("alice");
+    private static final UsernamePrincipal BOB = new UsernamePrincipal("bob");
+    private static final GroupPrincipal ANALYSTS = new GroupPrincipal("analysts");
+    private static final GroupPrincipal OPS = new GroupPrincipal("ops");
+
+    @Inject
+    private FeedOpsAccessControlProvider opsAccessProvider;
+
+    @Inject
+    private FeedAclCache aclCache;
+
+    @Inject
+    private OpsManagerFeedRepository feedRepository;
+
+    @Inject
+    private JPAQueryFactory factory;
+
+    @Inject
+    private MetadataAccess metadata;
+
+    private final Map<String, Feed.ID> feeds = new HashMap<>();
+
+    @Bean
+    public AccessController accessController() {
+        AccessController mock = Mockito.mock(AccessController.class);
+        Mockito.when(mock.isEntityAccessControlled()).thenReturn(true);
+        return mock;
+    }
+
+    @Before
+    public void setUp() {
+        metadata.commit(() -> {
+            for (String name : new String[]{"f1", "f2", "f3", "f4", "f5", "f6"}) {
+                JpaOpsManagerFeed feed = feedRepository.save(new JpaOpsManagerFeed(OpsManagerFeedId.create(), name));
+                feeds.put(name, new BaseFeed.FeedId(feed.getId().getUuid()));
+            }
+            opsAccessProvider.grantAccess(feeds.get("f1"), ALICE);
+            opsAccessProvider.grantAccess(feeds.get("f2"), ANALYSTS);
+            opsAccessProvider.grantAccess(feeds.get("f3"), ANALYSTS, OPS);
+            opsAccessProvider.grantAccess(feeds.get("f4"), OPS);
+            opsAccessProvider.grantAccess(feeds.get("f5"), BOB);
+        }, MetadataAccess.SERVICE);
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testEquivalentToExistsSubquery() {
+        assertThat(accessibleFeeds("alice", "analysts")).containsOnly("f1", "f2", "f3");
+        assertThat(accessibleFeeds("bob", "ops")).containsOnly("f3", "f4", "f5");
+        assertThat(accessibleFeeds("carol", "analysts", "ops")).containsOnly("f2", "f3", "f4");
+        assertThat(accessibleFeeds("alice")).containsOnly("f1");
+        assertThat(accessibleFeeds("dave", "guests")).isEmpty();
+    }
+
+    @Test
+    public void testGrantAndRevokeUpdateCachedSets() {
+        // Prime the cache for each principal set before changing the ACLs
+        accessibleFeeds("alice", "analysts");
+        accessibleFeeds("bob", "ops");
+        accessibleFeeds("carol", "analysts", "ops");
+
+        metadata.commit(() -> opsAccessProvider.grantAccess(feeds.get("f6"), OPS), MetadataAccess.SERVICE);
+        assertThat(accessibleFeeds("bob", "ops")).containsOnly("f3", "f4", "f5", "f6");
+        assertThat(accessibleFeeds("carol", "analysts", "ops")).containsOnly("f2", "f3", "f4", "f6");
+        assertThat(accessibleFeeds("alice", "analysts")).containsOnly("f1", "f2", "f3");
+
+        // Carol can still see f3 through the ops group
+        metadata.commit(() -> opsAccessProvider.revokeAccess(feeds.get("f3"), ANALYSTS), MetadataAccess.SERVICE);
+        assertThat(accessibleFeeds("alice", "analysts")).containsOnly("f1", "f2");
+        assertThat(accessibleFeeds("carol", "analysts", "ops")).containsOnly("f2", "f3", "f4", "f6");
+
+        metadata.commit(() -> opsAccessProvider.revokeAllAccess(feeds.get("f4")), MetadataAccess.SERVICE);
+        assertThat(accessibleFeeds("bob", "ops")).containsOnly("f3", "f5", "f6");
+        assertThat(accessibleFeeds("carol", "analysts", "ops")).containsOnly("f2", "f3", "f6");
+
+        metadata.commit(() -> opsAccessProvider.grantAccessOnly(feeds.get("f1"), BOB), MetadataAccess.SERVICE);
+        assertThat(accessibleFeeds("alice", "analysts")).containsOnly("f2");
+        assertThat(accessibleFeeds("bob", "ops")).containsOnly("f1", "f3", "f5", "f6");
+
+        metadata.commit(() -> opsAccessProvider.revokeAllAccess(OPS), MetadataAccess.SERVICE);
+        assertThat(accessibleFeeds("bob", "ops")).containsOnly("f1", "f5");
+        assertThat(accessibleFeeds("carol", "analysts", "ops")).containsOnly("f2");
+    }
+
+    @Test
+    public void testRolledBackGrantNotCached() {
+        accessibleFeeds("alice", "analysts");
+
+        try {
+            metadata.commit(() -> {
+                opsAccessProvider.grantAccess(feeds.get("f6"), ANALYSTS);
+                throw new IllegalStateException("rollback");
+            }, MetadataAccess.SERVICE);
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertThat(accessibleFeeds("alice", "analysts")).containsOnly("f1", "f2", "f3");
+    }
+
+    @Test
+    public void testFallsBackToExistsSubqueryForLargeSets() {
+        ReflectionTestUtils.setField(aclCache, "maxIdListSize", 1);
+        assertThat(accessibleFeeds("carol", "analysts", "ops")).containsOnly("f2", "f3", "f4");
+        assertThat(accessibleFeeds("alice")).containsOnly("f1");
+    }
+
+    /**
+     * Finds the names of the feeds accessible by the specified user and groups, asserting that the EXISTS subquery, the
+     * cached feed id list, and the securing repository all agree.
+     */
+    private Set<String> accessibleFeeds(String user, String... groups) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, "secret", AuthorityUtils.createAuthorityList(groups)));
+
+        return metadata.read(() -> {
+            QJpaOpsManagerFeed feed = QJpaOpsManagerFeed.jpaOpsManagerFeed;
+            Set<String> existing = new TreeSet<>(factory.select(feed.name).from(feed)
+                                                     .where(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, true))
+                                                     .fetch());
+            Set<String> cached = new TreeSet<>(factory.select(feed.name).from(feed)
+                                                   .where(aclCache.generateAccessExpression(feed.id, true))
+                                                   .fetch());
+            Set<String> criteria = names(feedRepository.findAll());
+            Set<String> predicate = names(feedRepository.findAll(feed.name.isNotNull()));
+
+            assertThat(cached).isEqualTo(existing);
+            assertThat(criteria).isEqualTo(existing);
+            assertThat(predicate).isEqualTo(existing);
+            assertThat(feedRepository.count()).isEqualTo(existing.size());
+            return existing;
+        }, MetadataAccess.SERVICE);
+    }
+
+    private static Set<String> names(Iterable<JpaOpsManagerFeed> feeds) {
+        return StreamSupport.stream(feeds.spliterator(), false)
+            .map(JpaOpsManagerFeed::getName)
+            .collect(Collectors.toCollection(TreeSet::new));
+    }
+}
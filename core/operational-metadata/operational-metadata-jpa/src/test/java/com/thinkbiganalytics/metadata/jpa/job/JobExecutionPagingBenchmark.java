@@ -0,0 +1,120 @@
+package com.thinkbiganalytics.metadata.jpa.job;
+
+/*-
+ * #%L
+ * thinkbig-operational-metadata-jpa
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecutionProvider;
+import com.thinkbiganalytics.metadata.config.OperationalMetadataConfig;
+import com.thinkbiganalytics.metadata.jpa.TestJpaConfiguration;
+import com.thinkbiganalytics.spring.CommonsSpringConfiguration;
+import com.thinkbiganalytics.test.security.WithMockJaasUser;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+/**
+ * Compares offset paging with an exact count against keyset paging on a generated job history.  The number of jobs is set by the {@code jobs} system property, 2 million by default.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = "classpath:test-application.properties", properties = "spring.jpa.show-sql=false")
+@SpringApplicationConfiguration(classes = {CommonsSpringConfiguration.class, OperationalMetadataConfig.class, TestJpaConfiguration.class})
+@Ignore
+public class JobExecutionPagingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(JobExecutionPagingBenchmark.class);
+
+    private static final long FIRST_ID = 10000000L;
+    private static final int PAGE_SIZE = 50;
+    private static final int RUNS = 5;
+
+    @Inject
+    private BatchJobExecutionProvider jobExecutionProvider;
+
+    @Inject
+    private MetadataAccess operationalMetadataAccess;
+
+    @Inject
+    private DataSource dataSource;
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void benchmarkDeepPage() {
+        int jobs = Integer.getInteger("jobs", 2000000);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        generateJobs(jdbcTemplate, jobs);
+
+        // the page 90% of the way through the job history
+        int page = (int) (jobs * 0.9) / PAGE_SIZE;
+        Map<String, Object> previous = jdbcTemplate.queryForMap("SELECT START_TIME, JOB_EXECUTION_ID FROM BATCH_JOB_EXECUTION ORDER BY START_TIME DESC, JOB_EXECUTION_ID DESC LIMIT 1 OFFSET ?",
+                                                                page * PAGE_SIZE - 1);
+        String token = previous.get("START_TIME") + "_" + previous.get("JOB_EXECUTION_ID");
+        PageRequest pageRequest = new PageRequest(page, PAGE_SIZE, Sort.Direction.DESC, "startTimeMillis", "jobExecutionId");
+
+        time("offset, exact count", () -> jobExecutionProvider.findAll(null, pageRequest));
+        time("offset, count limit 10000", () -> jobExecutionProvider.findAll(null, pageRequest, 10000));
+        time("offset, no count", () -> jobExecutionProvider.findAll(null, pageRequest, 0));
+        time("keyset, count limit 10000", () -> jobExecutionProvider.findAllAfter(null, token, PAGE_SIZE, 10000));
+        time("keyset, no count", () -> jobExecutionProvider.findAllAfter(null, token, PAGE_SIZE, 0));
+    }
+
+    private void time(String name, Supplier<?> query) {
+        operationalMetadataAccess.read(query::get);   // warm up
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            operationalMetadataAccess.read(query::get);
+        }
+        log.info("{}: {} ms per page", name, (System.nanoTime() - start) / RUNS / 1000000);
+    }
+
+    /**
+     * Generates the job history of a single feed, with start times spread over roughly a day, and the index used by keyset paging.
+     */
+    private void generateJobs(JdbcTemplate jdbcTemplate, int jobs) {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.update("INSERT INTO FEED (id, name, FEED_TYPE, IS_STREAM) VALUES (X'00000000000000000000000000000001', 'benchmark.jobs', 'FEED', 'N')");
+        jdbcTemplate.update("INSERT INTO BATCH_JOB_INSTANCE (JOB_INSTANCE_ID, JOB_KEY, JOB_NAME, VERSION, FEED_ID) "
+                            + "SELECT X, CONCAT('key', X), 'benchmark.jobs', 0, X'00000000000000000000000000000001' FROM SYSTEM_RANGE(?, ?)", FIRST_ID, FIRST_ID + 999);
+        jdbcTemplate.update("INSERT INTO BATCH_JOB_EXECUTION (JOB_EXECUTION_ID, VERSION, JOB_INSTANCE_ID, START_TIME, END_TIME, STATUS, EXIT_CODE, IS_STREAM) "
+                            + "SELECT X, 0, ? + MOD(X, 1000), 1500000000000 + MOD(X * 7919, 86400000), 1500000000000 + MOD(X * 7919, 86400000) + 1000, 'COMPLETED', 'COMPLETED', 'N' "
+                            + "FROM SYSTEM_RANGE(?, ?)", FIRST_ID, FIRST_ID, FIRST_ID + jobs - 1);
+        jdbcTemplate.update("INSERT INTO BATCH_NIFI_JOB (FLOW_FILE_ID, EVENT_ID, JOB_EXECUTION_ID) SELECT CONCAT('flowfile-', X), X, X FROM SYSTEM_RANGE(?, ?)", FIRST_ID, FIRST_ID + jobs - 1);
+        jdbcTemplate.update("CREATE INDEX BATCH_JOB_EXECUTION_IDX2 ON BATCH_JOB_EXECUTION (START_TIME, JOB_EXECUTION_ID)");
+        jdbcTemplate.update("CREATE INDEX BATCH_NIFI_JOB_IDX1 ON BATCH_NIFI_JOB (JOB_EXECUTION_ID)");
+        log.info("Generated {} jobs in {} ms", jobs, System.currentTimeMillis() - start);
+    }
+}
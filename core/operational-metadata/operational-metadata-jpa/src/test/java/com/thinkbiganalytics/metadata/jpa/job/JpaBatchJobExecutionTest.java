@@ -22,6 +22,7 @@ package com.thinkbiganalytics.metadata.jpa.job;
 
 import com.querydsl.core.BooleanBuilder;
 import com.thinkbiganalytics.DateTimeUtil;
+import com.thinkbiganalytics.metadata.api.KeysetPage;
 import com.thinkbiganalytics.metadata.api.MetadataAccess;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecution;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecutionProvider;
@@ -34,22 +35,30 @@ import com.thinkbiganalytics.spring.CommonsSpringConfiguration;
 import com.thinkbiganalytics.test.security.WithMockJaasUser;
 
 import org.joda.time.Period;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import javax.inject.Inject;
+import javax.sql.DataSource;
 
 /**
  */
@@ -65,6 +74,9 @@ public class JpaBatchJobExecutionTest {
     @Inject
     private MetadataAccess operationalMetadataAccess;
 
+    @Inject
+    private DataSource dataSource;
+
     public static Map<String, Field> getFields(Class<?> cl) {
         return Arrays.asList(cl.getDeclaredFields()).stream().collect(Collectors.toMap(f -> f.getName(), f -> f));
     }
@@ -120,4 +132,70 @@ public class JpaBatchJobExecutionTest {
         });
 
     }
+
+    @WithMockJaasUser(username = "dladmin",
+                      password = "secret",
+                      authorities = {"admin"})
+    @Test
+    public void testKeysetPaging() {
+        String feedName = "paging.keyset_jobs";
+        long firstId = 900000L;
+        int jobs = 25;
+        insertJobs(feedName, firstId, jobs);
+
+        // most recent start time first, then highest id; start times repeat so the id decides within each start time
+        List<Long> expected = LongStream.range(firstId, firstId + jobs).boxed()
+            .sorted(Comparator.comparing((Long id) -> startTime(id)).thenComparing(id -> id).reversed())
+            .collect(Collectors.toList());
+
+        operationalMetadataAccess.read(() -> {
+            for (String filter : Arrays.asList("jobInstance.feed.name==" + feedName, "jobExecutionId>=" + firstId)) {
+                List<Long> ids = new ArrayList<>();
+                String token = null;
+                do {
+                    KeysetPage<? extends BatchJobExecution> page = jobExecutionProvider.findAllAfter(filter, token, 4, 0);
+                    Assert.assertTrue(page.getContent().size() <= 4);
+                    page.getContent().forEach(job -> ids.add(job.getJobExecutionId()));
+                    token = page.getContinuationToken();
+                } while (token != null);
+                Assert.assertEquals(expected, ids);
+
+                Assert.assertEquals(10, jobExecutionProvider.findAllAfter(filter, null, 4, 10).getTotalElements());
+                Assert.assertEquals(jobs, jobExecutionProvider.findAllAfter(filter, null, 4, Long.MAX_VALUE).getTotalElements());
+
+                Sort sort = new Sort(Sort.Direction.DESC, "jobExecutionId");
+                Page<? extends BatchJobExecution> first = jobExecutionProvider.findAll(filter, new PageRequest(0, 4, sort), 0);
+                Assert.assertEquals(4, first.getContent().size());
+                Assert.assertEquals(5, first.getTotalElements());
+                Assert.assertTrue(first.hasNext());
+                Assert.assertEquals(10, jobExecutionProvider.findAll(filter, new PageRequest(0, 4, sort), 10).getTotalElements());
+
+                Page<? extends BatchJobExecution> last = jobExecutionProvider.findAll(filter, new PageRequest(6, 4, sort), 0);
+                Assert.assertEquals(1, last.getContent().size());
+                Assert.assertEquals(jobs, last.getTotalElements());
+                Assert.assertFalse(last.hasNext());
+            }
+            return null;
+        });
+    }
+
+    private static long startTime(long jobExecutionId) {
+        return 1500000000000L + (jobExecutionId % 5) * 1000L;
+    }
+
+    /**
+     * Inserts the specified number of completed jobs for a new feed
+     */
+    private void insertJobs(String feedName, long firstId, int count) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        UUID feedId = UUID.randomUUID();
+        byte[] feedIdBytes = ByteBuffer.allocate(16).putLong(feedId.getMostSignificantBits()).putLong(feedId.getLeastSignificantBits()).array();
+        jdbcTemplate.update("INSERT INTO FEED (id, name, FEED_TYPE, IS_STREAM) VALUES (?, ?, 'FEED', 'N')", feedIdBytes, feedName);
+        for (long id = firstId; id < firstId + count; id++) {
+            jdbcTemplate.update("INSERT INTO BATCH_JOB_INSTANCE (JOB_INSTANCE_ID, JOB_KEY, JOB_NAME, VERSION, FEED_ID) VALUES (?, ?, ?, 0, ?)", id, "key" + id, feedName, feedIdBytes);
+            jdbcTemplate.update("INSERT INTO BATCH_JOB_EXECUTION (JOB_EXECUTION_ID, VERSION, JOB_INSTANCE_ID, START_TIME, END_TIME, STATUS, EXIT_CODE, IS_STREAM) "
+                                + "VALUES (?, 0, ?, ?, ?, 'COMPLETED', 'COMPLETED', 'N')", id, id, startTime(id), startTime(id) + 500);
+            jdbcTemplate.update("INSERT INTO BATCH_NIFI_JOB (FLOW_FILE_ID, EVENT_ID, JOB_EXECUTION_ID) VALUES (?, ?, ?)", "flowfile-" + id, id, id);
+        }
+    }
 }
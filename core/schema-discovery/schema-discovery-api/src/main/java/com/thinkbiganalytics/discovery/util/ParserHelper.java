@@ -180,20 +180,30 @@ public class ParserHelper {
                 } catch (IllegalArgumentException e) {
                     log.warn("Unable to convert data type [?] will be converted to VARCHAR", field.getNativeDataType());
                 }
-
-                switch (type) {
-                    case HIVE:
-                        String hiveType = sqlTypeToHiveType(jdbcType);
-                        field.setDerivedDataType(hiveType);
-                        field.setDataTypeDescriptor(hiveTypeToDescriptor(hiveType));
-                        break;
-                    case RDBMS:
-                        field.setDerivedDataType(jdbcType.getName());
-                }
+                deriveDataType(type, field, jdbcType);
             }
         }
     }
 
+    /**
+     * Sets the derived data type of a field from an already known JDBC type
+     *
+     * @param type     the target database platform
+     * @param field    the field
+     * @param jdbcType the JDBC type of the field
+     */
+    public static void deriveDataType(TableSchemaType type, Field field, JDBCType jdbcType) {
+        switch (type) {
+            case HIVE:
+                String hiveType = sqlTypeToHiveType(jdbcType);
+                field.setDerivedDataType(hiveType);
+                field.setDataTypeDescriptor(hiveTypeToDescriptor(hiveType));
+                break;
+            case RDBMS:
+                field.setDerivedDataType(jdbcType.getName());
+        }
+    }
+
     /*
     Returns whether the provided field represents a complex structure such as ARRAY, STRUCT, or BINARY
     */
@@ -0,0 +1,355 @@
+package com.thinkbiganalytics.schema;
+
+/*-
+ * #%L
+ * thinkbig-schema-discovery-rdbms
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.discovery.schema.TableSchema;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Caches the table names and table descriptions of databases so they can be browsed without querying the database metadata on every request.
+ *
+ * <p>The table names of each database are loaded by a background crawl. Results are available as soon as they are read so pages can be
+ * served while the crawl is still in progress. A catalog is crawled again once it is older than the time-to-live or when explicitly refreshed;
+ * the previous catalog continues to be served until the new crawl completes.</p>
+ *
+ * <p>Table descriptions are read directly from the database metadata of each table and cached separately from the catalog. They expire after the
+ * same time-to-live and are discarded when the data source is refreshed or invalidated.</p>
+ */
+public class DBSchemaCatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DBSchemaCatalogCache.class);
+
+    /**
+     * Catalogs by data source key
+     */
+    private final Map<String, Catalog> catalogs = new ConcurrentHashMap<>();
+
+    /**
+     * Table descriptions by data source key and then by lower case {@code <schema>.<table>}
+     */
+    private final Map<String, Map<String, Description>> descriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the crawls
+     */
+    private final ExecutorService crawlExecutor;
+
+    /**
+     * Time in millis before a catalog is crawled again or a table is described again
+     */
+    private final long timeToLiveMillis;
+
+    /**
+     * Constructs a {@code DBSchemaCatalogCache}.
+     *
+     * @param crawlExecutor    runs the background crawls
+     * @param timeToLiveMillis time in millis before a catalog is crawled again
+     */
+    public DBSchemaCatalogCache(@Nonnull final ExecutorService crawlExecutor, final long timeToLiveMillis) {
+        this.crawlExecutor = crawlExecutor;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Gets a page of the cached table names matching the schema and table patterns, starting a crawl if the catalog is missing or expired.
+     *
+     * @param key       identifies the data source
+     * @param parser    supplies a parser for the data source if a crawl is needed
+     * @param schema    the schema name pattern, or {@code null} for all schemas
+     * @param tableName the table name pattern, or {@code null} for all tables
+     * @param start     the index of the first matching table to return
+     * @param limit     the maximum number of tables to return
+     * @return the page of table names
+     */
+    @Nonnull
+    public TableCatalogPage getTables(@Nonnull final String key, @Nonnull final Supplier<DBSchemaParser> parser, @Nullable final String schema, @Nullable final String tableName,
+                                      final int start, final int limit) {
+        final Catalog catalog = getCatalog(key, parser);
+        final List<String> page = new ArrayList<>(Math.max(0, Math.min(limit, 1000)));
+        int total = 0;
+        for (final String table : catalog.find(schema, tableName)) {
+            if (total >= start && page.size() < limit) {
+                page.add(table);
+            }
+            total++;
+        }
+        return new TableCatalogPage(page, start, limit, total, catalog.complete, new Date(catalog.crawlStartTime));
+    }
+
+    /**
+     * Gets all the cached table names matching the schema and table patterns if the catalog has been fully crawled. Starts a crawl if the catalog is
+     * missing or expired.
+     *
+     * @param key       identifies the data source
+     * @param parser    supplies a parser for the data source if a crawl is needed
+     * @param schema    the schema name pattern, or {@code null} for all schemas
+     * @param tableName the table name pattern, or {@code null} for all tables
+     * @return the table names, or empty if the catalog has not been fully crawled
+     */
+    @Nonnull
+    public Optional<List<String>> getTablesIfComplete(@Nonnull final String key, @Nonnull final Supplier<DBSchemaParser> parser, @Nullable final String schema,
+                                                      @Nullable final String tableName) {
+        final Catalog catalog = getCatalog(key, parser);
+        if (catalog.complete) {
+            return Optional.of(new ArrayList<>(catalog.find(schema, tableName)));
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Describes the specified table, using the cached description if available.
+     *
+     * @param key    identifies the data source
+     * @param parser supplies a parser for the data source
+     * @param schema the schema name, or {@code null} to search all schemas
+     * @param table  the table name
+     * @return the table schema, or {@code null} if not found
+     */
+    @Nullable
+    public TableSchema describeTable(@Nonnull final String key, @Nonnull final Supplier<DBSchemaParser> parser, @Nullable final String schema, @Nonnull final String table) {
+        final Map<String, Description> tables = descriptions.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        final String descriptionKey = lower(StringUtils.defaultString(schema)) + "." + lower(table);
+        final Description cached = tables.get(descriptionKey);
+        if (cached != null && System.currentTimeMillis() - cached.loadTime <= timeToLiveMillis) {
+            return cached.tableSchema;
+        }
+        final TableSchema tableSchema = parser.get().describeTable(schema, table);
+        tables.put(descriptionKey, new Description(tableSchema));
+        return tableSchema;
+    }
+
+    /**
+     * Starts a new crawl of the data source and discards the cached table descriptions. The current catalog, if any, is served until the crawl
+     * completes.
+     *
+     * @param key    identifies the data source
+     * @param parser supplies a parser for the data source
+     */
+    public void refresh(@Nonnull final String key, @Nonnull final Supplier<DBSchemaParser> parser) {
+        descriptions.remove(key);
+        final Catalog current = catalogs.get(key);
+        if (current == null) {
+            getCatalog(key, parser);
+        } else {
+            recrawl(key, current, parser);
+        }
+    }
+
+    /**
+     * Removes the cached catalog and table descriptions of the data source.
+     *
+     * @param key identifies the data source
+     */
+    public void invalidate(@Nonnull final String key) {
+        catalogs.remove(key);
+        descriptions.remove(key);
+    }
+
+    /**
+     * Gets the catalog for the data source, starting a crawl if the catalog is missing or expired.
+     */
+    @Nonnull
+    private Catalog getCatalog(@Nonnull final String key, @Nonnull final Supplier<DBSchemaParser> parser) {
+        final Catalog[] created = new Catalog[1];
+        final Catalog catalog = catalogs.computeIfAbsent(key, k -> created[0] = new Catalog());
+        if (catalog == created[0]) {
+            startCrawl(key, catalog, parser, null);
+        } else if (catalog.complete && System.currentTimeMillis() - catalog.crawlStartTime > timeToLiveMillis) {
+            recrawl(key, catalog, parser);
+        }
+        return catalog;
+    }
+
+    /**
+     * Crawls into a new catalog and replaces the current catalog once complete. Only one crawl per data source runs at a time.
+     */
+    private void recrawl(@Nonnull final String key, @Nonnull final Catalog current, @Nonnull final Supplier<DBSchemaParser> parser) {
+        if (current.complete && current.recrawling.compareAndSet(false, true)) {
+            startCrawl(key, new Catalog(), parser, current);
+        }
+    }
+
+    private void startCrawl(@Nonnull final String key, @Nonnull final Catalog catalog, @Nonnull final Supplier<DBSchemaParser> parser, @Nullable final Catalog replacing) {
+        try {
+            crawlExecutor.execute(() -> {
+                final long start = System.currentTimeMillis();
+                boolean failed = false;
+                try {
+                    parser.get().listTables(null, null, catalog::add);
+                    log.info("Crawled {} tables for data source {} in {} ms", catalog.tables.size(), key, System.currentTimeMillis() - start);
+                } catch (final Exception e) {
+                    log.error("Failed to crawl the tables for data source {}", key, e);
+                    failed = true;
+                }
+
+                // A failed catalog is never marked complete so it is not mistaken for an empty database
+                if (replacing != null) {
+                    if (failed) {
+                        replacing.recrawling.set(false);
+                    } else {
+                        catalog.complete = true;
+                        catalogs.replace(key, replacing, catalog);
+                    }
+                } else if (failed) {
+                    // Allow the next request to try again
+                    catalogs.remove(key, catalog);
+                } else {
+                    catalog.complete = true;
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            log.warn("Unable to start crawl of data source {}", key, e);
+            if (replacing != null) {
+                replacing.recrawling.set(false);
+            } else {
+                catalogs.remove(key, catalog);
+            }
+        }
+    }
+
+    private static String lower(@Nonnull final String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Converts a JDBC metadata pattern, using {@code %} and {@code _} wildcards, to a case-insensitive predicate.
+     */
+    @Nonnull
+    static Predicate<String> toPredicate(@Nullable final String pattern) {
+        if (pattern == null || pattern.equals("%")) {
+            return value -> true;
+        }
+        final StringBuilder regex = new StringBuilder();
+        for (final char c : pattern.toCharArray()) {
+            if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(Character.toString(c)));
+            }
+        }
+        final Pattern compiled = Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        return value -> compiled.matcher(value).matches();
+    }
+
+    /**
+     * @return the literal prefix of the pattern before any wildcard
+     */
+    @Nonnull
+    static String literalPrefix(@Nullable final String pattern) {
+        if (pattern == null) {
+            return "";
+        }
+        int end = 0;
+        while (end < pattern.length() && pattern.charAt(end) != '%' && pattern.charAt(end) != '_') {
+            end++;
+        }
+        return pattern.substring(0, end);
+    }
+
+    /**
+     * The table names of a single data source
+     */
+    private static class Catalog {
+
+        /**
+         * Table names, like {@code <schema>.<table>}, keyed and sorted by lower case name
+         */
+        final ConcurrentSkipListMap<String, String> tables = new ConcurrentSkipListMap<>();
+
+        final long crawlStartTime = System.currentTimeMillis();
+
+        final AtomicBoolean recrawling = new AtomicBoolean(false);
+
+        volatile boolean complete;
+
+        void add(@Nonnull final String table) {
+            tables.put(lower(table), table);
+        }
+
+        /**
+         * Finds the tables matching the schema and table patterns in sorted order. A schema without wildcards narrows the search to a range of the sorted
+         * names.
+         */
+        @Nonnull
+        Collection<String> find(@Nullable final String schema, @Nullable final String tableName) {
+            final Predicate<String> schemaMatches = toPredicate(schema);
+            final Predicate<String> tableMatches = toPredicate(tableName);
+
+            Collection<String> candidates = tables.values();
+            if (schema != null && literalPrefix(schema).equals(schema)) {
+                final String prefix = lower(schema) + "." + lower(literalPrefix(tableName));
+                candidates = tables.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+            }
+
+            final List<String> matches = new ArrayList<>();
+            for (final String table : candidates) {
+                final int dot = table.indexOf('.');
+                if (schemaMatches.test(table.substring(0, Math.max(dot, 0))) && tableMatches.test(table.substring(dot + 1))) {
+                    matches.add(table);
+                }
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * The cached description of a table
+     */
+    private static class Description {
+
+        /**
+         * The table schema, or {@code null} if the table was not found
+         */
+        @Nullable
+        final TableSchema tableSchema;
+
+        final long loadTime = System.currentTimeMillis();
+
+        Description(@Nullable final TableSchema tableSchema) {
+            this.tableSchema = tableSchema;
+        }
+    }
+}
@@ -45,6 +45,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Vector;
+import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -122,11 +123,11 @@ public class DBSchemaParser {
         }
     }
 
-    private void addTableToList(final ResultSet result, final List<String> tables) throws SQLException {
+    private void addTableToList(final ResultSet result, final Consumer<String> tables) throws SQLException {
         final String tableName = result.getString("TABLE_NAME");
         final String tableSchem = result.getString("TABLE_SCHEM");
         final String tableCat = result.getString("TABLE_CAT");
-        tables.add((tableSchem != null ? tableSchem : tableCat) + "." + tableName);
+        tables.accept((tableSchem != null ? tableSchem : tableCat) + "." + tableName);
     }
 
 
@@ -141,12 +142,25 @@ public class DBSchemaParser {
      */
     @Nonnull
     public List<String> listTables(@Nullable final String schema, @Nullable final String tableName) {
+        final List<String> tables = new ArrayList<>();
+        listTables(schema, tableName, tables::add);
+        return tables;
+    }
+
+    /**
+     * Lists the tables in the specified schema, passing each table to the consumer as soon as it is read.
+     * This allows large catalogs to be processed incrementally.
+     *
+     * @param schema    the schema name, or {@code null}
+     * @param tableName the table name pattern, or {@code null}
+     * @param tables    receives each table name prepended with the schema name, like: {@code <schema>.<table>}
+     * @throws RuntimeException if a database access error occurs
+     */
+    public void listTables(@Nullable final String schema, @Nullable final String tableName, @Nonnull final Consumer<String> tables) {
         final String schemaPattern = (schema != null) ? schema : "%";
 
         final String tableNamePattern = (tableName != null) ? tableName : "%";
 
-        final List<String> tables = new ArrayList<>();
-
         List<String> catalogs = null;
         try {
             catalogs = listCatalogs();
@@ -211,8 +225,6 @@ public class DBSchemaParser {
                 throw new SchemaParserException("Unable to obtain table list", e);
             }
         }
-
-        return tables;
     }
 
 
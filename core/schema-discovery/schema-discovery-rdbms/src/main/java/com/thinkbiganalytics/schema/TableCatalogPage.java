@@ -0,0 +1,110 @@
+package com.thinkbiganalytics.schema;
+
+/*-
+ * #%L
+ * thinkbig-schema-discovery-rdbms
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A page of table names from a {@link DBSchemaCatalogCache}
+ */
+public class TableCatalogPage {
+
+    private List<String> tables;
+    private int start;
+    private int limit;
+    private int total;
+    private boolean complete;
+    private Date crawledDate;
+
+    public TableCatalogPage() {
+
+    }
+
+    public TableCatalogPage(List<String> tables, int start, int limit, int total, boolean complete, Date crawledDate) {
+        this.tables = tables;
+        this.start = start;
+        this.limit = limit;
+        this.total = total;
+        this.complete = complete;
+        this.crawledDate = crawledDate;
+    }
+
+    /**
+     * @return the table names on this page, like {@code <schema>.<table>}
+     */
+    public List<String> getTables() {
+        return tables;
+    }
+
+    public void setTables(List<String> tables) {
+        this.tables = tables;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public void setStart(int start) {
+        this.start = start;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return the total number of matching tables found so far
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    /**
+     * @return {@code true} if the catalog has been fully crawled, or {@code false} if more tables may still be found
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * @return the time the crawl of the catalog started
+     */
+    public Date getCrawledDate() {
+        return crawledDate;
+    }
+
+    public void setCrawledDate(Date crawledDate) {
+        this.crawledDate = crawledDate;
+    }
+}
@@ -0,0 +1,280 @@
+package com.thinkbiganalytics.schema;
+
+/*-
+ * #%L
+ * thinkbig-schema-discovery-rdbms
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.discovery.model.DefaultTableSchema;
+import com.thinkbiganalytics.discovery.schema.TableSchema;
+import com.thinkbiganalytics.kerberos.KerberosTicketConfiguration;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public class DBSchemaCatalogCacheTest {
+
+    /**
+     * Runs the crawls
+     */
+    private ExecutorService executor;
+
+    /**
+     * Set up test environment.
+     */
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Clean up test environment.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Verify pages are served while the crawl is in progress.
+     */
+    @Test
+    public void testPagesDuringCrawl() throws Exception {
+        final CountDownLatch halfway = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+        final MockSchemaParser parser = new MockSchemaParser(Arrays.asList("sales.orders", "sales.order_lines", "sales.customers", "hr.employees", "hr.orders"), 3, halfway, resume);
+        final DBSchemaCatalogCache cache = new DBSchemaCatalogCache(executor, TimeUnit.HOURS.toMillis(1));
+
+        cache.getTables("db", () -> parser, null, null, 0, 10);
+        Assert.assertTrue(halfway.await(5, TimeUnit.SECONDS));
+
+        TableCatalogPage page = cache.getTables("db", () -> parser, null, null, 0, 10);
+        Assert.assertFalse(page.isComplete());
+        Assert.assertEquals(3, page.getTotal());
+        Assert.assertFalse(cache.getTablesIfComplete("db", () -> parser, null, null).isPresent());
+
+        resume.countDown();
+        page = waitForComplete(cache, parser);
+        Assert.assertEquals(5, page.getTotal());
+        Assert.assertEquals(1, parser.crawls.get());
+
+        // Prefix search within a schema
+        page = cache.getTables("db", () -> parser, "SALES", "order%", 0, 10);
+        Assert.assertEquals(Arrays.asList("sales.order_lines", "sales.orders"), page.getTables());
+
+        // Contains search across schemas with paging
+        page = cache.getTables("db", () -> parser, null, "%orders%", 1, 1);
+        Assert.assertEquals(2, page.getTotal());
+        Assert.assertEquals(Arrays.asList("sales.orders"), page.getTables());
+
+        // Single character wildcard
+        Optional<List<String>> tables = cache.getTablesIfComplete("db", () -> parser, "h_", null);
+        Assert.assertEquals(Optional.of(Arrays.asList("hr.employees", "hr.orders")), tables);
+    }
+
+    /**
+     * Verify a refresh keeps serving the current catalog until the new crawl completes.
+     */
+    @Test
+    public void testRefresh() throws Exception {
+        final MockSchemaParser parser = new MockSchemaParser(Arrays.asList("a.t1", "a.t2"), -1, null, null);
+        final DBSchemaCatalogCache cache = new DBSchemaCatalogCache(executor, TimeUnit.HOURS.toMillis(1));
+        waitForComplete(cache, parser);
+
+        parser.tables = Arrays.asList("a.t1", "a.t2", "a.t3");
+        cache.refresh("db", () -> parser);
+        long start = System.currentTimeMillis();
+        while (cache.getTables("db", () -> parser, null, null, 0, 10).getTotal() != 3 && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(3, cache.getTables("db", () -> parser, null, null, 0, 10).getTotal());
+        Assert.assertEquals(2, parser.crawls.get());
+    }
+
+    /**
+     * Verify a failed crawl is never reported as complete and is retried by the next request.
+     */
+    @Test
+    public void testFailedCrawl() throws Exception {
+        final MockSchemaParser parser = new MockSchemaParser(Arrays.asList("a.t1", "a.t2"), -1, null, null);
+        parser.failures.set(1);
+        final DBSchemaCatalogCache cache = new DBSchemaCatalogCache(executor, TimeUnit.HOURS.toMillis(1));
+
+        Assert.assertFalse(cache.getTables("db", () -> parser, null, null, 0, 10).isComplete());
+        awaitCrawls();
+        Assert.assertEquals(1, parser.crawls.get());
+        Assert.assertEquals(2, waitForComplete(cache, parser).getTotal());
+        Assert.assertEquals(2, parser.crawls.get());
+
+        // A failed refresh keeps the previous catalog
+        parser.failures.set(1);
+        parser.tables = Arrays.asList("a.t1", "a.t2", "a.t3");
+        cache.refresh("db", () -> parser);
+        awaitCrawls();
+        Assert.assertEquals(Optional.of(Arrays.asList("a.t1", "a.t2")), cache.getTablesIfComplete("db", () -> parser, null, null));
+
+        // The next refresh is not blocked by the failed one
+        cache.refresh("db", () -> parser);
+        awaitCrawls();
+        Assert.assertEquals(3, cache.getTables("db", () -> parser, null, null, 0, 10).getTotal());
+        Assert.assertEquals(4, parser.crawls.get());
+    }
+
+    /**
+     * Verify describing a table does not crawl the catalog and descriptions are discarded by a refresh or invalidate.
+     */
+    @Test
+    public void testDescribeTable() throws Exception {
+        final MockSchemaParser parser = new MockSchemaParser(Arrays.asList("a.t1", "a.t2"), -1, null, null);
+        final DBSchemaCatalogCache cache = new DBSchemaCatalogCache(executor, TimeUnit.HOURS.toMillis(1));
+
+        Assert.assertEquals("t1", cache.describeTable("db", () -> parser, "a", "t1").getName());
+        Assert.assertEquals("t1", cache.describeTable("db", () -> parser, "A", "T1").getName());
+        Assert.assertEquals(1, parser.describes.get());
+        Assert.assertEquals(0, parser.crawls.get());
+
+        cache.invalidate("db");
+        cache.describeTable("db", () -> parser, "a", "t1");
+        Assert.assertEquals(2, parser.describes.get());
+
+        cache.refresh("db", () -> parser);
+        cache.describeTable("db", () -> parser, "a", "t1");
+        Assert.assertEquals(3, parser.describes.get());
+
+        // Descriptions expire with the time-to-live
+        final DBSchemaCatalogCache expiring = new DBSchemaCatalogCache(executor, -1);
+        expiring.describeTable("db", () -> parser, "a", "t1");
+        expiring.describeTable("db", () -> parser, "a", "t1");
+        Assert.assertEquals(5, parser.describes.get());
+    }
+
+    /**
+     * Verify crawling and describing tables of an H2 database.
+     */
+    @Test
+    public void testH2Catalog() throws Exception {
+        final JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:catalog;DB_CLOSE_DELAY=-1");
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE SCHEMA IF NOT EXISTS SALES");
+            for (int i = 0; i < 50; i++) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS SALES.ORDERS_" + i + " (ID INT PRIMARY KEY, NAME VARCHAR(20))");
+            }
+        }
+        final DBSchemaParser parser = new DBSchemaParser(dataSource, new KerberosTicketConfiguration());
+        final DBSchemaCatalogCache cache = new DBSchemaCatalogCache(executor, TimeUnit.HOURS.toMillis(1));
+
+        final TableCatalogPage page = waitForComplete(cache, parser);
+        final TableCatalogPage sales = cache.getTables("db", () -> parser, "SALES", "ORDERS_1%", 0, 5);
+        Assert.assertEquals(11, sales.getTotal());
+        Assert.assertEquals(5, sales.getTables().size());
+        Assert.assertTrue(page.getTotal() >= 50);
+
+        Assert.assertNotNull(cache.describeTable("db", () -> parser, "SALES", "ORDERS_1"));
+        Assert.assertEquals(2, cache.describeTable("db", () -> {
+            throw new IllegalStateException("Expected cached description");
+        }, "SALES", "orders_1").getFields().size());
+    }
+
+    /**
+     * Waits for the crawls already submitted to the single thread executor.
+     */
+    private void awaitCrawls() throws Exception {
+        executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+    }
+
+    private TableCatalogPage waitForComplete(DBSchemaCatalogCache cache, DBSchemaParser parser) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        TableCatalogPage page = cache.getTables("db", () -> parser, null, null, 0, 100);
+        while (!page.isComplete() && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+            page = cache.getTables("db", () -> parser, null, null, 0, 100);
+        }
+        Assert.assertTrue(page.isComplete());
+        return page;
+    }
+
+    /**
+     * Lists a fixed set of tables, optionally pausing part way through.
+     */
+    private static class MockSchemaParser extends DBSchemaParser {
+
+        final AtomicInteger crawls = new AtomicInteger();
+        final AtomicInteger describes = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        volatile List<String> tables;
+        final int pauseAfter;
+        final CountDownLatch paused;
+        final CountDownLatch resume;
+
+        MockSchemaParser(List<String> tables, int pauseAfter, CountDownLatch paused, CountDownLatch resume) {
+            super(null, null);
+            this.tables = tables;
+            this.pauseAfter = pauseAfter;
+            this.paused = paused;
+            this.resume = resume;
+        }
+
+        @Override
+        public void listTables(@Nullable String schema, @Nullable String tableName, @Nonnull Consumer<String> consumer) {
+            crawls.incrementAndGet();
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("Expected crawl failure");
+            }
+            for (int i = 0; i < tables.size(); i++) {
+                if (i == pauseAfter) {
+                    paused.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                consumer.accept(tables.get(i));
+            }
+        }
+
+        @Override
+        public TableSchema describeTable(@Nullable String schema, @Nonnull String table) {
+            describes.incrementAndGet();
+            final DefaultTableSchema tableSchema = new DefaultTableSchema();
+            tableSchema.setSchemaName(schema);
+            tableSchema.setName(table);
+            return tableSchema;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.thinkbiganalytics.servicemonitor.model;
+
+/*-
+ * #%L
+ * thinkbig-service-monitor-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A point in time view of the health of all the monitored services.
+ * The version is incremented every time a service check completes so callers can tell if anything changed since their last request.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ServiceStatusSnapshot {
+
+    private long version;
+    private Date snapshotDate;
+    private List<ServiceStatusSnapshotEntry> services;
+
+    public ServiceStatusSnapshot() {
+
+    }
+
+    public ServiceStatusSnapshot(long version, Date snapshotDate, List<ServiceStatusSnapshotEntry> services) {
+        this.version = version;
+        this.snapshotDate = snapshotDate;
+        this.services = services;
+    }
+
+    /**
+     * @return the version of the snapshot, incremented each time a service check result is stored
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the time this snapshot was taken
+     */
+    public Date getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    public void setSnapshotDate(Date snapshotDate) {
+        this.snapshotDate = snapshotDate;
+    }
+
+    /**
+     * @return the status of each service along with how stale that status is
+     */
+    public List<ServiceStatusSnapshotEntry> getServices() {
+        return services;
+    }
+
+    public void setServices(List<ServiceStatusSnapshotEntry> services) {
+        this.services = services;
+    }
+}
@@ -0,0 +1,133 @@
+package com.thinkbiganalytics.servicemonitor.model;
+
+/*-
+ * #%L
+ * thinkbig-service-monitor-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.Date;
+
+/**
+ * The last known status of a single service within a {@link ServiceStatusSnapshot}
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ServiceStatusSnapshotEntry {
+
+    private String serviceName;
+    private String checkName;
+    private ServiceStatusResponse status;
+    private Date lastUpdated;
+    private long staleMillis;
+    private boolean stale;
+    private boolean timedOut;
+    private String error;
+
+    public ServiceStatusSnapshotEntry() {
+
+    }
+
+    public ServiceStatusSnapshotEntry(String checkName, ServiceStatusResponse status) {
+        this.checkName = checkName;
+        this.status = status;
+        this.serviceName = status != null ? status.getServiceName() : null;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    /**
+     * @return the name of the check that produced this status
+     */
+    public String getCheckName() {
+        return checkName;
+    }
+
+    public void setCheckName(String checkName) {
+        this.checkName = checkName;
+    }
+
+    public ServiceStatusResponse getStatus() {
+        return status;
+    }
+
+    public void setStatus(ServiceStatusResponse status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the time the status was last successfully refreshed
+     */
+    public Date getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(Date lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * @return the number of millis since the status was last successfully refreshed
+     */
+    public long getStaleMillis() {
+        return staleMillis;
+    }
+
+    public void setStaleMillis(long staleMillis) {
+        this.staleMillis = staleMillis;
+    }
+
+    /**
+     * @return true if the latest attempt to refresh the status failed or it has not been refreshed within its expected interval
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
+
+    /**
+     * @return true if the latest check did not complete within its deadline
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * @return the error message from the latest failed check, if any
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
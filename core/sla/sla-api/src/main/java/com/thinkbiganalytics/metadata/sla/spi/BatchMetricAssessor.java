@@ -0,0 +1,54 @@
+package com.thinkbiganalytics.metadata.sla.spi;
+
+/*-
+ * #%L
+ * thinkbig-sla-api
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.sla.api.Metric;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * A metric assessor that loads the facts for many metrics at once, such as all the metrics of the SLAs that are due at the same time.
+ *
+ * <p>The facts loaded by {@link #prefetch(Collection)} are used by assessments made by the same thread until {@link #clear()} is called.</p>
+ */
+public interface BatchMetricAssessor<M extends Metric, D extends Serializable> extends MetricAssessor<M, D> {
+
+    /**
+     * Loads the facts needed to assess the specified metrics.
+     *
+     * @param metrics the metrics accepted by this assessor
+     */
+    void prefetch(Collection<M> metrics);
+
+    /**
+     * Releases the facts loaded by the current thread.
+     */
+    void clear();
+
+    /**
+     * Gets the inputs of an assessment of the specified metric. An SLA is not assessed again if the inputs of all its metrics are equal to those of its previous assessment.
+     *
+     * @param metric the metric, which must have been prefetched
+     * @return the inputs, or {@code null} if the metric must always be assessed
+     */
+    Serializable getInputs(M metric);
+}
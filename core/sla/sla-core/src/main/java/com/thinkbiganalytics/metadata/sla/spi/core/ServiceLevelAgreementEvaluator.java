@@ -0,0 +1,307 @@
+package com.thinkbiganalytics.metadata.sla.spi.core;
+
+/*-
+ * #%L
+ * thinkbig-sla-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.sla.api.Metric;
+import com.thinkbiganalytics.metadata.sla.api.Obligation;
+import com.thinkbiganalytics.metadata.sla.api.ServiceLevelAgreement;
+import com.thinkbiganalytics.metadata.sla.spi.BatchMetricAssessor;
+import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementChecker;
+
+import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Evaluates service level agreements from a timing wheel instead of a separate scheduled job for each agreement.
+ *
+ * <p>The caller periodically polls the agreements that are due and evaluates them together. The metric assessors load the facts for all the due agreements at once, and an agreement is only
+ * checked again if the inputs of its metrics have changed since its previous evaluation.</p>
+ */
+public class ServiceLevelAgreementEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceLevelAgreementEvaluator.class);
+
+    /**
+     * Number of slots in the timing wheel
+     */
+    private static final int WHEEL_SLOTS = 512;
+
+    /**
+     * Checks the agreements
+     */
+    private final ServiceLevelAgreementChecker checker;
+
+    /**
+     * Determines when each agreement is due
+     */
+    private final CronExpression schedule;
+
+    /**
+     * Agreements by the time they are due
+     */
+    private final ServiceLevelAgreementTimingWheel<ServiceLevelAgreement.ID> wheel;
+
+    /**
+     * Assessors that can load the facts for many metrics at once
+     */
+    private final List<BatchMetricAssessor<? extends Metric, ? extends Serializable>> metricAssessors = new CopyOnWriteArrayList<>();
+
+    /**
+     * Metric inputs of the last evaluation of each agreement
+     */
+    private final Map<ServiceLevelAgreement.ID, List<Serializable>> lastInputs = new ConcurrentHashMap<>();
+
+    /**
+     * Number of agreements that have been checked
+     */
+    private final AtomicLong checkedCount = new AtomicLong();
+
+    /**
+     * Number of agreements that were not checked because their inputs did not change
+     */
+    private final AtomicLong unchangedCount = new AtomicLong();
+
+    /**
+     * Constructs a {@code ServiceLevelAgreementEvaluator}.
+     *
+     * @param checker      checks the agreements
+     * @param schedule     determines when each agreement is due
+     * @param tickDuration how often in milliseconds that due agreements are polled
+     */
+    public ServiceLevelAgreementEvaluator(@Nonnull final ServiceLevelAgreementChecker checker, @Nonnull final CronExpression schedule, final long tickDuration) {
+        this(checker, schedule, tickDuration, System.currentTimeMillis());
+    }
+
+    /**
+     * Constructs a {@code ServiceLevelAgreementEvaluator} starting at the specified time.
+     */
+    ServiceLevelAgreementEvaluator(@Nonnull final ServiceLevelAgreementChecker checker, @Nonnull final CronExpression schedule, final long tickDuration, final long startTime) {
+        this.checker = checker;
+        this.schedule = schedule;
+        this.wheel = new ServiceLevelAgreementTimingWheel<>(tickDuration, WHEEL_SLOTS, startTime);
+    }
+
+    /**
+     * Registers an assessor that loads the facts for the metrics of due agreements.
+     *
+     * @param assessor the metric assessor
+     */
+    public void registerMetricAssessor(@Nonnull final BatchMetricAssessor<? extends Metric, ? extends Serializable> assessor) {
+        if (!metricAssessors.contains(assessor)) {
+            metricAssessors.add(assessor);
+        }
+    }
+
+    /**
+     * Schedules the agreement to be evaluated at its next due time. The agreement will be checked even if its inputs have not changed.
+     *
+     * @param slaId the agreement id
+     */
+    public void schedule(@Nonnull final ServiceLevelAgreement.ID slaId) {
+        schedule(slaId, System.currentTimeMillis());
+    }
+
+    /**
+     * Schedules the agreement to be evaluated at its next due time after the specified time. The agreement will be checked even if its inputs have not changed.
+     *
+     * @param slaId the agreement id
+     * @param time  the time in milliseconds
+     */
+    public void schedule(@Nonnull final ServiceLevelAgreement.ID slaId, final long time) {
+        lastInputs.remove(slaId);
+        final Date nextTime = getNextDueTime(time);
+        if (nextTime != null) {
+            wheel.schedule(slaId, nextTime.getTime());
+        }
+    }
+
+    /**
+     * Stops evaluating the agreement.
+     *
+     * @param slaId the agreement id
+     * @return {@code true} if the agreement was scheduled
+     */
+    public boolean unschedule(@Nonnull final ServiceLevelAgreement.ID slaId) {
+        lastInputs.remove(slaId);
+        return wheel.remove(slaId);
+    }
+
+    /**
+     * Indicates if the agreement is scheduled.
+     */
+    public boolean isScheduled(@Nonnull final ServiceLevelAgreement.ID slaId) {
+        return wheel.contains(slaId);
+    }
+
+    /**
+     * Gets the number of agreements that are scheduled.
+     */
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Gets the number of agreements that have been checked.
+     */
+    public long getCheckedCount() {
+        return checkedCount.get();
+    }
+
+    /**
+     * Gets the number of agreements that were not checked because their inputs did not change.
+     */
+    public long getUnchangedCount() {
+        return unchangedCount.get();
+    }
+
+    /**
+     * Gets the agreements that are due and schedules each for its next due time.
+     *
+     * @param now the current time in milliseconds
+     * @return the ids of the due agreements
+     */
+    @Nonnull
+    public List<ServiceLevelAgreement.ID> pollDue(final long now) {
+        final List<ServiceLevelAgreement.ID> due = wheel.advance(now);
+        if (!due.isEmpty()) {
+            final Date nextTime = getNextDueTime(now);
+            if (nextTime != null) {
+                for (final ServiceLevelAgreement.ID slaId : due) {
+                    wheel.schedule(slaId, nextTime.getTime());
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Checks the agreements whose inputs have changed since their previous evaluation. Caller needs to wrap this in a MetadataAccess transaction.
+     *
+     * @param agreements the due agreements
+     * @return the number of agreements that were checked
+     */
+    public int evaluate(@Nonnull final Collection<? extends ServiceLevelAgreement> agreements) {
+        // Load the facts for all metrics
+        final Map<Metric, BatchMetricAssessor<Metric, ?>> assessorByMetric = new IdentityHashMap<>();
+        final Map<BatchMetricAssessor<Metric, ?>, List<Metric>> metricsByAssessor = new IdentityHashMap<>();
+        for (final ServiceLevelAgreement agreement : agreements) {
+            for (final Obligation obligation : agreement.getObligations()) {
+                for (final Metric metric : obligation.getMetrics()) {
+                    final BatchMetricAssessor<Metric, ?> assessor = findAssessor(metric);
+                    if (assessor != null) {
+                        assessorByMetric.put(metric, assessor);
+                        metricsByAssessor.computeIfAbsent(assessor, key -> new ArrayList<>()).add(metric);
+                    }
+                }
+            }
+        }
+
+        final List<BatchMetricAssessor<Metric, ?>> prefetched = new ArrayList<>();
+        try {
+            for (final Map.Entry<BatchMetricAssessor<Metric, ?>, List<Metric>> entry : metricsByAssessor.entrySet()) {
+                prefetched.add(entry.getKey());
+                entry.getKey().prefetch(entry.getValue());
+            }
+
+            // Check agreements with changed inputs
+            int checked = 0;
+            for (final ServiceLevelAgreement agreement : agreements) {
+                final List<Serializable> inputs = getInputs(agreement, assessorByMetric);
+                if (inputs != null && inputs.equals(lastInputs.get(agreement.getId()))) {
+                    log.debug("Inputs of SLA {} have not changed since its last assessment", agreement.getName());
+                    unchangedCount.incrementAndGet();
+                    continue;
+                }
+
+                try {
+                    checker.checkAgreement(agreement);
+                    ++checked;
+                    if (inputs != null) {
+                        lastInputs.put(agreement.getId(), inputs);
+                    } else {
+                        lastInputs.remove(agreement.getId());
+                    }
+                } catch (final RuntimeException e) {
+                    log.error("Failed to assess SLA {}: {}", agreement.getName(), e, e);
+                    lastInputs.remove(agreement.getId());
+                }
+            }
+            checkedCount.addAndGet(checked);
+            return checked;
+        } finally {
+            for (final BatchMetricAssessor<Metric, ?> assessor : prefetched) {
+                assessor.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the inputs of all metrics of the agreement, or {@code null} if the agreement must be checked.
+     */
+    @Nullable
+    private List<Serializable> getInputs(@Nonnull final ServiceLevelAgreement agreement, @Nonnull final Map<Metric, BatchMetricAssessor<Metric, ?>> assessorByMetric) {
+        final List<Serializable> inputs = new ArrayList<>();
+        for (final Obligation obligation : agreement.getObligations()) {
+            for (final Metric metric : obligation.getMetrics()) {
+                final BatchMetricAssessor<Metric, ?> assessor = assessorByMetric.get(metric);
+                final Serializable input = (assessor != null) ? assessor.getInputs(metric) : null;
+                if (input == null) {
+                    return null;
+                }
+                inputs.add(input);
+            }
+        }
+        return inputs;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private BatchMetricAssessor<Metric, ?> findAssessor(@Nonnull final Metric metric) {
+        for (final BatchMetricAssessor<? extends Metric, ? extends Serializable> assessor : metricAssessors) {
+            if (assessor.accepts(metric)) {
+                return (BatchMetricAssessor<Metric, ?>) assessor;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private Date getNextDueTime(final long time) {
+        synchronized (schedule) {
+            return schedule.getNextValidTimeAfter(new Date(time));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.thinkbiganalytics.metadata.sla.spi.core;
+
+/*-
+ * #%L
+ * thinkbig-sla-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A hashed timing wheel that buckets keys by the time they are due.
+ *
+ * <p>Each slot of the wheel covers one tick. A key is placed in the slot of the tick it is due and keys due more than one revolution later share the slot until their round comes. Advancing
+ * the wheel only visits the slots of the ticks that have passed.</p>
+ *
+ * @param <K> the type of key
+ */
+public class ServiceLevelAgreementTimingWheel<K> {
+
+    /**
+     * Duration of a tick in milliseconds
+     */
+    private final long tickDuration;
+
+    /**
+     * Due time of each key by slot
+     */
+    private final List<Map<K, Long>> slots;
+
+    /**
+     * Slot of each key
+     */
+    private final Map<K, Map<K, Long>> slotsByKey = new HashMap<>();
+
+    /**
+     * The first tick that has not been completely visited
+     */
+    private long currentTick;
+
+    /**
+     * Constructs a {@code ServiceLevelAgreementTimingWheel}.
+     *
+     * @param tickDuration duration of a tick in milliseconds
+     * @param slotCount    number of slots in the wheel
+     * @param startTime    the current time in milliseconds
+     */
+    public ServiceLevelAgreementTimingWheel(long tickDuration, int slotCount, long startTime) {
+        if (tickDuration <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Tick duration and slot count must be positive");
+        }
+        this.tickDuration = tickDuration;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; ++i) {
+            slots.add(new LinkedHashMap<>());
+        }
+        this.currentTick = startTime / tickDuration;
+    }
+
+    /**
+     * Schedules the key to be due at the specified time, replacing any previous schedule of the key.
+     *
+     * @param key     the key
+     * @param dueTime the time in milliseconds when the key is due
+     */
+    public synchronized void schedule(@Nonnull final K key, final long dueTime) {
+        remove(key);
+        final Map<K, Long> slot = slots.get(slotOf(Math.max(dueTime / tickDuration, currentTick)));
+        slot.put(key, dueTime);
+        slotsByKey.put(key, slot);
+    }
+
+    /**
+     * Removes the key from the wheel.
+     *
+     * @param key the key
+     * @return {@code true} if the key was scheduled
+     */
+    public synchronized boolean remove(@Nonnull final K key) {
+        final Map<K, Long> slot = slotsByKey.remove(key);
+        if (slot != null) {
+            slot.remove(key);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Indicates if the key is scheduled.
+     */
+    public synchronized boolean contains(@Nonnull final K key) {
+        return slotsByKey.containsKey(key);
+    }
+
+    /**
+     * Gets the number of keys that are scheduled.
+     */
+    public synchronized int size() {
+        return slotsByKey.size();
+    }
+
+    /**
+     * Removes and returns the keys that are due at or before the specified time.
+     *
+     * @param now the current time in milliseconds
+     * @return the due keys
+     */
+    @Nonnull
+    public synchronized List<K> advance(final long now) {
+        final List<K> due = new ArrayList<>();
+        final long nowTick = now / tickDuration;
+
+        // One revolution visits every slot
+        for (long tick = Math.max(currentTick, nowTick - slots.size() + 1); tick <= nowTick; ++tick) {
+            final Iterator<Map.Entry<K, Long>> iterator = slots.get(slotOf(tick)).entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<K, Long> entry = iterator.next();
+                if (entry.getValue() <= now) {
+                    iterator.remove();
+                    slotsByKey.remove(entry.getKey());
+                    due.add(entry.getKey());
+                }
+            }
+        }
+
+        // Keys may still become due during the current tick
+        currentTick = Math.max(currentTick, nowTick);
+        return due;
+    }
+
+    private int slotOf(final long tick) {
+        return (int) (tick % slots.size());
+    }
+}
@@ -0,0 +1,223 @@
+package com.thinkbiganalytics.metadata.sla.spi.core;
+
+/*-
+ * #%L
+ * thinkbig-sla-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.sla.api.Metric;
+import com.thinkbiganalytics.metadata.sla.api.ServiceLevelAgreement;
+import com.thinkbiganalytics.metadata.sla.spi.BatchMetricAssessor;
+import com.thinkbiganalytics.metadata.sla.spi.MetricAssessmentBuilder;
+import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementChecker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServiceLevelAgreementEvaluatorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceLevelAgreementEvaluatorTest.class);
+
+    /**
+     * Number of synthetic agreements
+     */
+    private static final int AGREEMENT_COUNT = 5000;
+
+    /**
+     * Number of synthetic feeds
+     */
+    private static final int FEED_COUNT = 500;
+
+    private final InMemorySLAProvider provider = new InMemorySLAProvider();
+
+    /**
+     * Number of times each agreement was checked
+     */
+    private final Map<ServiceLevelAgreement.ID, AtomicInteger> checks = new ConcurrentHashMap<>();
+
+    private final FeedVersionAssessor assessor = new FeedVersionAssessor();
+
+    private ServiceLevelAgreementEvaluator evaluator;
+
+    @Before
+    public void setUp() throws Exception {
+        ServiceLevelAgreementChecker checker = new ServiceLevelAgreementChecker() {
+            @Override
+            public void checkAgreements() {
+            }
+
+            @Override
+            public void checkAgreement(ServiceLevelAgreement agreement) {
+                checks.computeIfAbsent(agreement.getId(), id -> new AtomicInteger()).incrementAndGet();
+            }
+        };
+        evaluator = new ServiceLevelAgreementEvaluator(checker, new CronExpression("0 0/5 * 1/1 * ? *"), 1000L, 0L);
+        evaluator.registerMetricAssessor(assessor);
+
+        for (int i = 0; i < AGREEMENT_COUNT; ++i) {
+            provider.builder()
+                .name("sla" + i)
+                .obligationBuilder()
+                .metric(new TestMetric(i, "feed" + (i % FEED_COUNT)))
+                .build()
+                .build();
+        }
+    }
+
+    /**
+     * Verify all agreements sharing a schedule are due on the same tick and their facts are loaded once.
+     */
+    @Test
+    public void testEvaluateDueAgreements() {
+        final long start = 0L;
+        for (ServiceLevelAgreement agreement : provider.getAgreements()) {
+            evaluator.schedule(agreement.getId(), start);
+        }
+        assertThat(evaluator.getScheduledCount()).isEqualTo(AGREEMENT_COUNT);
+        assertThat(evaluator.pollDue(TimeUnit.MINUTES.toMillis(5) - 1)).isEmpty();
+
+        final long pollStart = System.nanoTime();
+        final List<ServiceLevelAgreement.ID> due = evaluator.pollDue(TimeUnit.MINUTES.toMillis(5));
+        final long evaluateStart = System.nanoTime();
+        final int checked = evaluator.evaluate(agreements(due));
+        final long end = System.nanoTime();
+        log.info("Polled {} SLAs in {} ms and evaluated in {} ms", due.size(), TimeUnit.NANOSECONDS.toMillis(evaluateStart - pollStart), TimeUnit.NANOSECONDS.toMillis(end - evaluateStart));
+
+        assertThat(due).hasSize(AGREEMENT_COUNT);
+        assertThat(checked).isEqualTo(AGREEMENT_COUNT);
+        assertThat(assessor.prefetchCount.get()).isEqualTo(1);
+        assertThat(assessor.prefetchedMetrics.get()).isEqualTo(AGREEMENT_COUNT);
+        assertThat(assessor.clearCount.get()).isEqualTo(1);
+
+        // Agreements are scheduled for the next due time
+        assertThat(evaluator.getScheduledCount()).isEqualTo(AGREEMENT_COUNT);
+        assertThat(evaluator.pollDue(TimeUnit.MINUTES.toMillis(10) - 1)).isEmpty();
+        assertThat(evaluator.pollDue(TimeUnit.MINUTES.toMillis(10))).hasSize(AGREEMENT_COUNT);
+    }
+
+    /**
+     * Verify only the agreements whose inputs have changed are checked again.
+     */
+    @Test
+    public void testEvaluateChangedAgreements() {
+        final List<ServiceLevelAgreement> agreements = provider.getAgreements();
+        assertThat(evaluator.evaluate(agreements)).isEqualTo(AGREEMENT_COUNT);
+
+        final long start = System.nanoTime();
+        assertThat(evaluator.evaluate(agreements)).isEqualTo(0);
+        log.info("Evaluated {} unchanged SLAs in {} ms", agreements.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        assessor.versions.put("feed1", 1);
+        assertThat(evaluator.evaluate(agreements)).isEqualTo(AGREEMENT_COUNT / FEED_COUNT);
+        assertThat(checks.get(provider.findAgreementByName("sla1").getId()).get()).isEqualTo(2);
+        assertThat(checks.get(provider.findAgreementByName("sla2").getId()).get()).isEqualTo(1);
+        assertThat(evaluator.getCheckedCount()).isEqualTo(AGREEMENT_COUNT + AGREEMENT_COUNT / FEED_COUNT);
+        assertThat(evaluator.getUnchangedCount()).isEqualTo(2 * AGREEMENT_COUNT - AGREEMENT_COUNT / FEED_COUNT);
+    }
+
+    /**
+     * Verify agreements without known inputs are always checked and unscheduled agreements are not polled.
+     */
+    @Test
+    public void testEvaluateUnknownInputs() {
+        final List<ServiceLevelAgreement> agreements = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            agreements.add(provider.findAgreementByName("sla" + i));
+        }
+        assessor.versions.put("feed3", -1);  // unknown
+        evaluator.evaluate(agreements);
+        evaluator.evaluate(agreements);
+        assertThat(checks.get(agreements.get(3).getId()).get()).isEqualTo(2);
+        assertThat(checks.get(agreements.get(4).getId()).get()).isEqualTo(1);
+
+        evaluator.schedule(agreements.get(0).getId(), 0L);
+        assertThat(evaluator.unschedule(agreements.get(0).getId())).isTrue();
+        assertThat(evaluator.pollDue(TimeUnit.DAYS.toMillis(1))).isEmpty();
+    }
+
+    private List<ServiceLevelAgreement> agreements(List<ServiceLevelAgreement.ID> ids) {
+        List<ServiceLevelAgreement> agreements = new ArrayList<>(ids.size());
+        for (ServiceLevelAgreement.ID id : ids) {
+            agreements.add(provider.getAgreement(id));
+        }
+        return agreements;
+    }
+
+    /**
+     * Assesses a metric using the version of its feed.
+     */
+    private static class FeedVersionAssessor implements BatchMetricAssessor<TestMetric, Serializable> {
+
+        final Map<String, Integer> versions = new ConcurrentHashMap<>();
+
+        final AtomicInteger prefetchCount = new AtomicInteger();
+
+        final AtomicInteger prefetchedMetrics = new AtomicInteger();
+
+        final AtomicInteger clearCount = new AtomicInteger();
+
+        private final ThreadLocal<Map<String, Integer>> prefetched = new ThreadLocal<>();
+
+        @Override
+        public boolean accepts(Metric metric) {
+            return metric instanceof TestMetric;
+        }
+
+        @Override
+        public void assess(TestMetric metric, MetricAssessmentBuilder<Serializable> builder) {
+        }
+
+        @Override
+        public void prefetch(Collection<TestMetric> metrics) {
+            prefetchCount.incrementAndGet();
+            prefetchedMetrics.addAndGet(metrics.size());
+            Map<String, Integer> facts = new HashMap<>();
+            for (TestMetric metric : metrics) {
+                facts.put(metric.getStringValue(), versions.getOrDefault(metric.getStringValue(), 0));
+            }
+            prefetched.set(facts);
+        }
+
+        @Override
+        public void clear() {
+            clearCount.incrementAndGet();
+            prefetched.remove();
+        }
+
+        @Override
+        public Serializable getInputs(TestMetric metric) {
+            Integer version = prefetched.get().get(metric.getStringValue());
+            return (version != null && version >= 0) ? version : null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.thinkbiganalytics.metadata.sla.spi.core;
+
+/*-
+ * #%L
+ * thinkbig-sla-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServiceLevelAgreementTimingWheelTest {
+
+    /**
+     * Verify keys are returned once they are due, including keys due in a later revolution of the wheel.
+     */
+    @Test
+    public void testAdvance() {
+        ServiceLevelAgreementTimingWheel<String> wheel = new ServiceLevelAgreementTimingWheel<>(1000L, 8, 0L);
+        wheel.schedule("a", 2500L);
+        wheel.schedule("b", 2900L);
+        wheel.schedule("c", 10500L);  // same slot as "a" one revolution later
+
+        assertThat(wheel.advance(2000L)).isEmpty();
+        assertThat(wheel.advance(2600L)).containsExactly("a");
+        assertThat(wheel.advance(2950L)).containsExactly("b");
+        assertThat(wheel.advance(9000L)).isEmpty();
+        assertThat(wheel.contains("c")).isTrue();
+        assertThat(wheel.advance(10500L)).containsExactly("c");
+        assertThat(wheel.size()).isEqualTo(0);
+    }
+
+    /**
+     * Verify keys that became due while the wheel was not advanced for more than a revolution are returned.
+     */
+    @Test
+    public void testAdvanceAfterDelay() {
+        ServiceLevelAgreementTimingWheel<String> wheel = new ServiceLevelAgreementTimingWheel<>(1000L, 4, 0L);
+        wheel.schedule("a", 1000L);
+        wheel.schedule("b", 3000L);
+        wheel.schedule("c", 60000L);
+
+        assertThat(wheel.advance(20000L)).containsOnly("a", "b");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    /**
+     * Verify rescheduling replaces the previous due time and keys due in the past are returned on the next advance.
+     */
+    @Test
+    public void testReschedule() {
+        ServiceLevelAgreementTimingWheel<String> wheel = new ServiceLevelAgreementTimingWheel<>(1000L, 8, 5000L);
+        wheel.schedule("a", 6000L);
+        wheel.schedule("a", 7000L);
+        wheel.schedule("b", 1000L);
+
+        assertThat(wheel.advance(6500L)).containsExactly("b");
+        assertThat(wheel.remove("a")).isTrue();
+        assertThat(wheel.advance(8000L)).isEmpty();
+        assertThat(wheel.remove("a")).isFalse();
+    }
+}
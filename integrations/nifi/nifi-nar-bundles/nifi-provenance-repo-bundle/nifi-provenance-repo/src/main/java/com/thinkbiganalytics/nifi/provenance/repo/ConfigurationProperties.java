@@ -40,6 +40,8 @@ public class ConfigurationProperties {
     private static final Logger log = LoggerFactory.getLogger(ConfigurationProperties.class);
 
     public static String DEFAULT_BACKUP_LOCATION = "/opt/nifi/feed-event-statistics.gz";
+    public static String DEFAULT_JOURNAL_DIRECTORY_NAME = "feed-event-statistics-journal";
+    public static Long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 60000L;
     public static Integer DEFAULT_MAX_EVENTS = 10;
     public static Long DEFAULT_RUN_INTERVAL_MILLIS = 3000L;
     public static Integer DEFAULT_THROTTLE_STARTING_FEED_FLOWS_THRESHOLD = 15;
@@ -52,6 +54,8 @@ public class ConfigurationProperties {
     private Long runInterval = DEFAULT_RUN_INTERVAL_MILLIS;
     private Integer maxFeedEvents = DEFAULT_MAX_EVENTS;
     private String backupLocation = DEFAULT_BACKUP_LOCATION;
+    private String journalLocation;
+    private Long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL_MILLIS;
     private Integer throttleStartingFeedFlowsThreshold = DEFAULT_THROTTLE_STARTING_FEED_FLOWS_THRESHOLD;
     private Integer throttleStartingFeedFlowsTimePeriodMillis = DEFAULT_THROTTLE_STARTING_FEED_FLOWS_TIME_PERIOD_MILLIS;
 
@@ -107,6 +111,8 @@ public class ConfigurationProperties {
 
     private void setValues() {
         this.backupLocation = properties.getProperty("kylo.provenance.cache.location", DEFAULT_BACKUP_LOCATION);
+        this.journalLocation = properties.getProperty("kylo.provenance.cache.journal.location");
+        this.checkpointInterval = new Long(properties.getProperty("kylo.provenance.cache.checkpoint.interval.millis", DEFAULT_CHECKPOINT_INTERVAL_MILLIS + ""));
         this.maxFeedEvents = new Integer(properties.getProperty("kylo.provenance.max.starting.events", DEFAULT_MAX_EVENTS + ""));
         this.runInterval = new Long(properties.getProperty("kylo.provenance.run.interval.millis", DEFAULT_RUN_INTERVAL_MILLIS + ""));
 
@@ -123,6 +129,24 @@ public class ConfigurationProperties {
         return StringUtils.isBlank(backupLocation) ? DEFAULT_BACKUP_LOCATION : backupLocation;
     }
 
+    /**
+     * The directory of the journal and checkpoints of the feed event statistics. Defaults to a directory next to the backup location.
+     */
+    public String getFeedEventStatisticsJournalLocation() {
+        if (StringUtils.isNotBlank(journalLocation)) {
+            return journalLocation;
+        }
+        File parent = new File(getFeedEventStatisticsBackupLocation()).getAbsoluteFile().getParentFile();
+        return new File(parent, DEFAULT_JOURNAL_DIRECTORY_NAME).getPath();
+    }
+
+    /**
+     * How often to checkpoint the feed event statistics. If 0 then the statistics are only backed up when NiFi shuts down.
+     */
+    public Long getFeedEventStatisticsCheckpointInterval() {
+        return checkpointInterval == null ? DEFAULT_CHECKPOINT_INTERVAL_MILLIS : checkpointInterval;
+    }
+
     /**
      * The Max allowed feed flow files to send through to ops manager per the processing run interval
      */
@@ -22,16 +22,12 @@ package com.thinkbiganalytics.nifi.provenance.repo;
  */
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
 import com.thinkbiganalytics.json.ObjectMapperSerializer;
+import com.thinkbiganalytics.nifi.provenance.repo.FeedEventStatisticsJournal.Field;
 import com.thinkbiganalytics.nifi.provenance.util.ProvenanceEventUtil;
 
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceEventType;
-import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,13 +35,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -57,74 +56,55 @@ import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+
 /**
  * Hold all data about running flows as they pertain to Feeds
+ *
+ * <p>Millions of flow files may be in flight so the flow files are kept in a {@link FlowFileMap} that stores their UUIDs as longs, and each feed flow is a single {@link FeedFlow}
+ * object instead of an entry in several maps. Events are processed by one thread at a time, but the data is also copied by the journal checkpoint so access is synchronized.</p>
  */
 public class FeedEventStatistics implements Serializable {
 
     private static final Logger log = LoggerFactory.getLogger(FeedEventStatistics.class);
 
-    protected Map<String, String> feedFlowFileIdToFeedProcessorId = new ConcurrentHashMap<>();
+    /**
+     * How long the data of a flow file with detailed tracking is kept after it is dropped
+     */
+    private static final long PENDING_DELETE_NANOS = TimeUnit.MINUTES.toNanos(1);
 
-    ////Track feedFlowFile relationships to parent/child flow files for lifetime feed job execution
-    protected Set<String> detailedTrackingFeedFlowFileId = new HashSet<>();
+    /**
+     * The running feed flows by the id of the flow file that started them
+     */
+    protected FlowFileMap<FeedFlow> feedFlows = new FlowFileMap<>();
 
     /**
-     * Map of all the flow files as they pertain to the starting feed flow file
+     * Map of all the flow files to the feed flow they pertain to and the time of their last event that is not a drop event.
      * Used to expire EventStatistics
      */
-    protected Map<String, String> allFlowFileToFeedFlowFile = new ConcurrentHashMap<>();
-
+    protected FlowFileMap<FeedFlow> flowFiles = new FlowFileMap<>();
 
     /**
-     * Removal Listener for those events that are tracked and sent to Kylo Operations Manager.
-     * Events with Detailed Tracking need to be added to the special cache to ensure step capture and timing information.
-     * DROP events on Flowfiles indicate the end of the flow file.  Flows that split/merge will relate to other flow files.  Sometimes the DROP of the previous flow file will
-     * be processed in a different order than the next flow file.  Beacuse of this the removal of data needs to be done after the fact to ensure the flows capture the correct data in ops manager
+     * Feed processor ids so the running feed flows share the same strings
      */
-    RemovalListener<Long, String> flowFileRemovalListener = new RemovalListener<Long, String>() {
-        @Override
-        public void onRemoval(RemovalNotification<Long, String> removalNotification) {
-            Long eventId = removalNotification.getKey();
-            String flowFileId = removalNotification.getValue();
-            clearData(eventId, flowFileId);
-        }
-    };
+    private Map<String, String> feedProcessorIds = new HashMap<>();
 
     /**
-     * An Expiring cache of the flowfile information that is tracked and Sent to Kylo Ops Manager as ProvenanceEventDTO objects
-     * Map<EventId, eventFlowFileId>.  The eventId is tied to the flowfile id that initiated the final DROP event type
-     * Wait 1 minute before expiring and cleaning up these resources.
+     * Events with Detailed Tracking need to be added to the special queue to ensure step capture and timing information.
+     * DROP events on Flowfiles indicate the end of the flow file.  Flows that split/merge will relate to other flow files.  Sometimes the DROP of the previous flow file will
+     * be processed in a different order than the next flow file.  Beacuse of this the removal of data needs to be done after the fact to ensure the flows capture the correct data in ops manager
+     * The eventId is tied to the flowfile id that initiated the final DROP event type.
+     * Wait 1 minute before expiring and cleaning up these resources.  Entries are added in the order they expire.
      **/
-    protected Cache<Long, String> detailedTrackingFlowFilesToDelete = CacheBuilder.newBuilder()
-        .expireAfterWrite(1, TimeUnit.MINUTES)
-        .removalListener(flowFileRemovalListener)
-        .build();
+    protected Deque<PendingDelete> detailedTrackingFlowFilesToDelete = new ArrayDeque<>();
 
     ///Track Timing Information for each event
 
-
-    /**
-     * Map of the FlowFile Id to Event Time that is not a drop event
-     */
-    protected Map<String, Long> flowFileLastNonDropEventTime = new ConcurrentHashMap<>();
-
     /**
      * Map of the EventId to the duration in millis
      */
-    protected Map<Long, Long> eventDuration = new ConcurrentHashMap<>();
-
-    protected Map<Long, Long> eventStartTime = new ConcurrentHashMap<>();
-
-    /**
-     * feed flowFile Id to startTime
-     */
-    protected Map<String, Long> feedFlowFileStartTime = new ConcurrentHashMap<>();
+    protected LongLongMap eventDuration = new LongLongMap();
 
-    /**
-     * feedFlowFile Id to end time
-     */
-    protected Map<String, Long> feedFlowFileEndTime = new ConcurrentHashMap<>();
+    protected LongLongMap eventStartTime = new LongLongMap();
 
     //Feed Execution tracking
 
@@ -133,12 +113,7 @@ public class FeedEventStatistics implements Serializable {
     /**
      * Set of Event Ids that are events that finish the feed flow execution.  Last Job Event Ids
      */
-    protected Set<Long> eventsThatCompleteFeedFlow = new HashSet<>();
-
-    /**
-     * Count of how many flow files are still processing for a given feedFlowFile execution
-     */
-    protected Map<String, AtomicInteger> feedFlowProcessing = new ConcurrentHashMap<>();
+    protected Set<Long> eventsThatCompleteFeedFlow = ConcurrentHashMap.newKeySet();
 
     /// Skipped detail tracking and failure counts
 
@@ -148,12 +123,6 @@ public class FeedEventStatistics implements Serializable {
     protected AtomicLong skippedEvents = new AtomicLong(0);
 
 
-    /**
-     * Count of how many failures have been detected for a feedFlowFile execution
-     */
-    protected Map<String, AtomicInteger> feedFlowFileFailureCount = new ConcurrentHashMap<>();
-
-
     /**
      * Count of the flows running by feed processor
      */
@@ -170,10 +139,16 @@ public class FeedEventStatistics implements Serializable {
      */
     private Map<String, Set<String>> eventTypeProcessorTypeSkipChildren = new HashMap<>();
 
+    /**
+     * Journal of the changes to this data so it can be recovered if NiFi crashes.
+     * The event durations and start times are not journaled as they are removed before processing of the event completes.
+     */
+    private transient volatile FeedEventStatisticsJournal journal = new FeedEventStatisticsJournal(null);
+
 
     private static final FeedEventStatistics instance = new FeedEventStatistics();
 
-    private FeedEventStatistics() {
+    FeedEventStatistics() {
 
     }
 
@@ -222,15 +197,19 @@ public class FeedEventStatistics implements Serializable {
     public boolean backup(String location) {
 
         try {
-            //cleanup any files that should be removed before backup
-            detailedTrackingFlowFilesToDelete.cleanUp();
+            FeedEventStatisticsData data;
+            synchronized (this) {
+                //cleanup any files that should be removed before backup
+                expirePendingDeletes();
+                data = new FeedEventStatisticsData(this);
+            }
 
             FileOutputStream fos = new FileOutputStream(location);
             GZIPOutputStream gz = new GZIPOutputStream(fos);
 
             ObjectOutputStream oos = new ObjectOutputStream(gz);
 
-            oos.writeObject(new FeedEventStatisticsData(this));
+            oos.writeObject(data);
             oos.close();
             return true;
 
@@ -278,52 +257,207 @@ public class FeedEventStatistics implements Serializable {
     }
 
 
-    public void clear() {
-        this.feedFlowFileIdToFeedProcessorId.clear();
-        this.detailedTrackingFeedFlowFileId.clear();
-        this.allFlowFileToFeedFlowFile.clear();
-        this.flowFileLastNonDropEventTime.clear();
+    /**
+     * Recovers the data from the last checkpoint and journal in the given directory and starts journaling changes.
+     *
+     * @param location                 the journal directory
+     * @param checkpointIntervalMillis how often to write a checkpoint of all data
+     * @return true if the journal was opened, false if not
+     */
+    public boolean openJournal(String location, long checkpointIntervalMillis) {
+        return openJournal(new FeedEventStatisticsJournal(Paths.get(location)), checkpointIntervalMillis);
+    }
+
+    boolean openJournal(FeedEventStatisticsJournal newJournal, long checkpointIntervalMillis) {
+        try {
+            newJournal.open(this, checkpointIntervalMillis);
+            this.journal = newJournal;
+            return true;
+        } catch (Exception ex) {
+            log.error("Unable to open the feed event statistics journal at {}. {} ", newJournal.getDirectory(), ex.getMessage(), ex);
+            try {
+                newJournal.close();
+            } catch (IOException e) {
+                //ok to swallow as the journal is not used
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes a final checkpoint of the data and stops journaling changes.
+     *
+     * @return true if the checkpoint was written, false if not
+     */
+    public boolean closeJournal() {
+        FeedEventStatisticsJournal openJournal = this.journal;
+        if (!openJournal.isOpen()) {
+            return false;
+        }
+        this.journal = new FeedEventStatisticsJournal(null);
+        try {
+            openJournal.close(this);
+            return true;
+        } catch (Exception ex) {
+            log.error("Error writing the feed event statistics checkpoint to {}. {} ", openJournal.getDirectory(), ex.getMessage(), ex);
+        }
+        return false;
+    }
+
+    public boolean isJournalOpen() {
+        return journal.isOpen();
+    }
+
+    /**
+     * Gets the journal directory, or null if the journal is not open.
+     */
+    public String getJournalLocation() {
+        return journal.isOpen() ? journal.getDirectory().toString() : null;
+    }
+
+    public synchronized void clear() {
+        this.feedFlows.clear();
+        this.flowFiles.clear();
         this.eventDuration.clear();
         this.eventStartTime.clear();
-        this.feedFlowFileStartTime.clear();
-        this.feedFlowFileEndTime.clear();
         this.eventsThatCompleteFeedFlow.clear();
-        this.feedFlowProcessing.clear();
         this.skippedEvents.set(0L);
-        this.feedFlowFileFailureCount.clear();
     }
 
 
-    public boolean load(FeedEventStatisticsData other) {
+    public synchronized boolean load(FeedEventStatisticsData other) {
 
         // clear();
-        this.feedFlowFileIdToFeedProcessorId.putAll(other.feedFlowFileIdToFeedProcessorId);
-        this.detailedTrackingFeedFlowFileId.addAll(other.detailedTrackingFeedFlowFileId);
-        this.allFlowFileToFeedFlowFile.putAll(other.allFlowFileToFeedFlowFile);
-        this.flowFileLastNonDropEventTime.putAll(other.flowFileLastNonDropEventTime);
-        this.eventDuration.putAll(other.eventDuration);
-        this.eventStartTime.putAll(other.eventStartTime);
-        this.feedFlowFileStartTime.putAll(other.feedFlowFileStartTime);
-        this.feedFlowFileEndTime.putAll(other.feedFlowFileEndTime);
+        other.feedFlowProcessing.forEach((feedFlowFileId, processing) -> {
+            FeedFlow feedFlow = restoreFeedFlow(feedFlowFileId);
+            feedFlow.processing = processing.get();
+            feedFlow.detailedTracking = other.detailedTrackingFeedFlowFileId.contains(feedFlowFileId);
+            feedFlow.startTime = other.feedFlowFileStartTime.getOrDefault(feedFlowFileId, FlowFileMap.NONE);
+            feedFlow.endTime = other.feedFlowFileEndTime.getOrDefault(feedFlowFileId, FlowFileMap.NONE);
+            AtomicInteger failures = other.feedFlowFileFailureCount.get(feedFlowFileId);
+            feedFlow.failures = failures != null ? failures.get() : 0;
+            String feedProcessorId = other.feedFlowFileIdToFeedProcessorId.get(feedFlowFileId);
+            if (feedProcessorId != null) {
+                feedFlow.feedProcessorId = feedProcessorIds.computeIfAbsent(feedProcessorId, id -> id);
+            }
+        });
+        other.allFlowFileToFeedFlowFile.forEach((flowFileId, feedFlowFileId) -> flowFiles.put(flowFileId, restoreFeedFlow(feedFlowFileId)));
+        other.flowFileLastNonDropEventTime.forEach(flowFiles::putTime);
+        removeIncompleteFeedFlows();
         this.eventsThatCompleteFeedFlow.addAll(other.eventsThatCompleteFeedFlow);
-        this.feedFlowProcessing.putAll(other.feedFlowProcessing);
         this.skippedEvents.set(other.skippedEvents.get());
-        this.feedFlowFileFailureCount.putAll(other.feedFlowFileFailureCount);
         return true;
 
 
     }
 
+    /**
+     * Copies the data to a backup. The event durations and start times are not included as they are removed before processing of the event completes.
+     */
+    synchronized void copyTo(FeedEventStatisticsData data) {
+        feedFlows.forEach((feedFlowFileId, feedFlow, time) -> {
+            if (feedFlow.feedProcessorId != null) {
+                data.feedFlowFileIdToFeedProcessorId.put(feedFlowFileId, feedFlow.feedProcessorId);
+            }
+            if (feedFlow.detailedTracking) {
+                data.detailedTrackingFeedFlowFileId.add(feedFlowFileId);
+            }
+            if (feedFlow.startTime != FlowFileMap.NONE) {
+                data.feedFlowFileStartTime.put(feedFlowFileId, feedFlow.startTime);
+            }
+            if (feedFlow.endTime != FlowFileMap.NONE) {
+                data.feedFlowFileEndTime.put(feedFlowFileId, feedFlow.endTime);
+            }
+            if (feedFlow.failures > 0) {
+                data.feedFlowFileFailureCount.put(feedFlowFileId, new AtomicInteger(feedFlow.failures));
+            }
+            data.feedFlowProcessing.put(feedFlowFileId, new AtomicInteger(feedFlow.processing));
+        });
+        flowFiles.forEach((flowFileId, feedFlow, time) -> {
+            if (feedFlow != null) {
+                data.allFlowFileToFeedFlowFile.put(flowFileId, feedFlow.getFeedFlowFileId());
+            }
+            if (time != FlowFileMap.NONE) {
+                data.flowFileLastNonDropEventTime.put(flowFileId, time);
+            }
+        });
+        data.eventsThatCompleteFeedFlow.addAll(eventsThatCompleteFeedFlow);
+        data.skippedEvents.set(skippedEvents.get());
+    }
+
+    /**
+     * Copies the data so a checkpoint can be written while events are processed. The {@link FeedFlow} objects are shared with this instance.
+     */
+    synchronized FeedEventStatistics copyForCheckpoint() {
+        FeedEventStatistics copy = new FeedEventStatistics();
+        copy.feedFlows = feedFlows.copy();
+        copy.flowFiles = flowFiles.copy();
+        copy.detailedTrackingFlowFilesToDelete = new ArrayDeque<>(detailedTrackingFlowFilesToDelete);
+        copy.eventsThatCompleteFeedFlow.addAll(eventsThatCompleteFeedFlow);
+        copy.skippedEvents.set(skippedEvents.get());
+        copy.feedProcessorRunningFeedFlows = feedProcessorRunningFeedFlows;
+        return copy;
+    }
+
+    /**
+     * Gets the feed flow with the given id, adding it if needed. Used when restoring data from a backup or journal.
+     * Feed flows that are added without a feed processor are removed by {@link #removeIncompleteFeedFlows()} once the data is restored.
+     */
+    synchronized FeedFlow restoreFeedFlow(String feedFlowFileId) {
+        FeedFlow feedFlow = feedFlows.get(feedFlowFileId);
+        if (feedFlow == null) {
+            feedFlow = new FeedFlow(feedFlowFileId);
+            feedFlows.put(feedFlowFileId, feedFlow);
+        }
+        return feedFlow;
+    }
 
-    public void checkAndAssignStartingFlowFile(ProvenanceEventRecord event) {
+    /**
+     * Sets the feed processor of a restored feed flow.
+     */
+    synchronized void restoreFeedProcessor(FeedFlow feedFlow, String feedProcessorId) {
+        feedFlow.feedProcessorId = feedProcessorIds.computeIfAbsent(feedProcessorId, id -> id);
+    }
+
+    /**
+     * Removes the restored feed flows that were only referenced by flow files of feed flows that are no longer running.
+     */
+    synchronized void removeIncompleteFeedFlows() {
+        List<FeedFlow> incomplete = new ArrayList<>();
+        feedFlows.forEach((feedFlowFileId, feedFlow, time) -> {
+            if (feedFlow.feedProcessorId == null) {
+                incomplete.add(feedFlow);
+            }
+        });
+        incomplete.forEach(this::removeFeedFlow);
+    }
+
+    /**
+     * Adds a restored flow file that will be removed after a minute.
+     */
+    synchronized void restorePendingDelete(Long eventId, String flowFileId) {
+        detailedTrackingFlowFilesToDelete.add(new PendingDelete(eventId, flowFileId, System.nanoTime() + PENDING_DELETE_NANOS));
+    }
+
+
+    public synchronized void checkAndAssignStartingFlowFile(ProvenanceEventRecord event) {
         if (ProvenanceEventUtil.isStartingFeedFlow(event)) {
             //startingFlowFiles.add(event.getFlowFileUuid());
-            allFlowFileToFeedFlowFile.put(event.getFlowFileUuid(), event.getFlowFileUuid());
+            String feedFlowFileId = event.getFlowFileUuid();
+            FeedFlow feedFlow = feedFlows.get(feedFlowFileId);
+            if (feedFlow == null) {
+                feedFlow = new FeedFlow(feedFlowFileId);
+                feedFlows.put(feedFlowFileId, feedFlow);
+            }
+            feedFlow.feedProcessorId = feedProcessorIds.computeIfAbsent(event.getComponentId(), processorId -> processorId);
+            journal.put(Field.FEED_PROCESSOR, feedFlowFileId, feedFlow.feedProcessorId);
+            flowFiles.put(feedFlowFileId, feedFlow);
+            journal.put(Field.FEED_FLOW_FILE, feedFlowFileId, feedFlowFileId);
             //add the flow to active processing
-            feedFlowProcessing.computeIfAbsent(event.getFlowFileUuid(), feedFlowFileId -> new AtomicInteger(0)).incrementAndGet();
-            feedFlowFileIdToFeedProcessorId.put(event.getFlowFileUuid(), event.getComponentId());
+            journal.put(Field.FEED_FLOW_PROCESSING, feedFlowFileId, ++feedFlow.processing);
 
-            feedProcessorRunningFeedFlows.computeIfAbsent(event.getComponentId(),processorId -> new AtomicLong(0)).incrementAndGet();
+            long running = feedProcessorRunningFeedFlows.computeIfAbsent(event.getComponentId(),processorId -> new AtomicLong(0)).incrementAndGet();
+            journal.put(Field.RUNNING_FEED_FLOWS, event.getComponentId(), running);
 
             //  feedFlowToRelatedFlowFiles.computeIfAbsent(event.getFlowFileUuid(), feedFlowFileId -> new HashSet<>()).add(event.getFlowFileUuid());
         }
@@ -335,37 +469,38 @@ public class FeedEventStatistics implements Serializable {
      * This is for the Many to one case
      *
      * @param event the event
-     * @return the parent event to track
+     * @return the parent feed flow to track
      */
-    private String determineParentFeedFlow(ProvenanceEventRecord event) {
-        String feedFlowFile = null;
+    private FeedFlow determineParentFeedFlow(ProvenanceEventRecord event) {
+        FeedFlow feedFlow = null;
         String parent = event.getParentUuids().stream().filter(parentFlowFileId -> isTrackingDetails(parentFlowFileId)).findFirst().orElse(null);
         if (parent == null) {
             parent = event.getParentUuids().get(0);
         }
         if (parent != null) {
-            feedFlowFile = getFeedFlowFileId(parent);
+            feedFlow = flowFiles.get(parent);
         }
 
-        return feedFlowFile;
+        return feedFlow;
     }
 
 
-    public boolean assignParentsAndChildren(ProvenanceEventRecord event) {
+    public synchronized boolean assignParentsAndChildren(ProvenanceEventRecord event) {
 
         //Assign the Event to one of the Parents
 
         //  activeFlowFiles.add(event.getFlowFileUuid());
-        String startingFlowFile = allFlowFileToFeedFlowFile.get(event.getFlowFileUuid());
+        FeedFlow startingFlowFile = flowFiles.get(event.getFlowFileUuid());
         boolean trackingEventFlowFile = false;
         if (event.getParentUuids() != null && !event.getParentUuids().isEmpty()) {
 
             if (startingFlowFile == null) {
                 startingFlowFile = determineParentFeedFlow(event);
                 if (startingFlowFile != null) {
-                    allFlowFileToFeedFlowFile.put(event.getFlowFileUuid(), startingFlowFile);
-                    if (feedFlowProcessing.containsKey(startingFlowFile)) {
-                        feedFlowProcessing.get(startingFlowFile).incrementAndGet();
+                    flowFiles.put(event.getFlowFileUuid(), startingFlowFile);
+                    journal.put(Field.FEED_FLOW_FILE, event.getFlowFileUuid(), startingFlowFile.getFeedFlowFileId());
+                    if (startingFlowFile.active) {
+                        journal.put(Field.FEED_FLOW_PROCESSING, startingFlowFile.getFeedFlowFileId(), ++startingFlowFile.processing);
                         trackingEventFlowFile = true;
                     }
                 }
@@ -374,15 +509,18 @@ public class FeedEventStatistics implements Serializable {
 
         }
         if (startingFlowFile != null && event.getChildUuids() != null && !event.getChildUuids().isEmpty() && !shouldSkipChildren(event.getEventType(), event.getComponentType())) {
+            String feedFlowFileId = startingFlowFile.getFeedFlowFileId();
             for (String child : event.getChildUuids()) {
-                allFlowFileToFeedFlowFile.put(child, startingFlowFile);
+                flowFiles.put(child, startingFlowFile);
+                journal.put(Field.FEED_FLOW_FILE, child, feedFlowFileId);
                 //Add children flow files to active processing
                 //skip this add if we already did it while iterating the parents.
                 //NiFi will create a new Flow File for this event (event.getFlowFileId) and it will also be part of the children
-                if (feedFlowProcessing.containsKey(startingFlowFile) && (!trackingEventFlowFile || (trackingEventFlowFile && !child.equalsIgnoreCase(event.getFlowFileUuid())))) {
-                    feedFlowProcessing.get(startingFlowFile).incrementAndGet();
+                if (startingFlowFile.active && (!trackingEventFlowFile || (trackingEventFlowFile && !child.equalsIgnoreCase(event.getFlowFileUuid())))) {
+                    journal.put(Field.FEED_FLOW_PROCESSING, feedFlowFileId, ++startingFlowFile.processing);
                 }
-                flowFileLastNonDropEventTime.put(child, event.getEventTime());
+                flowFiles.putTime(child, event.getEventTime());
+                journal.put(Field.LAST_EVENT_TIME, child, event.getEventTime());
             }
         }
 
@@ -391,42 +529,47 @@ public class FeedEventStatistics implements Serializable {
     }
 
 
-    public void calculateTimes(ProvenanceEventRecord event, Long eventId) {
+    public synchronized void calculateTimes(ProvenanceEventRecord event, Long eventId) {
         //  eventIdEventTime.put(eventId,event.getEventTime());
-        Long startTime = lastEventTimeForFlowFile(event.getFlowFileUuid());
-        if (startTime == null && hasParents(event)) {
+        long startTime = flowFiles.getTime(event.getFlowFileUuid());
+        if (startTime == FlowFileMap.NONE && hasParents(event)) {
             startTime = lastEventTimeForParent(event.getParentUuids());
         }
-        if (startTime == null) {
+        if (startTime == FlowFileMap.NONE) {
             startTime = event.getFlowFileEntryDate();
         }
-        DateTime st = new DateTime(startTime);
         if (ProvenanceEventUtil.isStartingFeedFlow(event)) {
-            feedFlowFileStartTime.put(event.getFlowFileUuid(), startTime);
+            FeedFlow feedFlow = feedFlows.get(event.getFlowFileUuid());
+            if (feedFlow != null) {
+                feedFlow.startTime = startTime;
+                journal.put(Field.FEED_FLOW_START_TIME, event.getFlowFileUuid(), startTime);
+            }
         }
 
-        Long duration = event.getEventTime() - startTime;
+        long duration = event.getEventTime() - startTime;
         eventDuration.put(eventId, duration);
         eventStartTime.put(eventId, startTime);
 
         if (!ProvenanceEventType.DROP.equals(event.getEventType())) {
-            flowFileLastNonDropEventTime.put(event.getFlowFileUuid(), event.getEventTime());
+            flowFiles.putTime(event.getFlowFileUuid(), event.getEventTime());
+            journal.put(Field.LAST_EVENT_TIME, event.getFlowFileUuid(), event.getEventTime());
         }
 
     }
 
     public void skip(ProvenanceEventRecord event, Long eventId) {
-        skippedEvents.incrementAndGet();
-    }
-
-
-    private Long lastEventTimeForFlowFile(String flowFile) {
-        return flowFileLastNonDropEventTime.get(flowFile);
+        journal.set(Field.SKIPPED_EVENTS, skippedEvents.incrementAndGet());
     }
 
 
-    private Long lastEventTimeForParent(Collection<String> parentIds) {
-        return parentIds.stream().filter(flowFileId -> flowFileLastNonDropEventTime.containsKey(flowFileId)).findFirst().map(flowFileId -> flowFileLastNonDropEventTime.get(flowFileId)).orElse(null);
+    private long lastEventTimeForParent(Collection<String> parentIds) {
+        for (String flowFileId : parentIds) {
+            long time = flowFiles.getTime(flowFileId);
+            if (time != FlowFileMap.NONE) {
+                return time;
+            }
+        }
+        return FlowFileMap.NONE;
     }
 
 
@@ -434,20 +577,29 @@ public class FeedEventStatistics implements Serializable {
         return eventsThatCompleteFeedFlow.contains(eventId);
     }
 
+    /**
+     * Gets the running feed flow of a flow file, or null if the feed flow is not running
+     */
+    private FeedFlow getActiveFeedFlow(String eventFlowFileId) {
+        FeedFlow feedFlow = flowFiles.get(eventFlowFileId);
+        return (feedFlow != null && feedFlow.active) ? feedFlow : null;
+    }
+
 
     /**
      * are we tracking details for this feed
      */
-    public boolean isTrackingDetails(String eventFlowFileId) {
-        String feedFlowFile = allFlowFileToFeedFlowFile.get(eventFlowFileId);
-        if (feedFlowFile != null) {
-            return detailedTrackingFeedFlowFileId.contains(feedFlowFile);
-        }
-        return false;
+    public synchronized boolean isTrackingDetails(String eventFlowFileId) {
+        FeedFlow feedFlow = getActiveFeedFlow(eventFlowFileId);
+        return feedFlow != null && feedFlow.detailedTracking;
     }
 
-    public void setTrackingDetails(ProvenanceEventRecord event) {
-        detailedTrackingFeedFlowFileId.add(event.getFlowFileUuid());
+    public synchronized void setTrackingDetails(ProvenanceEventRecord event) {
+        FeedFlow feedFlow = feedFlows.get(event.getFlowFileUuid());
+        if (feedFlow != null) {
+            feedFlow.detailedTracking = true;
+            journal.add(Field.DETAILED_TRACKING, event.getFlowFileUuid());
+        }
     }
 
     private boolean hasParents(ProvenanceEventRecord event) {
@@ -455,21 +607,20 @@ public class FeedEventStatistics implements Serializable {
     }
 
 
-    public Long getEventDuration(Long eventId) {
-        return eventDuration.get(eventId);
+    public synchronized Long getEventDuration(Long eventId) {
+        long duration = eventDuration.get(eventId, FlowFileMap.NONE);
+        return duration != FlowFileMap.NONE ? duration : null;
     }
 
-    public Long getEventStartTime(Long eventId) {
-        return eventStartTime.get(eventId);
+    public synchronized Long getEventStartTime(Long eventId) {
+        long startTime = eventStartTime.get(eventId, FlowFileMap.NONE);
+        return startTime != FlowFileMap.NONE ? startTime : null;
     }
 
 
-    public boolean hasFailures(ProvenanceEventRecord event) {
-        String feedFlowFile = getFeedFlowFileId(event);
-        if (feedFlowFile != null) {
-            return feedFlowFileFailureCount.getOrDefault(feedFlowFile, new AtomicInteger(0)).get() > 0;
-        }
-        return false;
+    public synchronized boolean hasFailures(ProvenanceEventRecord event) {
+        FeedFlow feedFlow = getActiveFeedFlow(event.getFlowFileUuid());
+        return feedFlow != null && feedFlow.failures > 0;
     }
 
     public Long getSkippedEvents() {
@@ -477,33 +628,28 @@ public class FeedEventStatistics implements Serializable {
     }
 
     public String getFeedFlowFileId(ProvenanceEventRecord event) {
-        return allFlowFileToFeedFlowFile.get(event.getFlowFileUuid());
+        return getFeedFlowFileId(event.getFlowFileUuid());
     }
 
-    public String getFeedFlowFileId(String eventFlowFileId) {
-        return allFlowFileToFeedFlowFile.get(eventFlowFileId);
+    public synchronized String getFeedFlowFileId(String eventFlowFileId) {
+        FeedFlow feedFlow = flowFiles.get(eventFlowFileId);
+        return feedFlow != null ? feedFlow.getFeedFlowFileId() : null;
     }
 
 
-    public String getFeedProcessorId(ProvenanceEventRecord event) {
-        String feedFlowFileId = getFeedFlowFileId(event);
-        return feedFlowFileId != null ? feedFlowFileIdToFeedProcessorId.get(feedFlowFileId) : null;
+    public synchronized String getFeedProcessorId(ProvenanceEventRecord event) {
+        FeedFlow feedFlow = getActiveFeedFlow(event.getFlowFileUuid());
+        return feedFlow != null ? feedFlow.feedProcessorId : null;
     }
 
-    public Long getFeedFlowStartTime(ProvenanceEventRecord event) {
-        String feedFlowFile = getFeedFlowFileId(event);
-        if (feedFlowFile != null) {
-            return feedFlowFileStartTime.getOrDefault(feedFlowFile, null);
-        }
-        return null;
+    public synchronized Long getFeedFlowStartTime(ProvenanceEventRecord event) {
+        FeedFlow feedFlow = getActiveFeedFlow(event.getFlowFileUuid());
+        return (feedFlow != null && feedFlow.startTime != FlowFileMap.NONE) ? feedFlow.startTime : null;
     }
 
-    public Long getFeedFlowEndTime(ProvenanceEventRecord event) {
-        String feedFlowFile = getFeedFlowFileId(event);
-        if (feedFlowFile != null) {
-            return feedFlowFileEndTime.getOrDefault(feedFlowFile, null);
-        }
-        return null;
+    public synchronized Long getFeedFlowEndTime(ProvenanceEventRecord event) {
+        FeedFlow feedFlow = getActiveFeedFlow(event.getFlowFileUuid());
+        return (feedFlow != null && feedFlow.endTime != FlowFileMap.NONE) ? feedFlow.endTime : null;
     }
 
     public Long getFeedFlowFileDuration(ProvenanceEventRecord event) {
@@ -516,8 +662,9 @@ public class FeedEventStatistics implements Serializable {
     }
 
     private void clearMapsForEventFlowFile(String eventFlowFileId) {
-        flowFileLastNonDropEventTime.remove(eventFlowFileId);
-        allFlowFileToFeedFlowFile.remove(eventFlowFileId);
+        if (flowFiles.remove(eventFlowFileId)) {
+            journal.remove(Field.FEED_FLOW_FILE, eventFlowFileId);
+        }
     }
 
     /**
@@ -533,40 +680,54 @@ public class FeedEventStatistics implements Serializable {
         return feedProcessorRunningFeedFlows.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
     }
 
-    private void decrementRunningProcessorFeedFlows(String feedFlowFile){
-        String feedProcessor = feedFlowFileIdToFeedProcessorId.get(feedFlowFile);
+    private void decrementRunningProcessorFeedFlows(FeedFlow feedFlow){
+        String feedProcessor = feedFlow.feedProcessorId;
         if(feedProcessor != null){
             AtomicLong runningCount = feedProcessorRunningFeedFlows.get(feedProcessor);
             if( runningCount != null && runningCount.get() >=1) {
-                runningCount.decrementAndGet();
+                journal.put(Field.RUNNING_FEED_FLOWS, feedProcessor, runningCount.decrementAndGet());
             }
         }
     }
 
-    private void clearMapsForFeedFlowFile(String feedFlowFile) {
-        if (feedFlowFile != null) {
-            detailedTrackingFeedFlowFileId.remove(feedFlowFile);
-            feedFlowFileFailureCount.remove(feedFlowFile);
-            feedFlowFileEndTime.remove(feedFlowFile);
-            feedFlowFileStartTime.remove(feedFlowFile);
-            feedFlowProcessing.remove(feedFlowFile);
-
-
-            feedFlowFileIdToFeedProcessorId.remove(feedFlowFile);
+    /**
+     * Removes a feed flow that is no longer running. Flow files that still reference it will not find its data.
+     */
+    void removeFeedFlow(FeedFlow feedFlow) {
+        if (feedFlow != null && feedFlow.active) {
+            feedFlow.active = false;
+            String feedFlowFileId = feedFlow.getFeedFlowFileId();
+            feedFlows.remove(feedFlowFileId);
+            journal.remove(Field.FEED_PROCESSOR, feedFlowFileId);
         }
     }
 
     private void clearData(Long eventId, String eventFlowFileId) {
-        String feedFlowFile = getFeedFlowFileId(eventFlowFileId);
+        FeedFlow feedFlow = flowFiles.get(eventFlowFileId);
         clearMapsForEventFlowFile(eventFlowFileId);
         if (isEndingFeedFlow(eventId)) {
-            clearMapsForFeedFlowFile(feedFlowFile);
+            removeFeedFlow(feedFlow);
             eventsThatCompleteFeedFlow.remove(eventId);
+            journal.remove(Field.COMPLETING_EVENT, eventId);
         }
     }
 
+    /**
+     * Clears the data of the flow files with detailed tracking that were dropped more than a minute ago.
+     */
+    private void expirePendingDeletes() {
+        long now = System.nanoTime();
+        PendingDelete pendingDelete;
+        while ((pendingDelete = detailedTrackingFlowFilesToDelete.peek()) != null && now - pendingDelete.expirationTime >= 0) {
+            detailedTrackingFlowFilesToDelete.remove();
+            journal.remove(Field.PENDING_DELETE, pendingDelete.eventId);
+            clearData(pendingDelete.eventId, pendingDelete.flowFileId);
+        }
+    }
 
-    public void checkAndClear(String eventFlowFileId, String eventType, Long eventId) {
+
+    public synchronized void checkAndClear(String eventFlowFileId, String eventType, Long eventId) {
+        expirePendingDeletes();
         if (ProvenanceEventType.DROP.name().equals(eventType)) {
 
             boolean isTrackingDetails = isTrackingDetails(eventFlowFileId);
@@ -575,10 +736,11 @@ public class FeedEventStatistics implements Serializable {
                 //if we are not tracking ProvenanceEventDTO details then we can just expire all the flowfile data
                 clearData(eventId, eventFlowFileId);
             } else {
-                //if we are tracking details it needs to be added to an expiring map.
+                //if we are tracking details it needs to be added to an expiring queue.
                 //Sometimes the DROP event for the flowfile will come in before the next event causing us to loose the tracking information
-                //this will happen in a very short time, so adding to an expiring cache to help manage the cleanup of these entries is needed.
-                detailedTrackingFlowFilesToDelete.put(eventId, eventFlowFileId);
+                //this will happen in a very short time, so adding to an expiring queue to help manage the cleanup of these entries is needed.
+                detailedTrackingFlowFilesToDelete.add(new PendingDelete(eventId, eventFlowFileId, System.nanoTime() + PENDING_DELETE_NANOS));
+                journal.put(Field.PENDING_DELETE, eventId, eventFlowFileId);
             }
         }
 
@@ -594,40 +756,35 @@ public class FeedEventStatistics implements Serializable {
      * @param eventId the id
      * @return true if last event, false if not
      */
-    public boolean beforeProcessingIsLastEventForTrackedFeed(ProvenanceEventRecord event, Long eventId) {
-        String feedFlowFileId = allFlowFileToFeedFlowFile.get(event.getFlowFileUuid());
-        if (isTrackingDetails(event.getFlowFileUuid()) && feedFlowFileId != null && ProvenanceEventType.DROP.equals(event.getEventType())) {
-            //get the feed flow fileId for this event
-            AtomicInteger activeCounts = feedFlowProcessing.get(feedFlowFileId);
-            if (activeCounts != null) {
-                return activeCounts.get() == 1;
-            }
+    public synchronized boolean beforeProcessingIsLastEventForTrackedFeed(ProvenanceEventRecord event, Long eventId) {
+        FeedFlow feedFlow = getActiveFeedFlow(event.getFlowFileUuid());
+        if (feedFlow != null && feedFlow.detailedTracking && ProvenanceEventType.DROP.equals(event.getEventType())) {
+            return feedFlow.processing == 1;
         }
         return false;
     }
 
-    public void finishedEvent(ProvenanceEventRecord event, Long eventId) {
+    public synchronized void finishedEvent(ProvenanceEventRecord event, Long eventId) {
 
-        String feedFlowFileId = allFlowFileToFeedFlowFile.get(event.getFlowFileUuid());
-        if (feedFlowFileId != null && ProvenanceEventType.DROP.equals(event.getEventType())) {
+        FeedFlow feedFlow = getActiveFeedFlow(event.getFlowFileUuid());
+        if (feedFlow != null && ProvenanceEventType.DROP.equals(event.getEventType())) {
             //get the feed flow fileId for this event
-            AtomicInteger activeCounts = feedFlowProcessing.get(feedFlowFileId);
-            if (activeCounts != null) {
-                feedFlowProcessing.get(feedFlowFileId).decrementAndGet();
-                if (activeCounts.get() <= 0) {
-                    //Feed is finished
-                    eventsThatCompleteFeedFlow.add(eventId);
-                    feedFlowFileEndTime.put(feedFlowFileId, event.getEventTime());
-                    decrementRunningProcessorFeedFlows(feedFlowFileId);
-                }
-
+            String feedFlowFileId = feedFlow.getFeedFlowFileId();
+            journal.put(Field.FEED_FLOW_PROCESSING, feedFlowFileId, --feedFlow.processing);
+            if (feedFlow.processing <= 0) {
+                //Feed is finished
+                eventsThatCompleteFeedFlow.add(eventId);
+                journal.add(Field.COMPLETING_EVENT, eventId);
+                feedFlow.endTime = event.getEventTime();
+                journal.put(Field.FEED_FLOW_END_TIME, feedFlowFileId, event.getEventTime());
+                decrementRunningProcessorFeedFlows(feedFlow);
             }
 
         }
 
-        if (feedFlowFileId != null && ProvenanceEventUtil.isTerminatedByFailureRelationship(event)) {
-            //add to failureMap
-            feedFlowFileFailureCount.computeIfAbsent(feedFlowFileId, flowFileId -> new AtomicInteger(0)).incrementAndGet();
+        if (feedFlow != null && ProvenanceEventUtil.isTerminatedByFailureRelationship(event)) {
+            //add to failure count
+            journal.put(Field.FEED_FLOW_FAILURES, feedFlow.getFeedFlowFileId(), ++feedFlow.failures);
         }
 
 
@@ -639,13 +796,34 @@ public class FeedEventStatistics implements Serializable {
 
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         final StringBuilder sb = new StringBuilder("FeedEventStatistics{");
-        sb.append("detailedTrackingFeedFlowFileId=").append(detailedTrackingFeedFlowFileId.size());
-        sb.append(", allFlowFileToFeedFlowFile=").append(allFlowFileToFeedFlowFile.size());
-        sb.append(", feedFlowProcessing=").append(feedFlowProcessing.size());
+        sb.append("feedFlows=").append(feedFlows.size());
+        sb.append(", flowFiles=").append(flowFiles.size());
+        sb.append(", pendingDeletes=").append(detailedTrackingFlowFilesToDelete.size());
         sb.append(", skippedEvents=").append(skippedEvents);
         sb.append('}');
         return sb.toString();
     }
+
+    /**
+     * A dropped flow file with detailed tracking whose data will be cleared.
+     */
+    static class PendingDelete {
+
+        final Long eventId;
+
+        final String flowFileId;
+
+        /**
+         * Value of {@link System#nanoTime()} when the data is cleared
+         */
+        final long expirationTime;
+
+        PendingDelete(Long eventId, String flowFileId, long expirationTime) {
+            this.eventId = eventId;
+            this.flowFileId = flowFileId;
+            this.expirationTime = expirationTime;
+        }
+    }
 }
@@ -105,18 +105,7 @@ public class FeedEventStatisticsData implements Serializable {
 
 
     public FeedEventStatisticsData(FeedEventStatistics other) {
-        this.feedFlowFileIdToFeedProcessorId = other.feedFlowFileIdToFeedProcessorId;
-        this.detailedTrackingFeedFlowFileId = other.detailedTrackingFeedFlowFileId;
-        this.allFlowFileToFeedFlowFile = other.allFlowFileToFeedFlowFile;
-        this.flowFileLastNonDropEventTime = other.flowFileLastNonDropEventTime;
-        this.eventDuration = other.eventDuration;
-        this.eventStartTime = other.eventStartTime;
-        this.feedFlowFileStartTime = other.feedFlowFileStartTime;
-        this.feedFlowFileEndTime = other.feedFlowFileEndTime;
-        this.eventsThatCompleteFeedFlow = other.eventsThatCompleteFeedFlow;
-        this.feedFlowProcessing = other.feedFlowProcessing;
-        this.skippedEvents = other.skippedEvents;
-        this.feedFlowFileFailureCount = other.feedFlowFileFailureCount;
+        other.copyTo(this);
     }
 
     public void load() {
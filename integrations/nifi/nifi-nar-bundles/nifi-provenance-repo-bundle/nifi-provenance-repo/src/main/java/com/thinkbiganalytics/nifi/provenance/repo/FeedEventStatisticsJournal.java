@@ -0,0 +1,927 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the changes made to the {@link FeedEventStatistics} so the running feed flows survive a NiFi crash.
+ *
+ * <p>Each change is a compact binary record that sets or removes a single entry. Records are buffered and appended to the current journal segment in CRC protected blocks about every
+ * second. A checkpoint starts a new segment, writes all entries to the checkpoint file and deletes the older segments. Recovery reads the last checkpoint and replays the segments
+ * written after it, stopping at the first incomplete block.</p>
+ *
+ * <p>Records hold the new value of an entry instead of the change to it, so replaying a record that is already included in a checkpoint has no effect. This allows checkpoints to be
+ * written while events are being processed.</p>
+ */
+public class FeedEventStatisticsJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedEventStatisticsJournal.class);
+
+    /**
+     * Name of the checkpoint file
+     */
+    static final String CHECKPOINT_FILE = "feed-event-statistics.checkpoint";
+
+    /**
+     * Prefix of the journal segment files
+     */
+    static final String SEGMENT_PREFIX = "feed-event-statistics-";
+
+    /**
+     * Suffix of the journal segment files
+     */
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    /**
+     * Identifies the checkpoint and journal files
+     */
+    private static final int MAGIC = 0x4B46454A;
+
+    private static final byte VERSION = 1;
+
+    /**
+     * Size in bytes of buffered records that are written as one block
+     */
+    private static final int MAX_BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * Size in bytes of a journal segment that causes a checkpoint before the checkpoint interval
+     */
+    private static final long MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * How often buffered records are written to the journal
+     */
+    private static final long FLUSH_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * An entry of the {@link FeedEventStatistics} and the types of its keys and values.
+     *
+     * <p>The ordinal is written to the journal so new fields must be added to the end.</p>
+     */
+    enum Field {
+        FEED_PROCESSOR(Type.ID, Type.ID),
+        DETAILED_TRACKING(Type.ID, Type.NONE),
+        FEED_FLOW_FILE(Type.ID, Type.ID),
+        LAST_EVENT_TIME(Type.ID, Type.LONG),
+        FEED_FLOW_START_TIME(Type.ID, Type.LONG),
+        FEED_FLOW_END_TIME(Type.ID, Type.LONG),
+        COMPLETING_EVENT(Type.LONG, Type.NONE),
+        FEED_FLOW_PROCESSING(Type.ID, Type.LONG),
+        FEED_FLOW_FAILURES(Type.ID, Type.LONG),
+        RUNNING_FEED_FLOWS(Type.ID, Type.LONG),
+        PENDING_DELETE(Type.LONG, Type.ID),
+        SKIPPED_EVENTS(Type.NONE, Type.LONG);
+
+        private static final Field[] VALUES = values();
+
+        final Type keyType;
+
+        final Type valueType;
+
+        Field(Type keyType, Type valueType) {
+            this.keyType = keyType;
+            this.valueType = valueType;
+        }
+    }
+
+    /**
+     * Encoding of a key or value
+     */
+    private enum Type {
+        /**
+         * Not written
+         */
+        NONE,
+
+        /**
+         * A flow file or processor id, written as 16 bytes if it is a UUID
+         */
+        ID,
+
+        /**
+         * A variable length long
+         */
+        LONG
+    }
+
+    /**
+     * Directory containing the checkpoint and journal segments
+     */
+    private final Path directory;
+
+    /**
+     * Records waiting to be written to the current segment
+     */
+    private final RecordWriter writer = new RecordWriter();
+
+    /**
+     * Prevents concurrent checkpoints
+     */
+    private final Object checkpointLock = new Object();
+
+    /**
+     * Current journal segment, or {@code null} if the journal is closed
+     */
+    private OutputStream segment;
+
+    /**
+     * Number of the current journal segment
+     */
+    private long segmentNumber;
+
+    /**
+     * Size in bytes of the current journal segment
+     */
+    private long segmentSize;
+
+    /**
+     * Indicates records were lost and a checkpoint is needed to restore the journal
+     */
+    private volatile boolean checkpointNeeded;
+
+    /**
+     * Time of the last checkpoint
+     */
+    private volatile long lastCheckpointTime;
+
+    /**
+     * Writes and checkpoints the journal in the background
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructs a {@code FeedEventStatisticsJournal} that is closed.
+     *
+     * @param directory the directory containing the checkpoint and journal segments
+     */
+    public FeedEventStatisticsJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Loads the last checkpoint and journal into the statistics, writes a new checkpoint, and starts journaling changes.
+     *
+     * @param stats                    the statistics to recover
+     * @param checkpointIntervalMillis how often to write a checkpoint, or {@code 0} to only write checkpoints when requested
+     * @return the number of records that were recovered
+     * @throws IOException if the journal cannot be opened
+     */
+    public long open(FeedEventStatistics stats, long checkpointIntervalMillis) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.currentTimeMillis();
+        long records = recover(stats);
+        log.info("Recovered {} feed event statistics records from {} in {} ms", records, directory, System.currentTimeMillis() - start);
+
+        checkpoint(stats);
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("FeedEventStatisticsJournal-%d").build());
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+                if (checkpointNeeded || getSegmentSize() > MAX_SEGMENT_SIZE
+                    || (checkpointIntervalMillis > 0 && System.currentTimeMillis() - lastCheckpointTime >= checkpointIntervalMillis)) {
+                    checkpoint(stats);
+                }
+            } catch (Exception e) {
+                log.error("Unable to write the feed event statistics journal to {}. {} ", directory, e.getMessage(), e);
+            }
+        }, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return records;
+    }
+
+    /**
+     * Writes a final checkpoint of the statistics and closes the journal.
+     *
+     * @param stats the statistics
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void close(FeedEventStatistics stats) throws IOException {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        try {
+            checkpoint(stats);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            try {
+                flush();
+            } finally {
+                segment.close();
+                segment = null;
+            }
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return segment != null;
+    }
+
+    /**
+     * Records the new value of an entry.
+     */
+    public synchronized void put(Field field, String key, String value) {
+        if (segment != null) {
+            writer.writeHeader(field, false);
+            writer.writeId(key);
+            writer.writeId(value);
+            checkBlockSize();
+        }
+    }
+
+    /**
+     * Records the new value of an entry.
+     */
+    public synchronized void put(Field field, String key, long value) {
+        if (segment != null) {
+            writer.writeHeader(field, false);
+            writer.writeId(key);
+            writer.writeLong(value);
+            checkBlockSize();
+        }
+    }
+
+    /**
+     * Records the new value of an entry.
+     */
+    public synchronized void put(Field field, long key, String value) {
+        if (segment != null) {
+            writer.writeHeader(field, false);
+            writer.writeLong(key);
+            writer.writeId(value);
+            checkBlockSize();
+        }
+    }
+
+    /**
+     * Records an entry added to a set.
+     */
+    public synchronized void add(Field field, String key) {
+        if (segment != null) {
+            writer.writeHeader(field, false);
+            writer.writeId(key);
+            checkBlockSize();
+        }
+    }
+
+    /**
+     * Records an entry added to a set.
+     */
+    public synchronized void add(Field field, long key) {
+        if (segment != null) {
+            writer.writeHeader(field, false);
+            writer.writeLong(key);
+            checkBlockSize();
+        }
+    }
+
+    /**
+     * Records the removal of an entry.
+     */
+    public synchronized void remove(Field field, String key) {
+        if (segment != null) {
+            writer.writeHeader(field, true);
+            writer.writeId(key);
+            checkBlockSize();
+        }
+    }
+
+    /**
+     * Records the removal of an entry.
+     */
+    public synchronized void remove(Field field, long key) {
+        if (segment != null) {
+            writer.writeHeader(field, true);
+            writer.writeLong(key);
+            checkBlockSize();
+        }
+    }
+
+    /**
+     * Records the new value of a field without a key.
+     */
+    public synchronized void set(Field field, long value) {
+        if (segment != null) {
+            writer.writeHeader(field, false);
+            writer.writeLong(value);
+            checkBlockSize();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the current journal segment.
+     */
+    public synchronized void flush() {
+        if (segment != null && writer.hasRecords()) {
+            try {
+                segmentSize += writer.writeBlock(segment);
+            } catch (IOException e) {
+                log.error("Unable to write to the feed event statistics journal in {}. A checkpoint will be written. {} ", directory, e.getMessage(), e);
+                writer.reset();
+                checkpointNeeded = true;
+            }
+        }
+    }
+
+    /**
+     * Starts a new journal segment and writes all entries of the statistics to a new checkpoint. The previous checkpoint and segments are deleted once the checkpoint is written.
+     *
+     * @param stats the statistics
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void checkpoint(FeedEventStatistics stats) throws IOException {
+        synchronized (checkpointLock) {
+            long start = System.currentTimeMillis();
+            checkpointNeeded = false;
+            long firstSegment = startSegment();
+
+            Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            long size;
+            try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+                DataOutputStream header = new DataOutputStream(out);
+                header.writeInt(MAGIC);
+                header.writeByte(VERSION);
+                header.writeLong(firstSegment);
+                size = 13 + writeCheckpoint(stats, out);
+                out.getChannel().force(true);
+            }
+            Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            for (long number : listSegments()) {
+                if (number < firstSegment) {
+                    Files.deleteIfExists(segmentPath(number));
+                }
+            }
+            lastCheckpointTime = System.currentTimeMillis();
+            log.debug("Wrote feed event statistics checkpoint of {} bytes to {} in {} ms", size, directory, lastCheckpointTime - start);
+        }
+    }
+
+    /**
+     * Writes the remaining records to the current segment and opens the next segment.
+     *
+     * @return the number of the new segment
+     */
+    private synchronized long startSegment() throws IOException {
+        close();
+        segmentNumber++;
+        Path path = segmentPath(segmentNumber);
+        segment = new FileOutputStream(path.toFile());
+        DataOutputStream header = new DataOutputStream(segment);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        segmentSize = 5;
+        return segmentNumber;
+    }
+
+    private synchronized long getSegmentSize() {
+        return segmentSize;
+    }
+
+    private void checkBlockSize() {
+        if (writer.size() >= MAX_BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all entries of the statistics.
+     *
+     * @return the number of bytes written
+     */
+    private long writeCheckpoint(FeedEventStatistics stats, OutputStream out) throws IOException {
+        FeedEventStatistics copy = stats.copyForCheckpoint();
+        CheckpointWriter checkpoint = new CheckpointWriter(out);
+
+        // Feed flows are written first so they exist when their flow files are recovered
+        copy.feedFlows.forEach((feedFlowFileId, feedFlow, time) -> {
+            if (feedFlow.feedProcessorId != null) {
+                checkpoint.put(Field.FEED_PROCESSOR, feedFlowFileId, feedFlow.feedProcessorId);
+            }
+            if (feedFlow.detailedTracking) {
+                checkpoint.add(Field.DETAILED_TRACKING, feedFlowFileId);
+            }
+            if (feedFlow.startTime != FlowFileMap.NONE) {
+                checkpoint.put(Field.FEED_FLOW_START_TIME, feedFlowFileId, feedFlow.startTime);
+            }
+            if (feedFlow.endTime != FlowFileMap.NONE) {
+                checkpoint.put(Field.FEED_FLOW_END_TIME, feedFlowFileId, feedFlow.endTime);
+            }
+            checkpoint.put(Field.FEED_FLOW_PROCESSING, feedFlowFileId, feedFlow.processing);
+            if (feedFlow.failures > 0) {
+                checkpoint.put(Field.FEED_FLOW_FAILURES, feedFlowFileId, feedFlow.failures);
+            }
+        });
+        copy.flowFiles.forEach((flowFileId, feedFlow, time) -> {
+            if (feedFlow != null) {
+                checkpoint.put(Field.FEED_FLOW_FILE, flowFileId, feedFlow.getFeedFlowFileId());
+            }
+            if (time != FlowFileMap.NONE) {
+                checkpoint.put(Field.LAST_EVENT_TIME, flowFileId, time);
+            }
+        });
+        copy.eventsThatCompleteFeedFlow.forEach(key -> checkpoint.add(Field.COMPLETING_EVENT, key));
+        copy.feedProcessorRunningFeedFlows.forEach((key, value) -> checkpoint.put(Field.RUNNING_FEED_FLOWS, key, value.get()));
+        copy.detailedTrackingFlowFilesToDelete.forEach(pendingDelete -> checkpoint.put(Field.PENDING_DELETE, pendingDelete.eventId, pendingDelete.flowFileId));
+        checkpoint.set(Field.SKIPPED_EVENTS, copy.skippedEvents.get());
+        return checkpoint.finish();
+    }
+
+    /**
+     * Loads the last checkpoint and the journal segments written after it.
+     *
+     * @return the number of records loaded
+     */
+    private long recover(FeedEventStatistics stats) throws IOException {
+        RecordReader reader = new RecordReader(stats);
+        long firstSegment = 0;
+
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+                if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                    throw new IOException("Not a feed event statistics checkpoint: " + checkpoint);
+                }
+                firstSegment = in.readLong();
+                if (!reader.readBlocks(in)) {
+                    log.warn("Feed event statistics checkpoint {} is incomplete", checkpoint);
+                }
+            }
+        }
+
+        segmentNumber = Math.max(firstSegment - 1, 0);
+        for (long number : listSegments()) {
+            segmentNumber = Math.max(segmentNumber, number);
+            if (number >= firstSegment) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentPath(number))))) {
+                    if (in.readInt() == MAGIC && in.readByte() == VERSION && !reader.readBlocks(in)) {
+                        log.info("Ignoring the incomplete block at the end of feed event statistics journal {}", segmentPath(number));
+                    }
+                } catch (EOFException e) {
+                    log.debug("Feed event statistics journal {} is empty", segmentPath(number));
+                }
+            }
+        }
+
+        reader.finish();
+        return reader.records;
+    }
+
+    /**
+     * Lists the numbers of the journal segments in ascending order.
+     */
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring unknown file in feed event statistics journal: {}", path);
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Buffers records and writes them in CRC protected blocks.
+     */
+    private static class RecordWriter {
+
+        private final BlockBuffer buffer = new BlockBuffer();
+
+        private final DataOutputStream out = new DataOutputStream(buffer);
+
+        private final CRC32 crc = new CRC32();
+
+        void writeHeader(Field field, boolean remove) {
+            buffer.write((field.ordinal() << 1) | (remove ? 1 : 0));
+        }
+
+        /**
+         * Writes an id as a UUID or string.
+         */
+        void writeId(String id) {
+            try {
+                if (FlowFileMap.isUuid(id)) {
+                    out.writeByte(0);
+                    out.writeLong(FlowFileMap.mostSignificantBits(id));
+                    out.writeLong(FlowFileMap.leastSignificantBits(id));
+                } else {
+                    out.writeByte(1);
+                    out.writeUTF(id);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);  // never thrown by the in-memory buffer
+            }
+        }
+
+        /**
+         * Writes a zig-zag encoded variable length long.
+         */
+        void writeLong(long value) {
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                buffer.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buffer.write((int) v);
+        }
+
+        boolean hasRecords() {
+            return buffer.size() > 0;
+        }
+
+        int size() {
+            return buffer.size();
+        }
+
+        void reset() {
+            buffer.reset();
+        }
+
+        /**
+         * Writes the buffered records as one block.
+         *
+         * @return the number of bytes written
+         */
+        int writeBlock(OutputStream stream) throws IOException {
+            crc.reset();
+            crc.update(buffer.getBuffer(), 0, buffer.size());
+            byte[] header = new byte[8];
+            writeInt(header, 0, buffer.size());
+            writeInt(header, 4, (int) crc.getValue());
+            stream.write(header);
+            stream.write(buffer.getBuffer(), 0, buffer.size());
+            int written = header.length + buffer.size();
+            buffer.reset();
+            return written;
+        }
+
+        private static void writeInt(byte[] bytes, int offset, int value) {
+            bytes[offset] = (byte) (value >>> 24);
+            bytes[offset + 1] = (byte) (value >>> 16);
+            bytes[offset + 2] = (byte) (value >>> 8);
+            bytes[offset + 3] = (byte) value;
+        }
+    }
+
+    /**
+     * Writes the records of a checkpoint in blocks.
+     */
+    private static class CheckpointWriter {
+
+        private final RecordWriter writer = new RecordWriter();
+
+        private final OutputStream out;
+
+        private long size;
+
+        private IOException error;
+
+        CheckpointWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void put(Field field, String key, String value) {
+            writer.writeHeader(field, false);
+            writer.writeId(key);
+            writer.writeId(value);
+            checkBlockSize();
+        }
+
+        void put(Field field, String key, long value) {
+            writer.writeHeader(field, false);
+            writer.writeId(key);
+            writer.writeLong(value);
+            checkBlockSize();
+        }
+
+        void put(Field field, long key, String value) {
+            writer.writeHeader(field, false);
+            writer.writeLong(key);
+            writer.writeId(value);
+            checkBlockSize();
+        }
+
+        void add(Field field, String key) {
+            writer.writeHeader(field, false);
+            writer.writeId(key);
+            checkBlockSize();
+        }
+
+        void add(Field field, long key) {
+            writer.writeHeader(field, false);
+            writer.writeLong(key);
+            checkBlockSize();
+        }
+
+        void set(Field field, long value) {
+            writer.writeHeader(field, false);
+            writer.writeLong(value);
+            checkBlockSize();
+        }
+
+        /**
+         * Writes the remaining records.
+         *
+         * @return the number of bytes written
+         */
+        long finish() throws IOException {
+            if (error == null && writer.hasRecords()) {
+                writeBlock();
+            }
+            if (error != null) {
+                throw error;
+            }
+            return size;
+        }
+
+        private void checkBlockSize() {
+            if (error == null && writer.size() >= MAX_BLOCK_SIZE) {
+                writeBlock();
+            }
+        }
+
+        private void writeBlock() {
+            try {
+                size += writer.writeBlock(out);
+            } catch (IOException e) {
+                error = e;
+                writer.reset();
+            }
+        }
+    }
+
+    /**
+     * Reads blocks of records and applies them to the statistics.
+     */
+    private static class RecordReader {
+
+        private final FeedEventStatistics stats;
+
+        /**
+         * Flow files waiting to be removed. These are added to the statistics after recovery so their removal is not journaled again.
+         */
+        private final Map<Long, String> pendingDeletes = new TreeMap<>();
+
+        private final CRC32 crc = new CRC32();
+
+        private long records;
+
+        RecordReader(FeedEventStatistics stats) {
+            this.stats = stats;
+        }
+
+        /**
+         * Applies the blocks in the stream.
+         *
+         * @return {@code true} if all blocks were read, or {@code false} if an incomplete or corrupt block was found
+         */
+        boolean readBlocks(DataInputStream in) throws IOException {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return true;
+                }
+
+                byte[] block;
+                int checksum;
+                try {
+                    checksum = in.readInt();
+                    if (length < 0 || length > MAX_BLOCK_SIZE * 2) {
+                        return false;
+                    }
+                    block = new byte[length];
+                    in.readFully(block);
+                } catch (EOFException e) {
+                    return false;
+                }
+
+                crc.reset();
+                crc.update(block, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    return false;
+                }
+                readBlock(block);
+            }
+        }
+
+        /**
+         * Adds the pending deletes to the statistics in the order they were dropped, and removes the feed flows that are no longer running.
+         */
+        void finish() {
+            pendingDeletes.forEach(stats::restorePendingDelete);
+            stats.removeIncompleteFeedFlows();
+        }
+
+        private void readBlock(byte[] block) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(block));
+            int header;
+            while ((header = in.read()) != -1) {
+                Field field = Field.VALUES[header >>> 1];
+                boolean remove = (header & 1) == 1;
+                Object key = read(in, field.keyType);
+                Object value = remove ? null : read(in, field.valueType);
+                apply(field, remove, key, value);
+                ++records;
+            }
+        }
+
+        private Object read(DataInputStream in, Type type) throws IOException {
+            switch (type) {
+                case ID:
+                    if (in.readByte() == 0) {
+                        return new UUID(in.readLong(), in.readLong()).toString();
+                    } else {
+                        return in.readUTF();
+                    }
+                case LONG:
+                    return readLong(in);
+                default:
+                    return null;
+            }
+        }
+
+        private long readLong(InputStream in) throws IOException {
+            long v = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.read();
+                if (b == -1) {
+                    throw new EOFException();
+                }
+                v |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        private void apply(Field field, boolean remove, Object key, Object value) {
+            FeedFlow feedFlow;
+            switch (field) {
+                case FEED_PROCESSOR:
+                    if (remove) {
+                        stats.removeFeedFlow(stats.feedFlows.get((String) key));
+                    } else {
+                        stats.restoreFeedProcessor(stats.restoreFeedFlow((String) key), (String) value);
+                    }
+                    break;
+                case DETAILED_TRACKING:
+                    if ((feedFlow = stats.feedFlows.get((String) key)) != null) {
+                        feedFlow.detailedTracking = !remove;
+                    }
+                    break;
+                case FEED_FLOW_FILE:
+                    if (remove) {
+                        stats.flowFiles.remove((String) key);
+                    } else {
+                        stats.flowFiles.put((String) key, stats.restoreFeedFlow((String) value));
+                    }
+                    break;
+                case LAST_EVENT_TIME:
+                    if (remove) {
+                        stats.flowFiles.remove((String) key);
+                    } else {
+                        stats.flowFiles.putTime((String) key, (Long) value);
+                    }
+                    break;
+                case FEED_FLOW_START_TIME:
+                    if ((feedFlow = stats.feedFlows.get((String) key)) != null) {
+                        feedFlow.startTime = remove ? FlowFileMap.NONE : (Long) value;
+                    }
+                    break;
+                case FEED_FLOW_END_TIME:
+                    if ((feedFlow = stats.feedFlows.get((String) key)) != null) {
+                        feedFlow.endTime = remove ? FlowFileMap.NONE : (Long) value;
+                    }
+                    break;
+                case COMPLETING_EVENT:
+                    if (remove) {
+                        stats.eventsThatCompleteFeedFlow.remove(key);
+                    } else {
+                        stats.eventsThatCompleteFeedFlow.add((Long) key);
+                    }
+                    break;
+                case FEED_FLOW_PROCESSING:
+                    if ((feedFlow = stats.feedFlows.get((String) key)) != null) {
+                        feedFlow.processing = remove ? 0 : ((Long) value).intValue();
+                    }
+                    break;
+                case FEED_FLOW_FAILURES:
+                    if ((feedFlow = stats.feedFlows.get((String) key)) != null) {
+                        feedFlow.failures = remove ? 0 : ((Long) value).intValue();
+                    }
+                    break;
+                case RUNNING_FEED_FLOWS:
+                    apply(stats.feedProcessorRunningFeedFlows, remove, (String) key, remove ? null : new AtomicLong((Long) value));
+                    break;
+                case PENDING_DELETE:
+                    apply(pendingDeletes, remove, (Long) key, (String) value);
+                    break;
+                case SKIPPED_EVENTS:
+                    stats.skippedEvents.set((Long) value);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private <K, V> void apply(Map<K, V> map, boolean remove, K key, V value) {
+            if (remove) {
+                map.remove(key);
+            } else {
+                map.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * A byte array output stream that exposes its buffer.
+     */
+    private static class BlockBuffer extends ByteArrayOutputStream {
+
+        BlockBuffer() {
+            super(64 * 1024);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.UUID;
+
+/**
+ * The tracking data of a feed flow, which is identified by the flow file that started it.
+ *
+ * <p>Every flow file of the feed flow references this object from the {@link FeedEventStatistics}. A feed flow that is no longer running is not active, but it still provides the
+ * feed flow file id to the flow files that reference it.</p>
+ */
+class FeedFlow {
+
+    /**
+     * Bits of the feed flow file id if it is a UUID
+     */
+    private final long mostSigBits;
+
+    private final long leastSigBits;
+
+    /**
+     * The feed flow file id if it is not a UUID
+     */
+    private final String otherId;
+
+    /**
+     * The processor that started the feed flow
+     */
+    String feedProcessorId;
+
+    /**
+     * Indicates the events of the feed flow are sent to Kylo Operations Manager
+     */
+    boolean detailedTracking;
+
+    long startTime = FlowFileMap.NONE;
+
+    long endTime = FlowFileMap.NONE;
+
+    /**
+     * Count of how many flow files are still processing
+     */
+    int processing;
+
+    /**
+     * Count of how many failures have been detected
+     */
+    int failures;
+
+    /**
+     * Indicates the feed flow is running and its data has not been cleared
+     */
+    boolean active = true;
+
+    FeedFlow(String feedFlowFileId) {
+        if (FlowFileMap.isUuid(feedFlowFileId)) {
+            mostSigBits = FlowFileMap.mostSignificantBits(feedFlowFileId);
+            leastSigBits = FlowFileMap.leastSignificantBits(feedFlowFileId);
+            otherId = null;
+        } else {
+            mostSigBits = 0;
+            leastSigBits = 0;
+            otherId = feedFlowFileId;
+        }
+    }
+
+    /**
+     * Gets the id of the flow file that started the feed flow.
+     */
+    String getFeedFlowFileId() {
+        return otherId != null ? otherId : new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
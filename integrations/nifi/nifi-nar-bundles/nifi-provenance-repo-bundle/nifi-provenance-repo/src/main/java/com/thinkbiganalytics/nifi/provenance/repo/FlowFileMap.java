@@ -0,0 +1,379 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * thinkbig-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An open addressing hash map from flow file ids to a value and a time.
+ *
+ * <p>Flow file ids are UUIDs so they are stored as two longs in a single array instead of as strings in map entries. Each slot of the map takes 28 bytes with compressed references,
+ * compared to more than 200 bytes for an entry of a {@code ConcurrentHashMap<String, Long>} with its key. Ids that are not lower case UUIDs are kept in a separate map.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @param <V> the type of value
+ */
+class FlowFileMap<V> {
+
+    /**
+     * Indicates there is no time for a flow file
+     */
+    static final long NONE = Long.MIN_VALUE;
+
+    /**
+     * The nil UUID, which is kept in the separate map as it marks an empty slot
+     */
+    private static final String NIL_UUID = new UUID(0, 0).toString();
+
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Most and least significant bits of the id in each slot, or zeros if the slot is empty
+     */
+    private long[] keys;
+
+    private Object[] values;
+
+    private long[] times;
+
+    /**
+     * Number of ids in the slots
+     */
+    private int size;
+
+    /**
+     * Entries for ids that are not UUIDs
+     */
+    private final Map<String, Entry<V>> otherIds = new HashMap<>();
+
+    FlowFileMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Indicates if the id is a lower case UUID that is restored by {@link UUID#toString()}.
+     */
+    static boolean isUuid(String id) {
+        if (id.length() != 36 || id.charAt(8) != '-' || id.charAt(13) != '-' || id.charAt(18) != '-' || id.charAt(23) != '-') {
+            return false;
+        }
+        for (int i = 0; i < 36; ++i) {
+            char c = id.charAt(i);
+            if (i != 8 && i != 13 && i != 18 && i != 23 && !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the most significant bits of a UUID.
+     */
+    static long mostSignificantBits(String uuid) {
+        return parseHex(uuid, 0, 8) << 32 | parseHex(uuid, 9, 13) << 16 | parseHex(uuid, 14, 18);
+    }
+
+    /**
+     * Gets the least significant bits of a UUID.
+     */
+    static long leastSignificantBits(String uuid) {
+        return parseHex(uuid, 19, 23) << 48 | parseHex(uuid, 24, 36);
+    }
+
+    private static long parseHex(String id, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; ++i) {
+            value = (value << 4) | Character.digit(id.charAt(i), 16);
+        }
+        return value;
+    }
+
+    private static boolean isSlotted(String id) {
+        return isUuid(id) && !NIL_UUID.equals(id);
+    }
+
+    private static int hash(long mostSigBits, long leastSigBits) {
+        long h = (mostSigBits ^ Long.rotateLeft(leastSigBits, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int size() {
+        return size + otherIds.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(String id) {
+        if (isSlotted(id)) {
+            return find(mostSignificantBits(id), leastSignificantBits(id)) >= 0;
+        }
+        return otherIds.containsKey(id);
+    }
+
+    /**
+     * Gets the value of the flow file, or {@code null} if there is no value.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String id) {
+        if (isSlotted(id)) {
+            int slot = find(mostSignificantBits(id), leastSignificantBits(id));
+            return slot >= 0 ? (V) values[slot] : null;
+        }
+        Entry<V> entry = otherIds.get(id);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Gets the time of the flow file, or {@link #NONE} if there is no time.
+     */
+    public long getTime(String id) {
+        if (isSlotted(id)) {
+            int slot = find(mostSignificantBits(id), leastSignificantBits(id));
+            return slot >= 0 ? times[slot] : NONE;
+        }
+        Entry<V> entry = otherIds.get(id);
+        return entry != null ? entry.time : NONE;
+    }
+
+    /**
+     * Sets the value of the flow file, adding the flow file without a time if needed.
+     */
+    public void put(String id, V value) {
+        if (isSlotted(id)) {
+            int slot = insert(mostSignificantBits(id), leastSignificantBits(id));
+            values[slot] = value;
+        } else {
+            otherIds.computeIfAbsent(id, key -> new Entry<>()).value = value;
+        }
+    }
+
+    /**
+     * Sets the time of the flow file, adding the flow file without a value if needed.
+     */
+    public void putTime(String id, long time) {
+        if (isSlotted(id)) {
+            int slot = insert(mostSignificantBits(id), leastSignificantBits(id));
+            times[slot] = time;
+        } else {
+            otherIds.computeIfAbsent(id, key -> new Entry<>()).time = time;
+        }
+    }
+
+    /**
+     * Removes the value and time of the flow file.
+     *
+     * @return {@code true} if the flow file was removed, or {@code false} if it was not found
+     */
+    public boolean remove(String id) {
+        if (isSlotted(id)) {
+            int slot = find(mostSignificantBits(id), leastSignificantBits(id));
+            if (slot < 0) {
+                return false;
+            }
+            removeSlot(slot);
+            if (values.length > MIN_CAPACITY && size < values.length / 8) {
+                rehash(values.length / 2);
+            }
+            return true;
+        }
+        return otherIds.remove(id) != null;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+        otherIds.clear();
+    }
+
+    /**
+     * Copies the ids, values and times to a new map. The values themselves are not copied.
+     */
+    public FlowFileMap<V> copy() {
+        FlowFileMap<V> copy = new FlowFileMap<>();
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.times = times.clone();
+        copy.size = size;
+        otherIds.forEach((id, entry) -> {
+            Entry<V> copyEntry = new Entry<>();
+            copyEntry.value = entry.value;
+            copyEntry.time = entry.time;
+            copy.otherIds.put(id, copyEntry);
+        });
+        return copy;
+    }
+
+    /**
+     * Visits each flow file of the map.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super V> visitor) {
+        for (int slot = 0; slot < values.length; ++slot) {
+            long mostSigBits = keys[slot * 2];
+            long leastSigBits = keys[slot * 2 + 1];
+            if (mostSigBits != 0 || leastSigBits != 0) {
+                visitor.visit(new UUID(mostSigBits, leastSigBits).toString(), (V) values[slot], times[slot]);
+            }
+        }
+        otherIds.forEach((id, entry) -> visitor.visit(id, entry.value, entry.time));
+    }
+
+    /**
+     * Gets the number of slots, for estimating the memory used by the map.
+     */
+    int capacity() {
+        return values.length;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * 2];
+        values = new Object[capacity];
+        times = new long[capacity];
+        Arrays.fill(times, NONE);
+    }
+
+    /**
+     * Finds the slot of the id.
+     *
+     * @return the slot, or {@code -1} if the id is not in the map
+     */
+    private int find(long mostSigBits, long leastSigBits) {
+        int mask = values.length - 1;
+        int slot = hash(mostSigBits, leastSigBits) & mask;
+        while (true) {
+            long slotMostSigBits = keys[slot * 2];
+            long slotLeastSigBits = keys[slot * 2 + 1];
+            if (slotMostSigBits == mostSigBits && slotLeastSigBits == leastSigBits) {
+                return slot;
+            }
+            if (slotMostSigBits == 0 && slotLeastSigBits == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Finds the slot of the id, adding the id without a value or time if needed.
+     *
+     * @return the slot
+     */
+    private int insert(long mostSigBits, long leastSigBits) {
+        if (size >= values.length - (values.length >> 2)) {
+            rehash(values.length * 2);
+        }
+        int mask = values.length - 1;
+        int slot = hash(mostSigBits, leastSigBits) & mask;
+        while (true) {
+            long slotMostSigBits = keys[slot * 2];
+            long slotLeastSigBits = keys[slot * 2 + 1];
+            if (slotMostSigBits == mostSigBits && slotLeastSigBits == leastSigBits) {
+                return slot;
+            }
+            if (slotMostSigBits == 0 && slotLeastSigBits == 0) {
+                keys[slot * 2] = mostSigBits;
+                keys[slot * 2 + 1] = leastSigBits;
+                ++size;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties the slot and moves the following entries of the probe sequence back so lookups do not need markers for removed entries.
+     */
+    private void removeSlot(int slot) {
+        int mask = values.length - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long mostSigBits = keys[next * 2];
+            long leastSigBits = keys[next * 2 + 1];
+            if (mostSigBits == 0 && leastSigBits == 0) {
+                break;
+            }
+            int home = hash(mostSigBits, leastSigBits) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole * 2] = mostSigBits;
+                keys[hole * 2 + 1] = leastSigBits;
+                values[hole] = values[next];
+                times[hole] = times[next];
+                hole = next;
+            }
+        }
+        keys[hole * 2] = 0;
+        keys[hole * 2 + 1] = 0;
+        values[hole] = null;
+        times[hole] = NONE;
+        --size;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] oldTimes = times;
+        allocate(Math.max(capacity, MIN_CAPACITY));
+        size = 0;
+        for (int slot = 0; slot < oldValues.length; ++slot) {
+            long mostSigBits = oldKeys[slot * 2];
+            long leastSigBits = oldKeys[slot * 2 + 1];
+            if (mostSigBits != 0 || leastSigBits != 0) {
+                int newSlot = insert(mostSigBits, leastSigBits);
+                values[newSlot] = oldValues[slot];
+                times[newSlot] = oldTimes[slot];
+            }
+        }
+    }
+
+    /**
+     * Visits the flow files of a map.
+     */
+    @FunctionalInterface
+    interface Visitor<V> {
+
+        /**
+         * Visits a flow file.
+         *
+         * @param id    the flow file id
+         * @param value the value, or {@code null} if there is no value
+         * @param time  the time, or {@link #NONE} if there is no time
+         */
+        void visit(String id, V value, long time);
+    }
+
+    /**
+     * Value and time of an id that is not a UUID.
+     */
+    private static class Entry<V> {
+
+        V value;
+
+        long time = NONE;
+    }
+}
@@ -36,9 +36,17 @@ public class KyloProvenanceEventRepositoryUtil {
         log.info("onShutdown: Attempting to persist any active flow files to disk");
         try {
             //persist running flowfile metadata to disk
-            boolean success = FeedEventStatistics.getInstance().backup();
+            boolean success;
+            String location;
+            if (FeedEventStatistics.getInstance().isJournalOpen()) {
+                location = FeedEventStatistics.getInstance().getJournalLocation();
+                success = FeedEventStatistics.getInstance().closeJournal();
+            } else {
+                location = FeedEventStatistics.getInstance().getBackupLocation();
+                success = FeedEventStatistics.getInstance().backup();
+            }
             if (success) {
-                log.info("onShutdown: Successfully Finished persisting Kylo Flow processing data to {}", new Object[]{FeedEventStatistics.getInstance().getBackupLocation()});
+                log.info("onShutdown: Successfully Finished persisting Kylo Flow processing data to {}", new Object[]{location});
             } else {
                 log.info("onShutdown: FAILED Finished persisting Kylo Flow processing data.");
             }
@@ -52,10 +60,21 @@ public class KyloProvenanceEventRepositoryUtil {
         if (backupLocation != null) {
             FeedEventStatistics.getInstance().setBackupLocation(backupLocation);
         }
+        //load the backup of a previous version that did not journal changes
         boolean success = FeedEventStatistics.getInstance().loadBackup();
         if (success) {
             log.info("Successfully loaded backup from {} ", FeedEventStatistics.getInstance().getBackupLocation());
-        } else {
+        }
+
+        Long checkpointInterval = ConfigurationProperties.getInstance().getFeedEventStatisticsCheckpointInterval();
+        if (checkpointInterval > 0) {
+            String journalLocation = ConfigurationProperties.getInstance().getFeedEventStatisticsJournalLocation();
+            if (FeedEventStatistics.getInstance().openJournal(journalLocation, checkpointInterval)) {
+                log.info("Successfully recovered {} from the journal at {} ", FeedEventStatistics.getInstance(), journalLocation);
+            } else {
+                log.error("Error opening the journal at {}. Running feed flows will only be backed up when NiFi shuts down.", journalLocation);
+            }
+        } else if (!success) {
             log.error("Error loading backup");
         }
     }
@@ -0,0 +1,194 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * kylo-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.nifi.provenance.util.ProvenanceEventUtil;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Checks the memory used per flow file in flight by the {@link FeedEventStatistics}, and measures the heap used and the events processed per second.
+ */
+public class FeedEventStatisticsFootprintTest {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedEventStatisticsFootprintTest.class);
+
+    private static final int FEED_FLOWS = 50000;
+
+    /**
+     * Bytes used by each slot of a {@link FlowFileMap}: two longs for the id, a compressed reference to the value and a long for the time
+     */
+    private static final int SLOT_BYTES = 28;
+
+    private final String startComponentId = UUID.randomUUID().toString();
+
+    private long eventId;
+
+    /**
+     * Verify the arrays of the flow files in flight use less than half of the 200 bytes per flow file of a map of strings, and that they shrink once the feed flows finish.
+     */
+    @Test
+    public void testArrayBytesPerFlowFile() {
+        FeedEventStatistics stats = new FeedEventStatistics();
+        List<String> feedFlowFileIds = newFeedFlowFileIds(FEED_FLOWS);
+        for (String feedFlowFileId : feedFlowFileIds) {
+            startFlow(stats, feedFlowFileId);
+        }
+
+        int flowFiles = stats.flowFiles.size();
+        long arrayBytes = (long) (stats.flowFiles.capacity() + stats.feedFlows.capacity()) * SLOT_BYTES;
+        Assert.assertEquals(FEED_FLOWS * 3, flowFiles);
+        Assert.assertEquals(FEED_FLOWS, stats.feedFlows.size());
+        Assert.assertTrue("Expected less than 100 bytes per flow file but was " + arrayBytes / flowFiles, arrayBytes / flowFiles < 100);
+
+        for (String feedFlowFileId : feedFlowFileIds) {
+            finishFlow(stats, feedFlowFileId);
+        }
+        Assert.assertTrue(stats.flowFiles.isEmpty());
+        Assert.assertTrue(stats.feedFlows.isEmpty());
+        Assert.assertTrue(stats.eventsThatCompleteFeedFlow.isEmpty());
+        Assert.assertEquals(0L, stats.getRunningFeedFlows(startComponentId).longValue());
+        Assert.assertEquals(16, stats.flowFiles.capacity());
+        Assert.assertEquals(16, stats.feedFlows.capacity());
+    }
+
+    /**
+     * Measures the heap used per flow file in flight compared to the equivalent maps of strings, and the events processed per second. The number of feed flows is set by the
+     * {@code flows} system property, 50,000 by default.
+     */
+    @Ignore
+    @Test
+    public void benchmarkHeapPerFlowFile() throws Exception {
+        FeedEventStatistics stats = new FeedEventStatistics();
+        List<String> feedFlowFileIds = newFeedFlowFileIds(Integer.getInteger("flows", FEED_FLOWS));
+
+        long baseline = usedHeap();
+        long start = System.nanoTime();
+        for (String feedFlowFileId : feedFlowFileIds) {
+            startFlow(stats, feedFlowFileId);
+        }
+        long startNanos = System.nanoTime() - start;
+        int flowFiles = stats.flowFiles.size();
+        double compactBytes = (double) (usedHeap() - baseline) / flowFiles;
+
+        // the backup holds the same data in maps of strings
+        baseline = usedHeap();
+        FeedEventStatisticsData legacy = new FeedEventStatisticsData(stats);
+        double legacyBytes = (double) (usedHeap() - baseline) / flowFiles;
+
+        stats.clear();
+        stats.load(legacy);
+        legacy = null;
+        Assert.assertEquals(flowFiles, stats.flowFiles.size());
+
+        start = System.nanoTime();
+        for (String feedFlowFileId : feedFlowFileIds) {
+            finishFlow(stats, feedFlowFileId);
+        }
+        long finishNanos = System.nanoTime() - start;
+
+        log.info("{} flow files in flight use {} bytes each compared to {} bytes with maps of strings. Processed {} events per second.", flowFiles, Math.round(compactBytes),
+                 Math.round(legacyBytes), Math.round(eventId * 1e9 / (startNanos + finishNanos)));
+        Assert.assertTrue(stats.flowFiles.isEmpty());
+    }
+
+    private List<String> newFeedFlowFileIds(int count) {
+        List<String> feedFlowFileIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            feedFlowFileIds.add(UUID.randomUUID().toString());
+        }
+        return feedFlowFileIds;
+    }
+
+    /**
+     * Starts a feed flow that splits into two child flow files.
+     */
+    private void startFlow(FeedEventStatistics stats, String flowFileId) {
+        process(stats, newBuilder(ProvenanceEventType.CREATE, flowFileId).build());
+        process(stats, newBuilder(ProvenanceEventType.CLONE, flowFileId)
+            .addParentUuid(flowFileId)
+            .addChildUuid(childId(flowFileId, 0))
+            .addChildUuid(childId(flowFileId, 1))
+            .build());
+        process(stats, newBuilder(ProvenanceEventType.ATTRIBUTES_MODIFIED, childId(flowFileId, 0)).build());
+    }
+
+    private void finishFlow(FeedEventStatistics stats, String flowFileId) {
+        process(stats, newBuilder(ProvenanceEventType.DROP, flowFileId).build());
+        process(stats, newBuilder(ProvenanceEventType.DROP, childId(flowFileId, 0)).build());
+        process(stats, newBuilder(ProvenanceEventType.DROP, childId(flowFileId, 1)).build());
+    }
+
+    /**
+     * Derives a child id from the parent so the ids do not need to be kept
+     */
+    private String childId(String flowFileId, int child) {
+        return new UUID(FlowFileMap.mostSignificantBits(flowFileId), FlowFileMap.leastSignificantBits(flowFileId) + child + 1).toString();
+    }
+
+    /**
+     * Processes an event as the FeedStatistics would.
+     */
+    private void process(FeedEventStatistics stats, ProvenanceEventRecord event) {
+        Long id = eventId++;
+        if (ProvenanceEventUtil.isStartingFeedFlow(event)) {
+            stats.checkAndAssignStartingFlowFile(event);
+        }
+        stats.assignParentsAndChildren(event);
+        stats.calculateTimes(event, id);
+        stats.getFeedFlowFileId(event);
+        stats.skip(event, id);
+        stats.finishedEvent(event, id);
+        stats.isEndingFeedFlow(id);
+        stats.cleanup(event, id);
+    }
+
+    private StandardProvenanceEventRecord.Builder newBuilder(ProvenanceEventType type, String flowFileId) {
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileEntryDate(System.currentTimeMillis())
+            .setComponentId(startComponentId)
+            .setComponentType("com.thinkbiganalytics.ComponentType")
+            .setCurrentContentClaim("container", "section", "identifier", 0L, 0L)
+            .setFlowFileUUID(flowFileId)
+            .setEventType(type);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,272 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * kylo-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.nifi.provenance.util.ProvenanceEventUtil;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Crashes a journaled {@link FeedEventStatistics} while feed flows are running and verifies the recovered data.
+ */
+public class FeedEventStatisticsJournalTest {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedEventStatisticsJournalTest.class);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong eventId = new AtomicLong(0);
+
+    /**
+     * Ids of the events so they are the same when processed by different instances
+     */
+    private final Map<ProvenanceEventRecord, Long> eventIds = new IdentityHashMap<>();
+
+    private final String startComponentId = UUID.randomUUID().toString();
+
+    /**
+     * Verify the data is recovered from the journal after a crash, ignoring the incomplete block at the end.
+     */
+    @Test
+    public void testRecoverAfterCrash() throws Exception {
+        FeedEventStatistics stats = new FeedEventStatistics();
+        FeedEventStatisticsJournal journal = new FeedEventStatisticsJournal(folder.newFolder("journal").toPath());
+        Assert.assertTrue(stats.openJournal(journal, 0));
+
+        List<List<ProvenanceEventRecord>> flows = startFlows(stats, 200);
+        finishFlows(stats, flows.subList(0, 100));
+
+        // Crash with part of a block written
+        journal.flush();
+        Map<String, Object> expected = state(stats);
+        Path crashed = crash(journal.getDirectory());
+        Path lastSegment = segments(crashed).get(segments(crashed).size() - 1);
+        Files.write(lastSegment, new byte[]{0, 0, 1, 0, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+
+        FeedEventStatistics recovered = recover(crashed);
+        Assert.assertEquals(expected, state(recovered));
+        Assert.assertEquals(100L, recovered.getRunningFeedFlows(startComponentId).longValue());
+        Assert.assertTrue(state(recovered).toString().contains("failures=1"));
+        Assert.assertFalse(recovered.detailedTrackingFlowFilesToDelete.isEmpty());
+
+        // Finish the remaining flows on both
+        finishFlows(stats, flows.subList(100, 200));
+        finishFlows(recovered, flows.subList(100, 200));
+        Assert.assertEquals(state(stats), state(recovered));
+        stats.closeJournal();
+    }
+
+    /**
+     * Verify the data is recovered from a checkpoint and the journal written after it.
+     */
+    @Test
+    public void testRecoverFromCheckpoint() throws Exception {
+        FeedEventStatistics stats = new FeedEventStatistics();
+        FeedEventStatisticsJournal journal = new FeedEventStatisticsJournal(folder.newFolder("journal").toPath());
+        Assert.assertTrue(stats.openJournal(journal, 0));
+
+        List<List<ProvenanceEventRecord>> flows = startFlows(stats, 5000);
+        finishFlows(stats, flows.subList(0, 1000));
+        journal.checkpoint(stats);
+        Assert.assertEquals(1, segments(journal.getDirectory()).size());
+
+        finishFlows(stats, flows.subList(1000, 2000));
+        startFlows(stats, 10);
+
+        journal.flush();
+        Map<String, Object> expected = state(stats);
+        Path crashed = crash(journal.getDirectory());
+
+        long start = System.currentTimeMillis();
+        FeedEventStatistics recovered = recover(crashed);
+        log.info("Recovered {} from a checkpoint of {} bytes in {} ms", recovered, Files.size(crashed.resolve(FeedEventStatisticsJournal.CHECKPOINT_FILE)),
+                 System.currentTimeMillis() - start);
+        Assert.assertEquals(expected, state(recovered));
+        stats.closeJournal();
+    }
+
+    /**
+     * Verify closing the journal writes a checkpoint that is recovered without a journal.
+     */
+    @Test
+    public void testCloseWritesCheckpoint() throws Exception {
+        File directory = folder.newFolder("journal");
+        FeedEventStatistics stats = new FeedEventStatistics();
+        Assert.assertTrue(stats.openJournal(directory.getPath(), 0));
+        Assert.assertEquals(directory.getPath(), stats.getJournalLocation());
+
+        List<List<ProvenanceEventRecord>> flows = startFlows(stats, 50);
+        finishFlows(stats, flows.subList(0, 20));
+        Assert.assertTrue(stats.closeJournal());
+        Assert.assertFalse(stats.isJournalOpen());
+
+        for (Path segment : segments(directory.toPath())) {
+            Files.delete(segment);
+        }
+        Assert.assertEquals(state(stats), state(recover(directory.toPath())));
+    }
+
+    /**
+     * Starts feed flows that split into child flow files.
+     */
+    private List<List<ProvenanceEventRecord>> startFlows(FeedEventStatistics stats, int count) {
+        List<List<ProvenanceEventRecord>> flows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String flowFileId = UUID.randomUUID().toString();
+            boolean trackDetails = i % 3 == 0;
+
+            process(stats, buildEvent(ProvenanceEventType.CREATE, flowFileId, null), trackDetails);
+            process(stats, buildEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, flowFileId, null), trackDetails);
+
+            StandardProvenanceEventRecord.Builder split = newBuilder(ProvenanceEventType.CLONE, flowFileId).addParentUuid(flowFileId);
+            List<ProvenanceEventRecord> drops = new ArrayList<>();
+            drops.add(buildEvent(ProvenanceEventType.DROP, flowFileId, (i % 5 == 0) ? ProvenanceEventUtil.AUTO_TERMINATED_FAILURE_RELATIONSHIP : null));
+            for (int child = 0; child < 2; child++) {
+                String childId = flowFileId + "-child-" + child;
+                split.addChildUuid(childId);
+                drops.add(buildEvent(ProvenanceEventType.DROP, childId, null));
+            }
+            process(stats, split.build(), trackDetails);
+            flows.add(drops);
+        }
+        return flows;
+    }
+
+    /**
+     * Drops all flow files of the feed flows.
+     */
+    private void finishFlows(FeedEventStatistics stats, List<List<ProvenanceEventRecord>> flows) {
+        for (List<ProvenanceEventRecord> drops : flows) {
+            for (ProvenanceEventRecord drop : drops) {
+                process(stats, drop, false);
+            }
+        }
+    }
+
+    /**
+     * Processes an event as the FeedStatistics would.
+     */
+    private void process(FeedEventStatistics stats, ProvenanceEventRecord event, boolean trackDetails) {
+        Long id = eventIds.computeIfAbsent(event, e -> eventId.incrementAndGet());
+        if (ProvenanceEventUtil.isStartingFeedFlow(event)) {
+            stats.checkAndAssignStartingFlowFile(event);
+            if (trackDetails) {
+                stats.setTrackingDetails(event);
+            }
+        }
+        stats.assignParentsAndChildren(event);
+        stats.calculateTimes(event, id);
+        if (!stats.isTrackingDetails(event.getFlowFileUuid())) {
+            stats.skip(event, id);
+        }
+        stats.finishedEvent(event, id);
+        stats.cleanup(event, id);
+    }
+
+    private ProvenanceEventRecord buildEvent(ProvenanceEventType type, String flowFileId, String details) {
+        return newBuilder(type, flowFileId).setDetails(details).build();
+    }
+
+    private StandardProvenanceEventRecord.Builder newBuilder(ProvenanceEventType type, String flowFileId) {
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileEntryDate(System.currentTimeMillis())
+            .setComponentId(startComponentId)
+            .setComponentType("com.thinkbiganalytics.ComponentType")
+            .setCurrentContentClaim("container", "section", "identifier", 0L, 0L)
+            .setFlowFileUUID(flowFileId)
+            .setEventType(type);
+    }
+
+    /**
+     * Copies the files that would remain on disk if NiFi crashed.
+     */
+    private Path crash(Path directory) throws IOException {
+        Path copy = folder.newFolder().toPath();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+        }
+        return copy;
+    }
+
+    private FeedEventStatistics recover(Path directory) throws IOException {
+        FeedEventStatistics recovered = new FeedEventStatistics();
+        FeedEventStatisticsJournal journal = new FeedEventStatisticsJournal(directory);
+        Assert.assertTrue(recovered.openJournal(journal, 0));
+        return recovered;
+    }
+
+    private List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(FeedEventStatisticsJournal.SEGMENT_SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private Map<String, Object> state(FeedEventStatistics stats) {
+        Map<String, Object> state = new HashMap<>();
+        Map<String, String> feedFlows = new HashMap<>();
+        stats.feedFlows.forEach((id, feedFlow, time) -> feedFlows.put(id, describe(feedFlow)));
+        state.put("feedFlows", feedFlows);
+        Map<String, String> flowFiles = new HashMap<>();
+        stats.flowFiles.forEach((id, feedFlow, time) -> flowFiles.put(id, (feedFlow != null ? describe(feedFlow) : null) + ", time=" + time));
+        state.put("flowFiles", flowFiles);
+        state.put("eventsThatCompleteFeedFlow", new HashSet<>(stats.eventsThatCompleteFeedFlow));
+        state.put("feedProcessorRunningFeedFlows", stats.getRunningFeedFlows());
+        state.put("detailedTrackingFlowFilesToDelete", stats.detailedTrackingFlowFilesToDelete.stream()
+            .collect(Collectors.toMap(pendingDelete -> pendingDelete.eventId, pendingDelete -> pendingDelete.flowFileId)));
+        state.put("skippedEvents", stats.skippedEvents.get());
+        return state;
+    }
+
+    private String describe(FeedFlow feedFlow) {
+        return feedFlow.getFeedFlowFileId() + "[processor=" + feedFlow.feedProcessorId + ", tracking=" + feedFlow.detailedTracking + ", start=" + feedFlow.startTime + ", end="
+               + feedFlow.endTime + ", processing=" + feedFlow.processing + ", failures=" + feedFlow.failures + ", active=" + feedFlow.active + "]";
+    }
+}
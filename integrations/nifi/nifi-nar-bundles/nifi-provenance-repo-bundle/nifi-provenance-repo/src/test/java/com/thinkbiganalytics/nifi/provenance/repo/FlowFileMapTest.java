@@ -0,0 +1,124 @@
+package com.thinkbiganalytics.nifi.provenance.repo;
+
+/*-
+ * #%L
+ * kylo-nifi-provenance-repo
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+public class FlowFileMapTest {
+
+    /**
+     * Verify random puts and removes match a HashMap, including ids that are not UUIDs.
+     */
+    @Test
+    public void testMatchesHashMap() {
+        Random random = new Random(42);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        ids.add("flow-file-1");
+        ids.add(UUID.randomUUID().toString().toUpperCase());
+        ids.add(new UUID(0, 0).toString());
+
+        FlowFileMap<Integer> map = new FlowFileMap<>();
+        Map<String, Integer> values = new HashMap<>();
+        Map<String, Long> times = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    map.put(id, i);
+                    values.put(id, i);
+                    times.putIfAbsent(id, FlowFileMap.NONE);
+                    break;
+                case 1:
+                    map.putTime(id, i);
+                    times.put(id, (long) i);
+                    values.putIfAbsent(id, null);
+                    break;
+                default:
+                    Assert.assertEquals(times.containsKey(id), map.remove(id));
+                    values.remove(id);
+                    times.remove(id);
+                    break;
+            }
+            Assert.assertEquals(values.get(id), map.get(id));
+        }
+
+        Assert.assertEquals(times.size(), map.size());
+        for (String id : ids) {
+            Assert.assertEquals(times.containsKey(id), map.containsKey(id));
+            Assert.assertEquals(values.get(id), map.get(id));
+            Assert.assertEquals(times.getOrDefault(id, FlowFileMap.NONE).longValue(), map.getTime(id));
+        }
+
+        Map<String, Long> visited = new HashMap<>();
+        map.copy().forEach((id, value, time) -> visited.put(id, time));
+        Assert.assertEquals(times, visited);
+    }
+
+    /**
+     * Verify the map shrinks when flow files are removed.
+     */
+    @Test
+    public void testShrinks() {
+        FlowFileMap<String> map = new FlowFileMap<>();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            String id = UUID.randomUUID().toString();
+            ids.add(id);
+            map.put(id, id);
+        }
+        Assert.assertTrue(map.capacity() >= 131072);
+
+        ids.subList(10, ids.size()).forEach(map::remove);
+        Assert.assertEquals(10, map.size());
+        Assert.assertTrue(map.capacity() <= 128);
+        ids.subList(0, 10).forEach(id -> Assert.assertEquals(id, map.get(id)));
+    }
+
+    /**
+     * Verify event ids are mapped without boxing.
+     */
+    @Test
+    public void testLongLongMap() {
+        LongLongMap map = new LongLongMap();
+        for (long i = 0; i < 10000; i++) {
+            map.put(i * 31, i);
+        }
+        for (long i = 0; i < 10000; i += 2) {
+            Assert.assertTrue(map.remove(i * 31));
+        }
+        Assert.assertEquals(5000, map.size());
+        for (long i = 0; i < 10000; i++) {
+            Assert.assertEquals(i % 2 == 0 ? -1L : i, map.get(i * 31, -1L));
+        }
+        Assert.assertFalse(map.remove(0));
+    }
+}
@@ -45,7 +45,6 @@ import org.apache.nifi.web.api.dto.ConnectionDTO;
 import org.apache.nifi.web.api.dto.ControllerServiceDTO;
 import org.apache.nifi.web.api.dto.FlowSnippetDTO;
 import org.apache.nifi.web.api.dto.ProcessGroupDTO;
-import org.apache.nifi.web.api.dto.ProcessorConfigDTO;
 import org.apache.nifi.web.api.dto.ProcessorDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +53,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -270,7 +270,15 @@ public class TemplateCreationHelper {
         }
 
         // Enable controller service
-        return restClient.enableControllerServiceAndSetProperties(controllerService.getId(), properties);
+        final ControllerServiceDTO enabledService = restClient.enableControllerServiceAndSetProperties(controllerService.getId(), properties);
+
+        // Record the new state in the snapshot so later updates in this deployment do not enable it again
+        if (NifiProcessUtil.SERVICE_STATE.ENABLED.name().equals(enabledService.getState())) {
+            controllerService.setState(enabledService.getState());
+            enabledServices.put(controllerService.getId(), controllerService);
+            enabledServices.put(controllerService.getName(), controllerService);
+        }
+        return enabledService;
     }
 
     private void mergeControllerServices() {
@@ -323,6 +331,20 @@ public class TemplateCreationHelper {
     }
 
     public List<ProcessorDTO> reassignControllerServiceIds(List<ProcessorDTO> processors) {
+        final Map<String, Map<String, String>> processorProperties = new LinkedHashMap<>();
+        final List<ProcessorDTO> updatedProcessors = reassignControllerServiceIds(processors, processorProperties);
+        restClient.updateProcessorsConfigProperties(processorProperties);
+        return updatedProcessors;
+    }
+
+    /**
+     * Points controller service properties at the services matching the template properties.
+     *
+     * @param processors          processors to inspect
+     * @param processorProperties map of processor id to changed property values, which is updated with the reassigned ids
+     * @return the processors that were modified
+     */
+    private List<ProcessorDTO> reassignControllerServiceIds(List<ProcessorDTO> processors, Map<String, Map<String, String>> processorProperties) {
 
         List<ProcessorDTO> updatedProcessors = new ArrayList<>();
         if (processors != null) {
@@ -373,11 +395,7 @@ public class TemplateCreationHelper {
 
                 });
                 if (!updatedProcessorProperties.isEmpty()) {
-                    ProcessorDTO updatedProcessor = new ProcessorDTO();
-                    updatedProcessor.setId(processorDTO.getId());
-                    updatedProcessor.setConfig(new ProcessorConfigDTO());
-                    updatedProcessor.getConfig().setProperties(updatedProcessorProperties);
-                    restClient.updateProcessor(updatedProcessor);
+                    processorProperties.computeIfAbsent(processorDTO.getId(), id -> new LinkedHashMap<>()).putAll(updatedProcessorProperties);
                 }
 
             });
@@ -400,7 +418,9 @@ public class TemplateCreationHelper {
     public List<NifiProperty> updateControllerServiceReferences(List<ProcessorDTO> processors, Map<String, String> controllerServiceProperties) {
 
         try {
-            reassignControllerServiceIds(processors);
+            //collect all changes so that each processor is updated once
+            final Map<String, Map<String, String>> processorProperties = new LinkedHashMap<>();
+            reassignControllerServiceIds(processors, processorProperties);
 
             //merge the snapshotted services with the newly created ones and update respective processors in the newly created flow
             final Map<String, ControllerServiceDTO> enabledServices = new HashMap<>();
@@ -428,7 +448,8 @@ public class TemplateCreationHelper {
 
             List<NifiProperty> updatedProperties = fixControllerServiceReferences(controllerServiceProperties, enabledServices, allServices, properties);
             updatedProperties
-                .forEach(property -> restClient.updateProcessorProperty(property.getProcessGroupId(), property.getProcessorId(), property));
+                .forEach(property -> processorProperties.computeIfAbsent(property.getProcessorId(), id -> new LinkedHashMap<>()).put(property.getKey(), property.getValue()));
+            restClient.updateProcessorsConfigProperties(processorProperties);
             return updatedProperties;
 
         } catch (NifiClientRuntimeException e) {
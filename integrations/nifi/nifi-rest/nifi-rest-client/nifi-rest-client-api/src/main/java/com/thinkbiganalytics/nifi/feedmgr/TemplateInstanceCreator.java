@@ -36,6 +36,7 @@ import org.apache.nifi.web.api.dto.TemplateDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -153,17 +154,16 @@ public class TemplateInstanceCreator {
 
                     List<NifiProperty> processorProperties = NifiPropertyUtil.getProperties(entity, restClient.getPropertyDescriptorTransform());
                     if (processorProperties != null) {
-                        boolean didReplace = false;
+                        List<NifiProperty> replacedProperties = new ArrayList<>();
                         for (NifiProperty property : processorProperties) {
                             boolean replaced = ConfigurationPropertyReplacer.resolveStaticConfigurationProperty(property, staticConfigPropertyMap);
                             if (replaced) {
-                                //update the properties that are replaced
-                                restClient.updateProcessorProperty(property.getProcessGroupId(), property.getProcessorId(), property);
-                                didReplace = true;
+                                replacedProperties.add(property);
                             }
                         }
-                        //if we replaced any properties, refetch to get the latest data
-                        if (didReplace) {
+                        //update the properties that are replaced, then refetch to get the latest data
+                        if (!replacedProperties.isEmpty()) {
+                            restClient.updateProcessorsProperties(replacedProperties);
                             entity = restClient.getProcessGroup(processGroupId, true, true);
                         }
                     }
@@ -23,6 +23,8 @@ package com.thinkbiganalytics.nifi.rest.client;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.thinkbiganalytics.nifi.feedmgr.ConfigurationPropertyReplacer;
 import com.thinkbiganalytics.nifi.feedmgr.NifiEnvironmentProperties;
 import com.thinkbiganalytics.nifi.feedmgr.ReusableTemplateCreationCallback;
@@ -50,6 +52,7 @@ import org.apache.nifi.web.api.dto.DocumentedTypeDTO;
 import org.apache.nifi.web.api.dto.FlowSnippetDTO;
 import org.apache.nifi.web.api.dto.PortDTO;
 import org.apache.nifi.web.api.dto.ProcessGroupDTO;
+import org.apache.nifi.web.api.dto.ProcessorConfigDTO;
 import org.apache.nifi.web.api.dto.ProcessorDTO;
 import org.apache.nifi.web.api.dto.PropertyDescriptorDTO;
 import org.apache.nifi.web.api.dto.TemplateDTO;
@@ -63,13 +66,19 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.ws.rs.ClientErrorException;
 
@@ -84,6 +93,16 @@ public class LegacyNifiRestClient implements NiFiFlowVisitorClient {
     @Inject
     private NiFiPropertyDescriptorTransform propertyDescriptorTransform;
 
+    /**
+     * Maximum number of processors to update concurrently
+     */
+    private int processorUpdateThreads = 4;
+
+    /**
+     * Executor for updating processors, created when first needed
+     */
+    private ExecutorService processorUpdateExecutor;
+
     /**
      * Gets Template data, either a quick view or including all its content
      */
@@ -839,43 +858,119 @@ public class LegacyNifiRestClient implements NiFiFlowVisitorClient {
      * Update the properties
      */
     public void updateProcessGroupProperties(List<NifiProperty> properties) {
+        updateProcessorsProperties(properties);
+    }
 
-        Map<String, Map<String, List<NifiProperty>>>
-            processGroupProperties =
-            NifiPropertyUtil.groupPropertiesByProcessGroupAndProcessor(properties);
-
-        for (Map.Entry<String, Map<String, List<NifiProperty>>> processGroupEntry : processGroupProperties.entrySet()) {
+    public void updateProcessorProperties(String processGroupId, String processorId, List<NifiProperty> properties) {
+        final Map<String, String> values = new LinkedHashMap<>();
+        properties.forEach(property -> values.put(property.getKey(), property.getValue()));
+        updateProcessorConfigProperties(processorId, values);
+    }
 
-            String processGroupId = processGroupEntry.getKey();
-            for (Map.Entry<String, List<NifiProperty>> propertyEntry : processGroupEntry.getValue().entrySet()) {
-                String processorId = propertyEntry.getKey();
-                updateProcessorProperties(processGroupId, processorId, propertyEntry.getValue());
-            }
+    public void updateProcessorProperty(String processGroupId, String processorId, NifiProperty property) {
+        //only set this property
+        updateProcessorConfigProperties(processorId, Collections.singletonMap(property.getKey(), property.getValue()));
+    }
 
+    /**
+     * Updates the specified properties, sending one update for each processor containing only the changed values.
+     *
+     * <p>When a property is listed more than once for a processor then the last value is used.</p>
+     *
+     * @param properties the properties to update
+     * @throws NifiClientRuntimeException if any processor cannot be updated
+     */
+    public void updateProcessorsProperties(@Nonnull final Collection<NifiProperty> properties) {
+        final Map<String, Map<String, String>> processorProperties = new LinkedHashMap<>();
+        for (NifiProperty property : properties) {
+            processorProperties.computeIfAbsent(property.getProcessorId(), id -> new LinkedHashMap<>()).put(property.getKey(), property.getValue());
         }
+        updateProcessorsConfigProperties(processorProperties);
     }
 
-    public void updateProcessorProperties(String processGroupId, String processorId, List<NifiProperty> properties) {
-        Map<String, NifiProperty> propertyMap = NifiPropertyUtil.propertiesAsMap(properties);
-        // fetch the processor
-        ProcessorDTO processor = getProcessor(processGroupId, processorId);
-        //iterate through and update the properties
-        for (Map.Entry<String, NifiProperty> property : propertyMap.entrySet()) {
-            processor.getConfig().getProperties().put(property.getKey(), property.getValue().getValue());
+    /**
+     * Updates the configuration properties of each processor.
+     *
+     * <p>Each processor is updated with a single revision-aware request containing only the specified values. Different processors are independent of each other so up to
+     * {@link #setProcessorUpdateThreads(int) processorUpdateThreads} are updated concurrently. All updates are attempted before any failure is reported.</p>
+     *
+     * @param processorProperties map of processor id to the property values to change
+     * @throws NifiClientRuntimeException if any processor cannot be updated
+     */
+    public void updateProcessorsConfigProperties(@Nonnull final Map<String, Map<String, String>> processorProperties) {
+        if (processorProperties.isEmpty()) {
+            return;
+        }
+        if (processorProperties.size() == 1 || processorUpdateThreads <= 1) {
+            processorProperties.forEach(this::updateProcessorConfigProperties);
+            return;
+        }
+
+        final ExecutorService executor = getProcessorUpdateExecutor();
+        final Map<String, Future<?>> updates = new LinkedHashMap<>();
+        processorProperties.forEach((processorId, values) -> updates.put(processorId, executor.submit(() -> updateProcessorConfigProperties(processorId, values))));
+
+        RuntimeException failure = null;
+        for (Map.Entry<String, Future<?>> update : updates.entrySet()) {
+            try {
+                Uninterruptibles.getUninterruptibly(update.getValue());
+            } catch (final ExecutionException e) {
+                log.error("Failed to update the properties of processor {}: {}", update.getKey(), e.getCause().toString());
+                if (failure == null) {
+                    failure = (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause()
+                                                                          : new NifiClientRuntimeException("Unable to update processor " + update.getKey(), e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
         }
-        updateProcessor(processor);
     }
 
-    public void updateProcessorProperty(String processGroupId, String processorId, NifiProperty property) {
-        // fetch the processor
-        ProcessorDTO processor = getProcessor(processGroupId, processorId);
-        //iterate through and update the properties
-        //only set this property
-        processor.getConfig().getProperties().clear();
-        processor.getConfig().getProperties().put(property.getKey(), property.getValue());
+    /**
+     * Sends a partial update of the processor containing only the specified property values.
+     */
+    private void updateProcessorConfigProperties(@Nonnull final String processorId, @Nonnull final Map<String, String> values) {
+        final ProcessorDTO processor = new ProcessorDTO();
+        processor.setId(processorId);
+        processor.setConfig(new ProcessorConfigDTO());
+        processor.getConfig().setProperties(values);
         updateProcessor(processor);
     }
 
+    /**
+     * Sets the maximum number of processors to update concurrently.
+     *
+     * @param processorUpdateThreads the number of threads, or {@code 1} to update processors sequentially
+     */
+    public void setProcessorUpdateThreads(int processorUpdateThreads) {
+        this.processorUpdateThreads = processorUpdateThreads;
+    }
+
+    @Nonnull
+    private synchronized ExecutorService getProcessorUpdateExecutor() {
+        if (processorUpdateExecutor == null) {
+            processorUpdateExecutor = Executors.newFixedThreadPool(processorUpdateThreads,
+                                                                   new ThreadFactoryBuilder()
+                                                                       .setThreadFactory(Executors.defaultThreadFactory())
+                                                                       .setDaemon(true)
+                                                                       .setNameFormat("nifi-processor-update-pool-%d")
+                                                                       .build());
+        }
+        return processorUpdateExecutor;
+    }
+
+    /**
+     * Stops the processor update threads.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (processorUpdateExecutor != null) {
+            processorUpdateExecutor.shutdown();
+            processorUpdateExecutor = null;
+        }
+    }
+
     @Deprecated
     public Set<ControllerServiceDTO> getControllerServices() {
         return client.controllerServices().findAll();
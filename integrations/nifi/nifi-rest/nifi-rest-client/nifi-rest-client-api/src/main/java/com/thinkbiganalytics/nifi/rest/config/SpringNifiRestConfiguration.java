@@ -48,6 +48,7 @@ public class SpringNifiRestConfiguration {
     public LegacyNifiRestClient nifiRestClient() {
 
         LegacyNifiRestClient restClient = new LegacyNifiRestClient();
+        restClient.setProcessorUpdateThreads(env.getProperty("nifi.rest.processorUpdateThreads", Integer.class, 4));
         return restClient;
 
     }
@@ -66,7 +67,9 @@ public class SpringNifiRestConfiguration {
         config.setUsername(env.getProperty("thinkbig.nifi.rest.username"));
         config.setPassword(env.getProperty("thinkbig.nifi.rest.password"));
         config.setHttps(BooleanUtils.toBoolean(env.getProperty("thinkbig.nifi.rest.https")));
-        config.setUseConnectionPooling(BooleanUtils.toBoolean(env.getProperty("thinkbig.nifi.rest.useConnectionPooling")));
+        if (env.containsProperty("thinkbig.nifi.rest.useConnectionPooling")) {
+            config.setUseConnectionPooling(BooleanUtils.toBoolean(env.getProperty("thinkbig.nifi.rest.useConnectionPooling")));
+        }
         config.setTruststorePath(env.getProperty("thinkbig.nifi.rest.truststorePath"));
         config.setTruststorePassword(env.getProperty("thinkbig.nifi.rest.truststorePassword"));
         config.setKeystorePassword(env.getProperty("thinkbig.nifi.rest.keystorePassword"));
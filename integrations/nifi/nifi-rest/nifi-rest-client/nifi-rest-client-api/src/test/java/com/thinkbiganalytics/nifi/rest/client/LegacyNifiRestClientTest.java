@@ -0,0 +1,157 @@
+package com.thinkbiganalytics.nifi.rest.client;
+
+/*-
+ * #%L
+ * kylo-nifi-rest-client-api
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.thinkbiganalytics.nifi.rest.model.NifiProperty;
+
+import org.apache.nifi.web.api.dto.ProcessorDTO;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LegacyNifiRestClientTest {
+
+    /**
+     * Processor updates received by the mock NiFi server
+     */
+    private final Map<String, Map<String, String>> updates = new ConcurrentHashMap<>();
+
+    /**
+     * Number of updates being processed by the mock NiFi server
+     */
+    private final AtomicInteger activeUpdates = new AtomicInteger();
+
+    /**
+     * Maximum number of updates processed at the same time
+     */
+    private final AtomicInteger maxActiveUpdates = new AtomicInteger();
+
+    @Mock
+    private NiFiRestClient client;
+
+    @Mock
+    private NiFiProcessorsRestClient processors;
+
+    @InjectMocks
+    private LegacyNifiRestClient restClient;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(client.processors()).thenReturn(processors);
+
+        // Simulate the latency of a revision-aware update
+        Mockito.when(processors.update(Mockito.any(ProcessorDTO.class))).thenAnswer(invocation -> {
+            final ProcessorDTO processor = invocation.getArgumentAt(0, ProcessorDTO.class);
+            maxActiveUpdates.accumulateAndGet(activeUpdates.incrementAndGet(), Math::max);
+            try {
+                Uninterruptibles.sleepUninterruptibly(50, TimeUnit.MILLISECONDS);
+                if (processor.getId().startsWith("FAIL")) {
+                    throw new NifiClientRuntimeException("Revision conflict");
+                }
+                updates.put(processor.getId(), processor.getConfig().getProperties());
+                return processor;
+            } finally {
+                activeUpdates.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Verify all property changes for a processor are sent in one update containing only the changed values.
+     */
+    @Test
+    public void updateProcessorsPropertiesGroupsByProcessor() {
+        restClient.updateProcessorsProperties(Arrays.asList(new NifiProperty("G1", "P1", "a", "1"),
+                                                            new NifiProperty("G1", "P2", "a", "2"),
+                                                            new NifiProperty("G1", "P1", "b", "3"),
+                                                            new NifiProperty("G1", "P1", "a", "4")));
+
+        Mockito.verify(processors, Mockito.times(2)).update(Mockito.any(ProcessorDTO.class));
+        Assert.assertEquals(ImmutableMap.of("a", "4", "b", "3"), updates.get("P1"));
+        Assert.assertEquals(ImmutableMap.of("a", "2"), updates.get("P2"));
+    }
+
+    /**
+     * Verify independent processors are updated concurrently without exceeding the number of threads.
+     */
+    @Test
+    public void updateProcessorsPropertiesConcurrently() {
+        restClient.setProcessorUpdateThreads(4);
+        final List<NifiProperty> properties = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            properties.add(new NifiProperty("G1", "P" + i, "a", Integer.toString(i)));
+        }
+
+        final long start = System.nanoTime();
+        restClient.updateProcessorsProperties(properties);
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(16, updates.size());
+        Assert.assertTrue("Expected concurrent updates but was " + maxActiveUpdates.get(), maxActiveUpdates.get() > 1);
+        Assert.assertTrue("Expected at most 4 concurrent updates but was " + maxActiveUpdates.get(), maxActiveUpdates.get() <= 4);
+        Assert.assertTrue("Expected deploy to take less than a sequential update but took " + elapsed + " ms", elapsed < 16 * 50);
+    }
+
+    /**
+     * Verify the remaining processors are updated before a failure is reported.
+     */
+    @Test
+    public void updateProcessorsPropertiesWithFailure() {
+        restClient.setProcessorUpdateThreads(2);
+        try {
+            restClient.updateProcessorsProperties(Arrays.asList(new NifiProperty("G1", "FAIL1", "a", "1"),
+                                                                new NifiProperty("G1", "P2", "a", "2"),
+                                                                new NifiProperty("G1", "P3", "a", "3")));
+            Assert.fail("Expected NifiClientRuntimeException");
+        } catch (final NifiClientRuntimeException e) {
+            Assert.assertEquals("Revision conflict", e.getMessage());
+        }
+        Assert.assertEquals(2, updates.size());
+    }
+
+    /**
+     * Verify processors are updated sequentially when only one thread is allowed.
+     */
+    @Test
+    public void updateProcessorsPropertiesSequentially() {
+        restClient.setProcessorUpdateThreads(1);
+        restClient.updateProcessorsProperties(Arrays.asList(new NifiProperty("G1", "P1", "a", "1"),
+                                                            new NifiProperty("G1", "P2", "a", "2")));
+
+        Assert.assertEquals(2, updates.size());
+        Assert.assertEquals(1, maxActiveUpdates.get());
+    }
+}
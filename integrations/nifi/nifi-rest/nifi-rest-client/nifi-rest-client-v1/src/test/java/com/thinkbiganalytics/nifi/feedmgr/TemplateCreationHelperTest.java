@@ -27,7 +27,6 @@ import com.thinkbiganalytics.nifi.rest.client.NiFiRestClient;
 import com.thinkbiganalytics.nifi.rest.model.NiFiAllowableValue;
 import com.thinkbiganalytics.nifi.rest.model.NiFiPropertyDescriptor;
 import com.thinkbiganalytics.nifi.rest.model.NiFiPropertyDescriptorTransform;
-import com.thinkbiganalytics.nifi.rest.model.NifiProperty;
 
 import org.apache.nifi.web.api.dto.AllowableValueDTO;
 import org.apache.nifi.web.api.dto.ControllerServiceDTO;
@@ -44,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -57,16 +57,19 @@ public class TemplateCreationHelperTest {
      */
     @Test
     public void updateControllerServiceReferencesWithEnabled() {
-        final AtomicReference<NifiProperty> updateProperty = new AtomicReference<>();
+        final AtomicReference<Map<String, String>> updateProperties = new AtomicReference<>();
 
         // Mock NiFi client
         final LegacyNifiRestClient restClient = Mockito.mock(LegacyNifiRestClient.class);
         Mockito.when(restClient.getPropertyDescriptorTransform()).thenReturn(new MockNiFiPropertyDescriptorTransform());
         Mockito.doAnswer(invocation -> {
-            updateProperty.set(invocation.getArgumentAt(2, NifiProperty.class));
+            final Map<String, Map<String, String>> processorProperties = invocation.getArgumentAt(0, Map.class);
+            if (processorProperties.containsKey("P1")) {
+                updateProperties.set(processorProperties.get("P1"));
+            }
             return null;
 
-        }).when(restClient).updateProcessorProperty(Mockito.isNull(String.class), Mockito.eq("P1"), Mockito.any());
+        }).when(restClient).updateProcessorsConfigProperties(Mockito.any());
 
         final ControllerServiceDTO service1 = new ControllerServiceDTO();
         service1.setId("S1");
@@ -98,8 +101,8 @@ public class TemplateCreationHelperTest {
         helper.updateControllerServiceReferences(Collections.singletonList(processor));
 
         // Verify new processor properties
-        Assert.assertNotNull("Property 'Service' not set on processor 'Processor1'.", updateProperty.get());
-        Assert.assertEquals("S2", updateProperty.get().getValue());
+        Assert.assertNotNull("Property 'Service' not set on processor 'Processor1'.", updateProperties.get());
+        Assert.assertEquals(Collections.singletonMap("service", "S2"), updateProperties.get());
     }
 
     /**
@@ -108,7 +111,7 @@ public class TemplateCreationHelperTest {
     @Test
     public void updateControllerServiceReferencesWithRecursive() {
         final List<ControllerServiceDTO> updatedControllerServices = new ArrayList<>();
-        final List<NifiProperty> updatedProperties = new ArrayList<>();
+        final List<Map<String, String>> updatedProperties = new ArrayList<>();
 
         // Mock NiFi client
         final NiFiControllerServicesRestClient controllerServicesRestClient = Mockito.mock(NiFiControllerServicesRestClient.class);
@@ -127,10 +130,13 @@ public class TemplateCreationHelperTest {
         Mockito.when(legacyRestClient.getNiFiRestClient()).thenReturn(restClient);
         Mockito.when(legacyRestClient.getPropertyDescriptorTransform()).thenReturn(new MockNiFiPropertyDescriptorTransform());
         Mockito.doAnswer(invocation -> {
-            updatedProperties.add(invocation.getArgumentAt(2, NifiProperty.class));
+            final Map<String, Map<String, String>> processorProperties = invocation.getArgumentAt(0, Map.class);
+            if (processorProperties.containsKey("P1")) {
+                updatedProperties.add(processorProperties.get("P1"));
+            }
             return null;
 
-        }).when(legacyRestClient).updateProcessorProperty(Mockito.isNull(String.class), Mockito.eq("P1"), Mockito.any());
+        }).when(legacyRestClient).updateProcessorsConfigProperties(Mockito.any());
 
         final ControllerServiceDTO service1 = new ControllerServiceDTO();
         service1.setDescriptors(Collections.singletonMap("service", newPropertyDescriptor("service", "com.example.Service2", "S2")));
@@ -167,7 +173,7 @@ public class TemplateCreationHelperTest {
         Assert.assertEquals("S2", updatedControllerServices.get(0).getProperties().get("service"));
 
         Assert.assertEquals("Property 'Service' not set on processor 'Processor1'.", 1, updatedProperties.size());
-        Assert.assertEquals("S1", updatedProperties.get(0).getValue());
+        Assert.assertEquals("S1", updatedProperties.get(0).get("service"));
     }
 
     /**
@@ -20,13 +20,20 @@ package com.thinkbiganalytics.spark.cleanup;
  * #L%
  */
 
+import com.beust.jcommander.JCommander;
+import com.thinkbiganalytics.hive.util.HiveUtils;
 import com.thinkbiganalytics.spark.DataSet;
 import com.thinkbiganalytics.spark.SparkContextService;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.spark.SparkContext;
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.hive.HiveContext;
+import org.apache.spark.sql.types.StructField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,38 +41,64 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Perform cleanup
+ * Cleans up the standard tables of a feed.
+ *
+ * <p>Each partition of the {@code _feed}, {@code _valid}, {@code _invalid} and {@code _profile} tables is either dropped, if it is older than the
+ * retention period, or compacted, if it is older than the compaction age and its files could be merged into fewer files of the target size.
+ * Partitions are processed in parallel as separate Spark jobs within the one application.</p>
+ *
+ * <p>Partitions are selected by their current state, so running the job again skips the partitions that were already compacted or dropped.
+ * Compaction overwrites a partition in a single {@code INSERT OVERWRITE}, so a failed run leaves each partition either unchanged or fully
+ * compacted and can simply be run again.</p>
+ *
+ * <p>Please refer to README for commands to run application.</p>
  */
-
-/*
-    TODO: Implement full functionality
-
-    This implementation provides the skeleton layout to enable implementation of the full functionality.
-     It demonstrates using Spark to run a row count for a schema.table in Hive.
-     Tested on both Spark 1 and Spark 2.
-     Please refer to README for commands to run application.
- */
-
 @Component
 public class Cleanup {
 
     private static final Logger log = LoggerFactory.getLogger(Cleanup.class);
 
+    /**
+     * Partition column of the standard feed tables
+     */
+    static final String PARTITION_COLUMN = "processing_dttm";
+
     @Autowired
     private SparkContextService scs;
 
     private HiveContext hiveContext;
+    private FileSystem fileSystem;
     private String categoryName;
     private String feedName;
+    private CleanupOptions options = new CleanupOptions();
+
+    static CleanupOptions parseRemainingParameters(String[] args, int from) {
+        CleanupOptions params = new CleanupOptions();
+        new JCommander(params, Arrays.copyOfRange(args, from, args.length));
+        return params;
+    }
 
     public static void main(String[] args) {
         log.info("Running Cleanup with these command line args: " + StringUtils.join(args, ","));
 
         if (args.length < 2) {
-            System.out.println("Expected command line args: <hive-schema-name> <hive-table-name>");
+            System.out.println("Expected command line args: <hive-schema-name> <feed-name>");
+            System.out.println("You can optionally add: --tables feed,valid,invalid,profile");
+            System.out.println("You can optionally add: --retentionDays days_to_keep_partitions");
+            System.out.println("You can optionally add: --compactAfterHours hours_before_compacting_partitions");
+            System.out.println("You can optionally add: --targetFileSizeMb compacted_file_size");
+            System.out.println("You can optionally add: --parallelism partitions_processed_at_once");
+            System.out.println("You can optionally add: --dryRun");
             System.exit(1);
         }
 
@@ -73,9 +106,14 @@ public class Cleanup {
             ApplicationContext ctx = new AnnotationConfigApplicationContext("com.thinkbiganalytics.spark");
             Cleanup app = ctx.getBean(Cleanup.class);
             app.setArguments(args[0], args[1]);
-            app.doCleanup();
+            app.setOptions(parseRemainingParameters(args, 2));
+            CleanupReport report = app.doCleanup();
+            if (report.getFailedCount() > 0) {
+                log.error("Failed to clean up {} partitions", report.getFailedCount());
+                System.exit(1);
+            }
         } catch (Exception e) {
-            log.error("Failed to perform cleanup: {}", e.getMessage());
+            log.error("Failed to perform cleanup: {}", e.getMessage(), e);
             System.exit(1);
         }
 
@@ -87,27 +125,265 @@ public class Cleanup {
         this.feedName = feedName;
     }
 
+    public void setOptions(CleanupOptions options) {
+        this.options = options;
+    }
+
     protected HiveContext getHiveContext() {
         return hiveContext;
     }
 
-    public void doCleanup() {
+    /**
+     * Drops expired partitions and compacts old partitions of the feed tables.
+     *
+     * @return the files and bytes of each table before and after cleanup
+     * @throws Exception if the partitions cannot be listed or processed
+     */
+    public CleanupReport doCleanup() throws Exception {
+        SparkContext sparkContext = SparkContext.getOrCreate();
+        hiveContext = new org.apache.spark.sql.hive.HiveContext(sparkContext);
+        fileSystem = FileSystem.get(sparkContext.hadoopConfiguration());
+
+        final long now = System.currentTimeMillis();
+        final long expireBefore = (options.getRetentionDays() > 0) ? now - TimeUnit.DAYS.toMillis(options.getRetentionDays()) : Long.MIN_VALUE;
+        final long compactBefore = (options.getCompactAfterHours() >= 0) ? now - TimeUnit.HOURS.toMillis(options.getCompactAfterHours()) : Long.MIN_VALUE;
+        final CleanupReport report = new CleanupReport();
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getParallelism());
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (String suffix : options.getTableSuffixes()) {
+                tasks.addAll(submitTable(executor, feedName + "_" + suffix, expireBefore, compactBefore, report));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        log.info("Cleanup of {}.{}{} complete:\n{}", categoryName, feedName, options.isDryRun() ? " (dry run)" : "", report);
+        return report;
+    }
+
+    /**
+     * Determines what to do with a partition of the specified {@code processing_dttm}.
+     *
+     * @param partitionValue the partition value, in milliseconds since the epoch
+     * @param expireBefore   partitions before this time are dropped
+     * @param compactBefore  partitions before this time are compacted
+     * @return the action, or {@link Action#KEEP} if the value is not a time
+     */
+    static Action selectAction(String partitionValue, long expireBefore, long compactBefore) {
+        long time;
         try {
-            SparkContext sparkContext = SparkContext.getOrCreate();
-            hiveContext = new org.apache.spark.sql.hive.HiveContext(sparkContext);
-
-            String sql = "SELECT COUNT(*) FROM " + categoryName + "." + feedName;
-            log.info("Executing query {}", sql);
-            DataSet dataFrame = scs.sql(getHiveContext(), sql);
-            List<Row> resultRows = dataFrame.collectAsList();
-            long rowCount = 0;
-            if (resultRows.size() > 0) {
-                rowCount = resultRows.get(0).getLong(0);
+            time = Long.parseLong(partitionValue);
+        } catch (NumberFormatException e) {
+            return Action.KEEP;
+        }
+        if (time < expireBefore) {
+            return Action.DROP;
+        } else if (time < compactBefore) {
+            return Action.COMPACT;
+        } else {
+            return Action.KEEP;
+        }
+    }
+
+    /**
+     * Gets the {@code processing_dttm} value from a partition listed by {@code SHOW PARTITIONS}.
+     *
+     * @param partition the partition name, like {@code processing_dttm=1496082023000}
+     * @return the value, or {@code null} if the table has other partition columns
+     */
+    static String parsePartitionValue(String partition) {
+        String prefix = PARTITION_COLUMN + "=";
+        return (partition != null && partition.startsWith(prefix) && partition.indexOf('/') < 0) ? partition.substring(prefix.length()) : null;
+    }
+
+    /**
+     * Gets the location from the output of {@code DESCRIBE FORMATTED}, with the columns of each row separated by tabs.
+     *
+     * @param lines the output rows
+     * @return the location, or {@code null} if not found
+     */
+    static String parseLocation(List<String> lines) {
+        for (String line : lines) {
+            String[] fields = line.split("\t");
+            for (int i = 0; i < fields.length; ++i) {
+                String field = fields[i].trim();
+                if (field.equals("Location") || field.equals("Location:")) {
+                    for (int j = i + 1; j < fields.length; ++j) {
+                        if (StringUtils.isNotBlank(fields[j]) && !"null".equals(fields[j].trim())) {
+                            return fields[j].trim();
+                        }
+                    }
+                } else if (field.startsWith("Location:") && field.length() > "Location:".length()) {
+                    return field.substring("Location:".length()).trim();
+                }
             }
-            log.info("Total rows in {}.{}: {}", categoryName, feedName, rowCount);
+        }
+        return null;
+    }
+
+    /**
+     * Submits a task for each partition of the specified table, or none if the table does not exist.
+     */
+    private List<Future<?>> submitTable(ExecutorService executor, final String table, long expireBefore, long compactBefore, final CleanupReport report) {
+        final String qualifiedTable = HiveUtils.quoteIdentifier(categoryName, table);
+        final List<String> partitions = new ArrayList<>();
+        final List<String> columns = new ArrayList<>();
+        final Path tableLocation;
+
+        try {
+            for (Row row : scs.sql(getHiveContext(), "SHOW PARTITIONS " + qualifiedTable).collectAsList()) {
+                partitions.add(row.getString(0));
+            }
+            for (StructField field : scs.toDataSet(getHiveContext(), qualifiedTable).schema().fields()) {
+                if (!PARTITION_COLUMN.equalsIgnoreCase(field.name())) {
+                    columns.add(HiveUtils.quoteIdentifier(field.name()));
+                }
+            }
+            String location = parseLocation(describe("DESCRIBE FORMATTED " + qualifiedTable));
+            tableLocation = (location != null) ? new Path(location) : null;
         } catch (Exception e) {
-            log.error("An error occurred during running cleanup: {}", e.getMessage());
-            System.exit(1);
+            log.warn("Skipping table {}: {}", qualifiedTable, e.getMessage());
+            return new ArrayList<>();
+        }
+
+        log.info("Found {} partitions in {}", partitions.size(), qualifiedTable);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (String partition : partitions) {
+            final String value = parsePartitionValue(partition);
+            if (value == null) {
+                log.debug("Skipping partition {} of {}", partition, qualifiedTable);
+                continue;
+            }
+            final Action action = selectAction(value, expireBefore, compactBefore);
+            tasks.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    cleanupPartition(table, qualifiedTable, columns, tableLocation, value, action, report);
+                }
+            }));
+        }
+        return tasks;
+    }
+
+    /**
+     * Drops, compacts or keeps the specified partition, recording its files and bytes in the report.
+     */
+    private void cleanupPartition(String table, String qualifiedTable, List<String> columns, Path tableLocation, String value, Action action, CleanupReport report) {
+        String partitionSpec = " PARTITION (" + PARTITION_COLUMN + "=" + HiveUtils.quoteString(value) + ")";
+        FileStats before = FileStats.EMPTY;
+
+        try {
+            Path location = getPartitionLocation(qualifiedTable, partitionSpec, tableLocation, value);
+            before = getFileStats(location);
+
+            if (action == Action.DROP) {
+                log.info("Dropping partition {} of {} with {}", value, qualifiedTable, before);
+                if (!options.isDryRun()) {
+                    scs.sql(getHiveContext(), "ALTER TABLE " + qualifiedTable + " DROP IF EXISTS" + partitionSpec);
+                    // External tables keep their files after the partition is dropped
+                    if (location != null && fileSystem.exists(location)) {
+                        fileSystem.delete(location, true);
+                    }
+                }
+                report.dropped(table, before);
+            } else if (action == Action.COMPACT && before.isCompactable(options.getTargetFileSize())) {
+                int fileCount = before.getTargetFileCount(options.getTargetFileSize());
+                log.info("Compacting partition {} of {} with {} into {} files", value, qualifiedTable, before, fileCount);
+
+                FileStats after;
+                if (options.isDryRun()) {
+                    after = new FileStats(fileCount, before.getBytes());
+                } else {
+                    compactPartition(qualifiedTable, columns, partitionSpec, value, fileCount);
+                    after = getFileStats(location);
+                }
+                report.compacted(table, before, after);
+            } else {
+                report.skipped(table, before);
+            }
+        } catch (Exception e) {
+            log.error("Failed to clean up partition {} of {}: {}", value, qualifiedTable, e.getMessage(), e);
+            report.failed(table, before);
+        }
+    }
+
+    /**
+     * Rewrites the rows of the partition into the specified number of files.
+     */
+    private void compactPartition(String qualifiedTable, List<String> columns, String partitionSpec, String value, int fileCount) {
+        DataSet rows = scs.sql(getHiveContext(), "SELECT " + StringUtils.join(columns, ",") + " FROM " + qualifiedTable
+                                                 + " WHERE " + PARTITION_COLUMN + " = " + HiveUtils.quoteString(value));
+        JavaRDD<Row> merged = rows.javaRDD().coalesce(fileCount);
+
+        // The files are only replaced after all rows have been written, so the partition can be read while it is being overwritten
+        String tempTable = "cleanup_" + Math.abs(qualifiedTable.hashCode()) + "_" + value + "_" + System.nanoTime();
+        scs.toDataSet(getHiveContext(), merged, rows.schema()).registerTempTable(tempTable);
+        try {
+            scs.sql(getHiveContext(), "INSERT OVERWRITE TABLE " + qualifiedTable + partitionSpec + " SELECT * FROM " + HiveUtils.quoteIdentifier(tempTable));
+        } finally {
+            getHiveContext().dropTempTable(tempTable);
+        }
+    }
+
+    /**
+     * Gets the location of the partition, defaulting to the standard location under the table.
+     */
+    private Path getPartitionLocation(String qualifiedTable, String partitionSpec, Path tableLocation, String value) {
+        try {
+            String location = parseLocation(describe("DESCRIBE FORMATTED " + qualifiedTable + partitionSpec));
+            if (location != null) {
+                return new Path(location);
+            }
+        } catch (Exception e) {
+            log.debug("Unable to describe partition {} of {}: {}", value, qualifiedTable, e.getMessage());
         }
+        return (tableLocation != null) ? new Path(tableLocation, PARTITION_COLUMN + "=" + value) : null;
+    }
+
+    /**
+     * Counts the data files and bytes in the directory, ignoring hidden and staging files.
+     */
+    private FileStats getFileStats(Path location) throws IOException {
+        if (location == null || !fileSystem.exists(location)) {
+            return FileStats.EMPTY;
+        }
+
+        long files = 0;
+        long bytes = 0;
+        for (FileStatus status : fileSystem.listStatus(location)) {
+            String name = status.getPath().getName();
+            if (status.isFile() && !name.startsWith("_") && !name.startsWith(".")) {
+                files++;
+                bytes += status.getLen();
+            }
+        }
+        return new FileStats(files, bytes);
+    }
+
+    /**
+     * Runs a {@code DESCRIBE} statement and returns its rows with the columns separated by tabs.
+     */
+    private List<String> describe(String sql) {
+        List<String> lines = new ArrayList<>();
+        for (Row row : scs.sql(getHiveContext(), sql).collectAsList()) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < row.length(); ++i) {
+                line.append(i > 0 ? "\t" : "").append(row.isNullAt(i) ? "" : row.get(i));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Action taken for a partition
+     */
+    enum Action {
+        DROP, COMPACT, KEEP
     }
 }
@@ -0,0 +1,81 @@
+package com.thinkbiganalytics.spark.cleanup;
+
+/*-
+ * #%L
+ * kylo-spark-job-cleanup-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.beust.jcommander.Parameter;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Defines the optional command line parameters for the Cleanup application.
+ */
+public class CleanupOptions implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private static final List<String> DEFAULT_TABLE_SUFFIXES = Arrays.asList("feed", "valid", "invalid", "profile");
+
+    @Parameter(names = "--tables", description = "Comma-separated suffixes of the feed tables to clean up")
+    private List<String> tableSuffixes;
+
+    @Parameter(names = "--retentionDays", description = "Drop partitions older than this many days, or 0 to keep all partitions")
+    private int retentionDays = 0;
+
+    @Parameter(names = "--compactAfterHours", description = "Compact partitions older than this many hours, or -1 to skip compaction")
+    private int compactAfterHours = 24;
+
+    @Parameter(names = "--targetFileSizeMb", description = "Target size of compacted files in megabytes")
+    private long targetFileSizeMb = 256;
+
+    @Parameter(names = "--parallelism", description = "Number of partitions processed at the same time")
+    private int parallelism = 4;
+
+    @Parameter(names = "--dryRun", description = "Report the partitions that would be compacted or dropped without changing them")
+    private boolean dryRun = false;
+
+    public List<String> getTableSuffixes() {
+        return (tableSuffixes == null || tableSuffixes.isEmpty()) ? DEFAULT_TABLE_SUFFIXES : tableSuffixes;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public int getCompactAfterHours() {
+        return compactAfterHours;
+    }
+
+    public long getTargetFileSize() {
+        return Math.max(1, targetFileSizeMb) * MEGABYTE;
+    }
+
+    public int getParallelism() {
+        return Math.max(1, parallelism);
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+}
@@ -0,0 +1,129 @@
+package com.thinkbiganalytics.spark.cleanup;
+
+/*-
+ * #%L
+ * kylo-spark-job-cleanup-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Totals of the partitions, files and bytes processed by the Cleanup application for each table.
+ *
+ * <p>Partitions are processed concurrently so all updates are synchronized.</p>
+ */
+public class CleanupReport {
+
+    private final Map<String, TableTotals> tables = new TreeMap<>();
+
+    /**
+     * Records a partition that was left unchanged.
+     */
+    public synchronized void skipped(String table, FileStats stats) {
+        TableTotals totals = get(table);
+        totals.partitions++;
+        totals.add(stats, stats);
+    }
+
+    /**
+     * Records a partition that was compacted.
+     */
+    public synchronized void compacted(String table, FileStats before, FileStats after) {
+        TableTotals totals = get(table);
+        totals.partitions++;
+        totals.compacted++;
+        totals.add(before, after);
+    }
+
+    /**
+     * Records a partition that was dropped.
+     */
+    public synchronized void dropped(String table, FileStats before) {
+        TableTotals totals = get(table);
+        totals.partitions++;
+        totals.dropped++;
+        totals.add(before, FileStats.EMPTY);
+    }
+
+    /**
+     * Records a partition that could not be processed.
+     */
+    public synchronized void failed(String table, FileStats before) {
+        TableTotals totals = get(table);
+        totals.partitions++;
+        totals.failed++;
+        totals.add(before, before);
+    }
+
+    /**
+     * Gets the number of partitions that could not be processed.
+     */
+    public synchronized long getFailedCount() {
+        long failed = 0;
+        for (TableTotals totals : tables.values()) {
+            failed += totals.failed;
+        }
+        return failed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, TableTotals> entry : tables.entrySet()) {
+            TableTotals totals = entry.getValue();
+            sb.append(entry.getKey())
+                .append(": partitions=").append(totals.partitions)
+                .append(" compacted=").append(totals.compacted)
+                .append(" dropped=").append(totals.dropped)
+                .append(" failed=").append(totals.failed)
+                .append(" files=").append(totals.filesBefore).append("->").append(totals.filesAfter)
+                .append(" bytes=").append(totals.bytesBefore).append("->").append(totals.bytesAfter)
+                .append('\n');
+        }
+        return sb.toString();
+    }
+
+    private TableTotals get(String table) {
+        TableTotals totals = tables.get(table);
+        if (totals == null) {
+            totals = new TableTotals();
+            tables.put(table, totals);
+        }
+        return totals;
+    }
+
+    private static class TableTotals {
+
+        long partitions;
+        long compacted;
+        long dropped;
+        long failed;
+        long filesBefore;
+        long filesAfter;
+        long bytesBefore;
+        long bytesAfter;
+
+        void add(FileStats before, FileStats after) {
+            filesBefore += before.getFiles();
+            bytesBefore += before.getBytes();
+            filesAfter += after.getFiles();
+            bytesAfter += after.getBytes();
+        }
+    }
+}
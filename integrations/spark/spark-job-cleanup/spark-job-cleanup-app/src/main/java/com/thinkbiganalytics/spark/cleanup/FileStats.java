@@ -0,0 +1,78 @@
+package com.thinkbiganalytics.spark.cleanup;
+
+/*-
+ * #%L
+ * kylo-spark-job-cleanup-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+
+/**
+ * Number of files and total bytes in a partition directory.
+ */
+public class FileStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Statistics for a missing or empty directory
+     */
+    public static final FileStats EMPTY = new FileStats(0, 0);
+
+    private final long files;
+
+    private final long bytes;
+
+    public FileStats(long files, long bytes) {
+        this.files = files;
+        this.bytes = bytes;
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the number of files needed to hold these bytes at the target file size.
+     *
+     * @param targetFileSize the target file size in bytes
+     * @return the number of files, at least 1
+     */
+    public int getTargetFileCount(long targetFileSize) {
+        return (int) Math.max(1, (bytes + targetFileSize - 1) / targetFileSize);
+    }
+
+    /**
+     * Indicates that the files could be merged into fewer files of the target size.
+     *
+     * @param targetFileSize the target file size in bytes
+     * @return {@code true} if compacting would reduce the number of files
+     */
+    public boolean isCompactable(long targetFileSize) {
+        return files > getTargetFileCount(targetFileSize);
+    }
+
+    @Override
+    public String toString() {
+        return files + " files, " + bytes + " bytes";
+    }
+}
@@ -0,0 +1,83 @@
+package com.thinkbiganalytics.spark.cleanup;
+
+/*-
+ * #%L
+ * kylo-spark-job-cleanup-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CleanupTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    @Test
+    public void testSelectAction() {
+        assertEquals(Cleanup.Action.DROP, Cleanup.selectAction("1000", 2000, 3000));
+        assertEquals(Cleanup.Action.COMPACT, Cleanup.selectAction("2000", 2000, 3000));
+        assertEquals(Cleanup.Action.KEEP, Cleanup.selectAction("3000", 2000, 3000));
+        assertEquals(Cleanup.Action.KEEP, Cleanup.selectAction("1000", Long.MIN_VALUE, Long.MIN_VALUE));
+        assertEquals(Cleanup.Action.COMPACT, Cleanup.selectAction("1000", Long.MIN_VALUE, 3000));
+        assertEquals(Cleanup.Action.KEEP, Cleanup.selectAction("2017-01-01", 2000, 3000));
+    }
+
+    @Test
+    public void testParsePartitionValue() {
+        assertEquals("1496082023000", Cleanup.parsePartitionValue("processing_dttm=1496082023000"));
+        assertNull(Cleanup.parsePartitionValue("year=2017/processing_dttm=1496082023000"));
+        assertNull(Cleanup.parsePartitionValue("processing_dttm=1496082023000/country=us"));
+        assertNull(Cleanup.parsePartitionValue(null));
+    }
+
+    @Test
+    public void testParseLocation() {
+        // Spark 1 returns the Hive output as a single column
+        assertEquals("hdfs://nn:8020/model.db/cat/feed/valid", Cleanup.parseLocation(Arrays.asList("# Detailed Table Information",
+                                                                                                    "Database:           \tcat",
+                                                                                                    "Location:           \thdfs://nn:8020/model.db/cat/feed/valid   ")));
+        // Spark 2 returns the name and value in separate columns
+        assertEquals("hdfs://nn:8020/etl/cat/feed/1496082023000", Cleanup.parseLocation(Arrays.asList("Database\tcat\t", "Location\thdfs://nn:8020/etl/cat/feed/1496082023000\t")));
+        assertEquals("/etl/cat/feed", Cleanup.parseLocation(Collections.singletonList("Location:/etl/cat/feed")));
+        assertNull(Cleanup.parseLocation(Arrays.asList("col1\tstring\t", "Location\t\t")));
+    }
+
+    @Test
+    public void testFileStats() {
+        FileStats small = new FileStats(10, 10 * MB);
+        assertEquals(1, small.getTargetFileCount(256 * MB));
+        assertTrue(small.isCompactable(256 * MB));
+
+        FileStats compacted = new FileStats(1, 10 * MB);
+        assertFalse(compacted.isCompactable(256 * MB));
+
+        FileStats large = new FileStats(3, 600 * MB);
+        assertEquals(3, large.getTargetFileCount(256 * MB));
+        assertFalse(large.isCompactable(256 * MB));
+
+        assertEquals(1, FileStats.EMPTY.getTargetFileCount(256 * MB));
+        assertFalse(FileStats.EMPTY.isCompactable(256 * MB));
+    }
+}
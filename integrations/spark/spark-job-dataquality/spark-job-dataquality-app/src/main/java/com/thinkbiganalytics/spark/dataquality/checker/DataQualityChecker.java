@@ -20,12 +20,16 @@ package com.thinkbiganalytics.spark.dataquality.checker;
  * #L%
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinkbiganalytics.hive.util.HiveUtils;
 import com.thinkbiganalytics.spark.DataSet;
 import com.thinkbiganalytics.spark.SparkContextService;
+import com.thinkbiganalytics.spark.dataquality.rule.DataQualityRule;
+import com.thinkbiganalytics.spark.dataquality.rule.RuleDefinition;
+import com.thinkbiganalytics.spark.dataquality.rule.RuleResult;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.spark.SparkContext;
-import org.apache.spark.sql.Row;
 import org.apache.spark.sql.hive.HiveContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,82 +38,130 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Perform data quality checks
+ *
+ * <p>Evaluates the rules declared in a JSON file against one partition of a feed table. All rules are evaluated together in a single pass
+ * over the partition by the {@link DataQualityEngine}. The application exits with an error if any rule fails.</p>
+ *
+ * <p>Please refer to README for commands to run application.</p>
  */
-
-/*
-    TODO: Implement full functionality
-
-    This implementation provides the skeleton layout to enable implementation of the full functionality.
-     It demonstrates using Spark to run a row count for a schema.table in Hive.
-     Tested on both Spark 1 and Spark 2.
-     Please refer to README for commands to run application.
- */
-
 @Component
 public class DataQualityChecker {
 
     private static final Logger log = LoggerFactory.getLogger(DataQualityChecker.class);
 
+    private static final String DEFAULT_TABLE_SUFFIX = "valid";
+
     @Autowired
     private SparkContextService scs;
 
     private HiveContext hiveContext;
     private String categoryName;
     private String feedName;
+    private String partition;
+    private String rulesPath;
+    private String tableSuffix = DEFAULT_TABLE_SUFFIX;
 
     public static void main(String[] args) {
 
         log.info("Running DataQualityChecker with these command line args: " + StringUtils.join(args, ","));
 
-        if (args.length < 2) {
-            System.out.println("Expected command line args: <hive-schema-name> <hive-table-name>");
+        if (args.length < 4) {
+            System.out.println("Expected command line args: <hive-schema-name> <feed-name> <partition> <path-to-rules-file> [table-suffix]");
             System.exit(1);
         }
 
+        boolean passed = false;
         try {
             ApplicationContext ctx = new AnnotationConfigApplicationContext("com.thinkbiganalytics.spark");
             DataQualityChecker app = ctx.getBean(DataQualityChecker.class);
-            app.setArguments(args[0], args[1]);
-            app.doDataQualityChecks();
+            app.setArguments(args[0], args[1], args[2], args[3]);
+            if (args.length > 4) {
+                app.setTableSuffix(args[4]);
+            }
+            passed = DataQualityEngine.isPassed(app.doDataQualityChecks());
         } catch (Exception e) {
-            log.error("Failed to perform data quality checks: {}", e.getMessage());
+            log.error("Failed to perform data quality checks: {}", e.getMessage(), e);
             System.exit(1);
         }
 
-        log.info("DataQualityChecker has finished.");
+        if (!passed) {
+            log.error("DataQualityChecker has finished. One or more data quality rules failed.");
+            System.exit(1);
+        }
+        log.info("DataQualityChecker has finished. All data quality rules passed.");
     }
 
-    public void setArguments(String categoryName, String feedName) {
+    public void setArguments(String categoryName, String feedName, String partition, String rulesPath) {
         this.categoryName = categoryName;
         this.feedName = feedName;
+        this.partition = partition;
+        this.rulesPath = rulesPath;
+    }
+
+    public void setTableSuffix(String tableSuffix) {
+        this.tableSuffix = tableSuffix;
     }
 
     protected HiveContext getHiveContext() {
         return hiveContext;
     }
 
-    public void doDataQualityChecks() {
-        try {
-            SparkContext sparkContext = SparkContext.getOrCreate();
-            hiveContext = new org.apache.spark.sql.hive.HiveContext(sparkContext);
-
-            String sql = "SELECT COUNT(*) FROM " + categoryName + "." + feedName;
-            log.info("Executing query {}", sql);
-            DataSet dataFrame = scs.sql(getHiveContext(), sql);
-            List<Row> resultRows = dataFrame.collectAsList();
-            long rowCount = 0;
-            if (resultRows.size() > 0) {
-                rowCount = resultRows.get(0).getLong(0);
+    /**
+     * Evaluates the rules against the partition.
+     *
+     * @return the result of each rule
+     * @throws IOException if the rules file cannot be read
+     */
+    public List<RuleResult> doDataQualityChecks() throws IOException {
+        List<DataQualityRule> rules = loadRules(rulesPath);
+
+        SparkContext sparkContext = SparkContext.getOrCreate();
+        hiveContext = new org.apache.spark.sql.hive.HiveContext(sparkContext);
+
+        String table = HiveUtils.quoteIdentifier(categoryName, feedName + "_" + tableSuffix);
+        String profileTable = HiveUtils.quoteIdentifier(categoryName, feedName + "_profile");
+        String sql = "SELECT * FROM " + table + " WHERE processing_dttm = " + HiveUtils.quoteString(partition);
+        log.info("Executing query {}", sql);
+        DataSet dataFrame = scs.sql(getHiveContext(), sql);
+
+        HiveDataQualityContext context = new HiveDataQualityContext(scs, getHiveContext(), profileTable, partition);
+        List<RuleResult> results = new DataQualityEngine().evaluate(dataFrame.javaRDD(), dataFrame.schema(), rules, context);
+
+        for (RuleResult result : results) {
+            if (result.isPassed()) {
+                log.info("Data quality rule {}", result);
+            } else {
+                log.warn("Data quality rule {}", result);
             }
-            log.info("Total rows in {}.{}: {}", categoryName, feedName, rowCount);
-        } catch (Exception e) {
-            log.error("An error occurred during running data quality checks: {}", e.getMessage());
-            System.exit(1);
         }
+        return results;
     }
 
+    /**
+     * Reads the rule definitions from a JSON array.
+     *
+     * <p>When running in yarn-cluster mode the file is passed with {@code --files} and is found in the working directory instead.</p>
+     */
+    static List<DataQualityRule> loadRules(String path) throws IOException {
+        File rulesFile = new File(path);
+        if (!rulesFile.isFile()) {
+            log.info("Couldn't find rules file at {} will check working directory.", path);
+            rulesFile = new File(rulesFile.getName());
+        }
+
+        RuleDefinition[] definitions = new ObjectMapper().readValue(rulesFile, RuleDefinition[].class);
+        List<DataQualityRule> rules = new ArrayList<>(definitions.length);
+        for (RuleDefinition definition : definitions) {
+            rules.add(definition.toRule());
+        }
+        log.info("Loaded {} data quality rules from {}", rules.size(), rulesFile);
+        return rules;
+    }
 }
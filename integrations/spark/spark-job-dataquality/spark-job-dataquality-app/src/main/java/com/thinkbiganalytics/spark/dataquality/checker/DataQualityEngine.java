@@ -0,0 +1,138 @@
+package com.thinkbiganalytics.spark.dataquality.checker;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.dataquality.rule.DataQualityContext;
+import com.thinkbiganalytics.spark.dataquality.rule.DataQualityRule;
+import com.thinkbiganalytics.spark.dataquality.rule.RuleAccumulator;
+import com.thinkbiganalytics.spark.dataquality.rule.RuleResult;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates all the data quality rules of a feed in a single pass over a partition.
+ *
+ * <p>Each rule contributes an accumulator. The accumulators of all rules are combined into one value that is folded over the rows of each
+ * Spark partition and then merged, so the data is read once however many rules there are.</p>
+ */
+public class DataQualityEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DataQualityEngine.class);
+
+    /**
+     * Adds a row to the accumulators of every rule
+     */
+    private static final Function2<CompositeAccumulator, Row, CompositeAccumulator> ADD_ROW = new Function2<CompositeAccumulator, Row, CompositeAccumulator>() {
+        @Override
+        public CompositeAccumulator call(CompositeAccumulator accumulator, Row row) {
+            accumulator.add(row);
+            return accumulator;
+        }
+    };
+
+    /**
+     * Merges the accumulators of two Spark partitions
+     */
+    private static final Function2<CompositeAccumulator, CompositeAccumulator, CompositeAccumulator> MERGE = new Function2<CompositeAccumulator, CompositeAccumulator, CompositeAccumulator>() {
+        @Override
+        public CompositeAccumulator call(CompositeAccumulator first, CompositeAccumulator second) {
+            first.merge(second);
+            return first;
+        }
+    };
+
+    /**
+     * Evaluates the rules against the rows.
+     *
+     * @param rows    the rows of the feed partition
+     * @param schema  the schema of the rows
+     * @param rules   the rules to evaluate
+     * @param context the data quality context
+     * @return the result of each rule, in the order of the rules
+     */
+    public List<RuleResult> evaluate(JavaRDD<Row> rows, StructType schema, List<DataQualityRule> rules, DataQualityContext context) {
+        List<RuleAccumulator> accumulators = new ArrayList<>(rules.size());
+        for (DataQualityRule rule : rules) {
+            rule.prepare(context);
+            accumulators.add(rule.createAccumulator(schema));
+        }
+
+        long start = System.currentTimeMillis();
+        CompositeAccumulator combined = rows.aggregate(new CompositeAccumulator(accumulators), ADD_ROW, MERGE);
+        log.info("Evaluated {} data quality rules in {} ms", rules.size(), System.currentTimeMillis() - start);
+
+        List<RuleResult> results = new ArrayList<>(rules.size());
+        for (RuleAccumulator accumulator : combined.accumulators) {
+            results.add(accumulator.getResult(context));
+        }
+        return results;
+    }
+
+    /**
+     * Indicates that every rule passed.
+     *
+     * @param results the rule results
+     * @return {@code true} if all rules passed
+     */
+    public static boolean isPassed(List<RuleResult> results) {
+        for (RuleResult result : results) {
+            if (!result.isPassed()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The accumulators of all rules, in the order of the rules.
+     */
+    static class CompositeAccumulator implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<RuleAccumulator> accumulators;
+
+        CompositeAccumulator(List<RuleAccumulator> accumulators) {
+            this.accumulators = accumulators;
+        }
+
+        void add(Row row) {
+            for (RuleAccumulator accumulator : accumulators) {
+                accumulator.add(row);
+            }
+        }
+
+        void merge(CompositeAccumulator other) {
+            for (int i = 0; i < accumulators.size(); ++i) {
+                accumulators.get(i).merge(other.accumulators.get(i));
+            }
+        }
+    }
+}
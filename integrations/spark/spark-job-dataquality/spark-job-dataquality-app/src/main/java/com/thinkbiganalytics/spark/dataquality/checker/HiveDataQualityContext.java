@@ -0,0 +1,109 @@
+package com.thinkbiganalytics.spark.dataquality.checker;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.hive.util.HiveUtils;
+import com.thinkbiganalytics.spark.SparkContextService;
+import com.thinkbiganalytics.spark.dataquality.rule.DataQualityContext;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.hive.HiveContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the profile counts and reference values for the data quality rules from Hive.
+ */
+public class HiveDataQualityContext implements DataQualityContext {
+
+    private static final Logger log = LoggerFactory.getLogger(HiveDataQualityContext.class);
+
+    private final SparkContextService scs;
+
+    private final HiveContext hiveContext;
+
+    private final String profileTable;
+
+    private final String partition;
+
+    private Map<String, Long> profileCounts;
+
+    /**
+     * Constructs a context.
+     *
+     * @param scs          the Spark context service
+     * @param hiveContext  the Hive context
+     * @param profileTable the qualified name of the feed's profile table
+     * @param partition    the processing_dttm partition being checked
+     */
+    public HiveDataQualityContext(SparkContextService scs, HiveContext hiveContext, String profileTable, String partition) {
+        this.scs = scs;
+        this.hiveContext = hiveContext;
+        this.profileTable = profileTable;
+        this.partition = partition;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getProfileCounts() {
+        if (profileCounts == null) {
+            profileCounts = new HashMap<>();
+            String sql = "SELECT metrictype, metricvalue FROM " + profileTable + " WHERE processing_dttm = " + HiveUtils.quoteString(partition)
+                         + " AND columnname = '(ALL)'";
+            log.info("Executing query {}", sql);
+            for (Row row : scs.sql(hiveContext, sql).collectAsList()) {
+                try {
+                    profileCounts.put(row.getString(0), Long.valueOf(row.getString(1)));
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring non-numeric profile metric {}", row.getString(0));
+                }
+            }
+        }
+        return profileCounts;
+    }
+
+    @Override
+    public Set<String> getReferenceValues(String table, String column) {
+        String schema = StringUtils.substringBefore(table, ".");
+        String name = StringUtils.substringAfter(table, ".");
+        String qualifiedTable = name.isEmpty() ? HiveUtils.quoteIdentifier(table) : HiveUtils.quoteIdentifier(schema, name);
+        String sql = "SELECT DISTINCT " + HiveUtils.quoteIdentifier(column) + " FROM " + qualifiedTable + " WHERE " + HiveUtils.quoteIdentifier(column) + " IS NOT NULL";
+        log.info("Executing query {}", sql);
+
+        Set<String> values = new HashSet<>();
+        for (Row row : scs.sql(hiveContext, sql).collectAsList()) {
+            values.add(row.get(0).toString());
+        }
+        return values;
+    }
+
+    @Override
+    public <T> Broadcast<T> broadcast(T value) {
+        return JavaSparkContext.fromSparkContext(hiveContext.sparkContext()).broadcast(value);
+    }
+}
@@ -0,0 +1,93 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+/**
+ * Base class for rules on the values of a single column.
+ */
+public abstract class AbstractColumnRule implements DataQualityRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private final String column;
+
+    protected AbstractColumnRule(String name, String column) {
+        if (column == null) {
+            throw new IllegalArgumentException("Rule " + name + " requires a column");
+        }
+        this.name = name;
+        this.column = column;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public void prepare(DataQualityContext context) {
+        // nothing to prepare by default
+    }
+
+    /**
+     * Finds the index of this rule's column, ignoring case as Hive does.
+     *
+     * @param schema the schema of the rows
+     * @return the column index
+     * @throws IllegalArgumentException if the column is not in the schema
+     */
+    protected int indexOf(StructType schema) {
+        String[] names = schema.fieldNames();
+        for (int i = 0; i < names.length; ++i) {
+            if (names[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Rule " + name + " refers to unknown column: " + column);
+    }
+
+    /**
+     * Indicates that the value at the specified index is null or an empty string.
+     */
+    protected static boolean isMissing(Row row, int index) {
+        if (row.isNullAt(index)) {
+            return true;
+        }
+        Object value = row.get(index);
+        return (value instanceof String) && ((String) value).isEmpty();
+    }
+
+    /**
+     * Calculates the fraction of the total, or 0 if the total is 0.
+     */
+    protected static double ratio(long count, long total) {
+        return (total > 0) ? (double) count / total : 0.0;
+    }
+}
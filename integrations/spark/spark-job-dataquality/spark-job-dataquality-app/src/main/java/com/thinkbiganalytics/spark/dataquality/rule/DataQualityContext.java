@@ -0,0 +1,58 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.broadcast.Broadcast;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides the data quality rules with data from outside the feed partition being checked.
+ */
+public interface DataQualityContext {
+
+    /**
+     * Gets the counts recorded for the whole partition in the feed's {@code _profile} table, such as {@code TOTAL_COUNT}, {@code VALID_COUNT}
+     * and {@code INVALID_COUNT}.
+     *
+     * @return the counts by metric type, or an empty map if the partition has not been profiled
+     */
+    Map<String, Long> getProfileCounts();
+
+    /**
+     * Gets the distinct non-null values of a column in a reference table.
+     *
+     * @param table  the qualified table name
+     * @param column the column name
+     * @return the values as strings
+     */
+    Set<String> getReferenceValues(String table, String column);
+
+    /**
+     * Sends a read-only value to the Spark executors once, rather than with every task.
+     *
+     * @param value the value
+     * @param <T>   the type of value
+     * @return the broadcast variable
+     */
+    <T> Broadcast<T> broadcast(T value);
+}
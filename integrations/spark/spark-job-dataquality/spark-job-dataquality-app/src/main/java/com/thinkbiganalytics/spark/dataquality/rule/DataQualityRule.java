@@ -0,0 +1,57 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.sql.types.StructType;
+
+import java.io.Serializable;
+
+/**
+ * A data quality rule evaluated over the rows of a feed partition.
+ *
+ * <p>Rules do not read the data themselves. Instead each rule creates an accumulator that is given every row during a single pass over the
+ * partition, shared by all the rules of the feed.</p>
+ */
+public interface DataQualityRule extends Serializable {
+
+    /**
+     * Gets the name of this rule, used to identify its result.
+     *
+     * @return the rule name
+     */
+    String getName();
+
+    /**
+     * Loads any data needed by this rule before the pass over the partition. Called once on the driver.
+     *
+     * @param context the data quality context
+     */
+    void prepare(DataQualityContext context);
+
+    /**
+     * Creates an empty accumulator for the rows of the partition.
+     *
+     * @param schema the schema of the rows
+     * @return the accumulator
+     * @throws IllegalArgumentException if a column used by this rule is not in the schema
+     */
+    RuleAccumulator createAccumulator(StructType schema);
+}
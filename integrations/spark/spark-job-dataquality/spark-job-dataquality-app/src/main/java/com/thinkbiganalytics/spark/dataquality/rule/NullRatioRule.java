@@ -0,0 +1,87 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+/**
+ * Checks that the fraction of rows with a null or empty value in a column does not exceed a maximum.
+ */
+public class NullRatioRule extends AbstractColumnRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private final double maxRatio;
+
+    /**
+     * Constructs a rule.
+     *
+     * @param name     the rule name
+     * @param column   the column name
+     * @param maxRatio the maximum fraction of rows, between 0 and 1
+     */
+    public NullRatioRule(String name, String column, double maxRatio) {
+        super(name, column);
+        this.maxRatio = maxRatio;
+    }
+
+    @Override
+    public RuleAccumulator createAccumulator(StructType schema) {
+        return new Accumulator(indexOf(schema));
+    }
+
+    private class Accumulator implements RuleAccumulator {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        private long rows;
+
+        private long nulls;
+
+        Accumulator(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void add(Row row) {
+            rows++;
+            if (isMissing(row, index)) {
+                nulls++;
+            }
+        }
+
+        @Override
+        public void merge(RuleAccumulator other) {
+            rows += ((Accumulator) other).rows;
+            nulls += ((Accumulator) other).nulls;
+        }
+
+        @Override
+        public RuleResult getResult(DataQualityContext context) {
+            double observed = ratio(nulls, rows);
+            return new RuleResult(getName(), observed <= maxRatio, observed,
+                                  nulls + " of " + rows + " values in " + getColumn() + " are empty, expected a ratio of at most " + maxRatio);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+/**
+ * Checks that the numeric values of a column are within a range.
+ *
+ * <p>Null and empty values are ignored. Values that are not numbers are counted as out of range.</p>
+ */
+public class RangeRule extends AbstractColumnRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Double min;
+
+    private final Double max;
+
+    private final double maxRatio;
+
+    /**
+     * Constructs a rule.
+     *
+     * @param name     the rule name
+     * @param column   the column name
+     * @param min      the minimum value, or {@code null} for no minimum
+     * @param max      the maximum value, or {@code null} for no maximum
+     * @param maxRatio the maximum fraction of values that may be out of range, between 0 and 1
+     */
+    public RangeRule(String name, String column, Double min, Double max, double maxRatio) {
+        super(name, column);
+        this.min = min;
+        this.max = max;
+        this.maxRatio = maxRatio;
+    }
+
+    @Override
+    public RuleAccumulator createAccumulator(StructType schema) {
+        return new Accumulator(indexOf(schema));
+    }
+
+    private boolean isInRange(Object value) {
+        double number;
+        if (value instanceof Number) {
+            number = ((Number) value).doubleValue();
+        } else {
+            try {
+                number = Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return (min == null || number >= min) && (max == null || number <= max);
+    }
+
+    private class Accumulator implements RuleAccumulator {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        private long values;
+
+        private long outOfRange;
+
+        Accumulator(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void add(Row row) {
+            if (!isMissing(row, index)) {
+                values++;
+                if (!isInRange(row.get(index))) {
+                    outOfRange++;
+                }
+            }
+        }
+
+        @Override
+        public void merge(RuleAccumulator other) {
+            values += ((Accumulator) other).values;
+            outOfRange += ((Accumulator) other).outOfRange;
+        }
+
+        @Override
+        public RuleResult getResult(DataQualityContext context) {
+            double observed = ratio(outOfRange, values);
+            return new RuleResult(getName(), observed <= maxRatio, observed,
+                                  outOfRange + " of " + values + " values in " + getColumn() + " are outside [" + (min != null ? min : "") + ", " + (max != null ? max : "")
+                                  + "], expected a ratio of at most " + maxRatio);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+import java.util.Set;
+
+/**
+ * Checks that the values of a column exist in a column of a reference table.
+ *
+ * <p>The distinct values of the reference column are loaded once and broadcast to the executors, so the reference table should be small
+ * enough to fit in memory. Null and empty values are ignored.</p>
+ */
+public class ReferenceRule extends AbstractColumnRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String referenceTable;
+
+    private final String referenceColumn;
+
+    private final double maxRatio;
+
+    private Broadcast<Set<String>> referenceValues;
+
+    /**
+     * Constructs a rule.
+     *
+     * @param name            the rule name
+     * @param column          the column name
+     * @param referenceTable  the qualified name of the reference table
+     * @param referenceColumn the column of the reference table
+     * @param maxRatio        the maximum fraction of values that may be missing from the reference table, between 0 and 1
+     */
+    public ReferenceRule(String name, String column, String referenceTable, String referenceColumn, double maxRatio) {
+        super(name, column);
+        if (referenceTable == null) {
+            throw new IllegalArgumentException("Rule " + name + " requires a reference table");
+        }
+        this.referenceTable = referenceTable;
+        this.referenceColumn = (referenceColumn != null) ? referenceColumn : column;
+        this.maxRatio = maxRatio;
+    }
+
+    @Override
+    public void prepare(DataQualityContext context) {
+        referenceValues = context.broadcast(context.getReferenceValues(referenceTable, referenceColumn));
+    }
+
+    @Override
+    public RuleAccumulator createAccumulator(StructType schema) {
+        if (referenceValues == null) {
+            throw new IllegalStateException("Rule " + getName() + " has not been prepared");
+        }
+        return new Accumulator(indexOf(schema));
+    }
+
+    private class Accumulator implements RuleAccumulator {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        private long values;
+
+        private long missing;
+
+        Accumulator(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void add(Row row) {
+            if (!isMissing(row, index)) {
+                values++;
+                if (!referenceValues.value().contains(row.get(index).toString())) {
+                    missing++;
+                }
+            }
+        }
+
+        @Override
+        public void merge(RuleAccumulator other) {
+            values += ((Accumulator) other).values;
+            missing += ((Accumulator) other).missing;
+        }
+
+        @Override
+        public RuleResult getResult(DataQualityContext context) {
+            double observed = ratio(missing, values);
+            return new RuleResult(getName(), observed <= maxRatio, observed,
+                                  missing + " of " + values + " values in " + getColumn() + " are not in " + referenceTable + "." + referenceColumn
+                                  + ", expected a ratio of at most " + maxRatio);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+/**
+ * Checks that the number of rows in the partition is within a range.
+ */
+public class RowCountRule implements DataQualityRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private final Long min;
+
+    private final Long max;
+
+    /**
+     * Constructs a rule.
+     *
+     * @param name the rule name
+     * @param min  the minimum number of rows, or {@code null} for no minimum
+     * @param max  the maximum number of rows, or {@code null} for no maximum
+     */
+    public RowCountRule(String name, Long min, Long max) {
+        this.name = name;
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void prepare(DataQualityContext context) {
+        // nothing to prepare
+    }
+
+    @Override
+    public RuleAccumulator createAccumulator(StructType schema) {
+        return new Accumulator();
+    }
+
+    private class Accumulator implements RuleAccumulator {
+
+        private static final long serialVersionUID = 1L;
+
+        private long rows;
+
+        @Override
+        public void add(Row row) {
+            rows++;
+        }
+
+        @Override
+        public void merge(RuleAccumulator other) {
+            rows += ((Accumulator) other).rows;
+        }
+
+        @Override
+        public RuleResult getResult(DataQualityContext context) {
+            boolean passed = (min == null || rows >= min) && (max == null || rows <= max);
+            return new RuleResult(name, passed, rows, rows + " rows, expected " + (min != null ? "at least " + min : "")
+                                                      + (min != null && max != null ? " and " : "") + (max != null ? "at most " + max : ""));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.sql.Row;
+
+import java.io.Serializable;
+
+/**
+ * Collects the values needed to evaluate a {@link DataQualityRule}.
+ *
+ * <p>An accumulator is created on the driver and copied to each Spark partition, so it must be serializable. The accumulators of the Spark
+ * partitions are then merged back together.</p>
+ */
+public interface RuleAccumulator extends Serializable {
+
+    /**
+     * Adds a row of the feed partition.
+     *
+     * @param row the row
+     */
+    void add(Row row);
+
+    /**
+     * Adds the rows collected by another accumulator of the same rule.
+     *
+     * @param other the other accumulator
+     */
+    void merge(RuleAccumulator other);
+
+    /**
+     * Evaluates the rule against the collected rows.
+     *
+     * @param context the data quality context
+     * @return the result
+     */
+    RuleResult getResult(DataQualityContext context);
+}
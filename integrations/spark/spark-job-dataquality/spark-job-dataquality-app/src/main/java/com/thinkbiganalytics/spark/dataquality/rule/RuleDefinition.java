@@ -0,0 +1,150 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * A data quality rule declared in a feed's rules file.
+ *
+ * <p>The {@code ratio} is the threshold for the ratio-based rules. It is the maximum ratio of failing values for the {@code NULL_RATIO},
+ * {@code RANGE} and {@code REFERENCE} rules (default 0), and the minimum ratio for the {@code UNIQUENESS} and {@code VALID_RATIO} rules
+ * (default 1).</p>
+ */
+public class RuleDefinition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Types of rules
+     */
+    public enum Type {
+        ROW_COUNT, NULL_RATIO, RANGE, UNIQUENESS, REFERENCE, VALID_RATIO
+    }
+
+    private Type type;
+    private String name;
+    private String column;
+    private Double min;
+    private Double max;
+    private Double ratio;
+    private String table;
+    private String referenceColumn;
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public void setColumn(String column) {
+        this.column = column;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Double getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(Double ratio) {
+        this.ratio = ratio;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public String getReferenceColumn() {
+        return referenceColumn;
+    }
+
+    public void setReferenceColumn(String referenceColumn) {
+        this.referenceColumn = referenceColumn;
+    }
+
+    /**
+     * Creates the rule for this definition.
+     *
+     * @return the rule
+     * @throws IllegalArgumentException if the definition is missing a required property
+     */
+    public DataQualityRule toRule() {
+        if (type == null) {
+            throw new IllegalArgumentException("Rule " + name + " is missing a type");
+        }
+
+        String ruleName = (name != null) ? name : type.name().toLowerCase(Locale.ROOT) + (column != null ? "_" + column : "");
+        switch (type) {
+            case ROW_COUNT:
+                return new RowCountRule(ruleName, (min != null) ? Long.valueOf(min.longValue()) : null, (max != null) ? Long.valueOf(max.longValue()) : null);
+            case NULL_RATIO:
+                return new NullRatioRule(ruleName, column, ratio(0.0));
+            case RANGE:
+                return new RangeRule(ruleName, column, min, max, ratio(0.0));
+            case UNIQUENESS:
+                return new UniquenessRule(ruleName, column, ratio(1.0));
+            case REFERENCE:
+                return new ReferenceRule(ruleName, column, table, referenceColumn, ratio(0.0));
+            case VALID_RATIO:
+                return new ValidRatioRule(ruleName, ratio(1.0));
+            default:
+                throw new IllegalArgumentException("Unsupported rule type: " + type);
+        }
+    }
+
+    private double ratio(double defaultValue) {
+        return (ratio != null) ? ratio : defaultValue;
+    }
+}
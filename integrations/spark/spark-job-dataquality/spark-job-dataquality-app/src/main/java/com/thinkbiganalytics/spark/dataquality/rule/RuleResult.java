@@ -0,0 +1,70 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+
+/**
+ * The outcome of evaluating a {@link DataQualityRule}.
+ */
+public class RuleResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String ruleName;
+
+    private final boolean passed;
+
+    private final double observed;
+
+    private final String message;
+
+    public RuleResult(String ruleName, boolean passed, double observed, String message) {
+        this.ruleName = ruleName;
+        this.passed = passed;
+        this.observed = observed;
+        this.message = message;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public boolean isPassed() {
+        return passed;
+    }
+
+    /**
+     * Gets the measured value compared against the rule's threshold, such as a row count or a ratio.
+     */
+    public double getObserved() {
+        return observed;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return ruleName + ": " + (passed ? "PASSED" : "FAILED") + " - " + message;
+    }
+}
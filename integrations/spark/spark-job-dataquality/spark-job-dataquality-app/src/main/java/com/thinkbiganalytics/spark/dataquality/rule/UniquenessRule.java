@@ -0,0 +1,107 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLogPlus;
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+/**
+ * Checks that the values of a column are mostly distinct.
+ *
+ * <p>The number of distinct values is estimated with a HyperLogLog++ sketch so the check uses a fixed amount of memory. The sketch is exact
+ * for small partitions and has a relative error of about 1% for large ones.</p>
+ */
+public class UniquenessRule extends AbstractColumnRule {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Precision of the normal representation of the sketch
+     */
+    private static final int PRECISION = 14;
+
+    /**
+     * Precision of the sparse representation used for small numbers of values
+     */
+    private static final int SPARSE_PRECISION = 25;
+
+    private final double minRatio;
+
+    /**
+     * Constructs a rule.
+     *
+     * @param name     the rule name
+     * @param column   the column name
+     * @param minRatio the minimum ratio of distinct values to non-empty values, between 0 and 1
+     */
+    public UniquenessRule(String name, String column, double minRatio) {
+        super(name, column);
+        this.minRatio = minRatio;
+    }
+
+    @Override
+    public RuleAccumulator createAccumulator(StructType schema) {
+        return new Accumulator(indexOf(schema));
+    }
+
+    private class Accumulator implements RuleAccumulator {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        private final HyperLogLogPlus sketch = new HyperLogLogPlus(PRECISION, SPARSE_PRECISION);
+
+        private long values;
+
+        Accumulator(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void add(Row row) {
+            if (!isMissing(row, index)) {
+                values++;
+                sketch.offer(row.get(index).toString());
+            }
+        }
+
+        @Override
+        public void merge(RuleAccumulator other) {
+            values += ((Accumulator) other).values;
+            try {
+                sketch.addAll(((Accumulator) other).sketch);
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to merge distinct value estimates for rule " + getName(), e);
+            }
+        }
+
+        @Override
+        public RuleResult getResult(DataQualityContext context) {
+            long distinct = Math.min(sketch.cardinality(), values);
+            double observed = (values > 0) ? ratio(distinct, values) : 1.0;
+            return new RuleResult(getName(), observed >= minRatio, observed,
+                                  "about " + distinct + " of " + values + " values in " + getColumn() + " are distinct, expected a ratio of at least " + minRatio);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.thinkbiganalytics.spark.dataquality.rule;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+import java.util.Map;
+
+/**
+ * Checks the fraction of rows that passed validation, using the counts recorded in the feed's {@code _profile} table.
+ *
+ * <p>This rule does not use the rows of the partition.</p>
+ */
+public class ValidRatioRule implements DataQualityRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private final double minRatio;
+
+    /**
+     * Constructs a rule.
+     *
+     * @param name     the rule name
+     * @param minRatio the minimum ratio of valid rows to total rows, between 0 and 1
+     */
+    public ValidRatioRule(String name, double minRatio) {
+        this.name = name;
+        this.minRatio = minRatio;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void prepare(DataQualityContext context) {
+        // the profile counts are read when evaluating the result
+    }
+
+    @Override
+    public RuleAccumulator createAccumulator(StructType schema) {
+        return new Accumulator();
+    }
+
+    private class Accumulator implements RuleAccumulator {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void add(Row row) {
+            // not based on the rows
+        }
+
+        @Override
+        public void merge(RuleAccumulator other) {
+            // not based on the rows
+        }
+
+        @Override
+        public RuleResult getResult(DataQualityContext context) {
+            Map<String, Long> counts = context.getProfileCounts();
+            Long valid = counts.get("VALID_COUNT");
+            Long invalid = counts.get("INVALID_COUNT");
+            Long total = counts.containsKey("TOTAL_COUNT") ? counts.get("TOTAL_COUNT") : (valid != null && invalid != null ? valid + invalid : null);
+            if (valid == null || total == null) {
+                return new RuleResult(name, false, 0.0, "no validation counts in the profile table");
+            }
+
+            double observed = (total > 0) ? (double) valid / total : 1.0;
+            return new RuleResult(name, observed >= minRatio, observed, valid + " of " + total + " rows are valid, expected a ratio of at least " + minRatio);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.thinkbiganalytics.spark.dataquality.checker;
+
+/*-
+ * #%L
+ * kylo-spark-job-dataquality-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.dataquality.rule.DataQualityContext;
+import com.thinkbiganalytics.spark.dataquality.rule.DataQualityRule;
+import com.thinkbiganalytics.spark.dataquality.rule.NullRatioRule;
+import com.thinkbiganalytics.spark.dataquality.rule.RangeRule;
+import com.thinkbiganalytics.spark.dataquality.rule.ReferenceRule;
+import com.thinkbiganalytics.spark.dataquality.rule.RowCountRule;
+import com.thinkbiganalytics.spark.dataquality.rule.RuleResult;
+import com.thinkbiganalytics.spark.dataquality.rule.UniquenessRule;
+import com.thinkbiganalytics.spark.dataquality.rule.ValidRatioRule;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Evaluates a feed with several rules using Spark in local mode.
+ */
+public class DataQualityEngineTest {
+
+    private static JavaSparkContext sparkContext;
+
+    private static final StructType SCHEMA = DataTypes.createStructType(new StructField[]{
+        DataTypes.createStructField("id", DataTypes.IntegerType, true),
+        DataTypes.createStructField("email", DataTypes.StringType, true),
+        DataTypes.createStructField("age", DataTypes.StringType, true),
+        DataTypes.createStructField("country", DataTypes.StringType, true)
+    });
+
+    @BeforeClass
+    public static void startSpark() {
+        sparkContext = new JavaSparkContext(new SparkConf().setMaster("local[2]").setAppName("DataQualityEngineTest").set("spark.ui.enabled", "false"));
+    }
+
+    @AfterClass
+    public static void stopSpark() {
+        sparkContext.stop();
+    }
+
+    @Test
+    public void testMultipleRules() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            rows.add(RowFactory.create(i, (i % 10 == 0) ? null : "user" + i + "@example.com", (i == 5) ? "200" : (i == 6) ? "unknown" : Integer.toString(20 + i % 50),
+                                       (i % 25 == 0) ? "XX" : (i % 2 == 0) ? "US" : "CA"));
+        }
+        // Duplicate ids
+        rows.add(RowFactory.create(1, "", "30", "US"));
+        rows.add(RowFactory.create(2, "", "31", "US"));
+
+        List<DataQualityRule> rules = Arrays.<DataQualityRule>asList(new RowCountRule("rows", 100L, 1000L),
+                                                                     new RowCountRule("too_few_rows", 200L, null),
+                                                                     new NullRatioRule("email_nulls", "email", 0.15),
+                                                                     new NullRatioRule("email_required", "email", 0.0),
+                                                                     new RangeRule("age_range", "age", 0.0, 120.0, 0.05),
+                                                                     new RangeRule("age_strict", "age", 0.0, 120.0, 0.0),
+                                                                     new UniquenessRule("id_unique", "id", 1.0),
+                                                                     new UniquenessRule("country_unique", "country", 0.5),
+                                                                     new ReferenceRule("country_ref", "country", "ref.countries", "code", 0.05),
+                                                                     new ValidRatioRule("valid_ratio", 0.9));
+
+        JavaRDD<Row> data = sparkContext.parallelize(rows, 4);
+        List<RuleResult> results = new DataQualityEngine().evaluate(data, SCHEMA, rules, new TestContext());
+        Map<String, RuleResult> byName = new HashMap<>();
+        for (RuleResult result : results) {
+            byName.put(result.getRuleName(), result);
+        }
+
+        assertEquals(rules.size(), results.size());
+        assertPassed(byName.get("rows"), 102);
+        assertFailed(byName.get("too_few_rows"), 102);
+        // 10 nulls and 2 empty strings
+        assertPassed(byName.get("email_nulls"), 12.0 / 102);
+        assertFailed(byName.get("email_required"), 12.0 / 102);
+        // 200 and "unknown" are out of range
+        assertPassed(byName.get("age_range"), 2.0 / 102);
+        assertFailed(byName.get("age_strict"), 2.0 / 102);
+        assertFailed(byName.get("id_unique"), 100.0 / 102);
+        assertFailed(byName.get("country_unique"), 3.0 / 102);
+        // XX is not a reference value
+        assertPassed(byName.get("country_ref"), 4.0 / 102);
+        assertPassed(byName.get("valid_ratio"), 0.95);
+        assertFalse(DataQualityEngine.isPassed(results));
+    }
+
+    @Test
+    public void testRulesFile() throws Exception {
+        File rulesFile = File.createTempFile("rules", ".json");
+        rulesFile.deleteOnExit();
+        try (FileWriter writer = new FileWriter(rulesFile)) {
+            writer.write("[{\"type\": \"ROW_COUNT\", \"min\": 1},"
+                         + " {\"type\": \"NULL_RATIO\", \"column\": \"email\"},"
+                         + " {\"type\": \"RANGE\", \"name\": \"age\", \"column\": \"age\", \"min\": 18, \"max\": 65},"
+                         + " {\"type\": \"UNIQUENESS\", \"column\": \"id\"},"
+                         + " {\"type\": \"REFERENCE\", \"column\": \"country\", \"table\": \"ref.countries\", \"referenceColumn\": \"code\"},"
+                         + " {\"type\": \"VALID_RATIO\", \"ratio\": 0.9}]");
+        }
+
+        List<DataQualityRule> rules = DataQualityChecker.loadRules(rulesFile.getAbsolutePath());
+        assertEquals(6, rules.size());
+        assertEquals("null_ratio_email", rules.get(1).getName());
+        assertEquals("age", rules.get(2).getName());
+
+        JavaRDD<Row> data = sparkContext.parallelize(Arrays.asList(RowFactory.create(1, "a@example.com", "30", "US"),
+                                                                   RowFactory.create(2, "b@example.com", "40", "CA")), 2);
+        List<RuleResult> results = new DataQualityEngine().evaluate(data, SCHEMA, rules, new TestContext());
+        assertTrue(results.toString(), DataQualityEngine.isPassed(results));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumn() {
+        new DataQualityEngine().evaluate(sparkContext.parallelize(new ArrayList<Row>()), SCHEMA,
+                                         Arrays.<DataQualityRule>asList(new NullRatioRule("missing", "phone", 0.0)), new TestContext());
+    }
+
+    private static void assertPassed(RuleResult result, double observed) {
+        assertTrue(result.toString(), result.isPassed());
+        assertEquals(result.toString(), observed, result.getObserved(), 0.0001);
+    }
+
+    private static void assertFailed(RuleResult result, double observed) {
+        assertFalse(result.toString(), result.isPassed());
+        assertEquals(result.toString(), observed, result.getObserved(), 0.0001);
+    }
+
+    /**
+     * Provides fixed profile counts and reference values.
+     */
+    private static class TestContext implements DataQualityContext {
+
+        @Override
+        public Map<String, Long> getProfileCounts() {
+            Map<String, Long> counts = new HashMap<>();
+            counts.put("TOTAL_COUNT", 200L);
+            counts.put("VALID_COUNT", 190L);
+            counts.put("INVALID_COUNT", 10L);
+            return counts;
+        }
+
+        @Override
+        public Set<String> getReferenceValues(String table, String column) {
+            assertEquals("ref.countries", table);
+            assertEquals("code", column);
+            return new HashSet<>(Arrays.asList("US", "CA", "MX"));
+        }
+
+        @Override
+        public <T> Broadcast<T> broadcast(T value) {
+            return sparkContext.broadcast(value);
+        }
+    }
+}
@@ -33,6 +33,7 @@ public class ProfilerConfiguration implements Serializable {
     private Integer decimalDigitsToDisplayConsoleOutput = 4;
     private String inputAndOutputTablePartitionKey = "partitionKey";
     private String inputTablePartitionColumnName = "processing_dttm";
+    private Integer localProfilerMaxRows = 0;
     private Integer numberOfTopNValues = 3;
     private String outputDbName = "default";
     private String outputTableName = "profilestats";
@@ -73,6 +74,18 @@ public class ProfilerConfiguration implements Serializable {
         this.inputTablePartitionColumnName = inputTablePartitionColumnName;
     }
 
+    /**
+     * Maximum number of rows to profile in-process instead of with Spark<br>
+     * (0 to always profile with Spark)
+     */
+    public Integer getLocalProfilerMaxRows() {
+        return localProfilerMaxRows;
+    }
+
+    public void setLocalProfilerMaxRows(Integer localProfilerMaxRows) {
+        this.localProfilerMaxRows = localProfilerMaxRows;
+    }
+
     /**
      * N for top-N values to store in result table<br>
      * A required command line parameter
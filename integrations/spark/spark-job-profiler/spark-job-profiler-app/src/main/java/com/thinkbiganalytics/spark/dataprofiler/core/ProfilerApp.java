@@ -55,9 +55,21 @@ import javax.annotation.Nonnull;
 @Configuration
 public class ProfilerApp {
 
+    /**
+     * Spark configuration property for the maximum number of rows to profile in-process
+     */
+    private static final String LOCAL_PROFILER_MAX_ROWS = "spark.kylo.profiler.localMaxRows";
+
+    /**
+     * Default maximum number of rows to profile in-process
+     */
+    private static final int DEFAULT_LOCAL_PROFILER_MAX_ROWS = 10000;
+
     @Bean
     public ProfilerConfiguration profilerConfiguration() {
-        return new ProfilerConfiguration();
+        final ProfilerConfiguration profilerConfiguration = new ProfilerConfiguration();
+        profilerConfiguration.setLocalProfilerMaxRows(new SparkConf().getInt(LOCAL_PROFILER_MAX_ROWS, DEFAULT_LOCAL_PROFILER_MAX_ROWS));
+        return profilerConfiguration;
     }
 
     @Bean
@@ -0,0 +1,48 @@
+package com.thinkbiganalytics.spark.dataprofiler
+
+import com.thinkbiganalytics.spark.DataSet
+import com.thinkbiganalytics.spark.dataprofiler.function.PartitionLevelModels
+import org.apache.spark.sql.Row
+import org.apache.spark.sql.types.StructType
+
+import scala.collection.JavaConversions._
+import scala.collection.mutable
+
+/** An implementation of `Profiler` that analyzes the columns in-process.
+  *
+  * All rows are collected to the driver, so this should only be used for small data sets.
+  */
+class LocalProfiler extends Profiler {
+    override def profile(dataset: DataSet, profilerConfiguration: ProfilerConfiguration): StatisticsModel = {
+        LocalProfiler.profileRows(dataset.collectAsList(), dataset.schema(), profilerConfiguration).orNull
+    }
+}
+
+object LocalProfiler {
+
+    /** Profiles the columns in the specified rows.
+      *
+      * The statistics are the same as those from `StandardProfiler` as the values are counted and added to the model in the same way.
+      *
+      * @param rows                  the rows
+      * @param schema                the schema of the rows
+      * @param profilerConfiguration the configuration
+      * @return the statistics model
+      */
+    def profileRows(rows: Iterable[Row], schema: StructType, profilerConfiguration: ProfilerConfiguration): Option[StatisticsModel] = {
+        // Get ((column index, column value), count)
+        val columnValueCounts = mutable.HashMap[(Int, Any), Int]()
+        for (row <- rows; (value, index) <- row.toSeq.zipWithIndex) {
+            val key = (index, value)
+            columnValueCounts.put(key, columnValueCounts.getOrElse(key, 0) + 1)
+        }
+
+        // Generate the profile model
+        if (columnValueCounts.nonEmpty) {
+            val schemaMap = schema.fields.zipWithIndex.map(tuple => (tuple._2, tuple._1)).toMap
+            Option(new PartitionLevelModels(schemaMap, profilerConfiguration).apply(columnValueCounts.iterator).next())
+        } else {
+            Option.empty
+        }
+    }
+}
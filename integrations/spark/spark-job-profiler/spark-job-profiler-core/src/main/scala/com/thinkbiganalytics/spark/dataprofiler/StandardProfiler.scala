@@ -6,12 +6,23 @@ import org.apache.spark.sql.SQLContext
 import org.apache.spark.sql.types.StructField
 
 /** The standard implementation of `Profiler` that uses Spark to analyze the columns.
+  *
+  * Data sets with no more than the configured local profiler maximum rows are analyzed in-process by `LocalProfiler` to avoid the Spark stages.
   *
   * @param sqlContext          the Spark SQL context
   * @param sparkContextService the Spark context service
   */
 class StandardProfiler(val sqlContext: SQLContext, val sparkContextService: SparkContextService) extends Profiler {
     override def profile(dataset: DataSet, profilerConfiguration: ProfilerConfiguration): StatisticsModel = {
+        /* Profile small data sets in-process */
+        val maxRows = profilerConfiguration.getLocalProfilerMaxRows
+        if (maxRows != null && maxRows > 0) {
+            val rows = dataset.rdd.take(math.min(maxRows, Int.MaxValue - 1) + 1)
+            if (rows.length <= maxRows) {
+                return LocalProfiler.profileRows(rows, dataset.schema(), profilerConfiguration).orNull
+            }
+        }
+
         /* Update schema map and broadcast it*/
         val schemaMap = populateSchemaMap(dataset)
 
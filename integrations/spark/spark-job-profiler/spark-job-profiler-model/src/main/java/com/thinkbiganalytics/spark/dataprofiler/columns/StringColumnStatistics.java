@@ -179,9 +179,6 @@ public class StringColumnStatistics extends StandardColumnStatistics {
         else if (vString_columnStatistics.minLength == Integer.MAX_VALUE) {
                 //no operation
         }*/
-        else {
-            minLength = 0;
-        }
 
         if ((initializationFlag) && (vString_columnStatistics.initializationFlag)) {
             if (minStringCase.compareTo(vString_columnStatistics.minStringCase) > 0) {
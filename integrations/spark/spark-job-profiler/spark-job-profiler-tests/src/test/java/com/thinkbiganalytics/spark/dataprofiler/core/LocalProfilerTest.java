@@ -0,0 +1,151 @@
+package com.thinkbiganalytics.spark.dataprofiler.core;
+
+/*-
+ * #%L
+ * thinkbig-spark-job-profiler-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.DataSet;
+import com.thinkbiganalytics.spark.SparkContextService;
+import com.thinkbiganalytics.spark.dataprofiler.ColumnStatistics;
+import com.thinkbiganalytics.spark.dataprofiler.LocalProfiler;
+import com.thinkbiganalytics.spark.dataprofiler.ProfilerConfiguration;
+import com.thinkbiganalytics.spark.dataprofiler.StandardProfiler;
+import com.thinkbiganalytics.spark.dataprofiler.StatisticsModel;
+import com.thinkbiganalytics.spark.dataprofiler.model.MetricType;
+import com.thinkbiganalytics.spark.dataprofiler.output.OutputRow;
+import com.thinkbiganalytics.spark.dataprofiler.topn.TopNDataList;
+
+import org.apache.spark.sql.SQLContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+
+/**
+ * Compares the statistics from the in-process profiler with those from Spark.
+ */
+public class LocalProfilerTest extends ProfilerTest {
+
+    @Inject
+    private SparkContextService scs;
+
+    @Inject
+    private SQLContext sqlContext;
+
+    /**
+     * Verify the in-process profiler produces the same statistics as Spark.
+     */
+    @Test
+    public void testLocalProfiler() {
+        final DataSet dataset = createDataSet();
+        final StatisticsModel expected = new StandardProfiler(sqlContext, scs).profile(dataset, new ProfilerConfiguration());
+        assertEquivalent(expected, new LocalProfiler().profile(dataset, new ProfilerConfiguration()));
+    }
+
+    /**
+     * Verify data sets are profiled in-process only up to the maximum rows.
+     */
+    @Test
+    public void testLocalProfilerMaxRows() {
+        final DataSet dataset = createDataSet();
+        final StatisticsModel expected = new StandardProfiler(sqlContext, scs).profile(dataset, new ProfilerConfiguration());
+
+        final ProfilerConfiguration local = new ProfilerConfiguration();
+        local.setLocalProfilerMaxRows(10);
+        assertEquivalent(expected, new StandardProfiler(sqlContext, scs).profile(dataset, local));
+
+        final ProfilerConfiguration fallback = new ProfilerConfiguration();
+        fallback.setLocalProfilerMaxRows(5);
+        assertEquivalent(expected, new StandardProfiler(sqlContext, scs).profile(dataset, fallback));
+    }
+
+    /**
+     * Verify empty data sets have no statistics.
+     */
+    @Test
+    public void testEmpty() {
+        final DataSet dataset = createDataSet().filter("id < 0");
+        Assert.assertNull(new LocalProfiler().profile(dataset, new ProfilerConfiguration()));
+    }
+
+    /**
+     * Asserts that both models have the same metrics for every column.
+     */
+    private void assertEquivalent(final StatisticsModel expected, final StatisticsModel actual) {
+        Assert.assertNotNull(expected);
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.getColumnStatisticsMap().keySet(), actual.getColumnStatisticsMap().keySet());
+
+        for (final Map.Entry<Integer, ColumnStatistics> entry : expected.getColumnStatisticsMap().entrySet()) {
+            final Map<String, String> expectedMetrics = toMetrics(entry.getValue());
+            final Map<String, String> actualMetrics = toMetrics(actual.getColumnStatisticsMap().get(entry.getKey()));
+            Assert.assertEquals(expectedMetrics.keySet(), actualMetrics.keySet());
+
+            for (final Map.Entry<String, String> metric : expectedMetrics.entrySet()) {
+                final String message = "Column #" + entry.getKey() + " " + metric.getKey();
+                final String actualValue = actualMetrics.get(metric.getKey());
+
+                if (String.valueOf(MetricType.TOP_N_VALUES).equals(metric.getKey())) {
+                    // Values with the same count may be in either order
+                    Assert.assertEquals(message, toTopNCounts(metric.getValue()), toTopNCounts(actualValue));
+                } else if (String.valueOf(MetricType.LONGEST_STRING).equals(metric.getKey()) || String.valueOf(MetricType.SHORTEST_STRING).equals(metric.getKey())) {
+                    // Strings with the same length may be chosen in either order
+                    Assert.assertEquals(message, metric.getValue().length(), actualValue.length());
+                } else if (isNumber(metric.getValue()) && isNumber(actualValue)) {
+                    final double expectedNumber = Double.parseDouble(metric.getValue());
+                    Assert.assertEquals(message, expectedNumber, Double.parseDouble(actualValue), epsilon * Math.max(1, Math.abs(expectedNumber)));
+                } else {
+                    Assert.assertEquals(message, metric.getValue(), actualValue);
+                }
+            }
+        }
+    }
+
+    private Map<String, String> toMetrics(final ColumnStatistics statistics) {
+        final Map<String, String> metrics = new HashMap<>();
+        for (final OutputRow row : statistics.getStatistics()) {
+            metrics.put(row.getMetricType(), row.getMetricValue());
+        }
+        return metrics;
+    }
+
+    private List<String> toTopNCounts(final String topNValues) {
+        final List<String> counts = new ArrayList<>();
+        for (final String item : topNValues.split(Pattern.quote(TopNDataList.TOP_N_VALUES_RECORD_DELIMITER))) {
+            final String[] fields = item.split(Pattern.quote(TopNDataList.TOP_N_VALUES_INTERNAL_DELIMITER));
+            counts.add(fields[fields.length - 1]);
+        }
+        return counts;
+    }
+
+    private boolean isNumber(final String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (final NumberFormatException | NullPointerException e) {
+            return false;
+        }
+    }
+}
@@ -20,7 +20,7 @@ package com.thinkbiganalytics.spark.validation;
  * #L%
  */
 
-import com.thinkbiganalytics.policy.validation.DateValidator;
+import com.thinkbiganalytics.policy.validation.DateTimeScanner;
 import com.thinkbiganalytics.policy.validation.TimestampValidator;
 import com.thinkbiganalytics.spark.util.InvalidFormatException;
 
@@ -99,6 +99,11 @@ public class HCatDataType implements Cloneable, Serializable {
      */
     private Integer digits;
 
+    /**
+     * Number of digits before the decimal point
+     */
+    private Integer size;
+
     /**
      * Name of the field (set after clone)
      */
@@ -200,6 +205,7 @@ public class HCatDataType implements Cloneable, Serializable {
                 hcatType.nativeType = dataType;
                 // Determine min max based on column precision
                 if (decSize != null) {
+                    hcatType.size = decSize;
                     hcatType.digits = decDigits;
                     hcatType.max = new BigDecimal(generateRepeatingCharacters(decSize, '9')
                                                   + "."
@@ -295,9 +301,9 @@ public class HCatDataType implements Cloneable, Serializable {
         }
         if (strVal != null && !isnumeric) {
             if (convertibleType == Timestamp.class) {
-                return new TimestampValidator(true).validate(strVal);
+                return isValidTimestamp(strVal);
             } else if (convertibleType == Date.class) {
-                return DateValidator.instance().validate(strVal);
+                return DateTimeScanner.scanDate(strVal) == DateTimeScanner.Status.VALID;
             } else if (convertibleType == byte[].class) {
                 return true;
             }
@@ -317,19 +323,53 @@ public class HCatDataType implements Cloneable, Serializable {
     }
 
     public boolean isValueConvertibleToType(Object val, boolean enforcePrecision) {
+        if (val instanceof String) {
+            String strVal = (String) val;
+            if (!isnumeric) {
+                if (convertibleType == Timestamp.class) {
+                    return isValidTimestamp(strVal);
+                } else if (convertibleType == Date.class) {
+                    return DateTimeScanner.scanDate(strVal) == DateTimeScanner.Status.VALID;
+                } else if (convertibleType == byte[].class) {
+                    return true;
+                } else if (StringUtils.isEmpty(strVal) || !isstring) {
+                    return true;
+                } else {
+                    return strVal.length() <= maxlength;
+                }
+            } else if (StringUtils.isEmpty(strVal)) {
+                return true;
+            } else if (size != null && convertibleType != BigDecimal.class) {
+                return convertAndCheck(strVal, enforcePrecision);
+            } else if (convertibleType == Integer.class || convertibleType == BigInteger.class) {
+                return NumericScanner.isIntegerInRange(strVal, ((Number) min).longValue(), ((Number) max).longValue());
+            } else if (convertibleType == Double.class) {
+                return NumericScanner.isFiniteDouble(strVal);
+            } else if (convertibleType == Float.class) {
+                return NumericScanner.isFiniteFloat(strVal);
+            } else if (convertibleType == BigDecimal.class) {
+                if (!NumericScanner.isPlainDecimal(strVal, true)) {
+                    return false;
+                } else if (NumericScanner.hasExponent(strVal)) {
+                    return convertAndCheck(strVal, enforcePrecision);
+                } else if (size != null && digits != null && !NumericScanner.isDecimalInRange(strVal, size, digits)) {
+                    return false;
+                } else {
+                    return !(enforcePrecision && digits != null && NumericScanner.countDecimalPlaces(strVal) > digits);
+                }
+            }
+        }
+        return convertAndCheck(val, enforcePrecision);
+    }
+
+    /**
+     * Tests whether the value is convertible by converting it to its native value and checking the range and precision.
+     * Used for values not handled by the scanners, and by tests to verify the scanners.
+     */
+    boolean convertAndCheck(Object val, boolean enforcePrecision) {
         try {
             if (val instanceof String) {
                 String strVal = (String) val;
-                if (strVal != null && !isnumeric) {
-                    if (convertibleType == Timestamp.class) {
-                        return new TimestampValidator(true).validate(strVal);
-                    } else if (convertibleType == Date.class) {
-                        return DateValidator.instance().validate(strVal);
-                    } else if (convertibleType == byte[].class) {
-                        return true;
-                    }
-                }
-
                 Comparable nativeValue = toNativeValue(strVal);
                 if (nativeValue != null) {
                     if (isnumeric) {
@@ -363,6 +403,24 @@ public class HCatDataType implements Cloneable, Serializable {
         return true;
     }
 
+    /**
+     * Tests whether the value is a valid timestamp, treating the string NULL as valid.
+     */
+    private boolean isValidTimestamp(String strVal) {
+        if (StringUtils.isEmpty(strVal)) {
+            return true;
+        }
+
+        DateTimeScanner.Status status = DateTimeScanner.scanTimestamp(strVal);
+        if (status == DateTimeScanner.Status.VALID) {
+            return true;
+        } else if (status == DateTimeScanner.Status.INVALID && !"NULL".equalsIgnoreCase(strVal)) {
+            return false;
+        } else {
+            return new TimestampValidator(true).validate(strVal);
+        }
+    }
+
     @Override
     public Object clone() throws CloneNotSupportedException {
         return super.clone();
@@ -0,0 +1,280 @@
+package com.thinkbiganalytics.spark.validation;
+
+/*-
+ * #%L
+ * thinkbig-spark-validate-cleanse-api
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * Checks whether strings are valid Hive numeric values without throwing exceptions or allocating {@code BigInteger} and
+ * {@code BigDecimal} instances.  The accepted syntax matches the {@code Integer}, {@code BigInteger}, {@code BigDecimal},
+ * {@code Float}, and {@code Double} constructors used by {@link HCatDataType#toNativeValue(String)}.
+ */
+final class NumericScanner {
+
+    private NumericScanner() {
+    }
+
+    /**
+     * Tests whether the value is an integer within the specified range.
+     *
+     * @param value a non-empty string
+     * @param min   the minimum value
+     * @param max   the maximum value
+     * @return {@code true} if the value is an integer between {@code min} and {@code max}
+     */
+    static boolean isIntegerInRange(String value, long min, long max) {
+        int length = value.length();
+        int index = 0;
+        boolean negative = false;
+
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = (first == '-');
+            index = 1;
+            if (length == 1) {
+                return false;
+            }
+        }
+
+        // Accumulate negatively to cover Long.MIN_VALUE, as Long.parseLong does
+        long result = 0;
+        long multiplyLimit = Long.MIN_VALUE / 10;
+        for (; index < length; index++) {
+            int digit = Character.digit(value.charAt(index), 10);
+            if (digit < 0 || result < multiplyLimit) {
+                return false;
+            }
+            result *= 10;
+            if (result < Long.MIN_VALUE + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                return false;
+            }
+            result = -result;
+        }
+        return result >= min && result <= max;
+    }
+
+    /**
+     * Tests whether the value is a finite {@code double}.
+     *
+     * @param value a non-empty string
+     * @return {@code true} if the value is a finite double
+     */
+    static boolean isFiniteDouble(String value) {
+        if (isPlainDecimal(value, false)) {
+            double result = Double.parseDouble(value);
+            return !Double.isInfinite(result);
+        } else if (mayBeFloatingPointLiteral(value)) {
+            try {
+                double result = Double.parseDouble(value);
+                return !Double.isInfinite(result) && !Double.isNaN(result);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Tests whether the value is a finite {@code float}.
+     *
+     * @param value a non-empty string
+     * @return {@code true} if the value is a finite float
+     */
+    static boolean isFiniteFloat(String value) {
+        if (isPlainDecimal(value, false)) {
+            float result = Float.parseFloat(value);
+            return !Float.isInfinite(result);
+        } else if (mayBeFloatingPointLiteral(value)) {
+            try {
+                float result = Float.parseFloat(value);
+                return !Float.isInfinite(result) && !Float.isNaN(result);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Tests whether the value is a decimal number in the syntax accepted by {@code BigDecimal}, with an optional sign,
+     * digits with an optional decimal point, and an optional exponent.
+     *
+     * @param value           a non-empty string
+     * @param unicodeDigits   {@code true} to accept any Unicode decimal digit, as {@code BigDecimal} does, or {@code false}
+     *                        to accept only ASCII digits, as {@code Double} does
+     * @return {@code true} if the value is a decimal number
+     */
+    static boolean isPlainDecimal(String value, boolean unicodeDigits) {
+        int length = value.length();
+        int index = 0;
+
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            index = 1;
+        }
+
+        int digits = 0;
+        boolean point = false;
+        for (; index < length; index++) {
+            char c = value.charAt(index);
+            if (isDigit(c, unicodeDigits)) {
+                digits++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+
+        if (index < length) {
+            char c = value.charAt(index);
+            if (c != 'e' && c != 'E') {
+                return false;
+            }
+            index++;
+            if (index < length && (value.charAt(index) == '-' || value.charAt(index) == '+')) {
+                index++;
+            }
+            if (index == length) {
+                return false;
+            }
+            for (; index < length; index++) {
+                if (!isDigit(value.charAt(index), unicodeDigits)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests whether a plain decimal without an exponent is within the range of a {@code decimal(precision, scale)} column,
+     * i.e. its absolute value is at most {@code precision} nines followed by {@code scale} fractional nines.
+     *
+     * @param value a string for which {@link #isPlainDecimal(String, boolean)} is {@code true} and which has no exponent
+     */
+    static boolean isDecimalInRange(String value, int precision, int scale) {
+        int length = value.length();
+        int index = (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+
+        // Skip leading zeros of the integer part
+        while (index < length && Character.digit(value.charAt(index), 10) == 0) {
+            index++;
+        }
+
+        int integerStart = index;
+        int point = value.indexOf('.', integerStart);
+        int integerEnd = point < 0 ? length : point;
+        int integerDigits = integerEnd - integerStart;
+
+        if (integerDigits != precision) {
+            return integerDigits < precision;
+        }
+        for (int i = integerStart; i < integerEnd; i++) {
+            if (Character.digit(value.charAt(i), 10) != 9) {
+                return true;
+            }
+        }
+
+        // The integer part equals the maximum so compare the fraction with the fractional nines
+        if (point >= 0) {
+            for (int i = point + 1, position = 0; i < length; i++, position++) {
+                int digit = Character.digit(value.charAt(i), 10);
+                if (position < scale) {
+                    if (digit != 9) {
+                        return true;
+                    }
+                } else if (digit != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the digits following the decimal point of a plain decimal without an exponent, ignoring trailing zeros.
+     *
+     * @param value a string for which {@link #isPlainDecimal(String, boolean)} is {@code true} and which has no exponent
+     */
+    static int countDecimalPlaces(String value) {
+        int point = value.indexOf('.');
+        if (point < 0) {
+            return 0;
+        }
+
+        int end = value.length();
+        while (end > point + 1 && Character.digit(value.charAt(end - 1), 10) == 0) {
+            end--;
+        }
+        return end - point - 1;
+    }
+
+    /**
+     * Tests whether the value contains an exponent.
+     */
+    static boolean hasExponent(String value) {
+        return value.indexOf('e') >= 0 || value.indexOf('E') >= 0;
+    }
+
+    /**
+     * Tests whether the value could be a floating point literal that is not a plain decimal, such as {@code NaN},
+     * {@code Infinity}, a hexadecimal literal, or a value with a type suffix or surrounding whitespace.
+     */
+    private static boolean mayBeFloatingPointLiteral(String value) {
+        int length = value.length();
+        if (value.charAt(0) <= ' ' || value.charAt(length - 1) <= ' ') {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            switch (value.charAt(i)) {
+                case 'N':
+                case 'I':
+                case 'x':
+                case 'X':
+                case 'p':
+                case 'P':
+                case 'f':
+                case 'F':
+                case 'd':
+                case 'D':
+                    return true;
+                default:
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c, boolean unicodeDigits) {
+        return unicodeDigits ? Character.isDigit(c) : (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,127 @@
+package com.thinkbiganalytics.spark.validation;
+
+/*-
+ * #%L
+ * thinkbig-spark-validate-cleanse-api
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Compares checking values with the scanners against converting them with the native constructors and joda formatters, on
+ * clean values and on values of which half are invalid.  The number of values is set by the {@code values} system property,
+ * 1 million by default.
+ */
+@Ignore
+public class HCatDataTypeBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(HCatDataTypeBenchmark.class);
+
+    private static final int RUNS = 5;
+
+    private static final DateTimeFormatter DATETIME_MILLIS = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final DateTimeFormatter DATETIME_NOMILLIS = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Test
+    public void benchmark() {
+        int count = Integer.getInteger("values", 1000000);
+        Random random = new Random(42);
+
+        HCatDataType intType = HCatDataType.getDataTypes().get("int");
+        HCatDataType doubleType = HCatDataType.getDataTypes().get("double");
+        HCatDataType decimalType = HCatDataType.createFromDataType("amount", "decimal(10,2)");
+        HCatDataType timestampType = HCatDataType.createFromDataType("created", "timestamp");
+
+        for (double invalidRatio : new double[]{0.0, 0.5}) {
+            String[] ints = new String[count];
+            String[] doubles = new String[count];
+            String[] decimals = new String[count];
+            String[] timestamps = new String[count];
+            for (int i = 0; i < count; i++) {
+                boolean invalid = random.nextDouble() < invalidRatio;
+                ints[i] = invalid ? "12a" + i : Integer.toString(random.nextInt());
+                doubles[i] = invalid ? "n/a" : Double.toString(random.nextDouble() * 1000000);
+                decimals[i] = invalid ? "1,234.5" + i % 10 : String.format("%d.%02d", random.nextInt(100000000), random.nextInt(100));
+                timestamps[i] = invalid ? "15/01/2015 11:10:" + i % 60
+                                        : String.format("2015-%02d-%02d %02d:%02d:%02d.%03d", 1 + random.nextInt(12), 1 + random.nextInt(28),
+                                                        random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000));
+            }
+
+            String label = invalidRatio == 0.0 ? "clean" : "50% invalid";
+            measure("int, " + label, ints, intType, false);
+            measure("double, " + label, doubles, doubleType, false);
+            measure("decimal(10,2), " + label, decimals, decimalType, true);
+            measure("timestamp, " + label, timestamps, timestampType, false);
+        }
+    }
+
+    private void measure(String name, String[] values, HCatDataType type, boolean enforcePrecision) {
+        long convertedTime = Long.MAX_VALUE;
+        long scannedTime = Long.MAX_VALUE;
+        int convertedValid = 0;
+        int scannedValid = 0;
+
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            convertedValid = 0;
+            for (String value : values) {
+                if (type.isDateOrTimestamp() ? parseTimestamp(value) : type.convertAndCheck(value, enforcePrecision)) {
+                    convertedValid++;
+                }
+            }
+            convertedTime = Math.min(convertedTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            scannedValid = 0;
+            for (String value : values) {
+                if (type.isValueConvertibleToType(value, enforcePrecision)) {
+                    scannedValid++;
+                }
+            }
+            scannedTime = Math.min(scannedTime, System.nanoTime() - start);
+        }
+
+        log.info("{} converted: {} ms, scanned: {} ms, valid: {}/{}", name, convertedTime / 1000000, scannedTime / 1000000, convertedValid, scannedValid);
+    }
+
+    /**
+     * Parses a timestamp with joda formatters as the timestamp validator did before using the scanner.
+     */
+    private static boolean parseTimestamp(String value) {
+        try {
+            if (value.length() < 19 || value.length() > 29) {
+                throw new IllegalArgumentException("Unexpected format");
+            } else if (value.length() == 19) {
+                DATETIME_NOMILLIS.parseDateTime(value);
+            } else {
+                DATETIME_MILLIS.parseDateTime(value);
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -23,6 +23,7 @@ package com.thinkbiganalytics.spark.validation;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -206,6 +207,45 @@ public class HCatDataTypeTest {
         assertFalse(type.isValueConvertibleToType("05-10-2015"));
     }
 
+    @Test
+    public void testScannedValuesMatchConversion() throws Exception {
+        String[] values = {"0", "-0", "+7", "-", "+", "127", "128", "-128", "-129", "32767", "32768", "2147483647", "2147483648", "-2147483648",
+                           "-2147483649", "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+                           "99999999999999999999999", "007", "1.0", "1.", ".5", ".", "-.5", "+.5", "1e5", "1E-5", "-128.12E8", "1e", "1e+", "1.2.3",
+                           "3.4028236E38", "1.7976931348623159E308", "NaN", "Infinity", "-Infinity", "0x1p3", "1.5f", "2d", " 12", "12 ",
+                           "999", "999.99", "999.990", "999.991", "1000", "-999.99", "-1000.00", "5.123", "5.120", "0.000", "00999.99",
+                           "9999999.999", "10000000", "29.3456", "\u0661\u0662", "1,000", "12abc", "abc", "--1", "+-1", "N/A"};
+        HCatDataType[] types = {HCatDataType.getDataTypes().get("tinyint"), HCatDataType.getDataTypes().get("smallint"),
+                                HCatDataType.getDataTypes().get("int"), HCatDataType.getDataTypes().get("bigint"),
+                                HCatDataType.getDataTypes().get("float"), HCatDataType.getDataTypes().get("double"),
+                                HCatDataType.getDataTypes().get("decimal"), HCatDataType.createFromDataType("d1", "decimal(3,2)"),
+                                HCatDataType.createFromDataType("d2", "decimal(3,0)"), HCatDataType.createFromDataType("d3", "decimal(7,3)"),
+                                HCatDataType.createFromDataType("s1", "varchar(5)"), HCatDataType.getDataTypes().get("string")};
+
+        for (HCatDataType type : types) {
+            for (String value : values) {
+                for (boolean enforcePrecision : new boolean[]{false, true}) {
+                    assertEquals(type.getNativeType() + " " + value + " " + enforcePrecision, type.convertAndCheck(value, enforcePrecision),
+                                 type.isValueConvertibleToType(value, enforcePrecision));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIsValueConvertibletoTSVariants() throws Exception {
+        HCatDataType type = HCatDataType.createFromDataType("myts", "timestamp");
+        assertTrue(type.isValueConvertibleToType("2016-02-03T07:55:29Z"));
+        assertTrue(type.isValueConvertibleToType("1994-11-05T08:15:30-05:00"));
+        assertTrue(type.isValueConvertibleToType("NULL"));
+        assertTrue(type.isValueConvertibleToType("2016-02-29 00:00:00"));
+
+        assertFalse(type.isValueConvertibleToType("2015-02-29 00:00:00"));
+        assertFalse(type.isValueConvertibleToType("2015-01-15 24:10:20"));
+        assertFalse(type.isValueConvertibleToType("2015-01-15 11:10:20."));
+        assertFalse(type.isValueConvertibleToType("2015-01-15 11:10:20.33x"));
+    }
+
     @Test
     public void testDecimalType() throws Exception {
         HCatDataType decimalType = HCatDataType.createFromDataType("decimal_type", "decimal(10,3)");
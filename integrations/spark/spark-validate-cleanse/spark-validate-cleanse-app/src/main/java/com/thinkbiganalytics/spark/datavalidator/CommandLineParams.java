@@ -43,6 +43,9 @@ public class CommandLineParams implements Serializable {
     @Parameter(names = "--numPartitions", description = "Number of RDD partitions")
     private Integer numPartitions = DEFAULT_NUM_PARTITIONS;
 
+    @Parameter(names = "--singlePass", description = "Route cleansed rows to the valid and invalid tables without persisting them")
+    private boolean singlePass = false;
+
     public List<Param> getHiveParams() {
         return hiveParams == null ? new ArrayList<Param>(0) : hiveParams;
     }
@@ -54,4 +57,8 @@ public class CommandLineParams implements Serializable {
     public Integer getNumPartitions() {
         return numPartitions;
     }
+
+    public boolean isSinglePass() {
+        return singlePass;
+    }
 }
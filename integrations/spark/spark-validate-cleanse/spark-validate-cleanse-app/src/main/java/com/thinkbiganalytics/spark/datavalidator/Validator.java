@@ -35,13 +35,16 @@ import com.thinkbiganalytics.policy.validation.ValidationPolicy;
 import com.thinkbiganalytics.policy.validation.ValidationResult;
 import com.thinkbiganalytics.spark.DataSet;
 import com.thinkbiganalytics.spark.SparkContextService;
+import com.thinkbiganalytics.spark.datavalidator.functions.RouteCleansedRows;
 import com.thinkbiganalytics.spark.datavalidator.functions.SumPartitionLevelCounts;
+import com.thinkbiganalytics.spark.datavalidator.functions.ValidationCountsParam;
 import com.thinkbiganalytics.spark.policy.FieldPolicyLoader;
 import com.thinkbiganalytics.spark.util.InvalidFormatException;
 import com.thinkbiganalytics.spark.validation.HCatDataType;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.spark.Accumulable;
 import org.apache.spark.SparkContext;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -93,12 +96,12 @@ public class Validator implements Serializable {
     protected static ValidationResult VALID_RESULT = new ValidationResult();
     private static String REJECT_REASON_COL = "dlp_reject_reason";
     private static String VALID_INVALID_COL = "dlp_valid";
+    private static String ROUTE_VALID_FUNCTION = "dlp_route_valid";
+    private static String ROUTE_INVALID_FUNCTION = "dlp_route_invalid";
     private static String PROCESSING_DTTM_COL = "processing_dttm";
 
     /* Initialize Spark */
     private HiveContext hiveContext;
-    // Optimization to write directly from dataframe to the table vs. temporary table (not tested with < 1.6.x)
-    private boolean useDirectInsert = true;
     /*
     Valid target schema
      */
@@ -145,6 +148,7 @@ public class Validator implements Serializable {
             System.out.println("You can optionally add: --hiveConf hive.setting=value --hiveConf hive.other.setting=value");
             System.out.println("You can optionally add: --storageLevel rdd_persistence_level_value");
             System.out.println("You can optionally add: --numPartitions number_of_rdd_partitions");
+            System.out.println("You can optionally add: --singlePass");
             System.out.println("You provided " + args.length + " args which are (comma separated): " + StringUtils.join(args, ","));
             System.exit(1);
         }
@@ -214,91 +218,42 @@ public class Validator implements Serializable {
 
             log.info("validSchema {}", validSchema);
 
-            log.info("Persistence level: {}", params.getStorageLevel());
+            // In single pass mode the cleansed rows are not persisted, so each row is cleansed once for each table it is routed to
+            final boolean singlePass = params.isSinglePass();
+            if (singlePass) {
+                log.info("Single pass mode: cleansed rows will not be persisted");
+            } else {
+                log.info("Persistence level: {}", params.getStorageLevel());
+            }
 
             // Validate and cleanse input rows
-            JavaRDD<CleansedRowResult> cleansedRowResultRDD;
-            if (params.getNumPartitions() <= 0) {
-                cleansedRowResultRDD = sourceRDD.map(new Function<Row, CleansedRowResult>() {
-                    @Override
-                    public CleansedRowResult call(Row row) throws Exception {
-                        return cleanseAndValidateRow(row);
-                    }
-                }).persist(StorageLevel.fromString(params.getStorageLevel()));
-            } else {
+            JavaRDD<Row> partitionedSourceRDD = sourceRDD;
+            if (params.getNumPartitions() > 0) {
                 log.info("Partition count: " + params.getNumPartitions());
-                cleansedRowResultRDD = sourceRDD.repartition(params.getNumPartitions()).map(new Function<Row, CleansedRowResult>() {
-                    @Override
-                    public CleansedRowResult call(Row row) throws Exception {
-                        return cleanseAndValidateRow(row);
-                    }
-                }).persist(StorageLevel.fromString(params.getStorageLevel()));
+                partitionedSourceRDD = sourceRDD.repartition(params.getNumPartitions());
             }
-
-            // Return a new rdd based for Valid Results
-            JavaRDD<Row> validResultRDD = cleansedRowResultRDD.filter(new Function<CleansedRowResult, Boolean>() {
-                @Override
-                public Boolean call(CleansedRowResult cleansedRowResult) throws Exception {
-                    return cleansedRowResult.rowIsValid;
-                }
-            }).map(new Function<CleansedRowResult, Row>() {
+            JavaRDD<CleansedRowResult> cleansedRowResultRDD = partitionedSourceRDD.map(new Function<Row, CleansedRowResult>() {
                 @Override
-                public Row call(CleansedRowResult cleansedRowResult) throws Exception {
-                    return cleansedRowResult.row;
+                public CleansedRowResult call(Row row) throws Exception {
+                    return cleanseAndValidateRow(row);
                 }
             });
-
-            // Return a new rdd based for Invalid Results
-            JavaRDD<Row> invalidResultRDD = cleansedRowResultRDD.filter(new Function<CleansedRowResult, Boolean>() {
-                @Override
-                public Boolean call(CleansedRowResult cleansedRowResult) throws Exception {
-                    return cleansedRowResult.rowIsValid == false;
-                }
-            }).map(new Function<CleansedRowResult, Row>() {
-                @Override
-                public Row call(CleansedRowResult cleansedRowResult) throws Exception {
-                    return cleansedRowResult.row;
-                }
-            });
-
-            // Counts of invalid columns, total valid rows and total invalid rows
-            long[] fieldInvalidCounts = cleansedRowResultsValidationCounts(cleansedRowResultRDD, schema.length);
-
-            //Create the 2 new Data Frames for the invalid and valid results
-            final DataSet invalidDF = scs.toDataSet(getHiveContext(), invalidResultRDD, invalidSchema);
-
-            final DataSet validatedDF = scs.toDataSet(getHiveContext(), validResultRDD, validSchema);
-
-            DataSet invalidDataFrame = null;
-            // ensure the dataframe matches the correct schema
-            if (useDirectInsert) {
-                invalidDataFrame = invalidDF;
-            } else {
-                invalidDataFrame = invalidDF.drop(PROCESSING_DTTM_COL).toDF();
+            if (!singlePass) {
+                cleansedRowResultRDD = cleansedRowResultRDD.persist(StorageLevel.fromString(params.getStorageLevel()));
             }
 
-            writeToTargetTable(invalidDataFrame, invalidTableName);
+            // Counts of invalid columns, total valid rows and total invalid rows, gathered while writing
+            long[] fieldInvalidCounts = writeCleansedRows(cleansedRowResultRDD, validSchema, invalidSchema, schema.length);
 
-            log.info("wrote values to the invalid Table  {}", invalidTableName);
+            log.info("wrote values to the valid Table {} and the invalid Table {}", validTableName, invalidTableName);
 
-            // Write out the valid records (dropping the two columns)
-            DataSet validDataFrame = null;
-            if (useDirectInsert) {
-                validDataFrame = validatedDF.drop(REJECT_REASON_COL).toDF();
-            } else {
-                validDataFrame = validatedDF.drop(REJECT_REASON_COL).drop(PROCESSING_DTTM_COL).toDF();
+            if (!singlePass) {
+                cleansedRowResultRDD.unpersist();
             }
-            //Remove the columns from _valid that dont exist in the validTableName
-
-            writeToTargetTable(validDataFrame, validTableName);
-
-            log.info("wrote values to the valid Table  {}", validTableName);
 
             long validCount = fieldInvalidCounts[schema.length];
             long invalidCount = fieldInvalidCounts[schema.length + 1];
 
-            cleansedRowResultRDD.unpersist();
-
             log.info("Valid count {} invalid count {}", validCount, invalidCount);
 
             // Record the validation stats
@@ -554,32 +509,6 @@ public class Validator implements Serializable {
         }
     }
 
-
-    private void writeToTargetTable(DataSet sourceDF, String targetTable) throws Exception {
-        final String qualifiedTable = HiveUtils.quoteIdentifier(targetDatabase, targetTable);
-
-        // Direct insert into the table partition vs. writing into a temporary table
-        if (useDirectInsert) {
-
-            getHiveContext().setConf("hive.exec.dynamic.partition", "true");
-            getHiveContext().setConf("hive.exec.dynamic.partition.mode", "nonstrict");
-            // Required for ORC and Parquet
-            getHiveContext().setConf("set hive.optimize.index.filter", "false");
-
-            sourceDF.writeToTable(PROCESSING_DTTM_COL, qualifiedTable);
-            return;
-        } else {
-            // Legacy way: Create a temporary table we can use to copy data from. Writing directly to the partition from a spark dataframe doesn't work.
-            String tempTable = targetTable + "_" + System.currentTimeMillis();
-            sourceDF.registerTempTable(tempTable);
-
-            // Insert the data into the partition
-            final String sql = "INSERT OVERWRITE TABLE " + qualifiedTable + " PARTITION (processing_dttm='" + partition + "') SELECT * FROM " + HiveUtils.quoteIdentifier(tempTable);
-            log.info("Writing to target {}", sql);
-            scs.sql(getHiveContext(), sql);
-        }
-    }
-
     /**
      * Spark function to perform both cleansing and validation of a data row based on data policies and the target datatype
      */
@@ -687,6 +616,95 @@ public class Validator implements Serializable {
     }
 
 
+    /**
+     * Writes the cleansed rows to the valid and invalid tables with a single Hive multi-insert, counting the rows as they are routed to each table.
+     * <p>
+     * Spark runs the multi-insert as one job per table over a temporary table of the cleansed rows, with no separate job for the counts. Persist the
+     * cleansed rows to read the source only once.
+     *
+     * @param cleansedRowResultRDD RDD containing result of cleaning rows of type {@link CleansedRowResult}
+     * @param validSchema          the schema of the valid rows
+     * @param invalidSchema        the schema of the invalid rows
+     * @param schemaLength         the number of columns validated
+     * @return the counts of invalid columns, total valid rows and total invalid rows
+     */
+    public long[] writeCleansedRows(JavaRDD<CleansedRowResult> cleansedRowResultRDD, StructType validSchema, StructType invalidSchema, int schemaLength) {
+        // Columns with a different type in the valid and invalid tables are split in two, as only one of them has a value in each row
+        final StructField[] validFields = validSchema.fields();
+        final StructField[] invalidFields = invalidSchema.fields();
+        final boolean[] splitColumns = new boolean[invalidFields.length - 2];
+
+        List<StructField> routedFields = new ArrayList<>();
+        List<String> validColumns = new ArrayList<>();
+        List<String> invalidColumns = new ArrayList<>();
+        for (int idx = 0; idx < splitColumns.length; idx++) {
+            if (validFields[idx].dataType().equals(invalidFields[idx].dataType())) {
+                String column = "col_" + idx;
+                routedFields.add(DataTypes.createStructField(column, invalidFields[idx].dataType(), true));
+                validColumns.add(HiveUtils.quoteIdentifier(column));
+                invalidColumns.add(HiveUtils.quoteIdentifier(column));
+            } else {
+                splitColumns[idx] = true;
+                routedFields.add(DataTypes.createStructField("valid_" + idx, validFields[idx].dataType(), true));
+                routedFields.add(DataTypes.createStructField("invalid_" + idx, invalidFields[idx].dataType(), true));
+                validColumns.add(HiveUtils.quoteIdentifier("valid_" + idx));
+                invalidColumns.add(HiveUtils.quoteIdentifier("invalid_" + idx));
+            }
+        }
+        routedFields.add(DataTypes.createStructField(REJECT_REASON_COL, DataTypes.StringType, true));
+        invalidColumns.add(HiveUtils.quoteIdentifier(REJECT_REASON_COL));
+        routedFields.add(DataTypes.createStructField(VALID_INVALID_COL, DataTypes.StringType, false));
+
+        JavaRDD<Row> routedRDD = cleansedRowResultRDD.map(new Function<CleansedRowResult, Row>() {
+            @Override
+            public Row call(CleansedRowResult cleansedRowResult) throws Exception {
+                return toRoutedRow(cleansedRowResult, splitColumns);
+            }
+        });
+
+        String tempTable = validTableName + "_" + System.currentTimeMillis();
+        scs.toDataSet(getHiveContext(), routedRDD, DataTypes.createStructType(routedFields)).registerTempTable(tempTable);
+
+        // The counts are updated by the filters selecting the rows for each table
+        Accumulable<long[], String> validationCounts = JavaSparkContext.fromSparkContext(getHiveContext().sparkContext())
+            .accumulable(new long[schemaLength + 2], new ValidationCountsParam());
+        getHiveContext().udf().register(ROUTE_VALID_FUNCTION, new RouteCleansedRows(true, validationCounts), DataTypes.BooleanType);
+        getHiveContext().udf().register(ROUTE_INVALID_FUNCTION, new RouteCleansedRows(false, validationCounts), DataTypes.BooleanType);
+
+        final String partitionSpec = " PARTITION (processing_dttm='" + partition + "')";
+        final String sql = "FROM " + HiveUtils.quoteIdentifier(tempTable)
+                           + " INSERT OVERWRITE TABLE " + HiveUtils.quoteIdentifier(targetDatabase, validTableName) + partitionSpec
+                           + " SELECT " + StringUtils.join(validColumns, ",") + " WHERE " + ROUTE_VALID_FUNCTION + "(" + VALID_INVALID_COL + ")"
+                           + " INSERT OVERWRITE TABLE " + HiveUtils.quoteIdentifier(targetDatabase, invalidTableName) + partitionSpec
+                           + " SELECT " + StringUtils.join(invalidColumns, ",") + " WHERE " + ROUTE_INVALID_FUNCTION + "(" + VALID_INVALID_COL + ")";
+        log.info("Writing to targets {}", sql);
+
+        // Spark 1 plans a multi-insert lazily. Getting the RDD runs the inserts without running another job.
+        scs.sql(getHiveContext(), sql).rdd();
+
+        return validationCounts.value();
+    }
+
+    /**
+     * Converts a cleansed row to a row of the temporary table routing it to the valid or invalid table.
+     */
+    private static Row toRoutedRow(CleansedRowResult cleansedRowResult, boolean[] splitColumns) {
+        Row row = cleansedRowResult.row;
+        List<Object> values = new ArrayList<>(row.length() + splitColumns.length);
+        for (int idx = 0; idx < splitColumns.length; idx++) {
+            Object value = row.get(idx);
+            if (splitColumns[idx]) {
+                values.add(cleansedRowResult.rowIsValid ? value : null);
+                values.add(cleansedRowResult.rowIsValid ? null : value);
+            } else {
+                values.add(value);
+            }
+        }
+        values.add(row.get(splitColumns.length));  //REJECT_REASON_COL
+        values.add(ValidationCountsParam.toValidityFlags(cleansedRowResult));  //VALID_INVALID_COL
+        return RowFactory.create(values.toArray());
+    }
+
     /**
      * Performs counts of invalid columns, total valid and total invalid on a JavaRDD<CleansedRowResults>
      */
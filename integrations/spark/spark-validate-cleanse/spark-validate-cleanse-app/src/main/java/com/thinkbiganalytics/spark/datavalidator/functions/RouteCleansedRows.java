@@ -0,0 +1,59 @@
+package com.thinkbiganalytics.spark.datavalidator.functions;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.spark.Accumulable;
+import org.apache.spark.sql.api.java.UDF1;
+
+/**
+ * Selects the cleansed rows for either the valid or the invalid table by their validity flags, counting each selected row.
+ * <p>
+ * Every row is selected by exactly one of the valid and invalid filters so the counts cover each row once. As with any accumulator updated within a
+ * transformation, a retried task may count its rows again.
+ *
+ * @see ValidationCountsParam
+ */
+public class RouteCleansedRows implements UDF1<String, Boolean> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean valid;
+
+    private final Accumulable<long[], String> counts;
+
+    /**
+     * @param valid  {@code true} to select the valid rows, or {@code false} to select the invalid rows
+     * @param counts the validation counts to update
+     */
+    public RouteCleansedRows(boolean valid, Accumulable<long[], String> counts) {
+        this.valid = valid;
+        this.counts = counts;
+    }
+
+    @Override
+    public Boolean call(String validityFlags) throws Exception {
+        if (ValidationCountsParam.isRowValid(validityFlags) != valid) {
+            return false;
+        }
+        counts.add(validityFlags);
+        return true;
+    }
+}
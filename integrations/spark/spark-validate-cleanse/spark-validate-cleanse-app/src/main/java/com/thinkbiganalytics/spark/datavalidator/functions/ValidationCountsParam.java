@@ -0,0 +1,89 @@
+package com.thinkbiganalytics.spark.datavalidator.functions;
+
+/*-
+ * #%L
+ * kylo-spark-validate-cleanse-app
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.spark.datavalidator.CleansedRowResult;
+
+import org.apache.spark.AccumulableParam;
+
+/**
+ * Accumulates the counts of invalid columns, and total valid and invalid rows, from the validity flags of the cleansed rows.
+ * <p>
+ * The validity flags of a row have one flag per column followed by the flag of the row. The counts have the same layout as the partition level
+ * counts: one count per column followed by the valid and invalid row counts.
+ */
+public class ValidationCountsParam implements AccumulableParam<long[], String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final char VALID = '1';
+
+    private static final char INVALID = '0';
+
+    /**
+     * Gets the validity flags of the specified cleansed row.
+     */
+    public static String toValidityFlags(CleansedRowResult cleansedRowResult) {
+        StringBuilder flags = new StringBuilder(cleansedRowResult.columnsValid.length + 1);
+        for (boolean columnValid : cleansedRowResult.columnsValid) {
+            flags.append(columnValid ? VALID : INVALID);
+        }
+        flags.append(cleansedRowResult.rowIsValid ? VALID : INVALID);
+        return flags.toString();
+    }
+
+    /**
+     * Indicates if the validity flags are of a valid row.
+     */
+    public static boolean isRowValid(String validityFlags) {
+        return validityFlags.charAt(validityFlags.length() - 1) == VALID;
+    }
+
+    @Override
+    public long[] addAccumulator(long[] counts, String validityFlags) {
+        int schemaLen = counts.length - 2;
+
+        for (int idx = 0; idx < schemaLen; idx++) {
+            if (validityFlags.charAt(idx) == INVALID) {
+                counts[idx]++;
+            }
+        }
+        if (isRowValid(validityFlags)) {
+            counts[schemaLen]++;
+        } else {
+            counts[schemaLen + 1]++;
+        }
+        return counts;
+    }
+
+    @Override
+    public long[] addInPlace(long[] countsA, long[] countsB) {
+        for (int idx = 0; idx < countsA.length; idx++) {
+            countsA[idx] += countsB[idx];
+        }
+        return countsA;
+    }
+
+    @Override
+    public long[] zero(long[] initialValue) {
+        return new long[initialValue.length];
+    }
+}
@@ -20,18 +20,51 @@ package com.thinkbiganalytics.spark.datavalidator;
  * #L%
  */
 
+import com.thinkbiganalytics.spark.SparkContextService16;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.spark.JavaSparkListener;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.executor.TaskMetrics;
+import org.apache.spark.scheduler.SparkListenerJobEnd;
+import org.apache.spark.scheduler.SparkListenerStageCompleted;
+import org.apache.spark.scheduler.SparkListenerTaskEnd;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.hive.HiveContext;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 public class ValidatorV1Test {
 
+    private JavaSparkContext sc;
+
+    @Before
+    public void setUp() {
+        SparkConf conf = new SparkConf();
+        conf.setMaster("local[*]");
+        conf.setAppName("Validator Test - Spark 1");
+        sc = new JavaSparkContext(conf);
+    }
+
+    @After
+    public void tearDown() {
+        sc.stop();
+    }
+
     @Test
     public void testCleansedRowResultsValidationCountsV1() {
         CleansedRowResult cleansedRowResult1 = new CleansedRowResult();
@@ -50,10 +83,6 @@ public class ValidatorV1Test {
                                                                        cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
                                                                        cleansedRowResult1, cleansedRowResult2, cleansedRowResult3);
 
-        SparkConf conf = new SparkConf();
-        conf.setMaster("local[*]");
-        conf.setAppName("Validator Test - Spark 1");
-        JavaSparkContext sc = new JavaSparkContext(conf);
         JavaRDD<CleansedRowResult> inputRDD = sc.parallelize(cleansedRowResultsList, 4);
 
         Validator validator = new Validator();
@@ -64,4 +93,137 @@ public class ValidatorV1Test {
 
         assertArrayEquals(expectedOutput, output);
     }
+
+    /**
+     * Verify the cleansed rows are written to the valid and invalid tables, and counted, by one single stage job per table with no shuffle or spill.
+     */
+    @Test
+    public void testWriteCleansedRowsSinglePassV1() throws Exception {
+        CleansedRowResult cleansedRowResult1 = new CleansedRowResult();
+        cleansedRowResult1.row = RowFactory.create("valid", 1, "", "20001");
+        cleansedRowResult1.rowIsValid = true;
+        cleansedRowResult1.columnsValid = new boolean[]{true, true, true};
+
+        CleansedRowResult cleansedRowResult2 = new CleansedRowResult();
+        cleansedRowResult2.row = RowFactory.create("invalid", "one", "[{\"scope\":\"field\"}]", "20001");
+        cleansedRowResult2.rowIsValid = false;
+        cleansedRowResult2.columnsValid = new boolean[]{true, false, true};
+
+        CleansedRowResult cleansedRowResult3 = new CleansedRowResult();
+        cleansedRowResult3.row = RowFactory.create(null, "two", "[{\"scope\":\"field\"}]", "20001");
+        cleansedRowResult3.rowIsValid = false;
+        cleansedRowResult3.columnsValid = new boolean[]{false, false, true};
+
+        List<CleansedRowResult> cleansedRowResultsList = Arrays.asList(cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
+                                                                       cleansedRowResult1, cleansedRowResult1, cleansedRowResult1,
+                                                                       cleansedRowResult1, cleansedRowResult2, cleansedRowResult3);
+
+        // Use a local metastore and warehouse
+        File hiveDir = Files.createTempDirectory("validator-hive").toFile();
+        System.setProperty("javax.jdo.option.ConnectionURL", "jdbc:derby:;databaseName=" + new File(hiveDir, "metastore_db").getAbsolutePath() + ";create=true");
+        System.setProperty("hive.metastore.warehouse.dir", new File(hiveDir, "warehouse").toURI().toString());
+        HiveContext hiveContext = new HiveContext(sc.sc());
+        hiveContext.sql("CREATE TABLE routing_valid (name STRING, amount INT) PARTITIONED BY (processing_dttm STRING)");
+        hiveContext.sql("CREATE TABLE routing_invalid (name STRING, amount STRING, dlp_reject_reason STRING) PARTITIONED BY (processing_dttm STRING)");
+
+        StructType validSchema = DataTypes.createStructType(Arrays.asList(DataTypes.createStructField("name", DataTypes.StringType, true),
+                                                                          DataTypes.createStructField("amount", DataTypes.IntegerType, true),
+                                                                          DataTypes.createStructField("dlp_reject_reason", DataTypes.StringType, true),
+                                                                          DataTypes.createStructField("processing_dttm", DataTypes.StringType, true)));
+        StructType invalidSchema = DataTypes.createStructType(Arrays.asList(DataTypes.createStructField("name", DataTypes.StringType, true),
+                                                                            DataTypes.createStructField("amount", DataTypes.StringType, true),
+                                                                            DataTypes.createStructField("dlp_reject_reason", DataTypes.StringType, true),
+                                                                            DataTypes.createStructField("processing_dttm", DataTypes.StringType, true)));
+
+        Validator validator = new Validator();
+        validator.setArguments("default", "routing", "20001", "");
+        FieldUtils.writeField(validator, "hiveContext", hiveContext, true);
+        FieldUtils.writeField(validator, "scs", new SparkContextService16(), true);
+
+        StageMetricsListener listener = new StageMetricsListener();
+        sc.sc().addSparkListener(listener);
+
+        // Without persisting, each table is written by a single scan of the input and the counts are gathered while writing
+        JavaRDD<CleansedRowResult> inputRDD = sc.parallelize(cleansedRowResultsList, 4);
+        long[] counts = validator.writeCleansedRows(inputRDD, validSchema, invalidSchema, 3);
+
+        listener.awaitJobs(2);
+        assertEquals(2, listener.getStages());
+        assertEquals(0L, listener.getShuffleWriteBytes());
+        assertEquals(0L, listener.getMemoryBytesSpilled());
+        assertEquals(0L, listener.getDiskBytesSpilled());
+        assertArrayEquals(new long[]{1L, 2L, 0L, 7L, 2L}, counts);
+
+        List<Row> validRows = hiveContext.sql("SELECT name, amount FROM routing_valid WHERE processing_dttm = '20001'").collectAsList();
+        assertEquals(7, validRows.size());
+        assertEquals(1, validRows.get(0).getInt(1));
+
+        List<Row> invalidRows = hiveContext.sql("SELECT name, amount, dlp_reject_reason FROM routing_invalid WHERE processing_dttm = '20001' ORDER BY amount")
+            .collectAsList();
+        assertEquals(2, invalidRows.size());
+        assertEquals("invalid", invalidRows.get(0).getString(0));
+        assertEquals("one", invalidRows.get(0).getString(1));
+        assertEquals("[{\"scope\":\"field\"}]", invalidRows.get(0).getString(2));
+        assertEquals("two", invalidRows.get(1).getString(1));
+    }
+
+    /**
+     * Records the stage, shuffle and spill metrics of the jobs run.
+     */
+    private static class StageMetricsListener extends JavaSparkListener {
+
+        private int jobs;
+        private int stages;
+        private long shuffleWriteBytes;
+        private long memoryBytesSpilled;
+        private long diskBytesSpilled;
+
+        @Override
+        public synchronized void onJobEnd(SparkListenerJobEnd jobEnd) {
+            jobs++;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void onStageCompleted(SparkListenerStageCompleted stageCompleted) {
+            stages++;
+        }
+
+        @Override
+        public synchronized void onTaskEnd(SparkListenerTaskEnd taskEnd) {
+            TaskMetrics metrics = taskEnd.taskMetrics();
+            if (metrics != null) {
+                if (metrics.shuffleWriteMetrics().isDefined()) {
+                    shuffleWriteBytes += metrics.shuffleWriteMetrics().get().shuffleBytesWritten();
+                }
+                memoryBytesSpilled += metrics.memoryBytesSpilled();
+                diskBytesSpilled += metrics.diskBytesSpilled();
+            }
+        }
+
+        synchronized void awaitJobs(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000L;
+            long remaining = deadline - System.currentTimeMillis();
+            while (jobs < count && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+
+        synchronized int getStages() {
+            return stages;
+        }
+
+        synchronized long getShuffleWriteBytes() {
+            return shuffleWriteBytes;
+        }
+
+        synchronized long getMemoryBytesSpilled() {
+            return memoryBytesSpilled;
+        }
+
+        synchronized long getDiskBytesSpilled() {
+            return diskBytesSpilled;
+        }
+    }
 }
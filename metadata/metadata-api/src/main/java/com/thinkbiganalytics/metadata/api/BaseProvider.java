@@ -38,6 +38,18 @@ public interface BaseProvider<T, PK extends Serializable> {
     
     Page<T> findPage(Pageable page, String filter);
 
+    /**
+     * Finds a page of entities, optionally without counting every match.
+     *
+     * @param page          the page request
+     * @param filter        the filter to apply
+     * @param estimateCount true to estimate the total from this page rather than count all matches
+     * @return the page
+     */
+    default Page<T> findPage(Pageable page, String filter, boolean estimateCount) {
+        return findPage(page, filter);
+    }
+
     T update(T t);
 
     void delete(T t);
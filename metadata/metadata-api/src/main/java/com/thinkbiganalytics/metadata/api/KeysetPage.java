@@ -0,0 +1,81 @@
+package com.thinkbiganalytics.metadata.api;
+
+/*-
+ * #%L
+ * thinkbig-metadata-api
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A page of results located by a continuation token rather than an offset.
+ *
+ * <p>The token identifies the last entity of this page by its sort key, so the next page is found by the repository query
+ * itself instead of by skipping every preceding result.  Keyset pages are normally not counted; unless a total is given
+ * it is only the number of results known so far.</p>
+ */
+public class KeysetPage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 3420818396245717542L;
+
+    private final String continuationToken;
+
+    /**
+     * @param content           the page content
+     * @param pageable          the page request, whose sort defines the keyset order
+     * @param continuationToken the token for the next page, or null if this is the last page
+     */
+    public KeysetPage(List<T> content, Pageable pageable, String continuationToken) {
+        this(content, pageable, content.size() + (continuationToken != null ? 1 : 0), continuationToken);
+    }
+
+    /**
+     * @param content           the page content
+     * @param pageable          the page request, whose sort defines the keyset order
+     * @param total             the total, possibly approximate, number of results
+     * @param continuationToken the token for the next page, or null if this is the last page
+     */
+    public KeysetPage(List<T> content, Pageable pageable, long total, String continuationToken) {
+        super(content, pageable, total);
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * @return the token to pass to fetch the next page, or null if there are no more results
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return continuationToken != null;
+    }
+
+    @Override
+    public <S> KeysetPage<S> map(Converter<? super T, ? extends S> converter) {
+        List<S> content = getContent().stream().map(converter::convert).collect(Collectors.toList());
+        return new KeysetPage<>(content, new PageRequest(0, Math.max(1, getSize()), getSort()), getTotalElements(), continuationToken);
+    }
+}
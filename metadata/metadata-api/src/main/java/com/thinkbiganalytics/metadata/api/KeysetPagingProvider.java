@@ -0,0 +1,41 @@
+package com.thinkbiganalytics.metadata.api;
+
+/*-
+ * #%L
+ * thinkbig-metadata-api
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.springframework.data.domain.Pageable;
+
+/**
+ * A provider that can page through its entities by continuation token instead of by offset.
+ *
+ * @param <T> the type of entity
+ */
+public interface KeysetPagingProvider<T> {
+
+    /**
+     * Finds the page of entities that follows the one identified by the continuation token.  The offset of the page request is ignored.
+     *
+     * @param page              the page request, which supplies the page size and at most one sort property
+     * @param filter            the filter to apply
+     * @param continuationToken the token from the previous {@link KeysetPage}, or null for the first page
+     * @return the page
+     */
+    KeysetPage<T> findPageAfter(Pageable page, String filter, String continuationToken);
+}
@@ -1,6 +1,7 @@
 package com.thinkbiganalytics.metadata.api.feed;
 
 import com.thinkbiganalytics.metadata.api.BaseProvider;
+import com.thinkbiganalytics.metadata.api.KeysetPagingProvider;
 
 /*-
  * #%L
@@ -36,7 +37,7 @@ import java.util.Set;
 
 import javax.annotation.Nonnull;
 
-public interface FeedProvider extends BaseProvider<Feed, Feed.ID> {
+public interface FeedProvider extends BaseProvider<Feed, Feed.ID>, KeysetPagingProvider<Feed> {
 
     FeedSource ensureFeedSource(Feed.ID feedId, Datasource.ID dsId);
 
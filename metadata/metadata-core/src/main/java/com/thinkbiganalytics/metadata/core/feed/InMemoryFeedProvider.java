@@ -23,6 +23,7 @@ package com.thinkbiganalytics.metadata.core.feed;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
+import com.thinkbiganalytics.metadata.api.KeysetPage;
 import com.thinkbiganalytics.metadata.api.category.Category;
 import com.thinkbiganalytics.metadata.api.datasource.Datasource;
 import com.thinkbiganalytics.metadata.api.datasource.Datasource.ID;
@@ -48,7 +49,9 @@ import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementBuilder;
 import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementProvider;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -56,12 +59,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 /**
  * A provider of {@link Feed} objects that stores everything in memory.
@@ -381,6 +388,77 @@ public class InMemoryFeedProvider implements FeedProvider {
         return null;
     }
 
+    /* (non-Javadoc)
+     * @see com.thinkbiganalytics.metadata.api.KeysetPagingProvider#findPageAfter(org.springframework.data.domain.Pageable, java.lang.String, java.lang.String)
+     */
+    @Override
+    public KeysetPage<Feed> findPageAfter(Pageable page, String filter, String continuationToken) {
+        final Sort.Order order = page.getSort() != null && page.getSort().iterator().hasNext() ? page.getSort().iterator().next() : null;
+        final Comparator<Feed> comparator = keysetComparator(order);
+        final String pattern = filter != null && !filter.isEmpty() ? filter.toLowerCase() : null;
+
+        Feed last = null;
+        if (continuationToken != null) {
+            last = this.feeds.get(resolveFeed(continuationToken));
+            if (last == null) {
+                throw new IllegalArgumentException("The continuation token does not identify a feed: " + continuationToken);
+            }
+        }
+
+        final Feed after = last;
+        final List<Feed> sorted = this.feeds.values().stream()
+            .filter(feed -> pattern == null || matchesFilter(feed, pattern))
+            .filter(feed -> after == null || comparator.compare(feed, after) > 0)
+            .sorted(comparator)
+            .limit(page.getPageSize() + 1)
+            .collect(Collectors.toList());
+
+        final List<Feed> content = sorted.subList(0, Math.min(page.getPageSize(), sorted.size()));
+        final String nextToken = sorted.size() > page.getPageSize() ? content.get(content.size() - 1).getId().toString() : null;
+        return new KeysetPage<>(new ArrayList<>(content), new PageRequest(0, page.getPageSize(), page.getSort()), nextToken);
+    }
+
+    /**
+     * Orders feeds by the specified sort property, with nulls last, followed by the feed id which makes the order total.
+     */
+    private Comparator<Feed> keysetComparator(Sort.Order order) {
+        Comparator<Feed> comparator = Comparator.comparing(feed -> feed.getId().toString());
+        if (order != null) {
+            final Function<Feed, Comparable> key = keysetProperty(order.getProperty());
+            final Comparator<Comparable> direction = order.isAscending() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            comparator = Comparator.comparing(key, Comparator.nullsLast(direction)).thenComparing(comparator);
+        }
+        return comparator;
+    }
+
+    /**
+     * Gets the value of a feed for the specified sort property, using the same property names as the JCR provider.
+     */
+    private Function<Feed, Comparable> keysetProperty(String property) {
+        switch (property) {
+            case "feedName":
+                return Feed::getName;
+            case "category.name":
+                return feed -> feed.getCategory() != null ? feed.getCategory().getName() : null;
+            case "state":
+                return feed -> feed.getState() != null ? feed.getState().name() : null;
+            case "templateName":
+            case "updateDate":
+                return Feed::getModifiedTime;
+            default:
+                throw new IllegalArgumentException("Unknown sort property: " + property);
+        }
+    }
+
+    /**
+     * Indicates the feed name, category name, or state contains the specified lower case filter.
+     */
+    private boolean matchesFilter(Feed feed, String pattern) {
+        return (feed.getName() != null && feed.getName().toLowerCase().contains(pattern))
+               || (feed.getCategory() != null && feed.getCategory().getName() != null && feed.getCategory().getName().toLowerCase().contains(pattern))
+               || (feed.getState() != null && feed.getState().name().toLowerCase().contains(pattern));
+    }
+
     /* (non-Javadoc)
      * @see com.thinkbiganalytics.metadata.api.BaseProvider#update(java.lang.Object)
      */
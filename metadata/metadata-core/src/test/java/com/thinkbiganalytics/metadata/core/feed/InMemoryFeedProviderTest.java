@@ -0,0 +1,71 @@
+package com.thinkbiganalytics.metadata.core.feed;
+
+/*-
+ * #%L
+ * thinkbig-metadata-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.KeysetPage;
+import com.thinkbiganalytics.metadata.api.feed.Feed;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class InMemoryFeedProviderTest {
+
+    /**
+     * Verify pages follow each other by continuation token in the requested order.
+     */
+    @Test
+    public void testFindPageAfter() {
+        final InMemoryFeedProvider provider = new InMemoryFeedProvider();
+        for (final String name : Arrays.asList("paged_e", "paged_b", "other", "paged_a", "paged_d", "paged_c")) {
+            provider.ensureFeed("category", name, null);
+        }
+
+        Assert.assertEquals(Arrays.asList("paged_a", "paged_b", "paged_c", "paged_d", "paged_e"), readAllPages(provider, Sort.Direction.ASC));
+        Assert.assertEquals(Arrays.asList("paged_e", "paged_d", "paged_c", "paged_b", "paged_a"), readAllPages(provider, Sort.Direction.DESC));
+    }
+
+    /**
+     * Verify an unknown sort property is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindPageAfterUnknownSort() {
+        new InMemoryFeedProvider().findPageAfter(new PageRequest(0, 2, new Sort("unknown")), null, null);
+    }
+
+    private List<String> readAllPages(final InMemoryFeedProvider provider, final Sort.Direction direction) {
+        final List<String> names = new ArrayList<>();
+        String token = null;
+        do {
+            final KeysetPage<Feed> page = provider.findPageAfter(new PageRequest(0, 2, new Sort(direction, "feedName")), "PAGED", token);
+            Assert.assertTrue(page.getContent().size() <= 2);
+            names.addAll(page.getContent().stream().map(Feed::getName).collect(Collectors.toList()));
+            token = page.getContinuationToken();
+        } while (token != null);
+        return names;
+    }
+}
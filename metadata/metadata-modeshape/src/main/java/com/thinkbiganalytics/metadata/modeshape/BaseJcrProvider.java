@@ -22,9 +22,12 @@ package com.thinkbiganalytics.metadata.modeshape;
 
 import com.google.common.collect.Lists;
 import com.thinkbiganalytics.metadata.api.BaseProvider;
+import com.thinkbiganalytics.metadata.api.KeysetPage;
+import com.thinkbiganalytics.metadata.api.KeysetPagingProvider;
 import com.thinkbiganalytics.metadata.modeshape.common.JcrEntity;
 import com.thinkbiganalytics.metadata.modeshape.common.JcrObject;
 import com.thinkbiganalytics.metadata.modeshape.support.JcrPropertyUtil;
+import com.thinkbiganalytics.metadata.modeshape.support.JcrKeysetToken;
 import com.thinkbiganalytics.metadata.modeshape.support.JcrQueryUtil;
 import com.thinkbiganalytics.metadata.modeshape.support.JcrTool;
 import com.thinkbiganalytics.metadata.modeshape.support.JcrUtil;
@@ -36,17 +39,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import javax.jcr.AccessDeniedException;
@@ -55,17 +57,22 @@ import javax.jcr.Node;
 import javax.jcr.NodeIterator;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.nodetype.NodeType;
 import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
 import javax.jcr.query.RowIterator;
 
 
 
 /**
  */
-public abstract class BaseJcrProvider<T, PK extends Serializable> implements BaseProvider<T, PK> {
+public abstract class BaseJcrProvider<T, PK extends Serializable> implements BaseProvider<T, PK>, KeysetPagingProvider<T> {
 
     private static final Logger log = LoggerFactory.getLogger(BaseJcrProvider.class);
 
+    private static final String KEYSET_ID_COLUMN = "keysetId";
+    private static final String KEYSET_SORT_COLUMN = "keysetSort";
+
     private static final Pattern INVALID_SYSTEM_NAME_PATTERN = Pattern.compile("[^(A-Z)(a-z)(0-9)_-]");
     protected Class<T> entityClass;
     protected Class<? extends JcrEntity> jcrEntityClass;
@@ -390,22 +397,150 @@ public abstract class BaseJcrProvider<T, PK extends Serializable> implements Bas
 
     @Override
     public Page<T> findPage(Pageable pageable, String filter) {
-        int count = findCount(filter);
+        return findPage(pageable, filter, false);
+    }
+
+    /**
+     * Finds a page of entities.  If {@link #isQueryPageable()} the offset and limit are part of the query; otherwise the preceding
+     * result nodes are skipped without being wrapped as entities.  Only the nodes of the requested page are constructed as entities.
+     */
+    @Override
+    public Page<T> findPage(Pageable pageable, String filter, boolean estimateCount) {
+        final boolean queryPageable = isQueryPageable();
+        StringBuilder bldr = startBaseQuery();
+        appendJoins(bldr, pageable, filter);
+        appendFilter(bldr, filter);
+        appendSort(bldr, pageable);
+        if (queryPageable) {
+            appendOffset(bldr, pageable);
+        }
 
-        if (count > 0) {
-            StringBuilder bldr = startBaseQuery();
-            appendJoins(bldr, pageable, filter);
-            appendFilter(bldr, filter);
-            appendSort(bldr, pageable);
-//            appendOffset(bldr, pageable);
+        String query = bldr.toString();
+        try {
+            QueryResult result = JcrQueryUtil.query(getSession(), query);
+            NodeIterator nodes = result.getNodes();
+            if (!queryPageable) {
+                skipNodes(nodes, pageable.getOffset());
+            }
 
-            String query = bldr.toString();
-            List<T> fullList = find(query);
-            List<T> list = fullList.stream().skip(pageable.getOffset()).limit(pageable.getPageSize()).collect(Collectors.toList());
+            List<T> list = new ArrayList<>(pageable.getPageSize());
+            while (list.size() < pageable.getPageSize() && nodes.hasNext()) {
+                list.add(constructEntity(nodes.nextNode()));
+            }
+
+            final boolean hasMore = nodes.hasNext();
+            final long count;
+            if (estimateCount || (!hasMore && (!list.isEmpty() || pageable.getOffset() == 0))) {
+                // the end of this page is known, or an estimate was requested
+                count = pageable.getOffset() + list.size() + (hasMore ? 1 : 0);
+            } else if (queryPageable) {
+                count = findCount(filter);
+            } else {
+                count = pageable.getOffset() + list.size() + skipNodes(nodes, Long.MAX_VALUE);
+            }
             return new PageImpl<>(list, pageable, count);
-        } else {
-            return new PageImpl<T>(Collections.emptyList());
+        } catch (RepositoryException e) {
+            throw new MetadataRepositoryException("Unable to find page for Type : " + getNodeType(getJcrEntityClass()), e);
+        }
+    }
+
+    /**
+     * Finds the page following the entity identified by the continuation token.  The sort key of the last entity of the previous page is
+     * part of the query constraint, so the repository does not produce any of the preceding results.  Results are ordered by the first sort
+     * property of the page request followed by the node identifier, which makes the order total.
+     */
+    @Override
+    public KeysetPage<T> findPageAfter(Pageable pageable, String filter, String continuationToken) {
+        final String alias = getEntityAlias();
+        final String idColumn = alias + ".[" + getKeysetIdProperty() + "]";
+        final Sort.Order order = pageable.getSort() != null && pageable.getSort().iterator().hasNext() ? pageable.getSort().iterator().next() : null;
+        final String sortColumn = order != null ? deriveJcrPropertyName(order.getProperty()) : null;
+
+        StringBuilder bldr = new StringBuilder("SELECT ").append(idColumn).append(" AS ").append(KEYSET_ID_COLUMN);
+        if (sortColumn != null) {
+            bldr.append(", ").append(sortColumn).append(" AS ").append(KEYSET_SORT_COLUMN);
+        }
+        bldr.append(" FROM [").append(getNodeType(getJcrEntityClass())).append("] AS ").append(alias).append(" ");
+        appendJoins(bldr, pageable, filter);
+
+        List<String> constraints = new ArrayList<>();
+        StringBuilder filterBldr = new StringBuilder();
+        appendFilter(filterBldr, filter);
+        String filterConstraint = filterBldr.toString().trim();
+        if (filterConstraint.regionMatches(true, 0, "WHERE ", 0, 6)) {
+            filterConstraint = filterConstraint.substring(6);
+        }
+        if (!filterConstraint.isEmpty()) {
+            constraints.add("(" + filterConstraint + ")");
+        }
+        if (continuationToken != null) {
+            constraints.add(JcrKeysetToken.parse(continuationToken).toConstraint(sortColumn, order != null && !order.isAscending(), idColumn));
+        }
+        if (!constraints.isEmpty()) {
+            bldr.append("WHERE ").append(String.join(" AND ", constraints)).append(" ");
+        }
+
+        bldr.append("ORDER BY ");
+        if (sortColumn != null) {
+            bldr.append(sortColumn).append(" ").append(order.getDirection()).append(" NULLS LAST, ");
+        }
+        bldr.append(idColumn).append(" ASC");
+        if (isQueryPageable()) {
+            bldr.append(" LIMIT ").append(pageable.getPageSize() + 1);
+        }
+
+        String query = bldr.toString();
+        try {
+            QueryResult result = JcrQueryUtil.query(getSession(), query);
+            RowIterator rows = result.getRows();
+            List<T> list = new ArrayList<>(pageable.getPageSize());
+            JcrKeysetToken last = null;
+            while (list.size() < pageable.getPageSize() && rows.hasNext()) {
+                Row row = rows.nextRow();
+                list.add(constructEntity(row.getNode(alias)));
+                last = new JcrKeysetToken(sortColumn != null ? row.getValue(KEYSET_SORT_COLUMN) : null, row.getValue(KEYSET_ID_COLUMN).getString());
+            }
+            String nextToken = last != null && rows.hasNext() ? last.toString() : null;
+            return new KeysetPage<>(list, new PageRequest(0, pageable.getPageSize(), pageable.getSort()), nextToken);
+        } catch (RepositoryException e) {
+            throw new MetadataRepositoryException("Unable to find page for Type : " + getNodeType(getJcrEntityClass()), e);
+        }
+    }
+
+    /**
+     * Indicates whether every node matched by a query is visible to the current user, so the offset and limit can be applied by the query.
+     * When entity-level access control is enforced, ModeShape removes unreadable nodes as the results are iterated, after any limit, and the
+     * page must instead be located by iterating.  Subclasses whose entities are never access controlled may return true.
+     */
+    protected boolean isQueryPageable() {
+        return false;
+    }
+
+    /**
+     * Gets the property that uniquely identifies the entity nodes in a keyset query.  ModeShape fails to evaluate the {@code mode:id}
+     * pseudo-column within a constraint that spans joined selectors, so {@code jcr:uuid} is used whenever the node type is referenceable.
+     */
+    private String getKeysetIdProperty() {
+        try {
+            NodeType type = getSession().getWorkspace().getNodeTypeManager().getNodeType(getNodeType(getJcrEntityClass()));
+            return type.isNodeType("mix:referenceable") ? "jcr:uuid" : "mode:id";
+        } catch (RepositoryException e) {
+            throw new MetadataRepositoryException("Unable to determine the node type of Type : " + getNodeType(getJcrEntityClass()), e);
+        }
+    }
+
+    /**
+     * Advances past the specified number of nodes without constructing entities.
+     *
+     * @return the number of nodes skipped
+     */
+    private long skipNodes(NodeIterator nodes, long count) {
+        long skipped = 0;
+        while (skipped < count && nodes.hasNext()) {
+            nodes.nextNode();
+            skipped++;
         }
+        return skipped;
     }
 
     @Override
@@ -470,8 +605,8 @@ public abstract class BaseJcrProvider<T, PK extends Serializable> implements Bas
             for (String prop : props) {
                 if (!start) {
                     bldr.append(", ");
-                    start = false;
                 }
+                start = false;
                 bldr.append(alias).append(".").append(prop);
             }
         }
@@ -505,7 +640,8 @@ public abstract class BaseJcrProvider<T, PK extends Serializable> implements Bas
     }
 
     protected void appendOffset(StringBuilder bldr, Pageable pageable) {
-        bldr.append(" LIMIT ").append(pageable.getPageSize()).append(" OFFSET ").append(pageable.getOffset());
+        // one extra row shows whether another page follows
+        bldr.append(" LIMIT ").append(pageable.getPageSize() + 1).append(" OFFSET ").append(pageable.getOffset());
     }
 
     protected void appendSort(StringBuilder bldr, Pageable pageable) {
@@ -516,8 +652,8 @@ public abstract class BaseJcrProvider<T, PK extends Serializable> implements Bas
             for (Sort.Order order : pageable.getSort()) {
                 if (!first) {
                     bldr.append(", ");
-                    first = false;
                 }
+                first = false;
 
                 String jcrPropName = deriveJcrPropertyName(order.getProperty());
                 bldr.append(jcrPropName).append(" ").append(order.getDirection()).append(" NULLS LAST ");
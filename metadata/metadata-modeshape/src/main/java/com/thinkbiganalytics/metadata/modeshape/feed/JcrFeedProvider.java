@@ -517,17 +517,26 @@ public class JcrFeedProvider extends BaseJcrProvider<Feed, Feed.ID> implements F
 
     @Override
     public List<? extends Feed> findByTemplateId(FeedManagerTemplate.ID templateId) {
-        String query = "SELECT * from " + EntityUtil.asQueryProperty(JcrFeed.NODE_TYPE) + " as e WHERE e." + EntityUtil.asQueryProperty(FeedDetails.TEMPLATE) + " = $id";
+        String query = "SELECT e.* from " + EntityUtil.asQueryProperty(JcrFeed.NODE_TYPE) + " as e "
+                       + "INNER JOIN ['tba:feedSummary'] as summary on ISCHILDNODE(summary,e) "
+                       + "INNER JOIN ['tba:feedDetails'] as details on ISCHILDNODE(details,summary) "
+                       + "WHERE details." + EntityUtil.asQueryProperty(FeedDetails.TEMPLATE) + " = $id";
         Map<String, String> bindParams = new HashMap<>();
         bindParams.put("id", templateId.toString());
-        return JcrQueryUtil.find(getSession(), query, JcrFeed.class);
+
+        try {
+            QueryResult result = JcrQueryUtil.query(getSession(), query, bindParams);
+            return JcrQueryUtil.queryResultToList(result, JcrFeed.class);
+        } catch (RepositoryException e) {
+            throw new MetadataRepositoryException("Unable to getFeeds for Template ", e);
+        }
     }
 
     @Override
     public List<? extends Feed> findByCategoryId(Category.ID categoryId) {
 
         String query = "SELECT e.* from " + EntityUtil.asQueryProperty(JcrFeed.NODE_TYPE) + " as e "
-                       + "INNER JOIN ['tba:feedSummary'] as summary on ISCHILDNODE(summary,e)"
+                       + "INNER JOIN ['tba:feedSummary'] as summary on ISCHILDNODE(summary,e) "
                        + "WHERE summary." + EntityUtil.asQueryProperty(FeedSummary.CATEGORY) + " = $id";
 
         Map<String, String> bindParams = new HashMap<>();
@@ -786,6 +795,14 @@ public class JcrFeedProvider extends BaseJcrProvider<Feed, Feed.ID> implements F
         }
     }
 
+    /**
+     * Feed queries may be limited by the repository unless entity access control can hide feeds from the results.
+     */
+    @Override
+    protected boolean isQueryPageable() {
+        return !accessController.isEntityAccessControlled();
+    }
+
     @Override
     protected String getEntityQueryStartingPath() {
         return EntityUtil.pathForCategory();
@@ -0,0 +1,119 @@
+package com.thinkbiganalytics.metadata.modeshape.support;
+
+/*-
+ * #%L
+ * thinkbig-metadata-modeshape
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+
+/**
+ * A continuation token for keyset paging of JCR-SQL2 query results.  It records the sort value and node identifier of the last result
+ * of a page and produces the query constraint that selects the results after it.
+ */
+public class JcrKeysetToken {
+
+    private static final String SEPARATOR = "\n";
+
+    private final int type;
+    private final String value;
+    private final String id;
+
+    /**
+     * @param sortValue the sort column value of the last result, or null if the results are unsorted or the value was null
+     * @param id        the node identifier of the last result
+     */
+    public JcrKeysetToken(Value sortValue, String id) throws RepositoryException {
+        this(sortValue != null ? sortValue.getType() : PropertyType.UNDEFINED, sortValue != null ? sortValue.getString() : null, id);
+    }
+
+    private JcrKeysetToken(int type, String value, String id) {
+        this.type = type;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Decodes a token created by {@link #toString()}.
+     *
+     * @throws IllegalArgumentException if the token is not valid
+     */
+    public static JcrKeysetToken parse(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+            int type = Integer.parseInt(parts[0]);
+            return new JcrKeysetToken(type, type == PropertyType.UNDEFINED ? null : parts[2], parts[1]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+
+    /**
+     * Creates the constraint selecting the results that follow this one when ordered by the sort column, with nulls last, and then by id.
+     *
+     * @param sortColumn the sort column, or null if ordered by id only
+     * @param descending true if the sort column is in descending order
+     * @param idColumn   the node identifier column
+     * @return the JCR-SQL2 constraint
+     */
+    public String toConstraint(String sortColumn, boolean descending, String idColumn) {
+        String afterId = idColumn + " > " + quote(id);
+        if (sortColumn == null) {
+            return afterId;
+        } else if (value == null) {
+            return "(NOT (" + sortColumn + " IS NOT NULL) AND " + afterId + ")";
+        } else {
+            String literal = literal();
+            return "(" + sortColumn + (descending ? " < " : " > ") + literal
+                   + " OR (" + sortColumn + " = " + literal + " AND " + afterId + ")"
+                   + " OR NOT (" + sortColumn + " IS NOT NULL))";
+        }
+    }
+
+    private String literal() {
+        switch (type) {
+            case PropertyType.DATE:
+                return "CAST(" + quote(value) + " AS DATE)";
+            case PropertyType.LONG:
+                return "CAST(" + quote(value) + " AS LONG)";
+            case PropertyType.DOUBLE:
+                return "CAST(" + quote(value) + " AS DOUBLE)";
+            case PropertyType.DECIMAL:
+                return "CAST(" + quote(value) + " AS DECIMAL)";
+            case PropertyType.BOOLEAN:
+                return "CAST(" + quote(value) + " AS BOOLEAN)";
+            default:
+                return quote(value);
+        }
+    }
+
+    private static String quote(String text) {
+        return "'" + text.replace("'", "''") + "'";
+    }
+
+    @Override
+    public String toString() {
+        String token = type + SEPARATOR + id + SEPARATOR + (value != null ? value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
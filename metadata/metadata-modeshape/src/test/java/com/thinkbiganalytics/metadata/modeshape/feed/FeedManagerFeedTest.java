@@ -20,6 +20,7 @@ package com.thinkbiganalytics.metadata.modeshape.feed;
  * #L%
  */
 
+import com.thinkbiganalytics.metadata.api.KeysetPage;
 import com.thinkbiganalytics.metadata.api.MetadataAccess;
 import com.thinkbiganalytics.metadata.api.category.Category;
 import com.thinkbiganalytics.metadata.api.datasource.Datasource;
@@ -42,12 +43,18 @@ import org.junit.runner.RunWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.testng.Assert;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -247,5 +254,90 @@ public class FeedManagerFeedTest {
 
     }
 
+    /**
+     * Test finding feeds by their template and category
+     */
+    @Test
+    public void testFindByTemplateAndCategory() {
+        Category.ID categoryId = metadata.commit(() -> {
+            FeedManagerTemplate template = feedTestUtil.findOrCreateTemplate("lookup_template");
+            FeedManagerTemplate other = feedTestUtil.findOrCreateTemplate("lookup_other_template");
+            Category category = feedTestUtil.findOrCreateCategory("lookup_category");
+            feedTestUtil.findOrCreateFeed(category, "lookup_feed_a", template);
+            feedTestUtil.findOrCreateFeed(category, "lookup_feed_b", template);
+            feedTestUtil.findOrCreateFeed(category, "lookup_feed_c", other);
+            return category.getId();
+        }, MetadataAccess.SERVICE);
+
+        metadata.read(() -> {
+            FeedManagerTemplate template = feedTestUtil.findOrCreateTemplate("lookup_template");
+            Assert.assertEquals(sortedFeedNames(feedProvider.findByTemplateId(template.getId())), Arrays.asList("lookup_feed_a", "lookup_feed_b"));
+            Assert.assertEquals(sortedFeedNames(feedProvider.findByCategoryId(categoryId)), Arrays.asList("lookup_feed_a", "lookup_feed_b", "lookup_feed_c"));
+        }, MetadataAccess.SERVICE);
+    }
+
+    /**
+     * Test paging through feeds by offset and by continuation token
+     */
+    @Test
+    public void testFeedPaging() {
+        String templateName = "paging_template";
+        List<String> expected = Arrays.asList("paged_feed_0", "paged_feed_1", "paged_feed_2", "paged_feed_3", "paged_feed_4", "paged_feed_5", "paged_feed_6");
+
+        metadata.commit(() -> {
+            FeedManagerTemplate template = feedTestUtil.findOrCreateTemplate(templateName);
+            Category first = feedTestUtil.findOrCreateCategory("paging_category_a");
+            Category second = feedTestUtil.findOrCreateCategory("paging_category_b");
+            for (int i = 0; i < expected.size(); i++) {
+                feedTestUtil.findOrCreateFeed(i % 2 == 0 ? first : second, expected.get(i), template);
+            }
+        }, MetadataAccess.SERVICE);
+
+        metadata.read(() -> {
+            Sort sort = new Sort("feedName");
+
+            Page<Feed> page = feedProvider.findPage(new PageRequest(1, 3, sort), "paged_feed");
+            Assert.assertEquals(feedNames(page.getContent()), expected.subList(3, 6));
+            Assert.assertEquals(page.getTotalElements(), expected.size());
+
+            Page<Feed> estimated = feedProvider.findPage(new PageRequest(0, 3, sort), "paged_feed", true);
+            Assert.assertEquals(feedNames(estimated.getContent()), expected.subList(0, 3));
+            Assert.assertTrue(estimated.hasNext());
+
+            Page<Feed> last = feedProvider.findPage(new PageRequest(2, 3, sort), "paged_feed", true);
+            Assert.assertEquals(feedNames(last.getContent()), expected.subList(6, 7));
+            Assert.assertEquals(last.getTotalElements(), expected.size());
+
+            List<String> ascending = new ArrayList<>();
+            String token = null;
+            do {
+                KeysetPage<Feed> keysetPage = feedProvider.findPageAfter(new PageRequest(0, 3, sort), "paged_feed", token);
+                ascending.addAll(feedNames(keysetPage.getContent()));
+                token = keysetPage.getContinuationToken();
+            } while (token != null);
+            Assert.assertEquals(ascending, expected);
+
+            List<String> descending = new ArrayList<>();
+            Sort descendingSort = new Sort(Sort.Direction.DESC, "feedName");
+            token = null;
+            do {
+                KeysetPage<Feed> keysetPage = feedProvider.findPageAfter(new PageRequest(0, 2, descendingSort), "paged_feed", token);
+                descending.addAll(feedNames(keysetPage.getContent()));
+                token = keysetPage.getContinuationToken();
+            } while (token != null);
+            Assert.assertEquals(descending.size(), expected.size());
+            Assert.assertEquals(descending.get(0), "paged_feed_6");
+            Assert.assertEquals(descending.get(expected.size() - 1), "paged_feed_0");
+        }, MetadataAccess.SERVICE);
+    }
+
+    private List<String> feedNames(List<Feed> feeds) {
+        return feeds.stream().map(Feed::getName).collect(Collectors.toList());
+    }
+
+    private List<String> sortedFeedNames(List<? extends Feed> feeds) {
+        return feeds.stream().map(Feed::getName).sorted().collect(Collectors.toList());
+    }
+
 
 }
@@ -0,0 +1,314 @@
+package com.thinkbiganalytics.policy.validation;
+
+/*-
+ * #%L
+ * thinkbig-field-policy-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * Scans the date and timestamp layouts accepted by Hive without throwing exceptions or allocating objects, so that
+ * invalid values can be rejected cheaply.
+ *
+ * <p>Dates must be {@code yyyy-MM-dd}.  Timestamps must be {@code yyyy-MM-dd HH:mm:ss} optionally followed by a fraction of
+ * 1 to 9 digits, or the equivalent ISO 8601 form with a {@code T} separator and an optional {@code Z} or {@code ±HH[[:]mm]}
+ * offset.  Other ISO 8601 forms, such as week dates, are reported as {@link Status#NOT_SCANNED} and must be checked with
+ * a full ISO 8601 parser.</p>
+ */
+public final class DateTimeScanner {
+
+    /**
+     * Index of the year in the fields array
+     */
+    public static final int YEAR = 0;
+
+    /**
+     * Index of the month of year in the fields array
+     */
+    public static final int MONTH = 1;
+
+    /**
+     * Index of the day of month in the fields array
+     */
+    public static final int DAY = 2;
+
+    /**
+     * Index of the hour of day in the fields array
+     */
+    public static final int HOUR = 3;
+
+    /**
+     * Index of the minute of hour in the fields array
+     */
+    public static final int MINUTE = 4;
+
+    /**
+     * Index of the second of minute in the fields array
+     */
+    public static final int SECOND = 5;
+
+    /**
+     * Index of the millisecond of second in the fields array
+     */
+    public static final int MILLIS = 6;
+
+    /**
+     * Number of elements required in the fields array
+     */
+    public static final int FIELD_COUNT = 7;
+
+    private static final int DATE_LENGTH = 10;
+    private static final int TIMESTAMP_MIN_LENGTH = 19;
+    private static final int TIMESTAMP_MAX_LENGTH = 29;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /**
+     * The result of scanning a value
+     */
+    public enum Status {
+        /**
+         * The value is in a supported layout and represents a valid date or time
+         */
+        VALID,
+
+        /**
+         * The value is not a valid date or time
+         */
+        INVALID,
+
+        /**
+         * The value may be an ISO 8601 form that is not handled by the scanner
+         */
+        NOT_SCANNED
+    }
+
+    private DateTimeScanner() {
+    }
+
+    /**
+     * Scans a {@code yyyy-MM-dd} date.
+     *
+     * @param value the value to scan
+     * @return the result of the scan
+     */
+    public static Status scanDate(CharSequence value) {
+        return scanDate(value, null);
+    }
+
+    /**
+     * Scans a {@code yyyy-MM-dd} date, storing the year, month, and day in the specified fields array if it is valid.
+     *
+     * @param value  the value to scan
+     * @param fields an array of {@link #FIELD_COUNT} elements, or {@code null} if the fields are not needed
+     * @return the result of the scan
+     */
+    public static Status scanDate(CharSequence value, int[] fields) {
+        if (value == null || value.length() != DATE_LENGTH) {
+            return Status.INVALID;
+        }
+        return scanDatePart(value, fields) ? Status.VALID : Status.INVALID;
+    }
+
+    /**
+     * Scans a timestamp.
+     *
+     * @param value the value to scan
+     * @return the result of the scan
+     */
+    public static Status scanTimestamp(CharSequence value) {
+        return scanTimestamp(value, null);
+    }
+
+    /**
+     * Scans a timestamp, storing its fields in the specified array if it is valid.  The offset of an ISO 8601 timestamp is
+     * checked but not stored.
+     *
+     * @param value  the value to scan
+     * @param fields an array of {@link #FIELD_COUNT} elements, or {@code null} if the fields are not needed
+     * @return the result of the scan
+     */
+    public static Status scanTimestamp(CharSequence value, int[] fields) {
+        if (value == null) {
+            return Status.INVALID;
+        }
+
+        int length = value.length();
+        if (length < TIMESTAMP_MIN_LENGTH || length > TIMESTAMP_MAX_LENGTH) {
+            return Status.INVALID;
+        }
+
+        boolean iso = value.charAt(DATE_LENGTH) == 'T';
+        int end = iso ? scanIsoTimestamp(value, fields) : scanHiveTimestamp(value, fields);
+
+        if (end == length) {
+            return Status.VALID;
+        } else {
+            return iso ? Status.NOT_SCANNED : Status.INVALID;
+        }
+    }
+
+    /**
+     * Scans a {@code yyyy-MM-dd HH:mm:ss[.fffffffff]} timestamp.
+     *
+     * @return the index following the timestamp, or -1 if it is not valid
+     */
+    private static int scanHiveTimestamp(CharSequence value, int[] fields) {
+        if (value.charAt(DATE_LENGTH) != ' ' || !scanDatePart(value, fields)) {
+            return -1;
+        }
+        return scanTimePart(value, DATE_LENGTH + 1, fields);
+    }
+
+    /**
+     * Scans a {@code yyyy-MM-ddTHH:mm:ss[.fffffffff][offset]} timestamp.
+     *
+     * @return the index following the timestamp, or -1 if it is not valid
+     */
+    private static int scanIsoTimestamp(CharSequence value, int[] fields) {
+        if (!scanDatePart(value, fields)) {
+            return -1;
+        }
+
+        int index = scanTimePart(value, DATE_LENGTH + 1, fields);
+        if (index < 0 || index == value.length()) {
+            return index;
+        }
+
+        char c = value.charAt(index);
+        if (c == 'Z') {
+            return index + 1;
+        } else if (c == '+' || c == '-') {
+            int hours = scanDigits(value, index + 1, 2);
+            if (hours < 0 || hours > 23) {
+                return -1;
+            }
+            index += 3;
+            if (index == value.length()) {
+                return index;
+            }
+            if (value.charAt(index) == ':') {
+                index++;
+            }
+            int minutes = scanDigits(value, index, 2);
+            return (minutes >= 0 && minutes <= 59) ? index + 2 : -1;
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Scans a {@code yyyy-MM-dd} date starting at the beginning of the value.
+     */
+    private static boolean scanDatePart(CharSequence value, int[] fields) {
+        if (value.charAt(4) != '-' || value.charAt(7) != '-') {
+            return false;
+        }
+
+        int year = scanDigits(value, 0, 4);
+        int month = scanDigits(value, 5, 2);
+        int day = scanDigits(value, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return false;
+        }
+
+        if (fields != null) {
+            fields[YEAR] = year;
+            fields[MONTH] = month;
+            fields[DAY] = day;
+        }
+        return true;
+    }
+
+    /**
+     * Scans a {@code HH:mm:ss[.fffffffff]} time starting at the specified index.
+     *
+     * @return the index following the time, or -1 if it is not valid
+     */
+    private static int scanTimePart(CharSequence value, int start, int[] fields) {
+        if (value.length() < start + 8 || value.charAt(start + 2) != ':' || value.charAt(start + 5) != ':') {
+            return -1;
+        }
+
+        int hour = scanDigits(value, start, 2);
+        int minute = scanDigits(value, start + 3, 2);
+        int second = scanDigits(value, start + 6, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return -1;
+        }
+
+        int index = start + 8;
+        int millis = 0;
+        if (index < value.length() && value.charAt(index) == '.') {
+            int digits = 0;
+            index++;
+            while (index < value.length() && isDigit(value.charAt(index))) {
+                if (digits < 3) {
+                    millis = millis * 10 + (value.charAt(index) - '0');
+                }
+                digits++;
+                index++;
+            }
+            if (digits == 0 || digits > 9) {
+                return -1;
+            }
+            for (int i = digits; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        if (fields != null) {
+            fields[HOUR] = hour;
+            fields[MINUTE] = minute;
+            fields[SECOND] = second;
+            fields[MILLIS] = millis;
+        }
+        return index;
+    }
+
+    /**
+     * Reads a fixed number of decimal digits.
+     *
+     * @return the value of the digits, or -1 if any character is not a digit
+     */
+    private static int scanDigits(CharSequence value, int start, int count) {
+        if (value.length() < start + count) {
+            return -1;
+        }
+
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+}
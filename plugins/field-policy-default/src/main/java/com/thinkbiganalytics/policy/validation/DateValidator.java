@@ -23,8 +23,7 @@ package com.thinkbiganalytics.policy.validation;
 
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,8 +34,6 @@ import org.slf4j.LoggerFactory;
 public class DateValidator implements ValidationPolicy<String> {
 
     private static final DateValidator instance = new DateValidator();
-    private static final DateTimeFormatter DATE = DateTimeFormat.forPattern("yyyy-MM-dd");
-    private static final int LENGTH = 10;
     private static Logger log = LoggerFactory.getLogger(DateValidator.class);
 
     private DateValidator() {
@@ -50,11 +47,9 @@ public class DateValidator implements ValidationPolicy<String> {
     @Override
     public boolean validate(String value) {
         if (!StringUtils.isEmpty(value)) {
-            try {
-                parseDate(value);
+            if (DateTimeScanner.scanDate(value) == DateTimeScanner.Status.VALID) {
                 return true;
-
-            } catch (IllegalArgumentException e) {
+            } else {
                 log.debug("Invalid date format [{}]", value);
                 return false;
             }
@@ -63,12 +58,13 @@ public class DateValidator implements ValidationPolicy<String> {
     }
 
     /**
-     * Parses the string date and returns the
+     * Parses the string date and returns the start of that day in UTC. Hive dates have no time zone, so a UTC date never falls in a
+     * daylight saving gap and every value accepted by {@link #validate(String)} can be parsed.
      */
     public DateTime parseDate(String value) {
-        int cnt = value.length();
-        if (cnt == LENGTH) {
-            return DATE.parseDateTime(value);
+        int[] fields = new int[DateTimeScanner.FIELD_COUNT];
+        if (DateTimeScanner.scanDate(value, fields) == DateTimeScanner.Status.VALID) {
+            return new DateTime(fields[DateTimeScanner.YEAR], fields[DateTimeScanner.MONTH], fields[DateTimeScanner.DAY], 0, 0, DateTimeZone.UTC);
         } else {
             throw new IllegalArgumentException("Expecting yyyy-MM-dd");
         }
@@ -28,7 +28,7 @@ import com.thinkbiganalytics.policy.PropertyLabelValue;
 
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
+import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 import org.slf4j.Logger;
@@ -40,12 +40,7 @@ import org.slf4j.LoggerFactory;
 @Validator(name = "Timestamp", description = "Validate Hive-friendly timstamp format")
 public class TimestampValidator implements ValidationPolicy<String> {
 
-    private static final DateTimeFormatter DATETIME_NANOS = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss.SSSSSSSSS");
-    private static final DateTimeFormatter DATETIME_MILLIS = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss.SSS");
-    private static final DateTimeFormatter DATETIME_NOMILLIS = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
-    private static final DateTimeFormatter DATETIME_ISO8601 = ISODateTimeFormat.dateTimeParser();
-    private static final int MIN_LENGTH = 19;
-    private static final int MAX_LENGTH = 29;
+    private static final DateTimeFormatter DATETIME_ISO8601 = ISODateTimeFormat.dateTimeParser().withZoneUTC();
     private static Logger log = LoggerFactory.getLogger(TimestampValidator.class);
     @PolicyProperty(name = "allowNull", value = "false", displayName = "Allow Null Values",
                     hint = "Null values are considered to be valid", type = PolicyPropertyTypes.PROPERTY_TYPE.select,
@@ -66,14 +61,25 @@ public class TimestampValidator implements ValidationPolicy<String> {
     @Override
     public boolean validate(String value) {
         if (!StringUtils.isEmpty(value)) {
-            try {
-                parseTimestamp(value);
+            if (isNullValue(value)) {
                 return true;
+            }
+
+            DateTimeScanner.Status status = DateTimeScanner.scanTimestamp(value);
+            if (status == DateTimeScanner.Status.NOT_SCANNED) {
+                try {
+                    DATETIME_ISO8601.parseDateTime(value);
+                    status = DateTimeScanner.Status.VALID;
+                } catch (IllegalArgumentException e) {
+                    status = DateTimeScanner.Status.INVALID;
+                }
+            }
 
-            } catch (IllegalArgumentException e) {
+            if (status == DateTimeScanner.Status.INVALID) {
                 log.debug("Invalid timestamp format [{}]", value);
                 return false;
             }
+            return true;
         } else {
             return allowNull;
         }
@@ -82,28 +88,34 @@ public class TimestampValidator implements ValidationPolicy<String> {
     /**
      * Parses the string date and returns the
      * Sqoop treats null values as \N.
+     *
+     * <p>Timestamps without an offset are read in UTC, as Hive timestamps have no time zone, so they never fall in a daylight saving gap
+     * and every value accepted by {@link #validate(String)} can be parsed.</p>
      */
     public DateTime parseTimestamp(String value) {
         // Check if the value is consider a null
-        if ((allowNull) && (value.toUpperCase().equals("NULL"))) {
+        if (isNullValue(value)) {
             return new DateTime();
         }
 
-        int cnt = value.length();
-        if (cnt < MIN_LENGTH || cnt > MAX_LENGTH) {
+        int[] fields = new int[DateTimeScanner.FIELD_COUNT];
+        DateTimeScanner.Status status = DateTimeScanner.scanTimestamp(value, fields);
+        if (status == DateTimeScanner.Status.INVALID) {
             throw new IllegalArgumentException("Unexpected format");
-        }
-        if (value.charAt(10) == 'T') {
+        } else if (value.charAt(10) == 'T') {
+            // ISO 8601 timestamps may include an offset
             return DATETIME_ISO8601.parseDateTime(value);
-        } else if (cnt == MIN_LENGTH) {
-            return DATETIME_NOMILLIS.parseDateTime(value);
-        } else if (cnt == MAX_LENGTH) {
-            return DATETIME_NANOS.parseDateTime(value);
         } else {
-            return DATETIME_MILLIS.parseDateTime(value);
+            return new DateTime(fields[DateTimeScanner.YEAR], fields[DateTimeScanner.MONTH], fields[DateTimeScanner.DAY],
+                                fields[DateTimeScanner.HOUR], fields[DateTimeScanner.MINUTE], fields[DateTimeScanner.SECOND],
+                                fields[DateTimeScanner.MILLIS], DateTimeZone.UTC);
         }
     }
 
+    private boolean isNullValue(String value) {
+        return allowNull && "NULL".equalsIgnoreCase(value);
+    }
+
     public boolean getAllowNull() {
         return allowNull;
     }
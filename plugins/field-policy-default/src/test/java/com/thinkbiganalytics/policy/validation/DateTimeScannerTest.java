@@ -0,0 +1,97 @@
+package com.thinkbiganalytics.policy.validation;
+
+/*-
+ * #%L
+ * thinkbig-field-policy-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * test the {@link DateTimeScanner}
+ */
+public class DateTimeScannerTest {
+
+    @Test
+    public void testScanDate() throws Exception {
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanDate("2015-01-15"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanDate("2016-02-29"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanDate("2000-02-29"));
+
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate(null));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate(""));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate("2015-02-29"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate("1900-02-29"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate("2015-04-31"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate("2015-13-01"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate("2015-00-01"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate("2015/01/15"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate("15-01-2015"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanDate("2015-1-015"));
+    }
+
+    @Test
+    public void testScanTimestamp() throws Exception {
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("2015-01-15 11:10:20"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("2015-01-15 11:10:20.3"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("2015-01-15 11:10:20.333"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("2015-01-15 23:59:59.333444555"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("2016-02-03T07:55:29Z"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("1994-11-05T08:15:30-05:00"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("1994-11-05T08:15:30.123+0530"));
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("1994-11-05T08:15:30+05"));
+
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp(null));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp("2015-01-15"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp("2015/01/15 11:10:20"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp("2015-01-15 24:00:00"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp("2015-01-15 11:60:00"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp("2015-01-15 11:10:20."));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp("2015-01-15 11:10:20,333"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp("2015-02-30 11:10:20"));
+        assertEquals(DateTimeScanner.Status.INVALID, DateTimeScanner.scanTimestamp("2015-01-15 11:10:20.3334445556"));
+
+        assertEquals(DateTimeScanner.Status.NOT_SCANNED, DateTimeScanner.scanTimestamp("2015-W03-4T11:10:20"));
+        assertEquals(DateTimeScanner.Status.NOT_SCANNED, DateTimeScanner.scanTimestamp("2015-01-15T11:10:20,333"));
+    }
+
+    @Test
+    public void testFields() throws Exception {
+        int[] fields = new int[DateTimeScanner.FIELD_COUNT];
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("2015-01-15 11:10:20.03", fields));
+        assertArrayEquals(new int[]{2015, 1, 15, 11, 10, 20, 30}, fields);
+
+        assertEquals(DateTimeScanner.Status.VALID, DateTimeScanner.scanTimestamp("2015-01-15 11:10:20.987654321", fields));
+        assertEquals(987, fields[DateTimeScanner.MILLIS]);
+    }
+
+    @Test
+    public void testMatchesFormatter() throws Exception {
+        DateTimeFormatter formatter = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss.SSS").withZoneUTC();
+        TimestampValidator validator = new TimestampValidator();
+        for (String value : new String[]{"2015-01-15 11:10:20.333", "2015-06-30 00:00:00.001", "2016-12-31 23:59:59.999"}) {
+            assertEquals(formatter.parseDateTime(value), validator.parseTimestamp(value));
+        }
+    }
+}
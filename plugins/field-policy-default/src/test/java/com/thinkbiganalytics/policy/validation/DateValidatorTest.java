@@ -20,8 +20,10 @@ package com.thinkbiganalytics.policy.validation;
  * #L%
  */
 
+import org.joda.time.DateTimeZone;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -54,4 +56,18 @@ public class DateValidatorTest {
         }
 
     }
+
+    @Test
+    public void testDaylightSavingGap() throws Exception {
+        // Midnight did not exist in Sao Paulo on 2015-10-18
+        DateTimeZone defaultZone = DateTimeZone.getDefault();
+        DateTimeZone.setDefault(DateTimeZone.forID("America/Sao_Paulo"));
+        try {
+            DateValidator ts = DateValidator.instance();
+            assertTrue(ts.validate("2015-10-18"));
+            assertEquals(18, ts.parseDate("2015-10-18").getDayOfMonth());
+        } finally {
+            DateTimeZone.setDefault(defaultZone);
+        }
+    }
 }
@@ -20,8 +20,10 @@ package com.thinkbiganalytics.policy.validation;
  * #L%
  */
 
+import org.joda.time.DateTimeZone;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -59,6 +61,22 @@ public class TimestampValidatorTest {
 
     }
 
+    @Test
+    public void testDaylightSavingGap() throws Exception {
+        // 02:30 did not exist in New York on 2015-03-08
+        DateTimeZone defaultZone = DateTimeZone.getDefault();
+        DateTimeZone.setDefault(DateTimeZone.forID("America/New_York"));
+        try {
+            TimestampValidator ts = new TimestampValidator(false);
+            for (String value : new String[]{"2015-03-08 02:30:00", "2015-03-08 02:30:00.500", "2015-03-08T02:30:00"}) {
+                assertTrue(value, ts.validate(value));
+                assertEquals(value, 2, ts.parseTimestamp(value).getHourOfDay());
+            }
+        } finally {
+            DateTimeZone.setDefault(defaultZone);
+        }
+    }
+
     @Test
     public void testNull() throws Exception {
         TimestampValidator ts = new TimestampValidator(true);
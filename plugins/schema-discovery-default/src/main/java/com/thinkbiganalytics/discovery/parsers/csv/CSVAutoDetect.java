@@ -91,13 +91,11 @@ class CSVAutoDetect {
         List<LineStats> lineStats = new Vector<>();
         String line;
         int rows = 0;
-        br.mark(32765);
         while ((line = br.readLine()) != null && rows < 100) {
             LineStats stats = new LineStats(line,separatorChar);
             rows++;
             lineStats.add(stats);
         }
-        br.reset();
         return lineStats;
     }
 
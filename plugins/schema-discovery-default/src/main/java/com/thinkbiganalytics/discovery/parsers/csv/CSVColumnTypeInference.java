@@ -0,0 +1,194 @@
+package com.thinkbiganalytics.discovery.parsers.csv;
+
+/*-
+ * #%L
+ * thinkbig-schema-discovery-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.sql.JDBCType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Infers the data type of each column of a delimited file one record at a time.
+ *
+ * Each column keeps a single position in the type lattice {@code NULL < INTEGER < BIGINT < DOUBLE < VARCHAR} which only ever moves up,
+ * so memory is bounded by the number of columns regardless of how many rows are sampled. Values are classified by scanning their
+ * characters instead of relying on parse exceptions.
+ */
+class CSVColumnTypeInference {
+
+    /**
+     * The type lattice, ordered from most to least specific
+     */
+    enum InferredType {
+        NULL(JDBCType.VARCHAR),
+        INTEGER(JDBCType.INTEGER),
+        BIGINT(JDBCType.BIGINT),
+        DOUBLE(JDBCType.DOUBLE),
+        VARCHAR(JDBCType.VARCHAR);
+
+        private final JDBCType jdbcType;
+
+        InferredType(JDBCType jdbcType) {
+            this.jdbcType = jdbcType;
+        }
+
+        JDBCType getJdbcType() {
+            return jdbcType;
+        }
+
+        /**
+         * @return the least specific of this type and the given type
+         */
+        InferredType merge(InferredType other) {
+            return other.ordinal() > ordinal() ? other : this;
+        }
+    }
+
+    private final List<InferredType> columns = new ArrayList<>();
+
+    private long rowCount;
+
+    /**
+     * Adds the values of a single record
+     *
+     * @param values the values of the record, a null or empty value does not affect the type of the column
+     */
+    void add(Iterable<String> values) {
+        int index = 0;
+        for (String value : values) {
+            if (index == columns.size()) {
+                columns.add(InferredType.NULL);
+            }
+            InferredType current = columns.get(index);
+            if (current != InferredType.VARCHAR) {
+                columns.set(index, current.merge(classify(value)));
+            }
+            index++;
+        }
+        rowCount++;
+    }
+
+    /**
+     * @return the number of records added
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param index the column index
+     * @return the JDBC type of the column, VARCHAR if no values were seen for the column
+     */
+    JDBCType getJdbcType(int index) {
+        return index < columns.size() ? columns.get(index).getJdbcType() : JDBCType.VARCHAR;
+    }
+
+    /**
+     * Determines the most specific type of the value
+     *
+     * @param value the value
+     * @return the type of the value
+     */
+    static InferredType classify(String value) {
+        if (value == null) {
+            return InferredType.NULL;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return InferredType.NULL;
+        }
+
+        int i = start;
+        boolean negative = false;
+        char first = value.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        // Integer part
+        int digitsStart = i;
+        long magnitude = 0;
+        boolean overflow = false;
+        while (i < end && isDigit(value.charAt(i))) {
+            if (!overflow) {
+                int digit = value.charAt(i) - '0';
+                if (magnitude > (Long.MAX_VALUE - digit) / 10) {
+                    overflow = true;
+                } else {
+                    magnitude = magnitude * 10 + digit;
+                }
+            }
+            i++;
+        }
+        int integerDigits = i - digitsStart;
+        if (i == end) {
+            if (integerDigits == 0) {
+                return InferredType.VARCHAR;
+            }
+            if (overflow) {
+                return InferredType.DOUBLE;
+            }
+            long signed = negative ? -magnitude : magnitude;
+            return (signed >= Integer.MIN_VALUE && signed <= Integer.MAX_VALUE) ? InferredType.INTEGER : InferredType.BIGINT;
+        }
+
+        // Fraction part
+        int fractionDigits = 0;
+        if (value.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(value.charAt(i))) {
+                fractionDigits++;
+                i++;
+            }
+        }
+        if (integerDigits == 0 && fractionDigits == 0) {
+            return InferredType.VARCHAR;
+        }
+
+        // Exponent part
+        if (i < end && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            while (i < end && isDigit(value.charAt(i))) {
+                exponentDigits++;
+                i++;
+            }
+            if (exponentDigits == 0) {
+                return InferredType.VARCHAR;
+            }
+        }
+        return (i == end) ? InferredType.DOUBLE : InferredType.VARCHAR;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
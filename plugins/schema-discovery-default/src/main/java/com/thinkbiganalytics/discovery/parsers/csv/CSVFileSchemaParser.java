@@ -37,18 +37,22 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.csv.QuoteMode;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
 
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Reader;
-import java.io.StringReader;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import javax.annotation.Nonnull;
 
@@ -57,9 +61,26 @@ public class CSVFileSchemaParser implements FileSchemaParser {
 
     private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(CSVFileSchemaParser.class);
 
-    private static final int MAX_ROWS = 1000;
+    private static final int MAX_ROWS = 1000000;
 
-    private int numRowsToSample = 100;
+    /**
+     * Number of lines at the head of the file used to detect the format
+     */
+    private static final int DETECTION_ROWS = 100;
+
+    /**
+     * Maximum number of characters at the head of the file used to detect the format
+     */
+    private static final int MAX_DETECTION_CHARS = 128000;
+
+    /**
+     * Number of sample values kept for each field
+     */
+    private static final int MAX_SAMPLE_VALUES = 9;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private int numRowsToSample = 10000;
 
     @PolicyProperty(name = "Auto Detect?", hint = "Auto detect will attempt to infer delimiter from the sample file.", type = PolicyPropertyTypes.PROPERTY_TYPE.select,
                     selectableValues = {"true", "false"})
@@ -109,31 +130,67 @@ public class CSVFileSchemaParser implements FileSchemaParser {
         Validate.notNull(charset, "charset must not be null");
         validate();
 
-        // Parse the file
-        String sampleData = ParserHelper.extractSampleLines(is, charset, numRowsToSample);
-        Validate.notEmpty(sampleData, "No data in file");
-        CSVFormat format = createCSVFormat(sampleData);
-        try (Reader reader = new StringReader(sampleData)) {
+        // Detect the format from the head of the stream then parse the stream in a single pass
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, charset), BUFFER_SIZE);
+        String detectionWindow = readDetectionWindow(reader);
+        Validate.notEmpty(detectionWindow, "No data in file");
+        CSVFormat format = createCSVFormat(detectionWindow);
+
+        CSVParser parser = format.parse(reader);
+        CSVColumnTypeInference typeInference = new CSVColumnTypeInference();
+        DefaultFileSchema fileSchema = populateSchema(parser, typeInference);
+        fileSchema.setCharset(charset.name());
 
-            CSVParser parser = format.parse(reader);
-            DefaultFileSchema fileSchema = populateSchema(parser);
-            fileSchema.setCharset(charset.name());
+        // Convert to target schema with proper derived types
+        return convertToTarget(target, fileSchema, typeInference);
+    }
 
-            // Convert to target schema with proper derived types
-            Schema targetSchema = convertToTarget(target, fileSchema);
-            return targetSchema;
+    /**
+     * Reads the lines used to detect the format and then resets the reader so they are parsed again as part of the stream.
+     * This protects memory in the case where a large file is submitted with no newlines.
+     *
+     * @param reader the reader for the file
+     * @return the lines at the head of the file
+     * @throws IOException if the file cannot be read or contains no newlines
+     */
+    private String readDetectionWindow(BufferedReader reader) throws IOException {
+        // Read a bounded block in case there are no newlines
+        char[] block = new char[MAX_DETECTION_CHARS];
+        reader.mark(MAX_DETECTION_CHARS + 1);
+        int length = IOUtils.read(reader, block);
+        reader.reset();
+
+        StringBuilder window = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(new CharArrayReader(block, 0, length))) {
+            int linesRead = 0;
+            String line;
+            while (linesRead < DETECTION_ROWS && (line = br.readLine()) != null) {
+                window.append(line).append("\n");
+                linesRead++;
+            }
+            if (linesRead <= 1 && window.length() >= MAX_DETECTION_CHARS) {
+                throw new IOException("Failed to detect newlines for sample file.");
+            }
         }
+        return window.toString();
     }
 
-    private DefaultFileSchema populateSchema(CSVParser parser) {
+    /**
+     * Builds the fields from the header and samples up to {@code numRowsToSample} records to infer the type of each field.
+     * Only the first few values of each field are kept as sample values.
+     */
+    private DefaultFileSchema populateSchema(CSVParser parser, CSVColumnTypeInference typeInference) {
         DefaultFileSchema fileSchema = new DefaultFileSchema();
         int i = 0;
         ArrayList<Field> fields = new ArrayList<>();
-        for (CSVRecord record : parser) {
-            if (i > 9) {
-                break;
-            }
+        Iterator<CSVRecord> records = parser.iterator();
+        int numRecords = headerRow ? numRowsToSample + 1 : numRowsToSample;
+        while (i < numRecords && hasNextRecord(records, i)) {
+            CSVRecord record = records.next();
             int size = record.size();
+            if (i > 0 || !headerRow) {
+                typeInference.add(record);
+            }
             for (int j = 0; j < size; j++) {
                 DefaultField field = null;
                 if (i == 0) {
@@ -144,7 +201,7 @@ public class CSVFileSchemaParser implements FileSchemaParser {
                         field.setName("Col_" + (j + 1));
                     }
                     fields.add(field);
-                } else {
+                } else if (i <= MAX_SAMPLE_VALUES) {
                     try {
                         field = (DefaultField) fields.get(j);
                         field.getSampleValues().add(StringUtils.defaultString(record.get(j), ""));
@@ -160,6 +217,34 @@ public class CSVFileSchemaParser implements FileSchemaParser {
         return fileSchema;
     }
 
+    /**
+     * Determines if there is another record to sample. A malformed record after the first one ends the sample instead of failing the parse.
+     */
+    private boolean hasNextRecord(Iterator<CSVRecord> records, int row) {
+        try {
+            return records.hasNext();
+        } catch (IllegalStateException e) {
+            if (row == 0) {
+                throw e;
+            }
+            LOG.warn("Unable to parse sample file after row [{}]. Sampling stopped.", row, e);
+            return false;
+        }
+    }
+
+    /**
+     * Converts the raw file schema to the target schema using the types inferred from the sampled records
+     */
+    private Schema convertToTarget(TableSchemaType target, Schema sourceSchema, CSVColumnTypeInference typeInference) {
+        if (target != TableSchemaType.RAW) {
+            List<? extends Field> fields = sourceSchema.getFields();
+            for (int j = 0; j < fields.size(); j++) {
+                ParserHelper.deriveDataType(target, fields.get(j), typeInference.getJdbcType(j));
+            }
+        }
+        return convertToTarget(target, sourceSchema);
+    }
+
     /**
      * Converts the raw file schema to the target schema with correctly derived types
      *
@@ -0,0 +1,177 @@
+package com.thinkbiganalytics.discovery.parsers.hadoop;
+
+/*-
+ * #%L
+ * thinkbig-schema-discovery-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.discovery.model.DefaultQueryResult;
+import com.thinkbiganalytics.discovery.model.DefaultQueryResultColumn;
+import com.thinkbiganalytics.discovery.schema.QueryResult;
+import com.thinkbiganalytics.discovery.schema.QueryResultColumn;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the schema and sample rows of an Avro data file without Spark.
+ *
+ * <p>The schema is stored in the header of the file so only the header and the first blocks of records are read from the stream. The types are named the same as the Spark
+ * Avro data source would name them.</p>
+ */
+class AvroFileSchemaReader {
+
+    private AvroFileSchemaReader() {
+    }
+
+    /**
+     * Indicates the stream starts with the Avro magic bytes. The stream is reset to its current position.
+     *
+     * @param is a stream that supports mark
+     */
+    static boolean isAvro(InputStream is) throws IOException {
+        byte[] magic = DataFileConstants.MAGIC;
+        is.mark(magic.length);
+        try {
+            byte[] header = new byte[magic.length];
+            int length = 0;
+            int count;
+            while (length < header.length && (count = is.read(header, length, header.length - length)) > 0) {
+                length += count;
+            }
+            return Arrays.equals(magic, header);
+        } finally {
+            is.reset();
+        }
+    }
+
+    /**
+     * Reads the schema and at most the specified number of records from the stream. The rest of the stream is not read.
+     *
+     * @param is    the Avro data file
+     * @param limit the maximum number of sample rows
+     * @return the columns and sample rows
+     * @throws IOException if the stream is not an Avro data file of records
+     */
+    static QueryResult read(InputStream is, int limit) throws IOException {
+        DataFileStream<GenericRecord> stream = new DataFileStream<>(is, new GenericDatumReader<>());
+        Schema schema = stream.getSchema();
+        if (schema.getType() != Schema.Type.RECORD) {
+            throw new IOException("Avro schema is not a record [" + schema.getType() + "]");
+        }
+
+        DefaultQueryResult result = new DefaultQueryResult("avro");
+        List<QueryResultColumn> columns = new ArrayList<>();
+        for (Schema.Field field : schema.getFields()) {
+            DefaultQueryResultColumn column = new DefaultQueryResultColumn();
+            column.setField(field.name());
+            column.setDisplayName(field.name());
+            column.setDataType(toHiveType(field.schema()));
+            column.setComment(field.doc());
+            column.setIndex(columns.size());
+            columns.add(column);
+        }
+        result.setColumns(columns);
+
+        GenericRecord record = null;
+        for (int i = 0; i < limit && stream.hasNext(); ++i) {
+            record = stream.next(record);
+            Map<String, Object> row = new HashMap<>();
+            for (Schema.Field field : schema.getFields()) {
+                Object value = record.get(field.pos());
+                row.put(field.name(), value != null ? value.toString() : null);
+            }
+            result.addRow(row);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the Hive type of an Avro schema.
+     */
+    static String toHiveType(Schema schema) {
+        switch (schema.getType()) {
+            case RECORD:
+                return schema.getFields().stream()
+                    .map(field -> field.name() + ":" + toHiveType(field.schema()))
+                    .collect(Collectors.joining(",", "struct<", ">"));
+            case ARRAY:
+                return "array<" + toHiveType(schema.getElementType()) + ">";
+            case MAP:
+                return "map<string," + toHiveType(schema.getValueType()) + ">";
+            case UNION:
+                return toHiveType(schema.getTypes());
+            case ENUM:
+            case STRING:
+            case NULL:
+                return "string";
+            case BYTES:
+            case FIXED:
+                return "binary";
+            case INT:
+                return "int";
+            case LONG:
+                return "bigint";
+            case FLOAT:
+                return "float";
+            case DOUBLE:
+                return "double";
+            case BOOLEAN:
+                return "boolean";
+            default:
+                throw new IllegalArgumentException("Unsupported Avro type [" + schema.getType() + "]");
+        }
+    }
+
+    /**
+     * Gets the Hive type of a union. Nulls make the other type nullable, numbers are widened, and other unions become a struct with a field per member.
+     */
+    private static String toHiveType(List<Schema> union) {
+        List<Schema> types = union.stream().filter(type -> type.getType() != Schema.Type.NULL).collect(Collectors.toList());
+        if (types.isEmpty()) {
+            return "string";
+        } else if (types.size() == 1) {
+            return toHiveType(types.get(0));
+        }
+
+        List<Schema.Type> members = types.stream().map(Schema::getType).collect(Collectors.toList());
+        if (members.size() == 2 && members.contains(Schema.Type.INT) && members.contains(Schema.Type.LONG)) {
+            return "bigint";
+        } else if (members.size() == 2 && members.contains(Schema.Type.FLOAT) && members.contains(Schema.Type.DOUBLE)) {
+            return "double";
+        }
+
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < types.size(); ++i) {
+            fields.add("member" + i + ":" + toHiveType(types.get(i)));
+        }
+        return "struct<" + String.join(",", fields) + ">";
+    }
+}
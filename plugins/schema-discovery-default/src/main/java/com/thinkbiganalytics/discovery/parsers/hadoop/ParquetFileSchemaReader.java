@@ -0,0 +1,247 @@
+package com.thinkbiganalytics.discovery.parsers.hadoop;
+
+/*-
+ * #%L
+ * thinkbig-schema-discovery-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.discovery.model.DefaultQueryResult;
+import com.thinkbiganalytics.discovery.model.DefaultQueryResultColumn;
+import com.thinkbiganalytics.discovery.schema.QueryResult;
+import com.thinkbiganalytics.discovery.schema.QueryResultColumn;
+
+import org.apache.parquet.format.ConvertedType;
+import org.apache.parquet.format.FieldRepetitionType;
+import org.apache.parquet.format.FileMetaData;
+import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the schema of a Parquet file from its footer without Spark.
+ *
+ * <p>Only the last bytes of the file are read. The types are named the same as the Spark Parquet data source would name them. Sample rows are not read as the pages would
+ * need to be decompressed and decoded.</p>
+ */
+class ParquetFileSchemaReader {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Size of the footer length and the magic bytes at the end of the file
+     */
+    private static final int TAIL_LENGTH = 4 + MAGIC.length;
+
+    private ParquetFileSchemaReader() {
+    }
+
+    /**
+     * Indicates the file starts and ends with the Parquet magic bytes.
+     */
+    static boolean isParquet(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < MAGIC.length + TAIL_LENGTH) {
+                return false;
+            }
+            byte[] head = new byte[MAGIC.length];
+            raf.readFully(head);
+            byte[] tail = new byte[MAGIC.length];
+            raf.seek(raf.length() - MAGIC.length);
+            raf.readFully(tail);
+            return Arrays.equals(MAGIC, head) && Arrays.equals(MAGIC, tail);
+        }
+    }
+
+    /**
+     * Reads the footer of the file.
+     *
+     * @param file the Parquet file
+     * @return the file metadata
+     * @throws IOException if the footer cannot be read
+     */
+    static FileMetaData readFooter(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - TAIL_LENGTH);
+            int footerLength = Integer.reverseBytes(raf.readInt());
+            long footerStart = raf.length() - TAIL_LENGTH - footerLength;
+            if (footerLength <= 0 || footerStart < MAGIC.length) {
+                throw new IOException("Invalid Parquet footer length [" + footerLength + "]");
+            }
+            byte[] footer = new byte[footerLength];
+            raf.seek(footerStart);
+            raf.readFully(footer);
+            return Util.readFileMetaData(new ByteArrayInputStream(footer));
+        }
+    }
+
+    /**
+     * Gets the schema from the footer of a file.
+     *
+     * @param metaData the file metadata
+     * @return the columns without any rows
+     * @throws IOException if the schema is invalid
+     */
+    static QueryResult toQueryResult(FileMetaData metaData) throws IOException {
+        List<SchemaElement> elements = metaData.getSchema();
+        if (elements == null || elements.isEmpty()) {
+            throw new IOException("Parquet footer does not have a schema");
+        }
+
+        DefaultQueryResult result = new DefaultQueryResult("parquet");
+        List<QueryResultColumn> columns = new ArrayList<>();
+        Cursor cursor = new Cursor(elements);
+        int children = cursor.next().getNum_children();
+        for (int i = 0; i < children; ++i) {
+            SchemaElement element = cursor.peek();
+            DefaultQueryResultColumn column = new DefaultQueryResultColumn();
+            column.setField(element.getName());
+            column.setDisplayName(element.getName());
+            column.setDataType(toHiveType(cursor));
+            column.setIndex(columns.size());
+            columns.add(column);
+        }
+        result.setColumns(columns);
+        return result;
+    }
+
+    /**
+     * Gets the Hive type of the next field, including a repeated field that is not in a list.
+     */
+    private static String toHiveType(Cursor cursor) throws IOException {
+        boolean repeated = cursor.peek().getRepetition_type() == FieldRepetitionType.REPEATED;
+        String type = toElementType(cursor);
+        return repeated ? "array<" + type + ">" : type;
+    }
+
+    /**
+     * Gets the Hive type of the next field ignoring its repetition.
+     */
+    private static String toElementType(Cursor cursor) throws IOException {
+        SchemaElement element = cursor.next();
+        if (!element.isSetNum_children()) {
+            return toPrimitiveType(element);
+        }
+
+        ConvertedType convertedType = element.getConverted_type();
+        if (convertedType == ConvertedType.LIST && element.getNum_children() == 1) {
+            return "array<" + toListElementType(element, cursor) + ">";
+        } else if ((convertedType == ConvertedType.MAP || convertedType == ConvertedType.MAP_KEY_VALUE) && element.getNum_children() == 1) {
+            SchemaElement keyValue = cursor.next();
+            if (keyValue.getNum_children() != 2) {
+                throw new IOException("Invalid Parquet map [" + element.getName() + "]");
+            }
+            return "map<" + toHiveType(cursor) + "," + toHiveType(cursor) + ">";
+        } else {
+            return toStructType(element.getNum_children(), cursor);
+        }
+    }
+
+    /**
+     * Gets the element type of a list using the backward compatibility rules of the Parquet format.
+     */
+    private static String toListElementType(SchemaElement list, Cursor cursor) throws IOException {
+        SchemaElement repeated = cursor.peek();
+        if (!repeated.isSetNum_children()) {
+            return toPrimitiveType(cursor.next());
+        } else if (repeated.getNum_children() > 1 || "array".equals(repeated.getName()) || (list.getName() + "_tuple").equals(repeated.getName())) {
+            cursor.next();
+            return toStructType(repeated.getNum_children(), cursor);
+        } else {
+            cursor.next();
+            return toHiveType(cursor);
+        }
+    }
+
+    private static String toStructType(int children, Cursor cursor) throws IOException {
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < children; ++i) {
+            String name = cursor.peek().getName();
+            fields.add(name + ":" + toHiveType(cursor));
+        }
+        return "struct<" + String.join(",", fields) + ">";
+    }
+
+    private static String toPrimitiveType(SchemaElement element) throws IOException {
+        ConvertedType convertedType = element.getConverted_type();
+        if (convertedType == ConvertedType.DECIMAL) {
+            return "decimal(" + element.getPrecision() + "," + element.getScale() + ")";
+        }
+        switch (element.getType()) {
+            case BOOLEAN:
+                return "boolean";
+            case INT32:
+                if (convertedType == ConvertedType.DATE) {
+                    return "date";
+                } else if (convertedType == ConvertedType.INT_8) {
+                    return "tinyint";
+                } else if (convertedType == ConvertedType.INT_16) {
+                    return "smallint";
+                }
+                return "int";
+            case INT64:
+                return "bigint";
+            case INT96:
+                return "timestamp";
+            case FLOAT:
+                return "float";
+            case DOUBLE:
+                return "double";
+            case BYTE_ARRAY:
+                return (convertedType == ConvertedType.UTF8 || convertedType == ConvertedType.ENUM || convertedType == ConvertedType.JSON) ? "string" : "binary";
+            case FIXED_LEN_BYTE_ARRAY:
+                return "binary";
+            default:
+                throw new IOException("Unsupported Parquet type [" + element.getType() + "]");
+        }
+    }
+
+    /**
+     * Walks the schema elements, which are stored depth-first.
+     */
+    private static class Cursor {
+
+        private final List<SchemaElement> elements;
+
+        private int position;
+
+        Cursor(List<SchemaElement> elements) {
+            this.elements = elements;
+        }
+
+        SchemaElement peek() throws IOException {
+            if (position >= elements.size()) {
+                throw new IOException("Parquet schema is missing elements");
+            }
+            return elements.get(position);
+        }
+
+        SchemaElement next() throws IOException {
+            SchemaElement element = peek();
+            ++position;
+            return element;
+        }
+    }
+}
@@ -37,10 +37,14 @@ import com.thinkbiganalytics.spark.shell.SparkShellProcessManager;
 import com.thinkbiganalytics.spark.shell.SparkShellRestClient;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.parquet.format.FileMetaData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -56,7 +60,7 @@ import java.util.regex.Pattern;
 import javax.inject.Inject;
 
 /**
- * Utilizes Spark's support to infer schema from a sample file
+ * Infers the schema from a sample file. The schema of Avro and Parquet files is read in-process, and Spark's support is used for other formats.
  */
 @Component
 public class SparkFileSchemaParserService {
@@ -75,11 +79,67 @@ public class SparkFileSchemaParserService {
     private SparkShellRestClient restClient;
 
     /**
-     * Delegate to spark shell service to load the file into a temporary table and loading it
+     * Maximum number of sample rows to read from a file
+     */
+    static final int SAMPLE_ROWS = 10;
+
+    /**
+     * Indicates the Avro and Parquet schemas are read in-process before delegating to Spark
+     */
+    @Value("${kylo.schema.discovery.inProcess:true}")
+    private boolean inProcessEnabled;
+
+    /**
+     * Indicates sample values are needed for Parquet files. The footer does not contain any rows so Spark is used for Parquet files with rows unless this is disabled.
+     */
+    @Value("${kylo.schema.discovery.parquetSampleValues:true}")
+    private boolean parquetSampleValues;
+
+    /**
+     * Reads the schema of Avro and Parquet files in-process from the header or footer, otherwise delegates to spark shell service to load the file into a temporary table
      */
     public Schema doParse(InputStream inputStream, SparkFileType fileType, TableSchemaType tableSchemaType) throws IOException {
+        File tempFile = File.createTempFile("kylo-spark-parser", ".dat");
+        try {
+            if (inProcessEnabled && fileType == SparkFileType.AVRO) {
+                BufferedInputStream bufferedStream = new BufferedInputStream(inputStream);
+                if (AvroFileSchemaReader.isAvro(bufferedStream)) {
+                    QueryResult result = null;
+                    // Only the bytes read are copied to the temporary file, unless the rest of the file is needed by Spark
+                    try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+                        try {
+                            result = AvroFileSchemaReader.read(new TeeInputStream(bufferedStream, fos), SAMPLE_ROWS);
+                        } catch (IOException | RuntimeException e) {
+                            log.warn("Unable to read Avro file, using Spark instead: {}", e.getMessage());
+                            IOUtils.copyLarge(bufferedStream, fos);
+                        }
+                    }
+                    return (result != null) ? toSchema(result, fileType, tableSchemaType) : doParseWithSpark(tempFile, fileType, tableSchemaType);
+                }
+                inputStream = bufferedStream;
+            }
 
-        File tempFile = toFile(inputStream);
+            toFile(inputStream, tempFile);
+            if (inProcessEnabled && fileType == SparkFileType.PARQUET && ParquetFileSchemaReader.isParquet(tempFile)) {
+                try {
+                    FileMetaData footer = ParquetFileSchemaReader.readFooter(tempFile);
+                    if (footer.getNum_rows() == 0 || !parquetSampleValues) {
+                        return toSchema(ParquetFileSchemaReader.toQueryResult(footer), fileType, tableSchemaType);
+                    }
+                } catch (IOException e) {
+                    log.warn("Unable to read Parquet footer, using Spark instead: {}", e.getMessage());
+                }
+            }
+            return doParseWithSpark(tempFile, fileType, tableSchemaType);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Delegate to spark shell service to load the file into a temporary table and loading it
+     */
+    private Schema doParseWithSpark(File tempFile, SparkFileType fileType, TableSchemaType tableSchemaType) throws IOException {
         try {
             SparkShellProcess shellProcess = shellProcessManager.getSystemProcess();
             TransformResponse response = restClient.transform(shellProcess, createTransformRequest(tempFile, fileType));
@@ -100,8 +160,6 @@ public class SparkFileSchemaParserService {
         } catch (Exception e) {
             log.error("Error parsing file {}: {}", fileType, e.getMessage());
             throw new IOException("Unexpected exception. Verify file is the proper format", e);
-        } finally {
-            tempFile.delete();
         }
     }
     // Port: 8450
@@ -140,7 +198,7 @@ public class SparkFileSchemaParserService {
             default:
                 throw new UnsupportedOperationException("Type not supported [" + fileType + "]");
         }
-        sb.append(String.format("sqlContext.read.%s(\"%s\").limit(10).toDF()", method, path));
+        sb.append(String.format("sqlContext.read.%s(\"%s\").limit(%d).toDF()", method, path, SAMPLE_ROWS));
         return sb.toString();
     }
 
@@ -202,13 +260,11 @@ public class SparkFileSchemaParserService {
         return schema;
     }
 
-    private File toFile(InputStream is) throws IOException {
-        File tempFile = File.createTempFile("kylo-spark-parser", ".dat");
+    private void toFile(InputStream is, File tempFile) throws IOException {
         try (FileOutputStream fos = new FileOutputStream(tempFile)) {
             IOUtils.copyLarge(is, fos);
         }
         log.info("Created temporary file {} success? {}", tempFile.getAbsoluteFile().toURI(), tempFile.exists());
-        return tempFile;
     }
 
     public enum SparkFileType {
@@ -0,0 +1,60 @@
+package com.thinkbiganalytics.discovery.parsers.csv;
+
+/*-
+ * #%L
+ * thinkbig-schema-discovery-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.discovery.schema.Schema;
+import com.thinkbiganalytics.discovery.util.TableSchemaType;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures sampling a generated 200 column file with sparse columns.  The number of rows is set by the {@code rows} system property, 100,000 by default.
+ */
+@Ignore
+public class CSVFileSchemaParserBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(CSVFileSchemaParserBenchmark.class);
+
+    private static final int COLUMNS = 200;
+
+    @Test
+    public void benchmarkWideFileSampling() throws Exception {
+        final int rows = Integer.getInteger("rows", 100000);
+        final CSVFileSchemaParser parser = new CSVFileSchemaParser();
+        parser.setAutoDetect(true);
+        parser.setNumRowsToSample(rows);
+
+        long start = System.currentTimeMillis();
+        try (InputStream is = new CSVFileSchemaParserTest.GeneratedCSVInputStream(COLUMNS, rows)) {
+            Schema schema = parser.parse(is, Charset.defaultCharset(), TableSchemaType.HIVE);
+            assertEquals(COLUMNS, schema.getFields().size());
+        }
+        log.info("Sampled {} rows of {} columns in {} ms", rows, COLUMNS, System.currentTimeMillis() - start);
+    }
+}
@@ -264,6 +264,129 @@ public class CSVFileSchemaParserTest {
         }
     }
 
+    @org.junit.Test
+    public void testTypeInference() throws Exception {
+        assertEquals(CSVColumnTypeInference.InferredType.NULL, CSVColumnTypeInference.classify(" "));
+        assertEquals(CSVColumnTypeInference.InferredType.INTEGER, CSVColumnTypeInference.classify("-2147483648"));
+        assertEquals(CSVColumnTypeInference.InferredType.BIGINT, CSVColumnTypeInference.classify("2147483648"));
+        assertEquals(CSVColumnTypeInference.InferredType.DOUBLE, CSVColumnTypeInference.classify("92233720368547758070"));
+        assertEquals(CSVColumnTypeInference.InferredType.DOUBLE, CSVColumnTypeInference.classify("-64.2001"));
+        assertEquals(CSVColumnTypeInference.InferredType.DOUBLE, CSVColumnTypeInference.classify(".5e-3"));
+        assertEquals(CSVColumnTypeInference.InferredType.VARCHAR, CSVColumnTypeInference.classify("1L"));
+        assertEquals(CSVColumnTypeInference.InferredType.VARCHAR, CSVColumnTypeInference.classify("200,00"));
+        assertEquals(CSVColumnTypeInference.InferredType.VARCHAR, CSVColumnTypeInference.classify("-"));
+        assertEquals(CSVColumnTypeInference.InferredType.VARCHAR, CSVColumnTypeInference.classify("1e"));
+
+        // Types derived from all sampled rows, not only the sample values
+        StringBuilder text = new StringBuilder("id,amount,name,sparse\n");
+        for (int i = 1; i <= 50; i++) {
+            text.append(i).append(",").append(i).append(",n").append(i).append(",").append(i == 40 ? "1.5" : "").append("\n");
+        }
+        text.append("3000000000,2.5,n51,\n");
+        try (InputStream is = toInputStream(text.toString())) {
+            HiveTableSchema schema = toHiveTableSchema(is);
+            List<? extends Field> fields = schema.getFields();
+            assertEquals("bigint", fields.get(0).getDerivedDataType());
+            assertEquals("double", fields.get(1).getDerivedDataType());
+            assertEquals("string", fields.get(2).getDerivedDataType());
+            assertEquals("double", fields.get(3).getDerivedDataType());
+            assertEquals(9, fields.get(0).getSampleValues().size());
+        }
+    }
+
+    /**
+     * Verify only the configured number of rows is sampled, with and without a header.
+     */
+    @org.junit.Test
+    public void testNumRowsToSample() throws Exception {
+        parser.setAutoDetect(false);
+        parser.setNumRowsToSample(5);
+        try (InputStream is = toInputStream("id\n1\n2\n3\n4\n5\nsix\n")) {
+            assertEquals("int", toHiveTableSchema(is).getFields().get(0).getDerivedDataType());
+        }
+
+        parser.setHeaderRow(false);
+        try (InputStream is = toInputStream("1\n2\n3\n4\n5\nsix\n")) {
+            assertEquals("int", toHiveTableSchema(is).getFields().get(0).getDerivedDataType());
+        }
+        try (InputStream is = toInputStream("1\n2\n3\n4\nfive\n")) {
+            assertEquals("string", toHiveTableSchema(is).getFields().get(0).getDerivedDataType());
+        }
+    }
+
+    /**
+     * Samples a 200 column file with sparse columns.
+     */
+    @org.junit.Test
+    public void testWideFileSampling() throws Exception {
+        final int columns = 200;
+        final int rows = 1000;
+        parser.setAutoDetect(true);
+        parser.setNumRowsToSample(rows);
+
+        try (InputStream is = new GeneratedCSVInputStream(columns, rows)) {
+            HiveTableSchema schema = toHiveTableSchema(is);
+            List<? extends Field> fields = schema.getFields();
+            assertEquals(columns, fields.size());
+            assertEquals(",", parser.getSeparatorChar());
+            IntStream.range(0, columns).forEach(idx -> {
+                // Every 4th column only has a value in the last row
+                String expected = (idx % 4 == 3) ? "string" : (idx % 2 == 0 ? "int" : "double");
+                assertEquals("col" + idx, expected, fields.get(idx).getDerivedDataType());
+            });
+        }
+    }
+
+    /**
+     * Generates a delimited file one row at a time so large samples do not need to be held in memory.
+     */
+    static class GeneratedCSVInputStream extends InputStream {
+
+        private final int columns;
+        private final int rows;
+        private int row = -1;
+        private byte[] current = new byte[0];
+        private int position;
+
+        GeneratedCSVInputStream(int columns, int rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == current.length) {
+                if (row >= rows) {
+                    return -1;
+                }
+                current = nextRow();
+                position = 0;
+            }
+            return current[position++];
+        }
+
+        private byte[] nextRow() {
+            StringBuilder sb = new StringBuilder();
+            for (int col = 0; col < columns; col++) {
+                if (col > 0) {
+                    sb.append(',');
+                }
+                if (row < 0) {
+                    sb.append("col").append(col);
+                } else if (col % 4 == 3) {
+                    sb.append(row == rows - 1 ? "x" : "");
+                } else if (col % 2 == 0) {
+                    sb.append(row);
+                } else {
+                    sb.append(row).append(".25");
+                }
+            }
+            sb.append('\n');
+            row++;
+            return sb.toString().getBytes();
+        }
+    }
+
     private void checkInvalidFormatException(IOException e) {
         assertTrue("Expecting unrecognized format exception", e.getLocalizedMessage().contains("Unrecognized format"));
     }
@@ -0,0 +1,65 @@
+package com.thinkbiganalytics.discovery.parsers.hadoop;
+
+/*-
+ * #%L
+ * thinkbig-schema-discovery-default
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.discovery.util.TableSchemaType;
+import com.thinkbiganalytics.spark.shell.SparkShellRestClient;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * Compares the latency of reading the Avro header in-process to copying the file for Spark, without the time Spark itself takes. The number of records is set by the
+ * {@code records} system property, 200,000 by default.
+ */
+@Ignore
+public class SparkFileSchemaParserServiceBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SparkFileSchemaParserServiceBenchmark.class);
+
+    @Test
+    public void benchmarkInProcessLatency() throws Exception {
+        byte[] avro = SparkFileSchemaParserServiceTest.avroFile(Integer.getInteger("records", 200000));
+        SparkShellRestClient restClient = Mockito.mock(SparkShellRestClient.class);
+        Mockito.when(restClient.transform(Mockito.any(), Mockito.any())).thenReturn(SparkFileSchemaParserServiceTest.transformResponse(SparkFileSchemaParserServiceTest.nonDecimalColumns()));
+        SparkFileSchemaParserService inProcess = SparkFileSchemaParserServiceTest.newService(restClient, true);
+        SparkFileSchemaParserService spark = SparkFileSchemaParserServiceTest.newService(restClient, false);
+
+        long inProcessNanos = Long.MAX_VALUE;
+        long sparkNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; ++i) {
+            long start = System.nanoTime();
+            inProcess.doParse(new ByteArrayInputStream(avro), SparkFileSchemaParserService.SparkFileType.AVRO, TableSchemaType.HIVE);
+            inProcessNanos = Math.min(inProcessNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            spark.doParse(new ByteArrayInputStream(avro), SparkFileSchemaParserService.SparkFileType.AVRO, TableSchemaType.HIVE);
+            sparkNanos = Math.min(sparkNanos, System.nanoTime() - start);
+        }
+
+        log.info("Read schema of {} byte Avro file in {} us in-process compared to {} us before calling Spark", avro.length, inProcessNanos / 1000, sparkNanos / 1000);
+    }
+}
@@ -27,18 +27,40 @@ import com.thinkbiganalytics.discovery.schema.QueryResult;
 import com.thinkbiganalytics.discovery.schema.QueryResultColumn;
 import com.thinkbiganalytics.discovery.schema.Schema;
 import com.thinkbiganalytics.discovery.util.TableSchemaType;
+import com.thinkbiganalytics.spark.rest.model.TransformRequest;
 import com.thinkbiganalytics.spark.rest.model.TransformResponse;
 import com.thinkbiganalytics.spark.shell.SparkShellProcessManager;
 import com.thinkbiganalytics.spark.shell.SparkShellRestClient;
 
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.parquet.format.ConvertedType;
+import org.apache.parquet.format.FieldRepetitionType;
+import org.apache.parquet.format.FileMetaData;
+import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.Type;
+import org.apache.parquet.format.Util;
+import org.junit.Assert;
 import org.mockito.Mockito;
 import org.mockito.internal.util.reflection.Whitebox;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -49,7 +71,6 @@ import static org.junit.Assert.assertTrue;
  */
 public class SparkFileSchemaParserServiceTest {
 
-
     private List<QueryResultColumn> decimalColumns() {
         List<QueryResultColumn> columns = new ArrayList<>();
         columns.add(newColumn("decimalColumn", "decimal(17,12)"));
@@ -57,14 +78,14 @@ public class SparkFileSchemaParserServiceTest {
         return columns;
     }
 
-    private List<QueryResultColumn> nonDecimalColumns() {
+    static List<QueryResultColumn> nonDecimalColumns() {
         List<QueryResultColumn> columns = new ArrayList<>();
         columns.add(newColumn("intColumn", "int"));
         columns.add(newColumn("stringColumn", "string"));
         return columns;
     }
 
-    private QueryResultColumn newColumn(String name, String dataType) {
+    private static QueryResultColumn newColumn(String name, String dataType) {
         QueryResultColumn column = new DefaultQueryResultColumn();
         column.setField(name);
         column.setDisplayName(name);
@@ -74,7 +95,7 @@ public class SparkFileSchemaParserServiceTest {
         return column;
     }
 
-    private TransformResponse transformResponse(List<QueryResultColumn> columns) {
+    static TransformResponse transformResponse(List<QueryResultColumn> columns) {
         TransformResponse transformResponse = new TransformResponse();
         transformResponse.setStatus(TransformResponse.Status.SUCCESS);
         QueryResult result = new DefaultQueryResult("query");
@@ -138,4 +159,189 @@ public class SparkFileSchemaParserServiceTest {
         }
     }
 
+    /**
+     * Verify the schema and sample rows of an Avro file are read without Spark.
+     */
+    @org.junit.Test
+    public void testAvroInProcess() throws Exception {
+        SparkShellRestClient restClient = Mockito.mock(SparkShellRestClient.class);
+        Schema schema = newService(restClient, true).doParse(new ByteArrayInputStream(avroFile(100)), SparkFileSchemaParserService.SparkFileType.AVRO, TableSchemaType.HIVE);
+
+        Assert.assertEquals("STORED AS AVRO", ((com.thinkbiganalytics.discovery.schema.HiveTableSchema) schema).getHiveFormat());
+        Assert.assertEquals(Arrays.asList("id:bigint", "name:string", "score:double", "tags:array<string>", "address:struct<city:string,zip:int>", "value:struct<member0:int,member1:string>"),
+                            schema.getFields().stream().map(field -> field.getName() + ":" + field.getDerivedDataType()).collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), schema.getFields().get(0).getSampleValues());
+        Assert.assertEquals(SparkFileSchemaParserService.SAMPLE_ROWS, schema.getFields().get(1).getSampleValues().size());
+        Mockito.verifyZeroInteractions(restClient);
+    }
+
+    /**
+     * Verify the schema of a Parquet file is read from the footer without Spark.
+     */
+    @org.junit.Test
+    public void testParquetFooter() throws Exception {
+        SparkShellRestClient restClient = Mockito.mock(SparkShellRestClient.class);
+        Schema schema = newService(restClient, true).doParse(new ByteArrayInputStream(parquetFile(0)), SparkFileSchemaParserService.SparkFileType.PARQUET, TableSchemaType.HIVE);
+
+        Assert.assertEquals(Arrays.asList("id:bigint", "name:string", "amount:decimal", "created:timestamp", "tags:array<string>", "attributes:map<string,int>", "point:struct<x:double,y:double>",
+                                          "codes:array<int>"),
+                            schema.getFields().stream().map(field -> field.getName() + ":" + field.getDerivedDataType()).collect(Collectors.toList()));
+        Assert.assertEquals("10,2", schema.getFields().get(2).getPrecisionScale());
+        Mockito.verifyZeroInteractions(restClient);
+    }
+
+    /**
+     * Verify files that are not Avro or Parquet still fall back to Spark.
+     */
+    @org.junit.Test
+    public void testFallbackToSpark() throws Exception {
+        SparkShellRestClient restClient = Mockito.mock(SparkShellRestClient.class);
+        Mockito.when(restClient.transform(Mockito.any(), Mockito.any())).thenReturn(transformResponse(nonDecimalColumns()));
+        SparkFileSchemaParserService service = newService(restClient, true);
+
+        byte[] json = "{\"intColumn\": 1, \"stringColumn\": \"a\"}".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(2, service.doParse(new ByteArrayInputStream(json), SparkFileSchemaParserService.SparkFileType.AVRO, TableSchemaType.HIVE).getFields().size());
+        Assert.assertEquals(2, service.doParse(new ByteArrayInputStream(json), SparkFileSchemaParserService.SparkFileType.PARQUET, TableSchemaType.HIVE).getFields().size());
+        Mockito.verify(restClient, Mockito.times(2)).transform(Mockito.any(), Mockito.any());
+    }
+
+    /**
+     * Verify Spark is used for the sample values of a Parquet file with rows, unless they are not needed.
+     */
+    @org.junit.Test
+    public void testParquetSampleValues() throws Exception {
+        SparkShellRestClient restClient = Mockito.mock(SparkShellRestClient.class);
+        Mockito.when(restClient.transform(Mockito.any(), Mockito.any())).thenReturn(transformResponse(nonDecimalColumns()));
+        SparkFileSchemaParserService service = newService(restClient, true);
+
+        Assert.assertEquals(2, service.doParse(new ByteArrayInputStream(parquetFile(100)), SparkFileSchemaParserService.SparkFileType.PARQUET, TableSchemaType.HIVE).getFields().size());
+        Mockito.verify(restClient).transform(Mockito.any(), Mockito.any());
+
+        Whitebox.setInternalState(service, "parquetSampleValues", false);
+        Assert.assertEquals(8, service.doParse(new ByteArrayInputStream(parquetFile(100)), SparkFileSchemaParserService.SparkFileType.PARQUET, TableSchemaType.HIVE).getFields().size());
+        Mockito.verifyNoMoreInteractions(restClient);
+    }
+
+    /**
+     * Verify an Avro file that cannot be read in-process is copied in full to the file loaded by Spark.
+     */
+    @org.junit.Test
+    public void testAvroFallbackToSpark() throws Exception {
+        org.apache.avro.Schema schema = org.apache.avro.Schema.create(org.apache.avro.Schema.Type.STRING);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema))) {
+            writer.create(schema, out);
+            for (int i = 0; i < 100000; ++i) {
+                writer.append("value" + i);
+            }
+        }
+        byte[] avro = out.toByteArray();
+
+        List<Long> fileLengths = new ArrayList<>();
+        SparkShellRestClient restClient = Mockito.mock(SparkShellRestClient.class);
+        Mockito.when(restClient.transform(Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            Matcher matcher = Pattern.compile("file://([^\"]+)").matcher(((TransformRequest) invocation.getArguments()[1]).getScript());
+            Assert.assertTrue(matcher.find());
+            fileLengths.add(new File(matcher.group(1)).length());
+            return transformResponse(nonDecimalColumns());
+        });
+
+        Schema result = newService(restClient, true).doParse(new ByteArrayInputStream(avro), SparkFileSchemaParserService.SparkFileType.AVRO, TableSchemaType.HIVE);
+        Assert.assertEquals(2, result.getFields().size());
+        Assert.assertEquals(Collections.singletonList((long) avro.length), fileLengths);
+    }
+
+    static SparkFileSchemaParserService newService(SparkShellRestClient restClient, boolean inProcessEnabled) {
+        SparkFileSchemaParserService service = new SparkFileSchemaParserService();
+        Whitebox.setInternalState(service, "shellProcessManager", Mockito.mock(SparkShellProcessManager.class));
+        Whitebox.setInternalState(service, "restClient", restClient);
+        Whitebox.setInternalState(service, "inProcessEnabled", inProcessEnabled);
+        Whitebox.setInternalState(service, "parquetSampleValues", true);
+        return service;
+    }
+
+    static byte[] avroFile(int records) throws IOException {
+        org.apache.avro.Schema address = SchemaBuilder.record("address").fields().requiredString("city").requiredInt("zip").endRecord();
+        org.apache.avro.Schema schema = SchemaBuilder.record("test").fields()
+            .requiredLong("id")
+            .optionalString("name")
+            .requiredDouble("score")
+            .name("tags").type().array().items().stringType().noDefault()
+            .name("address").type(address).noDefault()
+            .name("value").type().unionOf().intType().and().stringType().endUnion().noDefault()
+            .endRecord();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))) {
+            writer.create(schema, out);
+            for (int i = 0; i < records; ++i) {
+                GenericRecord addressRecord = new GenericData.Record(address);
+                addressRecord.put("city", "city" + i);
+                addressRecord.put("zip", i);
+                GenericRecord record = new GenericData.Record(schema);
+                record.put("id", (long) i);
+                record.put("name", "name" + i);
+                record.put("score", i / 2.0);
+                record.put("tags", Arrays.asList("a", "b"));
+                record.put("address", addressRecord);
+                record.put("value", i);
+                writer.append(record);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates a Parquet file without any row groups but with the specified number of rows in its footer.
+     */
+    private byte[] parquetFile(long rows) throws IOException {
+        List<SchemaElement> elements = Arrays.asList(
+            group("schema", null, null, 8),
+            primitive("id", FieldRepetitionType.REQUIRED, Type.INT64, null),
+            primitive("name", FieldRepetitionType.OPTIONAL, Type.BYTE_ARRAY, ConvertedType.UTF8),
+            primitive("amount", FieldRepetitionType.OPTIONAL, Type.FIXED_LEN_BYTE_ARRAY, ConvertedType.DECIMAL).setPrecision(10).setScale(2).setType_length(5),
+            primitive("created", FieldRepetitionType.OPTIONAL, Type.INT96, null),
+            group("tags", FieldRepetitionType.OPTIONAL, ConvertedType.LIST, 1),
+            group("list", FieldRepetitionType.REPEATED, null, 1),
+            primitive("element", FieldRepetitionType.OPTIONAL, Type.BYTE_ARRAY, ConvertedType.UTF8),
+            group("attributes", FieldRepetitionType.OPTIONAL, ConvertedType.MAP, 1),
+            group("key_value", FieldRepetitionType.REPEATED, ConvertedType.MAP_KEY_VALUE, 2),
+            primitive("key", FieldRepetitionType.REQUIRED, Type.BYTE_ARRAY, ConvertedType.UTF8),
+            primitive("value", FieldRepetitionType.OPTIONAL, Type.INT32, null),
+            group("point", FieldRepetitionType.OPTIONAL, null, 2),
+            primitive("x", FieldRepetitionType.REQUIRED, Type.DOUBLE, null),
+            primitive("y", FieldRepetitionType.REQUIRED, Type.DOUBLE, null),
+            primitive("codes", FieldRepetitionType.REPEATED, Type.INT32, null));
+
+        ByteArrayOutputStream footer = new ByteArrayOutputStream();
+        Util.writeFileMetaData(new FileMetaData(1, elements, rows, Collections.emptyList()), footer);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] magic = "PAR1".getBytes(StandardCharsets.US_ASCII);
+        out.write(magic);
+        footer.writeTo(out);
+        int length = footer.size();
+        out.write(new byte[]{(byte) length, (byte) (length >>> 8), (byte) (length >>> 16), (byte) (length >>> 24)});
+        out.write(magic);
+        return out.toByteArray();
+    }
+
+    private SchemaElement group(String name, FieldRepetitionType repetition, ConvertedType convertedType, int children) {
+        SchemaElement element = new SchemaElement(name).setNum_children(children);
+        if (repetition != null) {
+            element.setRepetition_type(repetition);
+        }
+        if (convertedType != null) {
+            element.setConverted_type(convertedType);
+        }
+        return element;
+    }
+
+    private SchemaElement primitive(String name, FieldRepetitionType repetition, Type type, ConvertedType convertedType) {
+        SchemaElement element = new SchemaElement(name).setType(type).setRepetition_type(repetition);
+        if (convertedType != null) {
+            element.setConverted_type(convertedType);
+        }
+        return element;
+    }
 }
@@ -25,8 +25,8 @@ import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecution;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecutionProvider;
 import com.thinkbiganalytics.metadata.sla.api.AssessmentResult;
 import com.thinkbiganalytics.metadata.sla.api.Metric;
+import com.thinkbiganalytics.metadata.sla.spi.BatchMetricAssessor;
 import com.thinkbiganalytics.metadata.sla.spi.MetricAssessmentBuilder;
-import com.thinkbiganalytics.metadata.sla.spi.MetricAssessor;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeConstants;
@@ -34,13 +34,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
 /**
  * SLA assessor used to asses the {@link FeedFailedMetric} and violate the SLA if the feed fails
  */
-public class FeedFailureMetricAssessor implements MetricAssessor<FeedFailedMetric, Serializable> {
+public class FeedFailureMetricAssessor implements BatchMetricAssessor<FeedFailedMetric, Serializable> {
 
     private static final Logger log = LoggerFactory.getLogger(FeedFailureMetricAssessor.class);
 
@@ -48,6 +54,11 @@ public class FeedFailureMetricAssessor implements MetricAssessor<FeedFailedMetri
     @Inject
     private FeedFailureService feedFailureService;
 
+    /**
+     * Last jobs loaded for the metrics being assessed by the current thread
+     */
+    private final ThreadLocal<Map<String, FeedFailureService.LastFeedFailure>> prefetchedJobs = new ThreadLocal<>();
+
 
     @Override
     public boolean accepts(Metric metric) {
@@ -60,7 +71,7 @@ public class FeedFailureMetricAssessor implements MetricAssessor<FeedFailedMetri
 
         String feedName = metric.getFeedName();
 
-        FeedFailureService.LastFeedFailure lastFeedFailure = feedFailureService.findLastJob(feedName);
+        FeedFailureService.LastFeedFailure lastFeedFailure = findLastJob(feedName);
         DateTime lastTime =feedFailureService.initializeTime;
         if(!lastFeedFailure.equals(FeedFailureService.EMPTY_JOB)){
             lastTime = lastFeedFailure.getDateTime();
@@ -83,4 +94,45 @@ public class FeedFailureMetricAssessor implements MetricAssessor<FeedFailedMetri
         }
 
     }
+
+    @Override
+    public void prefetch(Collection<FeedFailedMetric> metrics) {
+        Set<String> feedNames = new HashSet<>();
+        for (FeedFailedMetric metric : metrics) {
+            feedNames.add(metric.getFeedName());
+        }
+        prefetchedJobs.set(feedFailureService.findLastJobs(feedNames));
+    }
+
+    @Override
+    public void clear() {
+        prefetchedJobs.remove();
+    }
+
+    /**
+     * A failed feed is always assessed because the first assessment of a failure differs from later assessments.
+     */
+    @Override
+    public Serializable getInputs(FeedFailedMetric metric) {
+        if (prefetchedJobs.get() == null) {
+            return null;
+        }
+        FeedFailureService.LastFeedFailure lastFeedFailure = findLastJob(metric.getFeedName());
+        if (lastFeedFailure.equals(FeedFailureService.EMPTY_JOB)) {
+            return metric.getFeedName();
+        } else if (lastFeedFailure.isFailure()) {
+            return null;
+        } else {
+            return new ArrayList<>(Arrays.asList(metric.getFeedName(), lastFeedFailure.getDateTime().getMillis()));
+        }
+    }
+
+    /**
+     * Finds the last finished job for the feed, using the prefetched jobs if available.
+     */
+    private FeedFailureService.LastFeedFailure findLastJob(String feedName) {
+        Map<String, FeedFailureService.LastFeedFailure> jobs = prefetchedJobs.get();
+        FeedFailureService.LastFeedFailure lastFeedFailure = (jobs != null) ? jobs.get(feedName) : null;
+        return (lastFeedFailure != null) ? lastFeedFailure : feedFailureService.findLastJob(feedName);
+    }
 }
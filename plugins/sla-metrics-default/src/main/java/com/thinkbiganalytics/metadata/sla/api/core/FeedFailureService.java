@@ -31,6 +31,7 @@ import com.thinkbiganalytics.metadata.api.op.FeedOperation;
 import org.joda.time.DateTime;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -87,6 +88,26 @@ public class FeedFailureService {
 
     }
 
+    /**
+     * Finds the last finished job of each feed.
+     *
+     * @param feedNames the feeds
+     * @return the last job by feed name, or {@link #EMPTY_JOB} if the feed has no finished job
+     */
+    public Map<String, LastFeedFailure> findLastJobs(Collection<String> feedNames) {
+        return metadataAccess.read(() -> {
+            Map<String, LastFeedFailure> lastJobs = new HashMap<>();
+            for (Map.Entry<String, BatchJobExecution> entry : batchJobExecutionProvider.findLatestFinishedJobForFeeds(feedNames).entrySet()) {
+                BatchJobExecution latestJob = entry.getValue();
+                lastJobs.put(entry.getKey(), new LastFeedFailure(entry.getKey(), latestJob.getJobExecutionId(), latestJob.getEndTime(), !BatchJobExecution.JobStatus.FAILED.equals(latestJob.getStatus())));
+            }
+            for (String feedName : feedNames) {
+                lastJobs.putIfAbsent(feedName, EMPTY_JOB);
+            }
+            return lastJobs;
+        }, MetadataAccess.SERVICE);
+    }
+
     public boolean hasFailure(LastFeedFailure lastFeedFailure) {
         if(lastFeedFailure != null && lastFeedFailure.isFailure()){
             String feedName = lastFeedFailure.getFeedName();
@@ -30,24 +30,32 @@ import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecution;
 import com.thinkbiganalytics.metadata.api.jobrepo.job.BatchJobExecutionProvider;
 import com.thinkbiganalytics.metadata.sla.api.AssessmentResult;
 import com.thinkbiganalytics.metadata.sla.api.Metric;
+import com.thinkbiganalytics.metadata.sla.spi.BatchMetricAssessor;
 import com.thinkbiganalytics.metadata.sla.spi.MetricAssessmentBuilder;
-import com.thinkbiganalytics.metadata.sla.spi.MetricAssessor;
 import com.thinkbiganalytics.scheduler.util.CronExpressionUtil;
 
 import org.joda.time.DateTime;
 import org.joda.time.Period;
+import org.quartz.CronExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
 /**
  * Metric assessor to assess the {@link FeedOnTimeArrivalMetric}
  */
-public class FeedOnTimeArrivalMetricAssessor implements MetricAssessor<FeedOnTimeArrivalMetric, Serializable> {
+public class FeedOnTimeArrivalMetricAssessor implements BatchMetricAssessor<FeedOnTimeArrivalMetric, Serializable> {
 
     private static final Logger LOG = LoggerFactory.getLogger(FeedOnTimeArrivalMetricAssessor.class);
 
@@ -60,6 +68,11 @@ public class FeedOnTimeArrivalMetricAssessor implements MetricAssessor<FeedOnTim
     @Inject
     private MetadataAccess metadataAccess;
 
+    /**
+     * Facts loaded for the metrics being assessed by the current thread
+     */
+    private final ThreadLocal<Facts> prefetchedFacts = new ThreadLocal<>();
+
 
     /* (non-Javadoc)
      * @see com.thinkbiganalytics.metadata.sla.spi.MetricAssessor#accepts(com.thinkbiganalytics.metadata.sla.api.Metric)
@@ -80,9 +93,7 @@ public class FeedOnTimeArrivalMetricAssessor implements MetricAssessor<FeedOnTim
         builder.metric(metric);
 
         String feedName = metric.getFeedName();
-        BatchJobExecution jobExecution = metadataAccess.read(() -> {
-            return batchJobExecutionProvider.findLatestCompletedJobForFeed(feedName);
-        });
+        BatchJobExecution jobExecution = findLatestCompletedJob(feedName);
 
         DateTime lastFeedTime = null;
         if (jobExecution != null) {
@@ -97,9 +108,10 @@ public class FeedOnTimeArrivalMetricAssessor implements MetricAssessor<FeedOnTim
              nowDiffPeriod = new Period(nowDiff.longValue());
         }
         Long latePeriodMillis = metric.getLatePeriod().toStandardDuration().getMillis();
-        Long duration = CronExpressionUtil.getCronInterval(metric.getExpectedExpression());
+        ExpectedTime expected = getExpectedTime(metric.getExpectedExpression());
+        Long duration = expected.interval;
         Period acceptedPeriod = new Period(duration + latePeriodMillis);
-        Date expectedDate = CronExpressionUtil.getPreviousFireTime(metric.getExpectedExpression());
+        Date expectedDate = expected.previousFireTime;
         DateTime expectedTime = new DateTime(expectedDate);
         LOG.debug("Calculated the Expected Date to be {}  ", expectedTime);
         DateTime lateTime = expectedTime.plus(metric.getLatePeriod());
@@ -147,6 +159,78 @@ public class FeedOnTimeArrivalMetricAssessor implements MetricAssessor<FeedOnTim
     }
 
 
+    @Override
+    public void prefetch(Collection<FeedOnTimeArrivalMetric> metrics) {
+        Set<String> feedNames = new HashSet<>();
+        for (FeedOnTimeArrivalMetric metric : metrics) {
+            feedNames.add(metric.getFeedName());
+        }
+
+        Facts facts = new Facts();
+        facts.latestJobs = metadataAccess.read(() -> new HashMap<>(batchJobExecutionProvider.findLatestCompletedJobForFeeds(feedNames)), MetadataAccess.SERVICE);
+        for (String feedName : feedNames) {
+            facts.latestJobs.putIfAbsent(feedName, null);  // no completed job
+        }
+        prefetchedFacts.set(facts);
+    }
+
+    @Override
+    public void clear() {
+        prefetchedFacts.remove();
+    }
+
+    /**
+     * The assessment changes when a newer job completes, when the expected time moves to the next fire time, or when the allowed duration since the last job has passed.
+     */
+    @Override
+    public Serializable getInputs(FeedOnTimeArrivalMetric metric) {
+        if (prefetchedFacts.get() == null) {
+            return null;
+        }
+
+        BatchJobExecution jobExecution = findLatestCompletedJob(metric.getFeedName());
+        ExpectedTime expected = getExpectedTime(metric.getExpectedExpression());
+        if (jobExecution == null || jobExecution.getEndTime() == null) {
+            return new ArrayList<>(Arrays.asList(metric.getFeedName(), expected.previousFireTime.getTime()));
+        }
+
+        long lastFeedTime = jobExecution.getEndTime().getMillis();
+        boolean overdue = DateTime.now().getMillis() - lastFeedTime > expected.interval + metric.getLatePeriod().toStandardDuration().getMillis();
+        return new ArrayList<>(Arrays.asList(metric.getFeedName(), expected.previousFireTime.getTime(), jobExecution.getJobExecutionId(), lastFeedTime, overdue));
+    }
+
+    /**
+     * Finds the latest completed job for the feed, using the prefetched jobs if available.
+     */
+    private BatchJobExecution findLatestCompletedJob(String feedName) {
+        Facts facts = prefetchedFacts.get();
+        if (facts != null && facts.latestJobs.containsKey(feedName)) {
+            return facts.latestJobs.get(feedName);
+        }
+        BatchJobExecution jobExecution = metadataAccess.read(() -> {
+            return batchJobExecutionProvider.findLatestCompletedJobForFeed(feedName);
+        });
+        if (facts != null) {
+            facts.latestJobs.put(feedName, jobExecution);
+        }
+        return jobExecution;
+    }
+
+    /**
+     * Gets the interval and previous fire time of the cron expression, computing them once per cron expression for the prefetched metrics.
+     */
+    private ExpectedTime getExpectedTime(CronExpression cron) {
+        Facts facts = prefetchedFacts.get();
+        ExpectedTime expected = (facts != null) ? facts.expectedTimes.get(cron.getCronExpression()) : null;
+        if (expected == null) {
+            expected = new ExpectedTime(CronExpressionUtil.getCronInterval(cron), CronExpressionUtil.getPreviousFireTime(cron));
+            if (facts != null) {
+                facts.expectedTimes.put(cron.getCronExpression(), expected);
+            }
+        }
+        return expected;
+    }
+
     public MetadataAccess getMetadataAccess() {
         return metadataAccess;
     }
@@ -154,4 +238,35 @@ public class FeedOnTimeArrivalMetricAssessor implements MetricAssessor<FeedOnTim
     public void setMetadataAccess(MetadataAccess metadataAccess) {
         this.metadataAccess = metadataAccess;
     }
+
+    /**
+     * The interval and previous fire time of a cron expression
+     */
+    private static class ExpectedTime {
+
+        final long interval;
+
+        final Date previousFireTime;
+
+        ExpectedTime(long interval, Date previousFireTime) {
+            this.interval = interval;
+            this.previousFireTime = previousFireTime;
+        }
+    }
+
+    /**
+     * Facts loaded for the metrics being assessed
+     */
+    private static class Facts {
+
+        /**
+         * Latest completed job by feed name
+         */
+        Map<String, BatchJobExecution> latestJobs;
+
+        /**
+         * Expected times by cron expression
+         */
+        final Map<String, ExpectedTime> expectedTimes = new HashMap<>();
+    }
 }
@@ -23,7 +23,7 @@ package com.thinkbiganalytics.metadata.sla.config;
 import com.thinkbiganalytics.metadata.sla.api.Metric;
 import com.thinkbiganalytics.metadata.sla.api.core.FeedFailureMetricAssessor;
 import com.thinkbiganalytics.metadata.sla.api.core.FeedOnTimeArrivalMetricAssessor;
-import com.thinkbiganalytics.metadata.sla.spi.MetricAssessor;
+import com.thinkbiganalytics.metadata.sla.spi.BatchMetricAssessor;
 import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAssessor;
 
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -39,14 +39,14 @@ import java.io.Serializable;
 public class DefaultServiceLevelAgreementConfiguration {
 
     @Bean(name = "onTimeAssessor")
-    public MetricAssessor<? extends Metric, Serializable> onTimeMetricAssessor(@Qualifier("slaAssessor") ServiceLevelAssessor slaAssessor) {
+    public BatchMetricAssessor<? extends Metric, Serializable> onTimeMetricAssessor(@Qualifier("slaAssessor") ServiceLevelAssessor slaAssessor) {
         FeedOnTimeArrivalMetricAssessor metricAssr = new FeedOnTimeArrivalMetricAssessor();
         slaAssessor.registerMetricAssessor(metricAssr);
         return metricAssr;
     }
 
     @Bean(name = "feedFailureAssessor")
-    public MetricAssessor<? extends Metric, Serializable> feedFailureAssessor(@Qualifier("slaAssessor") ServiceLevelAssessor slaAssessor) {
+    public BatchMetricAssessor<? extends Metric, Serializable> feedFailureAssessor(@Qualifier("slaAssessor") ServiceLevelAssessor slaAssessor) {
         FeedFailureMetricAssessor metricAssr = new FeedFailureMetricAssessor();
         slaAssessor.registerMetricAssessor(metricAssr);
         return metricAssr;
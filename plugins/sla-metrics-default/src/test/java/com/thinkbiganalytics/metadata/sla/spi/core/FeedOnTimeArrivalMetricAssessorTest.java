@@ -48,11 +48,15 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.quartz.CronExpression;
 import org.testng.Assert;
 
+import java.io.Serializable;
 import java.security.Principal;
 import java.text.ParseException;
+import java.util.Collection;
+import java.util.Collections;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -229,6 +233,35 @@ public class FeedOnTimeArrivalMetricAssessorTest {
     }
 
 
+    /**
+     * Verify prefetched jobs are used for the assessment and the inputs only change when a newer job completes.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPrefetch() throws ParseException {
+        BatchJobExecution feed = createFeedJobExecution(this.lateTime.minusMinutes(1));
+        when(feed.getJobExecutionId()).thenReturn(1L);
+        when(this.jobExecutionProvider.findLatestCompletedJobForFeeds(any(Collection.class))).thenReturn(Collections.singletonMap("feed", feed));
+
+        this.assessor.prefetch(Collections.singletonList(metric));
+        Serializable inputs = this.assessor.getInputs(metric);
+        this.assessor.assess(metric, this.builder);
+
+        verify(this.builder).result(AssessmentResult.SUCCESS);
+        verify(this.jobExecutionProvider, never()).findLatestCompletedJobForFeed(any(String.class));
+        Assert.assertEquals(this.assessor.getInputs(metric), inputs);
+        this.assessor.clear();
+
+        BatchJobExecution newer = createFeedJobExecution(this.lateTime);
+        when(newer.getJobExecutionId()).thenReturn(2L);
+        when(this.jobExecutionProvider.findLatestCompletedJobForFeeds(any(Collection.class))).thenReturn(Collections.singletonMap("feed", newer));
+        this.assessor.prefetch(Collections.singletonList(metric));
+        Assert.assertNotEquals(this.assessor.getInputs(metric), inputs);
+        this.assessor.clear();
+        Assert.assertNull(this.assessor.getInputs(metric));
+    }
+
+
     private BatchJobExecution createFeedJobExecution(DateTime endTime) {
         BatchJobExecution feed = mock(BatchJobExecution.class);
         when(feed.getEndTime()).thenReturn(endTime);
@@ -23,6 +23,8 @@ package com.thinkbiganalytics.metadata.api.audit;
  * #L%
  */
 
+import org.joda.time.DateTime;
+
 import java.io.Serializable;
 import java.security.Principal;
 import java.util.List;
@@ -86,4 +88,17 @@ public interface AuditLogProvider {
      * @return an audit log entry
      */
     AuditLogEntry createEntry(Principal user, String type, String description, String entityId);
+
+    /**
+     * Create a new audit log entry for an event that happened at the specified time.  Used when entries are
+     * recorded some time after the event occurred, such as when they are written in batches.
+     *
+     * @param user        a user attached to this audit entry
+     * @param type        the type of entry
+     * @param description a description about what happened
+     * @param entityId    an entity id associated with this audit entry
+     * @param createdTime the time of the audit event
+     * @return an audit log entry
+     */
+    AuditLogEntry createEntry(Principal user, String type, String description, String entityId, DateTime createdTime);
 }
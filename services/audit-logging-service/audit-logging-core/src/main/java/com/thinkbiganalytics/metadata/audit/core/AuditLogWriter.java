@@ -0,0 +1,350 @@
+package com.thinkbiganalytics.metadata.audit.core;
+
+/*-
+ * #%L
+ * thinkbig-audit-logging-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.audit.AuditLogProvider;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+/**
+ * Writes audit log entries asynchronously in batches.
+ *
+ * <p>Entries are placed in a bounded queue and written by a single background thread, which commits up to
+ * {@code kylo.audit.batch.size} entries per transaction, or whatever has arrived within {@code kylo.audit.flush.interval}
+ * milliseconds of the first entry of the batch.  When the queue is full, callers block until there is space so that no
+ * entries are dropped.  On shutdown the remaining entries are flushed before the persistence layer is closed.</p>
+ *
+ * <p>A failed batch is retried and then written one entry at a time, so a single bad entry does not lose the rest of
+ * the batch.  Entries that still cannot be written are logged at ERROR level with their content.</p>
+ */
+public class AuditLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    @Inject
+    private AuditLogProvider provider;
+
+    @Inject
+    private MetadataAccess metadataAccess;
+
+    /**
+     * Maximum number of entries waiting to be written
+     */
+    @Value("${kylo.audit.queue.capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * Maximum number of entries written in one transaction
+     */
+    @Value("${kylo.audit.batch.size:100}")
+    private int batchSize;
+
+    /**
+     * Maximum time in milliseconds an entry waits for its batch to fill
+     */
+    @Value("${kylo.audit.flush.interval:1000}")
+    private long flushInterval;
+
+    /**
+     * Number of times a failed batch is retried before writing its entries individually
+     */
+    @Value("${kylo.audit.flush.retries:3}")
+    private int flushRetries;
+
+    /**
+     * Maximum time in milliseconds to wait for queued entries to be written on shutdown
+     */
+    @Value("${kylo.audit.shutdown.timeout:30000}")
+    private long shutdownTimeout;
+
+    private BlockingQueue<PendingEntry> queue;
+
+    private Thread flushThread;
+
+    private volatile boolean running;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private volatile long lastFlushMillis;
+
+    private volatile long maxFlushMillis;
+
+    /**
+     * Starts the background flush thread.
+     */
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        flushThread = new Thread(this::run, "audit-log-writer");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    /**
+     * Stops accepting queued entries and writes the entries remaining in the queue.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flushThread != null) {
+            try {
+                flushThread.join(shutdownTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (flushThread.isAlive()) {
+                log.warn("Audit log writer did not finish within {} ms; writing the remaining {} entries on shutdown", shutdownTimeout, queue.size());
+            }
+        }
+        flushRemaining();
+        log.info("Audit log writer stopped. Written: {}, failed: {}", writtenCount.get(), failedCount.get());
+    }
+
+    /**
+     * Queues an audit log entry to be written, blocking while the queue is full.  If the writer has been stopped then the
+     * entry is written immediately.
+     *
+     * @param user        a user attached to this audit entry
+     * @param type        the type of entry
+     * @param description a description about what happened
+     * @param entityId    an entity id associated with this audit entry
+     */
+    public void write(Principal user, String type, String description, String entityId) {
+        PendingEntry entry = new PendingEntry(user, type, description, entityId, DateTime.now());
+
+        if (running) {
+            try {
+                queue.put(entry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(Collections.singletonList(entry));
+                return;
+            }
+
+            // The writer may have stopped while this entry was being queued
+            if (!running) {
+                flushRemaining();
+            }
+        } else {
+            flush(Collections.singletonList(entry));
+        }
+    }
+
+    /**
+     * Gets the number of entries waiting to be written.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * Gets the time taken by the most recent flush.
+     *
+     * @return the flush time in milliseconds
+     */
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    /**
+     * Gets the longest time taken by a flush.
+     *
+     * @return the flush time in milliseconds
+     */
+    public long getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+
+    /**
+     * Gets the number of entries that have been written.
+     *
+     * @return the number of entries written
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Gets the number of entries that could not be written.
+     *
+     * @return the number of entries that failed
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Collects and writes batches until the writer is stopped and the queue is empty.
+     */
+    private void run() {
+        List<PendingEntry> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushInterval;
+                queue.drainTo(batch, batchSize - batch.size());
+
+                while (running && batch.size() < batchSize) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    PendingEntry next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                log.debug("Audit log writer interrupted", e);
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes all entries remaining in the queue on the calling thread.
+     */
+    private void flushRemaining() {
+        List<PendingEntry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes the specified entries in a single transaction, retrying on failure and then falling back to writing each
+     * entry in its own transaction.
+     */
+    private void flush(List<PendingEntry> batch) {
+        long start = System.currentTimeMillis();
+
+        for (int attempt = 0; attempt <= flushRetries; attempt++) {
+            try {
+                metadataAccess.commit(() -> {
+                    batch.forEach(this::create);
+                }, MetadataAccess.SERVICE);
+                writtenCount.addAndGet(batch.size());
+                recordFlush(batch.size(), start);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write batch of {} audit log entries (attempt {} of {}): {}", batch.size(), attempt + 1, flushRetries + 1, e.toString());
+                if (attempt < flushRetries && !sleep(Math.min(flushInterval, 1000L) * (attempt + 1))) {
+                    break;
+                }
+            }
+        }
+
+        for (PendingEntry entry : batch) {
+            try {
+                metadataAccess.commit(() -> {
+                    create(entry);
+                }, MetadataAccess.SERVICE);
+                writtenCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                failedCount.incrementAndGet();
+                log.error("Failed to write audit log entry: {}", entry, e);
+            }
+        }
+        recordFlush(batch.size(), start);
+    }
+
+    private void create(PendingEntry entry) {
+        log.debug("Audit: {} - {}", entry.type, entry.description);
+        provider.createEntry(entry.user, entry.type, entry.description, entry.entityId, entry.createdTime);
+    }
+
+    private void recordFlush(int size, long start) {
+        long elapsed = System.currentTimeMillis() - start;
+        lastFlushMillis = elapsed;
+        if (elapsed > maxFlushMillis) {
+            maxFlushMillis = elapsed;
+        }
+        log.debug("Flushed {} audit log entries in {} ms; {} entries queued", size, elapsed, getQueueDepth());
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * An audit log entry waiting to be written.
+     */
+    private static class PendingEntry {
+
+        final Principal user;
+        final String type;
+        final String description;
+        final String entityId;
+        final DateTime createdTime;
+
+        PendingEntry(Principal user, String type, String description, String entityId, DateTime createdTime) {
+            this.user = user;
+            this.type = type;
+            this.description = description;
+            this.entityId = entityId;
+            this.createdTime = createdTime;
+        }
+
+        @Override
+        public String toString() {
+            return "AuditLogEntry[user=" + (user != null ? user.getName() : null) + ", type=" + type + ", entityId=" + entityId
+                   + ", createdTime=" + createdTime + ", description=" + description + "]";
+        }
+    }
+}
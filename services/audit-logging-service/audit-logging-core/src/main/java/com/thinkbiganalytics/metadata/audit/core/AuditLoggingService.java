@@ -23,16 +23,11 @@ package com.thinkbiganalytics.metadata.audit.core;
  * #L%
  */
 
-import com.thinkbiganalytics.metadata.api.MetadataAccess;
-import com.thinkbiganalytics.metadata.api.audit.AuditLogProvider;
 import com.thinkbiganalytics.metadata.api.event.MetadataEventListener;
 import com.thinkbiganalytics.metadata.api.event.MetadataEventService;
 import com.thinkbiganalytics.metadata.api.event.feed.FeedChangeEvent;
 import com.thinkbiganalytics.metadata.api.event.template.TemplateChangeEvent;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import javax.inject.Inject;
 
 /**
@@ -41,13 +36,8 @@ import javax.inject.Inject;
  */
 public class AuditLoggingService {
 
-    private static final Logger log = LoggerFactory.getLogger(AuditLoggingService.class);
-
-    @Inject
-    private AuditLogProvider provider;
-
     @Inject
-    private MetadataAccess metadataAccess;
+    private AuditLogWriter writer;
 
     public AuditLoggingService() {
     }
@@ -66,13 +56,10 @@ public class AuditLoggingService {
 
         @Override
         public void notify(FeedChangeEvent event) {
-            metadataAccess.commit(() -> {
-                log.debug("Audit: {} - {}", event.getData().getClass().getSimpleName(), event.getData().toString());
-                provider.createEntry(event.getUserPrincipal(),
-                                     event.getData().getClass().getSimpleName(),
-                                     event.getData().toString(),
-                                     event.getData().getFeedId().toString());
-            }, MetadataAccess.SERVICE);
+            writer.write(event.getUserPrincipal(),
+                         event.getData().getClass().getSimpleName(),
+                         event.getData().toString(),
+                         event.getData().getFeedId().toString());
         }
     }
 
@@ -80,13 +67,10 @@ public class AuditLoggingService {
 
         @Override
         public void notify(TemplateChangeEvent event) {
-            metadataAccess.commit(() -> {
-                log.debug("Audit: {} - {}", event.getData().getClass().getSimpleName(), event.getData().toString());
-                provider.createEntry(event.getUserPrincipal(),
-                                     event.getData().getClass().getSimpleName(),
-                                     event.getData().toString(),
-                                     event.getData().getTemplateId().toString());
-            }, MetadataAccess.SERVICE);
+            writer.write(event.getUserPrincipal(),
+                         event.getData().getClass().getSimpleName(),
+                         event.getData().toString(),
+                         event.getData().getTemplateId().toString());
         }
     }
 }
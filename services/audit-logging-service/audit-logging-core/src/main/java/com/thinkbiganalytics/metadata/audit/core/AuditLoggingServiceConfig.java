@@ -40,4 +40,9 @@ public class AuditLoggingServiceConfig {
         auditService.addListeners(eventService);
         return auditService;
     }
+
+    @Bean
+    public AuditLogWriter auditLogWriter() {
+        return new AuditLogWriter();
+    }
 }
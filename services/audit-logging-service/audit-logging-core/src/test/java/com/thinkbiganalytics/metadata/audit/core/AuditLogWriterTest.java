@@ -0,0 +1,210 @@
+package com.thinkbiganalytics.metadata.audit.core;
+
+/*-
+ * #%L
+ * thinkbig-audit-logging-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.metadata.api.MetadataAccess;
+import com.thinkbiganalytics.metadata.api.MetadataAction;
+import com.thinkbiganalytics.metadata.api.audit.AuditLogProvider;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Principal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AuditLogWriterTest {
+
+    /**
+     * Executes the action passed to {@link MetadataAccess#commit(MetadataAction, Principal...)}
+     */
+    private static final Answer<Void> EXECUTE = invocation -> {
+        ((MetadataAction) invocation.getArguments()[0]).execute();
+        return null;
+    };
+
+    /**
+     * Mock metadata access that runs each action
+     */
+    private MetadataAccess metadataAccess;
+
+    /**
+     * Mock audit log provider
+     */
+    private AuditLogProvider provider;
+
+    /**
+     * Audit log writer being tested
+     */
+    private AuditLogWriter writer;
+
+    /**
+     * Set up the writer with mocks.
+     */
+    @Before
+    public void setUp() {
+        provider = Mockito.mock(AuditLogProvider.class);
+        metadataAccess = Mockito.mock(MetadataAccess.class);
+        Mockito.doAnswer(EXECUTE).when(metadataAccess).commit(Mockito.any(MetadataAction.class), Mockito.<Principal>anyVararg());
+
+        writer = new AuditLogWriter();
+        ReflectionTestUtils.setField(writer, "provider", provider);
+        ReflectionTestUtils.setField(writer, "metadataAccess", metadataAccess);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 3);
+        ReflectionTestUtils.setField(writer, "flushInterval", 1000L);
+        ReflectionTestUtils.setField(writer, "flushRetries", 2);
+        ReflectionTestUtils.setField(writer, "shutdownTimeout", 5000L);
+    }
+
+    /**
+     * Stop the writer.
+     */
+    @After
+    public void tearDown() {
+        writer.stop();
+    }
+
+    /**
+     * Verify a batch is written in one transaction as soon as it is full.
+     */
+    @Test
+    public void testFlushBySize() {
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            writer.write(null, "test", "entry " + i, "id" + i);
+        }
+
+        Mockito.verify(provider, Mockito.timeout(5000).times(3)).createEntry(Mockito.any(), Mockito.eq("test"), Mockito.anyString(), Mockito.anyString(), Mockito.any(DateTime.class));
+        Mockito.verify(metadataAccess, Mockito.times(1)).commit(Mockito.any(MetadataAction.class), Mockito.<Principal>anyVararg());
+    }
+
+    /**
+     * Verify a partial batch is written once the flush interval has passed.
+     */
+    @Test
+    public void testFlushByTime() {
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        ReflectionTestUtils.setField(writer, "flushInterval", 100L);
+        writer.start();
+        writer.write(null, "test", "entry 1", "id1");
+        writer.write(null, "test", "entry 2", "id2");
+
+        Mockito.verify(provider, Mockito.timeout(5000).times(2)).createEntry(Mockito.any(), Mockito.eq("test"), Mockito.anyString(), Mockito.anyString(), Mockito.any(DateTime.class));
+        Assert.assertEquals(0, writer.getQueueDepth());
+    }
+
+    /**
+     * Verify writers block while the queue is full and no entries are dropped.
+     */
+    @Test
+    public void testQueueFull() throws Exception {
+        ReflectionTestUtils.setField(writer, "queueCapacity", 1);
+        ReflectionTestUtils.setField(writer, "batchSize", 1);
+
+        // Hold the first write so the queue fills up
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(provider.createEntry(Mockito.any(), Mockito.eq("test"), Mockito.eq("blocked"), Mockito.anyString(), Mockito.any(DateTime.class))).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return null;
+        });
+        writer.start();
+        writer.write(null, "test", "blocked", "id1");
+        Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+        writer.write(null, "test", "queued", "id2");
+        Assert.assertEquals(1, writer.getQueueDepth());
+
+        final Thread producer = new Thread(() -> writer.write(null, "test", "waiting", "id3"));
+        producer.start();
+        producer.join(200);
+        Assert.assertTrue(producer.isAlive());
+
+        release.countDown();
+        producer.join(5000);
+        Assert.assertFalse(producer.isAlive());
+        Mockito.verify(provider, Mockito.timeout(5000).times(3)).createEntry(Mockito.any(), Mockito.eq("test"), Mockito.anyString(), Mockito.anyString(), Mockito.any(DateTime.class));
+    }
+
+    /**
+     * Verify a failed commit is retried.
+     */
+    @Test
+    public void testRetry() {
+        ReflectionTestUtils.setField(writer, "batchSize", 1);
+        ReflectionTestUtils.setField(writer, "flushInterval", 10L);
+        Mockito.doThrow(new IllegalStateException("Expected commit failure")).doAnswer(EXECUTE)
+            .when(metadataAccess).commit(Mockito.any(MetadataAction.class), Mockito.<Principal>anyVararg());
+        writer.start();
+        writer.write(null, "test", "entry", "id");
+
+        Mockito.verify(metadataAccess, Mockito.timeout(5000).times(2)).commit(Mockito.any(MetadataAction.class), Mockito.<Principal>anyVararg());
+        writer.stop();
+        Assert.assertEquals(1, writer.getWrittenCount());
+        Assert.assertEquals(0, writer.getFailedCount());
+    }
+
+    /**
+     * Verify a batch that keeps failing is written one entry at a time so only the bad entry is lost.
+     */
+    @Test
+    public void testRetryIndividually() {
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        ReflectionTestUtils.setField(writer, "flushInterval", 10L);
+        Mockito.when(provider.createEntry(Mockito.any(), Mockito.eq("bad"), Mockito.anyString(), Mockito.anyString(), Mockito.any(DateTime.class)))
+            .thenThrow(new IllegalArgumentException("Expected bad entry"));
+        writer.start();
+        writer.write(null, "bad", "entry 1", "id1");
+        writer.write(null, "good", "entry 2", "id2");
+        writer.stop();
+
+        Assert.assertEquals(1, writer.getWrittenCount());
+        Assert.assertEquals(1, writer.getFailedCount());
+        Mockito.verify(provider, Mockito.atLeastOnce()).createEntry(Mockito.any(), Mockito.eq("good"), Mockito.anyString(), Mockito.anyString(), Mockito.any(DateTime.class));
+    }
+
+    /**
+     * Verify queued entries are written on shutdown and later entries are written immediately.
+     */
+    @Test
+    public void testStopDrainsQueue() {
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        writer.start();
+        for (int i = 0; i < 5; i++) {
+            writer.write(null, "test", "entry " + i, "id" + i);
+        }
+        writer.stop();
+
+        Assert.assertEquals(0, writer.getQueueDepth());
+        Assert.assertEquals(5, writer.getWrittenCount());
+        Mockito.verify(provider, Mockito.times(5)).createEntry(Mockito.any(), Mockito.eq("test"), Mockito.anyString(), Mockito.anyString(), Mockito.any(DateTime.class));
+
+        writer.write(null, "test", "late", "id5");
+        Assert.assertEquals(6, writer.getWrittenCount());
+    }
+}
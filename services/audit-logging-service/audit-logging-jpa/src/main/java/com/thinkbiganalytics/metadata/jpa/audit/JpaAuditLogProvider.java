@@ -27,6 +27,7 @@ import com.thinkbiganalytics.metadata.api.audit.AuditLogEntry;
 import com.thinkbiganalytics.metadata.api.audit.AuditLogEntry.ID;
 import com.thinkbiganalytics.metadata.api.audit.AuditLogProvider;
 
+import org.joda.time.DateTime;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
@@ -117,4 +118,14 @@ public class JpaAuditLogProvider implements AuditLogProvider {
         return repository.save(entry);
     }
 
+    /* (non-Javadoc)
+     * @see com.thinkbiganalytics.metadata.api.audit.AuditLogProvider#createEntry(java.security.Principal, java.lang.String, java.lang.String, java.lang.String, org.joda.time.DateTime)
+     */
+    @Override
+    public AuditLogEntry createEntry(Principal user, String type, String description, String entityId, DateTime createdTime) {
+        JpaAuditLogEntry entry = new JpaAuditLogEntry(user, type, description, entityId);
+        entry.setCreatedTime(createdTime);
+        return repository.save(entry);
+    }
+
 }
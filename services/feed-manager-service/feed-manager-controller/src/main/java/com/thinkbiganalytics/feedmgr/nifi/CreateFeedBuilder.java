@@ -53,7 +53,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -217,15 +216,16 @@ public class CreateFeedBuilder {
                     List<ProcessorDTO> nonInputProcessors = NifiProcessUtil.getNonInputProcessors(entity);
 
 
-                    List<NifiProperty> updatedControllerServiceProperties = new ArrayList<>();
                     //update any references to the controller services and try to assign the value to an enabled service if it is not already
+                    List<ProcessorDTO> processors = new ArrayList<>();
                     if (input != null) {
-                        updatedControllerServiceProperties.addAll(templateCreationHelper.updateControllerServiceReferences(Lists.newArrayList(input)));
+                        processors.add(input);
                     }
-                    if (cleanupProcessor != null) {
-                        updatedControllerServiceProperties.addAll(templateCreationHelper.updateControllerServiceReferences(Collections.singletonList(cleanupProcessor)));
+                    if (cleanupProcessor != null && (input == null || !cleanupProcessor.getId().equals(input.getId()))) {
+                        processors.add(cleanupProcessor);
                     }
-                    updatedControllerServiceProperties.addAll(templateCreationHelper.updateControllerServiceReferences(nonInputProcessors));
+                    processors.addAll(nonInputProcessors);
+                    List<NifiProperty> updatedControllerServiceProperties = templateCreationHelper.updateControllerServiceReferences(processors);
                     //refetch processors for updated errors
                     entity = restClient.getProcessGroup(processGroupId, true, true);
                     input = fetchInputProcessorForProcessGroup(entity);
@@ -20,6 +20,7 @@ package com.thinkbiganalytics.feedmgr.nifi;
  * #L%
  */
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.thinkbiganalytics.db.PoolingDataSourceService;
 import com.thinkbiganalytics.discovery.schema.TableSchema;
 import com.thinkbiganalytics.feedmgr.service.datasource.DatasourceModelTransform;
@@ -29,7 +30,9 @@ import com.thinkbiganalytics.metadata.api.MetadataAccess;
 import com.thinkbiganalytics.metadata.api.datasource.DatasourceProvider;
 import com.thinkbiganalytics.metadata.rest.model.data.Datasource;
 import com.thinkbiganalytics.metadata.rest.model.data.JdbcDatasource;
+import com.thinkbiganalytics.schema.DBSchemaCatalogCache;
 import com.thinkbiganalytics.schema.DBSchemaParser;
+import com.thinkbiganalytics.schema.TableCatalogPage;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.nifi.web.api.dto.ControllerServiceDTO;
@@ -37,15 +40,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.sql.DataSource;
 
@@ -73,6 +83,33 @@ public class DBCPConnectionPoolTableInfo {
     @Inject
     private MetadataAccess metadataAccess;
 
+    /**
+     * Time in millis before the cached tables of a database are crawled again
+     */
+    @Value("${kylo.datasource.catalog.cache.ttl:3600000}")
+    private long catalogCacheTimeToLive;
+
+    /**
+     * Maximum number of databases crawled at the same time
+     */
+    @Value("${kylo.datasource.catalog.crawl.threads:2}")
+    private int catalogCrawlThreads;
+
+    private ExecutorService catalogCrawlExecutor;
+
+    private DBSchemaCatalogCache catalogCache;
+
+    @PostConstruct
+    private void init() {
+        catalogCrawlExecutor = Executors.newFixedThreadPool(catalogCrawlThreads, new ThreadFactoryBuilder().setNameFormat("datasource-catalog-crawl-%d").setDaemon(true).build());
+        catalogCache = new DBSchemaCatalogCache(catalogCrawlExecutor, catalogCacheTimeToLive);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        catalogCrawlExecutor.shutdownNow();
+    }
+
     /**
      * Returns a list of table names matching a pattern
      *
@@ -117,6 +154,95 @@ public class DBCPConnectionPoolTableInfo {
         }
     }
 
+    /**
+     * Returns a page of table names matching a pattern from the cached catalog of the database.
+     * A crawl of the database is started in the background if it has not been cached or has expired, and the tables found so far are returned.
+     *
+     * @param serviceId   a NiFi controller service id
+     * @param serviceName a NiFi controller service name
+     * @param schema      A schema pattern to look for
+     * @param tableName   A table pattern to look for
+     * @param start       the index of the first table to return
+     * @param limit       the maximum number of tables to return
+     * @return the page of schema.table names, or {@code null} if not accessible
+     */
+    @Nullable
+    public TableCatalogPage getTableCatalogPageForControllerService(String serviceId, String serviceName, String schema, String tableName, int start, int limit) {
+        ControllerServiceDTO controllerService = getControllerService(serviceId, serviceName);
+        if (controllerService != null) {
+            DescribeTableWithControllerServiceBuilder builder = new DescribeTableWithControllerServiceBuilder(controllerService);
+            DescribeTableWithControllerService serviceProperties = builder.schemaName(schema).tableName(tableName).build();
+            return getTableCatalogPage(serviceProperties, start, limit);
+        } else {
+            log.error("Cannot get table catalog for Controller Service. Unable to obtain Controller Service for serviceId or Name ({} , {})", serviceId, serviceName);
+        }
+        return null;
+    }
+
+    /**
+     * Returns a page of table names matching a pattern from the cached catalog of the specified data source.
+     *
+     * @param datasource the data source
+     * @param schema     the schema name, or {@code null} for all schemas
+     * @param tableName  a table pattern to look for
+     * @param start      the index of the first table to return
+     * @param limit      the maximum number of tables to return
+     * @return the page of schema.table names, or {@code null} if not accessible
+     */
+    @Nullable
+    public TableCatalogPage getTableCatalogPageForDatasource(@Nonnull final JdbcDatasource datasource, @Nullable final String schema, @Nullable final String tableName, final int start,
+                                                             final int limit) {
+        final Optional<ControllerServiceDTO> controllerService = Optional.ofNullable(datasource.getControllerServiceId())
+            .map(id -> getControllerService(id, null));
+        if (controllerService.isPresent()) {
+            final DescribeTableWithControllerServiceBuilder builder = new DescribeTableWithControllerServiceBuilder(controllerService.get());
+            final DescribeTableWithControllerService serviceProperties = builder.schemaName(schema).tableName(tableName).password(datasource.getPassword()).useEnvironmentProperties(false).build();
+            return getTableCatalogPage(serviceProperties, start, limit);
+        } else {
+            log.error("Cannot get table catalog for data source: {}", datasource);
+            return null;
+        }
+    }
+
+    /**
+     * Starts a new crawl of the tables in the database for the given NiFi controller service.  The cached tables continue to be used until the crawl completes.
+     *
+     * @param serviceId   a NiFi controller service id
+     * @param serviceName a NiFi controller service name
+     * @return {@code true} if the crawl was started, or {@code false} if the controller service is not accessible
+     */
+    public boolean refreshTableCatalogForControllerService(String serviceId, String serviceName) {
+        ControllerServiceDTO controllerService = getControllerService(serviceId, serviceName);
+        if (controllerService != null) {
+            DescribeTableWithControllerService serviceProperties = new DescribeTableWithControllerServiceBuilder(controllerService).build();
+            return withCatalog(serviceProperties, (key, schemaParser) -> {
+                catalogCache.refresh(key, schemaParser);
+                return true;
+            }) != null;
+        }
+        return false;
+    }
+
+    /**
+     * Starts a new crawl of the tables in the specified data source.  The cached tables continue to be used until the crawl completes.
+     *
+     * @param datasource the data source
+     * @return {@code true} if the crawl was started, or {@code false} if the data source is not accessible
+     */
+    public boolean refreshTableCatalogForDatasource(@Nonnull final JdbcDatasource datasource) {
+        final Optional<ControllerServiceDTO> controllerService = Optional.ofNullable(datasource.getControllerServiceId())
+            .map(id -> getControllerService(id, null));
+        if (controllerService.isPresent()) {
+            final DescribeTableWithControllerService serviceProperties = new DescribeTableWithControllerServiceBuilder(controllerService.get()).password(datasource.getPassword())
+                .useEnvironmentProperties(false).build();
+            return withCatalog(serviceProperties, (key, schemaParser) -> {
+                catalogCache.refresh(key, schemaParser);
+                return true;
+            }) != null;
+        }
+        return false;
+    }
+
     /**
      * Describe the database table and fields available for a given NiFi controller service
      *
@@ -167,7 +293,34 @@ public class DBCPConnectionPoolTableInfo {
      * @return a list of schema.table_name
      */
     private List<String> getTableNamesForControllerService(DescribeTableWithControllerService serviceProperties) {
+        return withCatalog(serviceProperties, (key, schemaParser) -> {
+            log.info("Search For Tables against Controller Service: {} ({}).  ", serviceProperties.getControllerServiceName(), serviceProperties.getControllerServiceId());
+            // Only use the cache once it is fully crawled, otherwise query the database for the specific pattern
+            return catalogCache.getTablesIfComplete(key, schemaParser, serviceProperties.getSchemaName(), serviceProperties.getTableName())
+                .orElseGet(() -> schemaParser.get().listTables(serviceProperties.getSchemaName(), serviceProperties.getTableName()));
+        });
+    }
 
+    /**
+     * Return a page of schema.table_name from the cached catalog, starting a crawl of the database if needed
+     *
+     * @param serviceProperties properties describing where and what to look for
+     * @param start             the index of the first table to return
+     * @param limit             the maximum number of tables to return
+     * @return the page of tables
+     */
+    private TableCatalogPage getTableCatalogPage(DescribeTableWithControllerService serviceProperties, int start, int limit) {
+        return withCatalog(serviceProperties,
+                           (key, schemaParser) -> catalogCache.getTables(key, schemaParser, serviceProperties.getSchemaName(), serviceProperties.getTableName(), start, limit));
+    }
+
+    /**
+     * Resolves the data source for the controller service and calls the function with its cache key and a supplier for its schema parser
+     *
+     * @return the result of the function, or {@code null} if the data source cannot be accessed
+     */
+    @Nullable
+    private <T> T withCatalog(@Nullable DescribeTableWithControllerService serviceProperties, @Nonnull BiFunction<String, Supplier<DBSchemaParser>, T> function) {
         if (serviceProperties != null) {
             Map<String, String> properties = serviceProperties.useEnvironmentProperties()
                                              ? nifiControllerServiceProperties.mergeNifiAndEnvProperties(serviceProperties.getControllerServiceDTO().getProperties(),
@@ -179,11 +332,14 @@ public class DBCPConnectionPoolTableInfo {
             boolean valid = evaluateWithUserDefinedDatasources(dataSourceProperties, serviceProperties);
 
             if (valid) {
-                log.info("Search For Tables against Controller Service: {} ({}) with uri of {}.  ", serviceProperties.getControllerServiceName(), serviceProperties.getControllerServiceId(),
-                         dataSourceProperties.getUrl());
-                DataSource dataSource = PoolingDataSourceService.getDataSource(dataSourceProperties);
-                DBSchemaParser schemaParser = new DBSchemaParser(dataSource, kerberosHiveConfiguration);
-                return schemaParser.listTables(serviceProperties.getSchemaName(), serviceProperties.getTableName());
+                String key = serviceProperties.getControllerServiceId() + "|" + dataSourceProperties.getUrl() + "|" + dataSourceProperties.getUser();
+                Supplier<DBSchemaParser> schemaParser = () -> {
+                    log.debug("Connecting to Controller Service: {} ({}) with uri of {}", serviceProperties.getControllerServiceName(), serviceProperties.getControllerServiceId(),
+                              dataSourceProperties.getUrl());
+                    DataSource dataSource = PoolingDataSourceService.getDataSource(dataSourceProperties);
+                    return new DBSchemaParser(dataSource, kerberosHiveConfiguration);
+                };
+                return function.apply(key, schemaParser);
             }
         }
         return null;
@@ -245,28 +401,14 @@ public class DBCPConnectionPoolTableInfo {
 
 
     private TableSchema describeTableForControllerService(DescribeTableWithControllerService serviceProperties) {
-
-        String type = serviceProperties.getControllerServiceType();
-        if (serviceProperties.getControllerServiceType() != null && serviceProperties.getControllerServiceType().equalsIgnoreCase(type)) {
-            Map<String, String> properties = serviceProperties.useEnvironmentProperties()
-                                             ? nifiControllerServiceProperties.mergeNifiAndEnvProperties(serviceProperties.getControllerServiceDTO().getProperties(),
-                                                                                                         serviceProperties.getControllerServiceName())
-                                             : serviceProperties.getControllerServiceDTO().getProperties();
-
-            PoolingDataSourceService.DataSourceProperties dataSourceProperties = getDataSourceProperties(properties, serviceProperties);
-            boolean valid = evaluateWithUserDefinedDatasources(dataSourceProperties, serviceProperties);
-            if (valid) {
-                log.info("describing Table {}.{} against Controller Service: {} ({}) with uri of {} ", serviceProperties.getSchemaName(), serviceProperties.getTableName(),
-                         serviceProperties.getControllerServiceName(), serviceProperties.getControllerServiceId(), dataSourceProperties.getUrl());
-                DataSource dataSource = PoolingDataSourceService.getDataSource(dataSourceProperties);
-                DBSchemaParser schemaParser = new DBSchemaParser(dataSource, kerberosHiveConfiguration);
-                return schemaParser.describeTable(serviceProperties.getSchemaName(), serviceProperties.getTableName());
-            } else {
-                return null;
-            }
+        if (serviceProperties.getControllerServiceType() == null) {
+            return null;
         }
-        return null;
-
+        return withCatalog(serviceProperties, (key, schemaParser) -> {
+            log.info("describing Table {}.{} against Controller Service: {} ({})", serviceProperties.getSchemaName(), serviceProperties.getTableName(),
+                     serviceProperties.getControllerServiceName(), serviceProperties.getControllerServiceId());
+            return catalogCache.describeTable(key, schemaParser, serviceProperties.getSchemaName(), serviceProperties.getTableName());
+        });
     }
 
 
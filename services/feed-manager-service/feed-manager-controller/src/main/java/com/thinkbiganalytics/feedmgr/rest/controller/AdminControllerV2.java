@@ -29,7 +29,7 @@ import com.thinkbiganalytics.feedmgr.service.MetadataService;
 import com.thinkbiganalytics.feedmgr.service.UploadProgressService;
 import com.thinkbiganalytics.feedmgr.service.feed.ExportImportFeedService;
 import com.thinkbiganalytics.feedmgr.service.template.ExportImportTemplateService;
-import com.thinkbiganalytics.feedmgr.util.ImportUtil;
+import com.thinkbiganalytics.feedmgr.support.ImportFile;
 import com.thinkbiganalytics.json.ObjectMapperSerializer;
 import com.thinkbiganalytics.rest.model.RestResponseStatus;
 
@@ -130,15 +130,15 @@ public class AdminControllerV2 {
         boolean overwriteTemplate = true;
         uploadProgressService.newUpload(uploadKey);
 
-        if (importComponents == null) {
-            byte[] content = ImportUtil.streamToByteArray(fileInputStream);
-            importFeed = exportImportFeedService.validateFeedForImport(fileMetaData.getFileName(), content, options);
-            importFeed.setSuccess(false);
-        } else {
-            options.setImportComponentOptions(ObjectMapperSerializer.deserialize(importComponents, new TypeReference<Set<ImportComponentOption>>() {
-            }));
-            byte[] content = ImportUtil.streamToByteArray(fileInputStream);
-            importFeed = exportImportFeedService.importFeed(fileMetaData.getFileName(), content, options);
+        try (ImportFile importFile = ImportFile.spool(fileMetaData.getFileName(), fileInputStream)) {
+            if (importComponents == null) {
+                importFeed = exportImportFeedService.validateFeedForImport(importFile, options);
+                importFeed.setSuccess(false);
+            } else {
+                options.setImportComponentOptions(ObjectMapperSerializer.deserialize(importComponents, new TypeReference<Set<ImportComponentOption>>() {
+                }));
+                importFeed = exportImportFeedService.importFeed(importFile, options);
+            }
         }
         uploadProgressService.removeUpload(uploadKey);
         return Response.ok(importFeed).build();
@@ -161,17 +161,17 @@ public class AdminControllerV2 {
         ImportTemplateOptions options = new ImportTemplateOptions();
         options.setUploadKey(uploadKey);
         ExportImportTemplateService.ImportTemplate importTemplate = null;
-        byte[] content = ImportUtil.streamToByteArray(fileInputStream);
-
         uploadProgressService.newUpload(uploadKey);
 
-        if (importComponents == null) {
-            importTemplate = exportImportTemplateService.validateTemplateForImport(fileMetaData.getFileName(), content, options);
-            importTemplate.setSuccess(false);
-        } else {
-            options.setImportComponentOptions(ObjectMapperSerializer.deserialize(importComponents, new TypeReference<Set<ImportComponentOption>>() {
-            }));
-            importTemplate = exportImportTemplateService.importTemplate(fileMetaData.getFileName(), content, options);
+        try (ImportFile importFile = ImportFile.spool(fileMetaData.getFileName(), fileInputStream)) {
+            if (importComponents == null) {
+                importTemplate = exportImportTemplateService.validateTemplateForImport(importFile, options);
+                importTemplate.setSuccess(false);
+            } else {
+                options.setImportComponentOptions(ObjectMapperSerializer.deserialize(importComponents, new TypeReference<Set<ImportComponentOption>>() {
+                }));
+                importTemplate = exportImportTemplateService.importTemplate(importFile, options);
+            }
         }
         return Response.ok(importTemplate).build();
     }
@@ -40,6 +40,7 @@ import com.thinkbiganalytics.metadata.rest.model.data.JdbcDatasource;
 import com.thinkbiganalytics.metadata.rest.model.data.UserDatasource;
 import com.thinkbiganalytics.nifi.rest.client.NiFiRestClient;
 import com.thinkbiganalytics.rest.model.RestResponseStatus;
+import com.thinkbiganalytics.schema.TableCatalogPage;
 import com.thinkbiganalytics.security.AccessController;
 import com.thinkbiganalytics.security.rest.controller.SecurityModelTransform;
 import com.thinkbiganalytics.security.rest.model.ActionGroup;
@@ -61,6 +62,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -333,6 +335,78 @@ public class DatasourceController {
         }, MetadataAccess.SERVICE);
     }
 
+    /**
+     * Gets a page of table names from the cached catalog of the specified data source.
+     *
+     * @param idStr     the data source id
+     * @param schema    the schema name, or {@code null} for all schemas
+     * @param tableName the table name pattern, or {@code null} for all tables
+     * @param start     the index of the first table to return
+     * @param limit     the maximum number of tables to return
+     * @return the page of table names
+     */
+    @GET
+    @Path("{id}/table-catalog")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Gets a page of table names from the cached catalog of the data source.",
+                  notes = "Tables are read from a cache that is crawled in the background. The page indicates if the crawl is still in progress.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "Returns the page of table names.", response = TableCatalogPage.class),
+                      @ApiResponse(code = 403, message = "Access denied.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 404, message = "A JDBC data source with that id does not exist.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 500, message = "NiFi or the database are unavailable.", response = RestResponseStatus.class)
+                  })
+    public Response getTableCatalog(@PathParam("id") final String idStr, @QueryParam("schema") final String schema, @QueryParam("tableName") final String tableName,
+                                    @QueryParam("start") @DefaultValue("0") final Integer start, @QueryParam("limit") @DefaultValue("100") final Integer limit) {
+        final TableCatalogPage page = withJdbcDatasource(idStr, datasource -> dbcpConnectionPoolTableInfo.getTableCatalogPageForDatasource(datasource, schema, tableName, start, limit));
+        return Response.ok(page).build();
+    }
+
+    /**
+     * Starts a new crawl of the tables in the specified data source.
+     *
+     * @param idStr the data source id
+     * @return the response status
+     */
+    @POST
+    @Path("{id}/table-catalog/refresh")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Starts a new crawl of the tables in the data source.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "The crawl was started.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 403, message = "Access denied.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 404, message = "A JDBC data source with that id does not exist.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 500, message = "NiFi or the database are unavailable.", response = RestResponseStatus.class)
+                  })
+    public Response refreshTableCatalog(@PathParam("id") final String idStr) {
+        final boolean refreshed = withJdbcDatasource(idStr, dbcpConnectionPoolTableInfo::refreshTableCatalogForDatasource);
+        if (refreshed) {
+            return Response.ok(RestResponseStatus.SUCCESS).build();
+        } else {
+            throw new NotFoundException("Unable to access the database for data source: " + idStr);
+        }
+    }
+
+    /**
+     * Verifies the user has access to the data source then applies the function to the JDBC data source using the system user.
+     */
+    private <T> T withJdbcDatasource(@Nonnull final String idStr, @Nonnull final Function<JdbcDatasource, T> function) {
+        // Verify user has access to data source
+        final Optional<com.thinkbiganalytics.metadata.api.datasource.Datasource.ID> id = metadata.read(() -> {
+            accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.ACCESS_DATASOURCES);
+
+            final com.thinkbiganalytics.metadata.api.datasource.Datasource datasource = datasetProvider.getDatasource(datasetProvider.resolve(idStr));
+            return Optional.ofNullable(datasource).map(com.thinkbiganalytics.metadata.api.datasource.Datasource::getId);
+        });
+
+        return metadata.read(() -> id.map(datasetProvider::getDatasource)
+            .map(ds -> datasourceTransform.toDatasource(ds, DatasourceModelTransform.Level.ADMIN))
+            .filter(JdbcDatasource.class::isInstance)
+            .map(JdbcDatasource.class::cast)
+            .map(function)
+            .orElseThrow(() -> new NotFoundException("No JDBC datasource exists with the given ID: " + idStr)), MetadataAccess.SERVICE);
+    }
+
     /**
      * Gets the schema of the specified table using the specified data source.
      *
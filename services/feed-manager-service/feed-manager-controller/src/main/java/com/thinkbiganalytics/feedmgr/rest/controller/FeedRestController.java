@@ -337,13 +337,17 @@ public class FeedRestController {
                                  @QueryParam("sort") @DefaultValue("feedName") String sort,
                                  @QueryParam("filter") String filter,
                                  @QueryParam("limit") String limit,
-                                 @QueryParam("start") @DefaultValue("0") Integer start) {
+                                 @QueryParam("start") @DefaultValue("0") Integer start,
+                                 @QueryParam("after") String after,
+                                 @QueryParam("estimateCount") @DefaultValue("false") boolean estimateCount) {
 
         try {
             int size = Strings.isEmpty(limit) || limit.equalsIgnoreCase("all") ? MAX_LIMIT : Integer.parseInt(limit);
             Page<UIFeed> page = getMetadataService().getFeedsPage(verbose,
-                                                                  pageRequest(start, size, sort),
-                                                                  filter != null ? filter.trim() : null);
+                                                                  pageRequest(after != null ? 0 : start, size, sort),
+                                                                  filter != null ? filter.trim() : null,
+                                                                  after,
+                                                                  estimateCount);
             return this.feedModelTransform.toSearchResult(page);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("The value of limit must be an integer or \"all\"");
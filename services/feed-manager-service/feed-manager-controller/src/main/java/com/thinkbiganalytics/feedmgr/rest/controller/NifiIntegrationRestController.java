@@ -38,6 +38,7 @@ import com.thinkbiganalytics.nifi.rest.model.NiFiPropertyDescriptorTransform;
 import com.thinkbiganalytics.nifi.rest.model.flow.NifiFlowDeserializer;
 import com.thinkbiganalytics.nifi.rest.model.flow.NifiFlowProcessGroup;
 import com.thinkbiganalytics.rest.model.RestResponseStatus;
+import com.thinkbiganalytics.schema.TableCatalogPage;
 import com.thinkbiganalytics.security.AccessController;
 import com.thinkbiganalytics.spring.SpringEnvironmentProperties;
 
@@ -73,6 +74,7 @@ import javax.ws.rs.BadRequestException;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -358,6 +360,37 @@ public class NifiIntegrationRestController {
         return Response.ok(tables).build();
     }
 
+    @GET
+    @Path("/controller-services/{serviceId}/table-catalog")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Gets a page of table names from the cached catalog of the specified database.",
+                  notes = "Tables are read from a cache that is crawled in the background. The page indicates if the crawl is still in progress.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "Returns the page of table names.", response = TableCatalogPage.class),
+                      @ApiResponse(code = 500, message = "Nifi or the database are unavailable.", response = RestResponseStatus.class)
+                  })
+    public Response getTableCatalog(@PathParam("serviceId") String serviceId, @QueryParam("serviceName") @DefaultValue("") String serviceName, @QueryParam("schema") String schema,
+                                    @QueryParam("tableName") String tableName, @QueryParam("start") @DefaultValue("0") Integer start, @QueryParam("limit") @DefaultValue("100") Integer limit) {
+        TableCatalogPage page = dbcpConnectionPoolTableInfo.getTableCatalogPageForControllerService(serviceId, serviceName, schema, tableName, start, limit);
+        return Response.ok(page).build();
+    }
+
+    @POST
+    @Path("/controller-services/{serviceId}/table-catalog/refresh")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Starts a new crawl of the tables in the specified database.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "The crawl was started.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 500, message = "Nifi or the database are unavailable.", response = RestResponseStatus.class)
+                  })
+    public Response refreshTableCatalog(@PathParam("serviceId") String serviceId, @QueryParam("serviceName") @DefaultValue("") String serviceName) {
+        if (dbcpConnectionPoolTableInfo.refreshTableCatalogForControllerService(serviceId, serviceName)) {
+            return Response.ok(RestResponseStatus.SUCCESS).build();
+        } else {
+            throw new NotFoundException("Unable to access the database for controller service: " + serviceId);
+        }
+    }
+
     @GET
     @Path("/controller-services/{serviceId}/tables/{tableName}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -330,6 +330,11 @@ public class FeedManagerMetadataService implements MetadataService {
         return feedProvider.getFeeds(verbose, pageable, filter);
     }
 
+    @Override
+    public Page<UIFeed> getFeedsPage(boolean verbose, Pageable pageable, String filter, String continuationToken, boolean estimateCount) {
+        return feedProvider.getFeeds(verbose, pageable, filter, continuationToken, estimateCount);
+    }
+
     @Override
     public Collection<? extends UIFeed> getFeeds(boolean verbose) {
         return feedProvider.getFeeds(verbose);
@@ -160,6 +160,19 @@ public interface MetadataService {
      * @return a page of feeds determined by the values of limit and start
      */
     Page<UIFeed> getFeedsPage(boolean verbose, Pageable pageable, String filter);
+
+    /**
+     * Gets a page worth of feeds, located either by the offset of the pageable or, if a continuation token is given, by the last
+     * feed of the previous page.
+     *
+     * @param verbose           true will return {@link FeedMetadata} objects, false will return {@link FeedSummary} objects
+     * @param pageable          describes the page to be returned
+     * @param filter            the filter to apply to the feeds
+     * @param continuationToken the token returned with the previous page, an empty string for the first page, or null to page by offset
+     * @param estimateCount     true if the total may be estimated rather than counted
+     * @return a page of feeds
+     */
+    Page<UIFeed> getFeedsPage(boolean verbose, Pageable pageable, String filter, String continuationToken, boolean estimateCount);
     
     /**
      * @return a list of feeds
@@ -285,10 +285,14 @@ public class DefaultFeedManagerFeedService implements FeedManagerFeedService {
     }
 
     public Page<FeedMetadata> getFeeds(Pageable pageable, String filter) {
+        return getFeeds(pageable, filter, null, false);
+    }
+
+    private Page<FeedMetadata> getFeeds(Pageable pageable, String filter, String continuationToken, boolean estimateCount) {
         return metadataAccess.read(() -> {
             this.accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.ACCESS_FEEDS);
 
-            Page<Feed> domainFeeds = feedProvider.findPage(pageable, filter);
+            Page<Feed> domainFeeds = findFeedPage(pageable, filter, continuationToken, estimateCount);
             return domainFeeds.map(d -> feedModelTransform.domainToFeedMetadata(d));
         });
 
@@ -306,10 +310,15 @@ public class DefaultFeedManagerFeedService implements FeedManagerFeedService {
 
     @Override
     public Page<UIFeed> getFeeds(boolean verbose, Pageable pageable, String filter) {
+        return getFeeds(verbose, pageable, filter, null, false);
+    }
+
+    @Override
+    public Page<UIFeed> getFeeds(boolean verbose, Pageable pageable, String filter, String continuationToken, boolean estimateCount) {
         if (verbose) {
-            return getFeeds(pageable, filter).map(UIFeed.class::cast);
+            return getFeeds(pageable, filter, continuationToken, estimateCount).map(UIFeed.class::cast);
         } else {
-            return getFeedSummaryData(pageable, filter).map(UIFeed.class::cast);
+            return getFeedSummaryData(pageable, filter, continuationToken, estimateCount).map(UIFeed.class::cast);
         }
 
     }
@@ -322,14 +331,29 @@ public class DefaultFeedManagerFeedService implements FeedManagerFeedService {
     }
 
     public Page<FeedSummary> getFeedSummaryData(Pageable pageable, String filter) {
+        return getFeedSummaryData(pageable, filter, null, false);
+    }
+
+    private Page<FeedSummary> getFeedSummaryData(Pageable pageable, String filter, String continuationToken, boolean estimateCount) {
         return metadataAccess.read(() -> {
             this.accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.ACCESS_FEEDS);
 
-            Page<Feed> domainFeeds = feedProvider.findPage(pageable, filter);
+            Page<Feed> domainFeeds = findFeedPage(pageable, filter, continuationToken, estimateCount);
             return domainFeeds.map(d -> feedModelTransform.domainToFeedSummary(d));
         });
     }
 
+    /**
+     * Finds a page of domain feeds, by continuation token if one is given (empty for the first page) or else by offset.
+     */
+    private Page<Feed> findFeedPage(Pageable pageable, String filter, String continuationToken, boolean estimateCount) {
+        if (continuationToken != null) {
+            return feedProvider.findPageAfter(pageable, filter, continuationToken.isEmpty() ? null : continuationToken);
+        } else {
+            return feedProvider.findPage(pageable, filter, estimateCount);
+        }
+    }
+
     @Override
     public List<FeedSummary> getFeedSummaryForCategory(final String categoryId) {
         return metadataAccess.read(() -> {
@@ -45,6 +45,7 @@ import com.thinkbiganalytics.feedmgr.service.UploadProgressService;
 import com.thinkbiganalytics.feedmgr.service.datasource.DatasourceModelTransform;
 import com.thinkbiganalytics.feedmgr.service.template.ExportImportTemplateService;
 import com.thinkbiganalytics.feedmgr.service.template.RegisteredTemplateService;
+import com.thinkbiganalytics.feedmgr.support.ImportFile;
 import com.thinkbiganalytics.feedmgr.support.ZipFileUtil;
 import com.thinkbiganalytics.feedmgr.util.ImportUtil;
 import com.thinkbiganalytics.json.ObjectMapperSerializer;
@@ -68,16 +69,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
@@ -168,12 +167,11 @@ public class ExportImportFeedService {
             feed.setUserDatasources(userDatasources);
         }
 
-        // Add feed json to template zip file
+        // Feed json is appended to the template zip entries when the export is streamed
         final ExportImportTemplateService.ExportTemplate exportTemplate = exportImportTemplateService.exportTemplateForFeedExport(feed.getTemplateId());
         final String feedJson = ObjectMapperSerializer.serialize(feed);
 
-        final byte[] zipFile = ZipFileUtil.addToZip(exportTemplate.getFile(), feedJson, FEED_JSON_FILE);
-        return new ExportFeed(feed.getSystemFeedName() + ".feed.zip", zipFile);
+        return new ExportFeed(feed.getSystemFeedName() + ".feed.zip", exportTemplate, feedJson);
     }
 
     //Validate
@@ -181,16 +179,16 @@ public class ExportImportFeedService {
     /**
      * Validate a feed for importing
      *
-     * @param fileName the name of the file to import
-     * @param content  the contents of the feed zip file
-     * @param options  user options about what/how it should be imported
+     * @param importFile the feed zip file, spooled to disk
+     * @param options    user options about what/how it should be imported
      * @return the feed data to import
      */
-    public ImportFeed validateFeedForImport(final String fileName, byte[] content, ImportFeedOptions options) throws IOException {
+    public ImportFeed validateFeedForImport(final ImportFile importFile, ImportFeedOptions options) throws IOException {
         this.accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.IMPORT_FEEDS);
+        final String fileName = importFile.getFileName();
         ImportFeed importFeed = null;
         UploadProgressMessage feedImportStatusMessage = uploadProgressService.addUploadStatus(options.getUploadKey(), "Validating Feed import.");
-        boolean isValid = ZipFileUtil.validateZipEntriesWithRequiredEntries(content, getValidZipFileEntries(), Sets.newHashSet(FEED_JSON_FILE));
+        boolean isValid = ZipFileUtil.validateZipEntriesWithRequiredEntries(importFile, getValidZipFileEntries(), Sets.newHashSet(FEED_JSON_FILE));
         if (!isValid) {
             feedImportStatusMessage.update("Validation error. Feed import error. The zip file you uploaded is not valid feed export.", false);
             throw new ImportFeedException("The zip file you uploaded is not valid feed export.");
@@ -198,11 +196,11 @@ public class ExportImportFeedService {
 
         try {
             //get the Feed Data
-            importFeed = readFeedJson(fileName, content);
+            importFeed = readFeedJson(importFile);
             //initially mark as valid.
             importFeed.setValid(true);
             //merge in the file components to the user options
-            Set<ImportComponentOption> componentOptions = ImportUtil.inspectZipComponents(content, ImportType.FEED);
+            Set<ImportComponentOption> componentOptions = ImportUtil.inspectZipComponents(importFile, ImportType.FEED);
             options.addOptionsIfNotExists(componentOptions);
             importFeed.setImportOptions(options);
 
@@ -243,7 +241,7 @@ public class ExportImportFeedService {
             }
 
             //UploadProgressMessage statusMessage = uploadProgressService.addUploadStatus(options.getUploadKey(),"Validating the template data");
-            ExportImportTemplateService.ImportTemplate importTemplate = exportImportTemplateService.validateTemplateForImport(importFeed.getFileName(), content, options);
+            ExportImportTemplateService.ImportTemplate importTemplate = exportImportTemplateService.validateTemplateForImport(importFile, options);
             // need to set the importOptions back to the feed options
             //find importOptions for the Template and add them back to the set of options
             //importFeed.getImportOptions().updateOptions(importTemplate.getImportOptions().getImportComponentOptions());
@@ -473,17 +471,16 @@ public class ExportImportFeedService {
     /**
      * Import a feed zip file
      *
-     * @param fileName      the name of the file
-     * @param content       the file content
+     * @param importFile    the feed zip file, spooled to disk
      * @param importOptions user options about what/how it should be imported
      * @return the feed data to import
      */
-    public ImportFeed importFeed(String fileName, byte[] content, ImportFeedOptions importOptions) throws Exception {
+    public ImportFeed importFeed(ImportFile importFile, ImportFeedOptions importOptions) throws Exception {
         this.accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.IMPORT_FEEDS);
         UploadProgress progress = uploadProgressService.getUploadStatus(importOptions.getUploadKey());
         progress.setSections(ImportSection.sectionsForImportAsString(ImportType.FEED));
 
-        ImportFeed feed = validateFeedForImport(fileName, content, importOptions);
+        ImportFeed feed = validateFeedForImport(importFile, importOptions);
 
         if (feed.isValid()) {
             //read the JSON into the Feed object
@@ -587,43 +584,41 @@ public class ExportImportFeedService {
         progress.completeSection(section.name());
     }
 
-    private ImportFeed readFeedJson(String fileName, byte[] content) throws IOException {
-
-        byte[] buffer = new byte[1024];
-        InputStream inputStream = new ByteArrayInputStream(content);
-        ZipInputStream zis = new ZipInputStream(inputStream);
-        ZipEntry zipEntry;
-        // while there are entries I process them
-        ImportFeed importFeed = new ImportFeed(fileName);
-
-        while ((zipEntry = zis.getNextEntry()) != null) {
-
-            if (zipEntry.getName().startsWith(FEED_JSON_FILE)) {
-                String zipEntryContents = ZipFileUtil.zipEntryToString(buffer, zis, zipEntry);
-                importFeed.setFeedJson(zipEntryContents);
-            }
-        }
+    private ImportFeed readFeedJson(ImportFile importFile) throws IOException {
+        ImportFeed importFeed = new ImportFeed(importFile.getFileName());
+        importFeed.setFeedJson(importFile.readEntry(FEED_JSON_FILE));
         return importFeed;
     }
 
     //Internal classes
 
-    public class ExportFeed {
+    /**
+     * An exported feed.  The zip file is written directly to the destination stream by {@link #writeTo(OutputStream)}.
+     */
+    public static class ExportFeed {
 
         private String fileName;
-        private byte[] file;
+        private ExportImportTemplateService.ExportTemplate template;
+        private String feedJson;
 
-        public ExportFeed(String fileName, byte[] file) {
+        public ExportFeed(String fileName, ExportImportTemplateService.ExportTemplate template, String feedJson) {
             this.fileName = fileName;
-            this.file = file;
+            this.template = template;
+            this.feedJson = feedJson;
         }
 
         public String getFileName() {
             return fileName;
         }
 
-        public byte[] getFile() {
-            return file;
+        /**
+         * Writes the template entries followed by the feed json as a zip file to the stream.  The stream is not closed.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            ZipOutputStream zos = new ZipOutputStream(out);
+            template.writeEntries(zos);
+            ZipFileUtil.writeEntry(zos, FEED_JSON_FILE, feedJson);
+            zos.finish();
         }
     }
 
@@ -112,6 +112,21 @@ public interface FeedManagerFeedService {
      * @return a list of feed objects
      */
     Page<UIFeed> getFeeds(boolean verbose, Pageable pageable, String filter);
+
+    /**
+     * Return a page of feeds, optionally returning a more verbose object populating all the templates and properties.
+     * <p>
+     * If a continuation token is given, which may be empty for the first page, the page is located by the sort key of the last feed
+     * of the previous page instead of by the offset of the pageable, and the returned page carries the token for the next page.
+     *
+     * @param verbose           true will return {@link FeedMetadata} objects, false will return {@link FeedSummary} objects
+     * @param pageable          describes the page requested
+     * @param filter            the filter to apply to the feeds
+     * @param continuationToken the token returned with the previous page, an empty string for the first page, or null to page by offset
+     * @param estimateCount     true if the total may be estimated rather than counted, when paging by offset
+     * @return a page of feed objects
+     */
+    Page<UIFeed> getFeeds(boolean verbose, Pageable pageable, String filter, String continuationToken, boolean estimateCount);
     
     /**
      * @return a list of feeds
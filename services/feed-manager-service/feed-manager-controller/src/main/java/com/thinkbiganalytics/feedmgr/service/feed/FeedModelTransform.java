@@ -34,6 +34,7 @@ import com.thinkbiganalytics.feedmgr.service.category.CategoryModelTransform;
 import com.thinkbiganalytics.feedmgr.service.template.TemplateModelTransform;
 import com.thinkbiganalytics.hive.service.HiveService;
 import com.thinkbiganalytics.json.ObjectMapperSerializer;
+import com.thinkbiganalytics.metadata.api.KeysetPage;
 import com.thinkbiganalytics.metadata.api.category.Category;
 import com.thinkbiganalytics.metadata.api.category.CategoryProvider;
 import com.thinkbiganalytics.metadata.api.extension.UserFieldDescriptor;
@@ -153,6 +154,9 @@ public class FeedModelTransform {
         searchResult.setData(page.getContent());
         searchResult.setRecordsTotal(page.getTotalElements());
         searchResult.setRecordsFiltered(page.getTotalElements());
+        if (page instanceof KeysetPage) {
+            searchResult.setContinuationToken(((KeysetPage<?>) page).getContinuationToken());
+        }
         return searchResult;
     }
 
@@ -127,6 +127,11 @@ public class InMemoryFeedManagerFeedService implements FeedManagerFeedService {
                              allFeeds.size());
     }
 
+    @Override
+    public Page<UIFeed> getFeeds(boolean verbose, Pageable pageable, String filter, String continuationToken, boolean estimateCount) {
+        return getFeeds(verbose, pageable, filter);
+    }
+
     public List<FeedSummary> getFeedSummaryData() {
         List<FeedSummary> summaryList = new ArrayList<>();
         if (feeds != null && !feeds.isEmpty()) {
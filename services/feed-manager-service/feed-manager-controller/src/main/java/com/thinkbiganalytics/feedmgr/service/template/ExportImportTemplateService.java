@@ -39,6 +39,7 @@ import com.thinkbiganalytics.feedmgr.rest.support.SystemNamingService;
 import com.thinkbiganalytics.feedmgr.security.FeedServicesAccessControl;
 import com.thinkbiganalytics.feedmgr.service.MetadataService;
 import com.thinkbiganalytics.feedmgr.service.UploadProgressService;
+import com.thinkbiganalytics.feedmgr.support.ImportFile;
 import com.thinkbiganalytics.feedmgr.support.ZipFileUtil;
 import com.thinkbiganalytics.feedmgr.util.ImportUtil;
 import com.thinkbiganalytics.json.ObjectMapperSerializer;
@@ -59,7 +60,6 @@ import com.thinkbiganalytics.nifi.rest.support.NifiProcessUtil;
 import com.thinkbiganalytics.nifi.rest.support.NifiPropertyUtil;
 import com.thinkbiganalytics.security.AccessController;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.nifi.web.api.dto.ProcessGroupDTO;
@@ -70,11 +70,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.xml.sax.SAXException;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.StringWriter;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -83,8 +80,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import javax.inject.Inject;
@@ -128,6 +123,9 @@ public class ExportImportTemplateService {
     @Inject
     private UploadProgressService uploadProgressService;
 
+    @Inject
+    private NiFiTemplateCache niFiTemplateCache;
+
     //Export Methods
 
     /**
@@ -197,43 +195,14 @@ public class ExportImportTemplateService {
                 throw new UnsupportedOperationException("Unable to find Nifi Template for " + templateId);
             }
 
-            //create a zip file with the template and xml
-            byte[] zipFile = zip(template, templateXml, connectingReusableTemplates);
-
-            return new ExportTemplate(SystemNamingService.generateSystemName(template.getTemplateName()) + ".template.zip", zipFile);
+            //the zip file is written when the export is streamed to the caller
+            return new ExportTemplate(SystemNamingService.generateSystemName(template.getTemplateName()) + ".template.zip", template, templateXml, connectingReusableTemplates);
 
         } else {
             throw new UnsupportedOperationException("Unable to find Template for " + templateId);
         }
     }
 
-    private byte[] zip(RegisteredTemplate template, String nifiTemplateXml, List<String> reusableTemplateXmls) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-
-            ZipEntry entry = new ZipEntry(NIFI_TEMPLATE_XML_FILE);
-            zos.putNextEntry(entry);
-            zos.write(nifiTemplateXml.getBytes());
-            zos.closeEntry();
-            int reusableTemplateNumber = 0;
-            for (String reusableTemplateXml : reusableTemplateXmls) {
-                entry = new ZipEntry(String.format("%s_%s.xml", NIFI_CONNECTING_REUSABLE_TEMPLATE_XML_FILE, reusableTemplateNumber++));
-                zos.putNextEntry(entry);
-                zos.write(reusableTemplateXml.getBytes());
-                zos.closeEntry();
-            }
-            entry = new ZipEntry(TEMPLATE_JSON_FILE);
-            zos.putNextEntry(entry);
-            String json = ObjectMapperSerializer.serialize(template);
-            zos.write(json.getBytes());
-            zos.closeEntry();
-
-        } catch (IOException ioe) {
-            throw new RuntimeException(ioe);
-        }
-        return baos.toByteArray();
-    }
-
     //Validation Methods
 
 
@@ -249,10 +218,10 @@ public class ExportImportTemplateService {
 
 
     //validate
-    public ImportTemplate validateTemplateForImport(final String fileName, byte[] content, ImportOptions importOptions) {
+    public ImportTemplate validateTemplateForImport(final ImportFile importFile, ImportOptions importOptions) {
 
         this.accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.IMPORT_TEMPLATES);
-        InputStream inputStream = new ByteArrayInputStream(content);
+        final String fileName = importFile.getFileName();
         UploadProgressMessage overallStatusMessage = uploadProgressService.addUploadStatus(importOptions.getUploadKey(), "Validating template for import");
         UploadProgressMessage statusMessage = overallStatusMessage;
         ImportTemplateOptions options = new ImportTemplateOptions();
@@ -264,9 +233,9 @@ public class ExportImportTemplateService {
         }
         try {
             if (fileName.endsWith(".zip")) {
-                template = openZip(fileName, inputStream);
+                template = openZip(importFile);
                 template.setValid(true);
-                Set<ImportComponentOption> componentOptions = ImportUtil.inspectZipComponents(content, ImportType.TEMPLATE);
+                Set<ImportComponentOption> componentOptions = ImportUtil.inspectZipComponents(importFile, ImportType.TEMPLATE);
                 options.setImportComponentOptions(importOptions.getImportComponentOptions());
                 options.addOptionsIfNotExists(componentOptions);
                 template.setImportOptions(options);
@@ -278,7 +247,7 @@ public class ExportImportTemplateService {
                     validateNiFiTemplateImport(template);
                 }
             } else {
-                template = getNewNiFiTemplateImport(fileName, inputStream);
+                template = getNewNiFiTemplateImport(fileName, importFile.readAsString());
                 template.setImportOptions(options);
                 //deal with reusable templates??
                 validateNiFiTemplateImport(template);
@@ -558,23 +527,23 @@ public class ExportImportTemplateService {
 
     /// IMPORT methods
 
-    public ImportTemplate importTemplateForFeed(final String fileName, final byte[] content, ImportTemplateOptions importOptions) {
+    public ImportTemplate importTemplateForFeed(final ImportFile importFile, ImportTemplateOptions importOptions) {
         this.accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.EXPORT_TEMPLATES);
-        return importTemplate(fileName, content, importOptions);
+        return importTemplate(importFile, importOptions);
     }
 
     /**
      * Import a xml or zip file.
      *
-     * @param fileName      the name of the file
-     * @param content       the file
+     * @param importFile    the uploaded file, spooled to disk
      * @param importOptions user options about what/how it should be imported
      * @return the template data to import along with status/messages/error information if it was valid and if was successfully imported
      */
-    public ImportTemplate importTemplate(final String fileName, final byte[] content, ImportTemplateOptions importOptions) {
+    public ImportTemplate importTemplate(final ImportFile importFile, ImportTemplateOptions importOptions) {
         // return metadataAccess.commit(() -> {
         this.accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.IMPORT_TEMPLATES);
 
+        final String fileName = importFile.getFileName();
         ImportTemplate template = null;
         if (!isValidFileImport(fileName)) {
             throw new UnsupportedOperationException("Unable to import " + fileName + ".  The file must be a zip file or a Nifi Template xml file");
@@ -583,13 +552,13 @@ public class ExportImportTemplateService {
             if (fileName.endsWith(".zip")) {
                 UploadProgress progress = uploadProgressService.getUploadStatus(importOptions.getUploadKey());
                 progress.setSections(ImportSection.sectionsForImportAsString(ImportType.TEMPLATE));
-                template = validateAndImportZip(fileName, content, importOptions); //dont allow exported reusable flows to become registered templates
+                template = validateAndImportZip(importFile, importOptions); //dont allow exported reusable flows to become registered templates
             } else if (fileName.endsWith(".xml")) {
 
                 UploadProgress progress = uploadProgressService.getUploadStatus(importOptions.getUploadKey());
                 progress.setSections(ImportSection.sectionsForImportAsString(ImportType.TEMPLATE_XML));
 
-                template = importNifiTemplate(fileName, content, importOptions, true);
+                template = importNifiTemplate(fileName, importFile.readAsString(), importOptions, true);
             }
         } catch (IOException e) {
             throw new UnsupportedOperationException("Error importing template  " + fileName + ".  " + e.getMessage());
@@ -605,7 +574,7 @@ public class ExportImportTemplateService {
      * of a feed import operation.  Validates whether the user has import feed permission.
      *
      * Note.  This method will not call any validation routines.  It will just import.
-     * If you want to validate before to ensure the import will be correct call this.importTemplate(final String fileName, final byte[] content, ImportTemplateOptions importOptions)
+     * If you want to validate before to ensure the import will be correct call this.importTemplate(final ImportFile importFile, ImportTemplateOptions importOptions)
      *
      * @param importTemplate the template data to validate before importing
      * @return the template data to validate before importing
@@ -620,7 +589,7 @@ public class ExportImportTemplateService {
      * Validates whether the user has import template permission.
      *
      * Note.  This method will not call any validation routines.  It will just import.
-     * If you want to validate before to ensure the import will be correct call this.importTemplate(final String fileName, final byte[] content, ImportTemplateOptions importOptions)
+     * If you want to validate before to ensure the import will be correct call this.importTemplate(final ImportFile importFile, ImportTemplateOptions importOptions)
      *
      * @param importTemplate the template data to validate before importing
      * @return the template data to validate before importing
@@ -741,6 +710,7 @@ public class ExportImportTemplateService {
                     template.setNifiTemplateId(dto.getId());
                     if (importOptions.isImportAndOverwrite(ImportComponent.NIFI_TEMPLATE) && nifiTemplateImport.isValidForImport()) {
                         nifiRestClient.deleteTemplate(dto.getId());
+                        niFiTemplateCache.invalidateTemplate(dto.getId());
                     } else if (!template.isZipFile()) {
                         //if its not a zip file we need to error out if the user has decided not to overwrite when it already exists
                         uploadProgressService
@@ -759,6 +729,7 @@ public class ExportImportTemplateService {
                 UploadProgressMessage statusMessage = uploadProgressService.addUploadStatus(importOptions.getUploadKey(), "Importing " + templateName + " into NiFi");
                 log.info("Attempting to import Nifi Template: {} for file {}", templateName, template.getFileName());
                 dto = nifiRestClient.importTemplate(template.getTemplateName(), template.getNifiTemplateXml());
+                niFiTemplateCache.invalidateTemplate(dto.getId());
                 template.setNifiTemplateId(dto.getId());
                 statusMessage.update("Imported " + templateName + " into NiFi", true);
             }
@@ -770,9 +741,9 @@ public class ExportImportTemplateService {
     }
 
 
-    private ImportTemplate validateAndImportZip(String fileName, byte[] content, ImportTemplateOptions importOptions) {
+    private ImportTemplate validateAndImportZip(ImportFile importFile, ImportTemplateOptions importOptions) {
         this.accessController.checkPermission(AccessController.SERVICES, FeedServicesAccessControl.IMPORT_TEMPLATES);
-        ImportTemplate importTemplate = validateTemplateForImport(fileName, content, importOptions);
+        ImportTemplate importTemplate = validateTemplateForImport(importFile, importOptions);
         return metadataAccess.commit(() -> importZip(importTemplate));
     }
 
@@ -844,8 +815,7 @@ public class ExportImportTemplateService {
             for (String reusableTemplateXml : importTemplate.getNifiConnectingReusableTemplateXmls()) {
 
                 String name = NifiTemplateParser.getTemplateName(reusableTemplateXml);
-                ImportTemplate connectingTemplate = importNifiTemplateWithTemplateString(name, reusableTemplateXml, importOptions,
-                                                                                         false);
+                ImportTemplate connectingTemplate = importNifiTemplate(name, reusableTemplateXml, importOptions, false);
                 lastReusableTemplate = connectingTemplate;
                 if (!connectingTemplate.isSuccess()) {
                     //return with exception
@@ -875,11 +845,6 @@ public class ExportImportTemplateService {
         return connectingTemplates;
     }
 
-    private ImportTemplate importNifiTemplateWithTemplateString(String fileName, String xmlFile, ImportTemplateOptions importOptions, boolean xmlImport) throws IOException {
-        byte[] content = xmlFile.getBytes("UTF-8");
-        return importNifiTemplate(fileName, content, importOptions, xmlImport);
-    }
-
     /**
      *
      * @param fileName
@@ -889,9 +854,8 @@ public class ExportImportTemplateService {
      * @return
      * @throws IOException
      */
-    private ImportTemplate importNifiTemplate(String fileName, byte[] xmlFile, ImportTemplateOptions importOptions, boolean xmlImport) throws IOException {
-        InputStream inputStream = new ByteArrayInputStream(xmlFile);
-        ImportTemplate importTemplate = getNewNiFiTemplateImport(fileName, inputStream);
+    private ImportTemplate importNifiTemplate(String fileName, String xmlFile, ImportTemplateOptions importOptions, boolean xmlImport) throws IOException {
+        ImportTemplate importTemplate = getNewNiFiTemplateImport(fileName, xmlFile);
         importTemplate.setImportOptions(importOptions);
 
         validateNiFiTemplateImport(importTemplate);
@@ -967,10 +931,12 @@ public class ExportImportTemplateService {
         importTemplate.setSuccess(false);
         //delete the template from NiFi
         nifiRestClient.deleteTemplate(dto.getId());
+        niFiTemplateCache.invalidateTemplate(dto.getId());
         //restore old template
         if (oldTemplateXml != null) {
             log.info("Rollback Nifi: Attempt to restore old template xml ");
-            nifiRestClient.importTemplate(oldTemplateXml);
+            TemplateDTO restoredTemplate = nifiRestClient.importTemplate(oldTemplateXml);
+            niFiTemplateCache.invalidateTemplate(restoredTemplate != null ? restoredTemplate.getId() : null);
             log.info("Rollback Nifi: restored old template xml ");
         }
         log.info("Rollback Nifi:  Deleted the template: {}  from Nifi ", importTemplate.getTemplateName());
@@ -1027,27 +993,16 @@ public class ExportImportTemplateService {
     /**
      * Open the zip file and populate the {@link ImportTemplate} object with the components in the file/archive
      *
-     * @param fileName    the file name
-     * @param inputStream the file
+     * @param importFile the spooled zip file
      * @return the template data to import
      */
-    private ImportTemplate openZip(String fileName, InputStream inputStream) throws IOException {
-        byte[] buffer = new byte[1024];
-        ZipInputStream zis = new ZipInputStream(inputStream);
-        ZipEntry zipEntry;
-        ImportTemplate importTemplate = new ImportTemplate(fileName);
-        while ((zipEntry = zis.getNextEntry()) != null) {
-            String zipEntryContents = ZipFileUtil.zipEntryToString(buffer, zis, zipEntry);
-            if (zipEntry.getName().startsWith(NIFI_TEMPLATE_XML_FILE)) {
-                importTemplate.setNifiTemplateXml(zipEntryContents);
-            } else if (zipEntry.getName().startsWith(TEMPLATE_JSON_FILE)) {
-                importTemplate.setTemplateJson(zipEntryContents);
-            } else if (zipEntry.getName().startsWith(NIFI_CONNECTING_REUSABLE_TEMPLATE_XML_FILE)) {
-                importTemplate.addNifiConnectingReusableTemplateXml(zipEntryContents);
-            }
+    private ImportTemplate openZip(ImportFile importFile) throws IOException {
+        ImportTemplate importTemplate = new ImportTemplate(importFile.getFileName());
+        importTemplate.setNifiTemplateXml(importFile.readEntry(NIFI_TEMPLATE_XML_FILE));
+        importTemplate.setTemplateJson(importFile.readEntry(TEMPLATE_JSON_FILE));
+        for (String reusableTemplateXml : importFile.readEntries(NIFI_CONNECTING_REUSABLE_TEMPLATE_XML_FILE)) {
+            importTemplate.addNifiConnectingReusableTemplateXml(reusableTemplateXml);
         }
-        zis.closeEntry();
-        zis.close();
         if (!importTemplate.hasValidComponents()) {
             throw new UnsupportedOperationException(
                 " The file you uploaded is not a valid archive.  Please ensure the Zip file has been exported from the system and has 2 valid files named: " + NIFI_TEMPLATE_XML_FILE + ", and "
@@ -1058,12 +1013,9 @@ public class ExportImportTemplateService {
 
     }
 
-    private ImportTemplate getNewNiFiTemplateImport(String fileName, InputStream inputStream) throws IOException {
+    private ImportTemplate getNewNiFiTemplateImport(String fileName, String xmlTemplate) {
         ImportTemplate template = new ImportTemplate(fileName);
         template.setValid(true);
-        StringWriter writer = new StringWriter();
-        IOUtils.copy(inputStream, writer, "UTF-8");
-        String xmlTemplate = writer.toString();
         template.setNifiTemplateXml(xmlTemplate);
         return template;
     }
@@ -1251,22 +1203,46 @@ public class ExportImportTemplateService {
         }
     }
 
-    public class ExportTemplate {
+    /**
+     * An exported template.  The zip file is not built in memory; it is written directly to the destination stream by {@link #writeTo(OutputStream)}.
+     */
+    public static class ExportTemplate {
 
         private String fileName;
-        private byte[] file;
+        private RegisteredTemplate template;
+        private String nifiTemplateXml;
+        private List<String> reusableTemplateXmls;
 
-        public ExportTemplate(String fileName, byte[] file) {
+        public ExportTemplate(String fileName, RegisteredTemplate template, String nifiTemplateXml, List<String> reusableTemplateXmls) {
             this.fileName = fileName;
-            this.file = file;
+            this.template = template;
+            this.nifiTemplateXml = nifiTemplateXml;
+            this.reusableTemplateXmls = reusableTemplateXmls;
         }
 
         public String getFileName() {
             return fileName;
         }
 
-        public byte[] getFile() {
-            return file;
+        /**
+         * Writes the template as a zip file to the stream.  The stream is not closed.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            ZipOutputStream zos = new ZipOutputStream(out);
+            writeEntries(zos);
+            zos.finish();
+        }
+
+        /**
+         * Writes the template entries to an open zip stream so that callers can append their own entries.
+         */
+        public void writeEntries(ZipOutputStream zos) throws IOException {
+            ZipFileUtil.writeEntry(zos, NIFI_TEMPLATE_XML_FILE, nifiTemplateXml);
+            int reusableTemplateNumber = 0;
+            for (String reusableTemplateXml : reusableTemplateXmls) {
+                ZipFileUtil.writeEntry(zos, String.format("%s_%s.xml", NIFI_CONNECTING_REUSABLE_TEMPLATE_XML_FILE, reusableTemplateNumber++), reusableTemplateXml);
+            }
+            ZipFileUtil.writeEntry(zos, TEMPLATE_JSON_FILE, ObjectMapperSerializer.serialize(template));
         }
     }
 
@@ -22,6 +22,7 @@ package com.thinkbiganalytics.feedmgr.service.template;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.thinkbiganalytics.feedmgr.rest.model.RegisteredTemplate;
 import com.thinkbiganalytics.nifi.rest.client.LegacyNifiRestClient;
 import com.thinkbiganalytics.nifi.rest.client.NifiClientRuntimeException;
@@ -32,10 +33,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.nifi.web.api.dto.TemplateDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
 /**
@@ -48,29 +57,84 @@ public class NiFiTemplateCache {
     @Inject
     private LegacyNifiRestClient nifiRestClient;
 
+    /**
+     * Time in millis that the list of NiFi templates is reused before it is fetched again
+     */
+    @Value("${kylo.feed.mgr.template.index.ttl:5000}")
+    private long templateIndexTimeToLive = 5000;
+
+    /**
+     * Maximum number of populated templates to cache
+     */
+    @Value("${kylo.feed.mgr.template.cache.size:100}")
+    private long templateCacheSize = 100;
+
     /**
      * A cache of the NiFi template properties.
      * Properties for a given template are cached and updated when the template changes
      */
     private Cache<String, TemplatePropertiesCache> templatePropertiesCache = CacheBuilder.newBuilder().build();
 
-    private Cache<String, TemplateDTO> templateByIdCache = CacheBuilder.newBuilder().build();
-    private Cache<String, TemplateDTO> templateByNameCache = CacheBuilder.newBuilder().build();
+    /**
+     * Populated templates keyed by the template id and timestamp so a changed template is a cache miss
+     */
+    private Cache<String, TemplateDTO> templateCache;
+
+    /**
+     * Summaries of the templates in NiFi, or {@code null} if the index must be fetched
+     */
+    private volatile TemplateIndex templateIndex;
+
+    /**
+     * Number of times the template summaries have been fetched from NiFi
+     */
+    private final AtomicLong templateIndexRefreshCount = new AtomicLong();
 
     public NiFiTemplateCache() {
 
     }
 
-    private Set<TemplateDTO> getTemplateSummaries() {
-        return nifiRestClient.getNiFiRestClient().templates().findAll();
+    @PostConstruct
+    public void init() {
+        templateCache = CacheBuilder.newBuilder().maximumSize(templateCacheSize).recordStats().build();
     }
 
-    private TemplateDTO findSummaryById(String templateId) {
-        return nifiRestClient.getNiFiRestClient().templates().findAll().stream().filter(t -> t.getId().equalsIgnoreCase(templateId)).findFirst().orElse(null);
+    /**
+     * Gets the index of template summaries, fetching them from NiFi if the index is missing or expired.
+     *
+     * @param requestTime  the time of the request
+     * @param forceRefresh {@code true} to fetch the summaries unless they were fetched after the request time
+     * @return the template index
+     */
+    @Nonnull
+    private TemplateIndex getTemplateIndex(long requestTime, boolean forceRefresh) {
+        TemplateIndex index = templateIndex;
+        if (index == null || index.isExpired(requestTime, templateIndexTimeToLive) || (forceRefresh && index.getLoadedTime() < requestTime)) {
+            synchronized (this) {
+                index = templateIndex;
+                if (index == null || index.isExpired(requestTime, templateIndexTimeToLive) || (forceRefresh && index.getLoadedTime() < requestTime)) {
+                    index = new TemplateIndex(nifiRestClient.getNiFiRestClient().templates().findAll(), System.currentTimeMillis());
+                    templateIndex = index;
+                    templateIndexRefreshCount.incrementAndGet();
+                }
+            }
+        }
+        return index;
     }
 
-    private TemplateDTO findSummaryByName(String name) {
-        return nifiRestClient.getNiFiRestClient().templates().findAll().stream().filter(t -> t.getName().equalsIgnoreCase(name)).findFirst().orElse(null);
+    /**
+     * Finds the summary of the template with the specified id, or with the specified name if there is no template with the id.
+     */
+    @Nullable
+    private TemplateDTO findSummary(@Nonnull final TemplateIndex index, @Nullable final String templateId, @Nullable final String templateName) {
+        TemplateDTO summary = null;
+        if (StringUtils.isNotBlank(templateId)) {
+            summary = index.findById(templateId);
+        }
+        if (summary == null && StringUtils.isNotBlank(templateName)) {
+            summary = index.findByName(templateName);
+        }
+        return summary;
     }
 
     public boolean needsUpdate(TemplateDTO summary, TemplateDTO cached) {
@@ -78,11 +142,46 @@ public class NiFiTemplateCache {
     }
 
     public TemplateDTO getCachedTemplateById(String nifiTemplateId) {
-        return templateByIdCache.getIfPresent(nifiTemplateId);
+        final String prefix = nifiTemplateId + "@";
+        return templateCache.asMap().entrySet().stream()
+            .filter(entry -> entry.getKey().startsWith(prefix))
+            .map(Map.Entry::getValue)
+            .reduce((a, b) -> needsUpdate(b, a) ? b : a)
+            .orElse(null);
     }
 
     public TemplateDTO getCachedTemplateByName(String name) {
-        return templateByIdCache.getIfPresent(name);
+        final TemplateIndex index = templateIndex;
+        final TemplateDTO summary = (index != null) ? index.findByName(name) : null;
+        return (summary != null) ? getCachedTemplateById(summary.getId()) : null;
+    }
+
+    /**
+     * Removes the specified template from the cache and marks the template index as stale.
+     *
+     * <p>This should be called whenever Kylo imports or deletes a template in NiFi.</p>
+     *
+     * @param nifiTemplateId the nifi template id, or {@code null} to only refresh the index
+     */
+    public void invalidateTemplate(@Nullable final String nifiTemplateId) {
+        templateIndex = null;
+        if (nifiTemplateId != null) {
+            invalidateCachedVersions(nifiTemplateId);
+        }
+    }
+
+    /**
+     * Gets the hit and miss statistics of the populated template cache.
+     */
+    public CacheStats getTemplateCacheStats() {
+        return templateCache.stats();
+    }
+
+    /**
+     * Gets the number of times the list of templates has been fetched from NiFi.
+     */
+    public long getTemplateIndexRefreshCount() {
+        return templateIndexRefreshCount.get();
     }
 
     /**
@@ -92,38 +191,39 @@ public class NiFiTemplateCache {
      * @return the populated template
      */
     public TemplateDTO geTemplate(String nifiTemplateId, String templateName) {
-        TemplateDTO templateDTO = null;
-        TemplateDTO nifiTemplate = null;
-           if (StringUtils.isNotBlank(nifiTemplateId)) {
-               templateDTO = templateByIdCache.getIfPresent(nifiTemplateId);
-               nifiTemplate = findSummaryById(nifiTemplateId);
-           }
-            if(templateDTO == null && StringUtils.isNotBlank(templateName)){
-                templateDTO = templateByNameCache.getIfPresent(templateName);
-            }
-            if(nifiTemplate == null && StringUtils.isNotBlank(templateName)){
-                nifiTemplate = findSummaryByName(templateName);
-            }
-            if(nifiTemplate != null) {
-                if(needsUpdate(nifiTemplate,templateDTO)){
-                    log.info("Fetching NiFi template from NiFi {}, {}",nifiTemplateId,templateName);
-                    templateDTO = getPopulatedTemplate(nifiTemplateId,templateName);
-                    if(templateDTO != null){
-                        if(StringUtils.isNotBlank(nifiTemplateId)){
-                            templateByIdCache.put(nifiTemplateId,templateDTO);
-                        }
-                        if(StringUtils.isNotBlank(templateName)) {
-                            templateByNameCache.put(templateName,templateDTO);
-                        }
-                    }
-                }
-                else {
-                    log.info("Returning Cached NiFi template {}, {}",nifiTemplateId,templateName);
-                }
-            }
+        final long requestTime = System.currentTimeMillis();
+        TemplateIndex index = getTemplateIndex(requestTime, false);
+        TemplateDTO summary = findSummary(index, nifiTemplateId, templateName);
+        if (summary == null) {
+            //the template may have been created after the index was fetched
+            index = getTemplateIndex(requestTime, true);
+            summary = findSummary(index, nifiTemplateId, templateName);
+        }
+        if (summary == null) {
+            return StringUtils.isNotBlank(nifiTemplateId) ? getCachedTemplateById(nifiTemplateId) : getCachedTemplateByName(templateName);
+        }
 
+        final String cacheKey = summary.getId() + "@" + (summary.getTimestamp() != null ? summary.getTimestamp().getTime() : 0L);
+        TemplateDTO templateDTO = templateCache.getIfPresent(cacheKey);
+        if (templateDTO == null) {
+            log.info("Fetching NiFi template from NiFi {}, {}", nifiTemplateId, templateName);
+            templateDTO = getPopulatedTemplate(summary.getId(), templateName);
+            if (templateDTO != null) {
+                invalidateCachedVersions(summary.getId());
+                templateCache.put(cacheKey, templateDTO);
+            }
+        } else {
+            log.debug("Returning Cached NiFi template {}, {}", nifiTemplateId, templateName);
+        }
         return templateDTO;
+    }
 
+    /**
+     * Removes the cached versions of the specified template.
+     */
+    private void invalidateCachedVersions(@Nonnull final String nifiTemplateId) {
+        final String prefix = nifiTemplateId + "@";
+        templateCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
     }
 
 
@@ -137,22 +237,10 @@ public class NiFiTemplateCache {
     private TemplateDTO getPopulatedTemplate(String nifiTemplateId, String nifiTemplateName) {
         TemplateDTO templateDTO = null;
         try {
-            try {
-                templateDTO = nifiRestClient.getTemplateById(nifiTemplateId);
-            } catch (NifiComponentNotFoundException e) {
-                //this is fine... we can safely proceeed if not found.
-            }
-            if (templateDTO == null) {
-                templateDTO = nifiRestClient.getTemplateByName(nifiTemplateName);
-                if (templateDTO != null) {
-                    //getting the template by the name will not get all the properties.
-                    //refetch it by the name to get the FlowSnippet
-                    //populate the snippet
-                    templateDTO = nifiRestClient.getTemplateById(templateDTO.getId());
-
-                }
-            }
-
+            templateDTO = nifiRestClient.getTemplateById(nifiTemplateId);
+        } catch (NifiComponentNotFoundException e) {
+            //the template was deleted after the index was fetched
+            invalidateTemplate(nifiTemplateId);
         } catch (NifiClientRuntimeException e) {
             log.error("Error attempting to get the NifiTemplate TemplateDTO object for {} using nifiTemplateId of {} ", nifiTemplateName,
                       nifiTemplateId);
@@ -209,6 +297,48 @@ public class NiFiTemplateCache {
 
 
 
+    /**
+     * An immutable index of the NiFi template summaries by id and by name.
+     */
+    private static class TemplateIndex {
+
+        private final Map<String, TemplateDTO> byId;
+        private final Map<String, TemplateDTO> byName;
+        private final long loadedTime;
+
+        TemplateIndex(@Nullable final Set<TemplateDTO> summaries, long loadedTime) {
+            final Map<String, TemplateDTO> byId = new HashMap<>();
+            final Map<String, TemplateDTO> byName = new HashMap<>();
+            if (summaries != null) {
+                for (TemplateDTO summary : summaries) {
+                    byId.put(summary.getId().toLowerCase(), summary);
+                    if (summary.getName() != null) {
+                        byName.putIfAbsent(summary.getName().toLowerCase(), summary);
+                    }
+                }
+            }
+            this.byId = Collections.unmodifiableMap(byId);
+            this.byName = Collections.unmodifiableMap(byName);
+            this.loadedTime = loadedTime;
+        }
+
+        TemplateDTO findById(@Nonnull final String templateId) {
+            return byId.get(templateId.toLowerCase());
+        }
+
+        TemplateDTO findByName(@Nonnull final String templateName) {
+            return byName.get(templateName.toLowerCase());
+        }
+
+        long getLoadedTime() {
+            return loadedTime;
+        }
+
+        boolean isExpired(long time, long timeToLive) {
+            return time - loadedTime >= timeToLive;
+        }
+    }
+
     public class TemplatePropertiesCache {
         private String templateId;
         private boolean includePropertyDescriptors;
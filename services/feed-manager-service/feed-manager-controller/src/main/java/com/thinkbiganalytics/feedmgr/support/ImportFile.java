@@ -0,0 +1,162 @@
+package com.thinkbiganalytics.feedmgr.support;
+
+/*-
+ * #%L
+ * thinkbig-feed-manager-controller
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An uploaded template or feed file that has been spooled to a temporary file on disk.
+ *
+ * <p>Zip entries are read on demand from the archive's central directory so only the entry being read is held in memory,
+ * never the whole archive.  The temporary file is deleted when this object is closed.</p>
+ */
+public class ImportFile implements Closeable {
+
+    private static final String TEMP_FILE_PREFIX = "kylo-import-";
+
+    private final String fileName;
+
+    private final File file;
+
+    /**
+     * Lazily loaded names of the zip entries
+     */
+    private Set<String> entryNames;
+
+    private ImportFile(String fileName, File file) {
+        this.fileName = fileName;
+        this.file = file;
+    }
+
+    /**
+     * Copies the stream to a temporary file without buffering it in memory.
+     *
+     * @param fileName    the name of the uploaded file
+     * @param inputStream the uploaded content
+     * @return the spooled file
+     */
+    public static ImportFile spool(String fileName, InputStream inputStream) throws IOException {
+        File file = File.createTempFile(TEMP_FILE_PREFIX, ".tmp");
+        try {
+            Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+        return new ImportFile(fileName, file);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the entire content as a UTF-8 string, used for single xml template uploads
+     */
+    public String readAsString() throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Gets the names of the entries in the zip file. Only the central directory is read.
+     */
+    public Set<String> getEntryNames() throws IOException {
+        if (entryNames == null) {
+            Set<String> names = new LinkedHashSet<>();
+            try (ZipFile zipFile = new ZipFile(file)) {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    names.add(entries.nextElement().getName());
+                }
+            }
+            entryNames = Collections.unmodifiableSet(names);
+        }
+        return entryNames;
+    }
+
+    /**
+     * Reads the first zip entry whose name starts with the given prefix.
+     *
+     * @param namePrefix the entry name prefix
+     * @return the entry contents, or null if no entry matches
+     */
+    public String readEntry(String namePrefix) throws IOException {
+        List<String> entries = readEntries(namePrefix, 1);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * Reads all zip entries whose name starts with the given prefix, in archive order.
+     *
+     * @param namePrefix the entry name prefix
+     * @return the contents of the matching entries
+     */
+    public List<String> readEntries(String namePrefix) throws IOException {
+        return readEntries(namePrefix, Integer.MAX_VALUE);
+    }
+
+    private List<String> readEntries(String namePrefix, int max) throws IOException {
+        List<String> contents = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements() && contents.size() < max) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.getName().startsWith(namePrefix)) {
+                    try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                        contents.add(IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Deletes the temporary file.
+     */
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -30,6 +30,7 @@ import com.thinkbiganalytics.feedmgr.rest.model.ImportProperty;
 import com.thinkbiganalytics.feedmgr.rest.model.RegisteredTemplate;
 import com.thinkbiganalytics.feedmgr.service.feed.ExportImportFeedService;
 import com.thinkbiganalytics.feedmgr.service.template.ExportImportTemplateService;
+import com.thinkbiganalytics.feedmgr.support.ImportFile;
 import com.thinkbiganalytics.nifi.rest.model.NifiError;
 import com.thinkbiganalytics.nifi.rest.model.NifiProcessGroup;
 import com.thinkbiganalytics.nifi.rest.model.NifiProperty;
@@ -66,16 +67,7 @@ public class ImportUtil {
         ZipInputStream zis = new ZipInputStream(inputStream);
         ZipEntry entry;
         while ((entry = zis.getNextEntry()) != null) {
-            if (entry.getName().startsWith(ExportImportTemplateService.NIFI_TEMPLATE_XML_FILE)) {
-                options.add(new ImportComponentOption(ImportComponent.NIFI_TEMPLATE, importType.equals(ImportType.TEMPLATE) ? true : false));
-            } else if (entry.getName().startsWith(ExportImportTemplateService.TEMPLATE_JSON_FILE)) {
-                options.add(new ImportComponentOption(ImportComponent.TEMPLATE_DATA, importType.equals(ImportType.TEMPLATE) ? true : false));
-            } else if (entry.getName().startsWith(ExportImportTemplateService.NIFI_CONNECTING_REUSABLE_TEMPLATE_XML_FILE)) {
-                options.add(new ImportComponentOption(ImportComponent.REUSABLE_TEMPLATE, false));
-            } else if (importType.equals(ImportType.FEED) && entry.getName().startsWith(ExportImportFeedService.FEED_JSON_FILE)) {
-                options.add(new ImportComponentOption(ImportComponent.FEED_DATA, true));
-                options.add(new ImportComponentOption(ImportComponent.USER_DATASOURCES, true));
-            }
+            addComponentOption(options, entry.getName(), importType);
         }
         zis.closeEntry();
         zis.close();
@@ -83,6 +75,30 @@ public class ImportUtil {
         return options;
     }
 
+    /**
+     * Inspect the components of a spooled zip file.  Only the entry names are read, not the entry contents.
+     */
+    public static Set<ImportComponentOption> inspectZipComponents(ImportFile importFile, ImportType importType) throws IOException {
+        Set<ImportComponentOption> options = new HashSet<>();
+        for (String entryName : importFile.getEntryNames()) {
+            addComponentOption(options, entryName, importType);
+        }
+        return options;
+    }
+
+    private static void addComponentOption(Set<ImportComponentOption> options, String entryName, ImportType importType) {
+        if (entryName.startsWith(ExportImportTemplateService.NIFI_TEMPLATE_XML_FILE)) {
+            options.add(new ImportComponentOption(ImportComponent.NIFI_TEMPLATE, importType.equals(ImportType.TEMPLATE) ? true : false));
+        } else if (entryName.startsWith(ExportImportTemplateService.TEMPLATE_JSON_FILE)) {
+            options.add(new ImportComponentOption(ImportComponent.TEMPLATE_DATA, importType.equals(ImportType.TEMPLATE) ? true : false));
+        } else if (entryName.startsWith(ExportImportTemplateService.NIFI_CONNECTING_REUSABLE_TEMPLATE_XML_FILE)) {
+            options.add(new ImportComponentOption(ImportComponent.REUSABLE_TEMPLATE, false));
+        } else if (importType.equals(ImportType.FEED) && entryName.startsWith(ExportImportFeedService.FEED_JSON_FILE)) {
+            options.add(new ImportComponentOption(ImportComponent.FEED_DATA, true));
+            options.add(new ImportComponentOption(ImportComponent.USER_DATASOURCES, true));
+        }
+    }
+
 
     public static void addToImportOptionsSensitiveProperties(ImportOptions importOptions, List<NifiProperty> sensitiveProperties, ImportComponent component) {
         ImportComponentOption option = importOptions.findImportComponentOption(component);
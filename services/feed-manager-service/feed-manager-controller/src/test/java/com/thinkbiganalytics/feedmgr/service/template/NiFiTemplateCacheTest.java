@@ -0,0 +1,126 @@
+package com.thinkbiganalytics.feedmgr.service.template;
+
+/*-
+ * #%L
+ * kylo-feed-manager-controller
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.Sets;
+import com.thinkbiganalytics.nifi.rest.client.LegacyNifiRestClient;
+import com.thinkbiganalytics.nifi.rest.client.NiFiRestClient;
+import com.thinkbiganalytics.nifi.rest.client.NiFiTemplatesRestClient;
+
+import org.apache.nifi.web.api.dto.TemplateDTO;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Date;
+
+public class NiFiTemplateCacheTest {
+
+    @Mock
+    private LegacyNifiRestClient nifiRestClient;
+
+    @Mock
+    private NiFiRestClient nifiClient;
+
+    @Mock
+    private NiFiTemplatesRestClient templates;
+
+    @InjectMocks
+    private NiFiTemplateCache cache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(nifiRestClient.getNiFiRestClient()).thenReturn(nifiClient);
+        Mockito.when(nifiClient.templates()).thenReturn(templates);
+        cache.init();
+    }
+
+    /**
+     * Verify lookups by id and name share one fetch of the template list and one fetch of the populated template.
+     */
+    @Test
+    public void getTemplateUsesIndex() {
+        final TemplateDTO summary = newTemplate("T1", "Template1", 1000L);
+        final TemplateDTO populated = newTemplate("T1", "Template1", 1000L);
+        Mockito.when(templates.findAll()).thenReturn(Sets.newHashSet(summary, newTemplate("T2", "Template2", 1000L)));
+        Mockito.when(nifiRestClient.getTemplateById("T1")).thenReturn(populated);
+
+        Assert.assertSame(populated, cache.geTemplate("T1", "Template1"));
+        Assert.assertSame(populated, cache.geTemplate(null, "template1"));
+        Assert.assertSame(populated, cache.geTemplate("UNKNOWN", "Template1"));
+
+        Mockito.verify(templates, Mockito.times(1)).findAll();
+        Mockito.verify(nifiRestClient, Mockito.times(1)).getTemplateById("T1");
+        Mockito.verify(nifiRestClient, Mockito.never()).getTemplateByName(Mockito.anyString());
+        Assert.assertEquals(2, cache.getTemplateCacheStats().hitCount());
+        Assert.assertEquals(1, cache.getTemplateCacheStats().missCount());
+        Assert.assertEquals(1, cache.getTemplateIndexRefreshCount());
+    }
+
+    /**
+     * Verify a template with a newer timestamp in NiFi is fetched again.
+     */
+    @Test
+    public void getTemplateDetectsChange() {
+        final TemplateDTO original = newTemplate("T1", "Template1", 1000L);
+        final TemplateDTO updated = newTemplate("T1", "Template1", 2000L);
+        Mockito.when(templates.findAll()).thenReturn(Sets.newHashSet(newTemplate("T1", "Template1", 1000L)));
+        Mockito.when(nifiRestClient.getTemplateById("T1")).thenReturn(original);
+        Assert.assertSame(original, cache.geTemplate("T1", null));
+
+        Mockito.when(templates.findAll()).thenReturn(Sets.newHashSet(newTemplate("T1", "Template1", 2000L)));
+        Mockito.when(nifiRestClient.getTemplateById("T1")).thenReturn(updated);
+        cache.invalidateTemplate(null);
+        Assert.assertSame(updated, cache.geTemplate("T1", null));
+        Assert.assertSame(updated, cache.getCachedTemplateById("T1"));
+        Assert.assertEquals(2, cache.getTemplateCacheStats().missCount());
+    }
+
+    /**
+     * Verify a template missing from the index causes the template list to be fetched again.
+     */
+    @Test
+    public void getTemplateRefreshesIndexWhenMissing() throws Exception {
+        final TemplateDTO created = newTemplate("T2", "Template2", 1000L);
+        Mockito.when(templates.findAll()).thenReturn(Sets.newHashSet(newTemplate("T1", "Template1", 1000L)));
+        Mockito.when(nifiRestClient.getTemplateById("T1")).thenReturn(newTemplate("T1", "Template1", 1000L));
+        cache.geTemplate("T1", null);
+        Thread.sleep(5);  // the index is only refreshed if it was loaded before the lookup
+
+        Mockito.when(templates.findAll()).thenReturn(Sets.newHashSet(newTemplate("T1", "Template1", 1000L), created));
+        Mockito.when(nifiRestClient.getTemplateById("T2")).thenReturn(created);
+        Assert.assertSame(created, cache.geTemplate(null, "Template2"));
+        Assert.assertEquals(2, cache.getTemplateIndexRefreshCount());
+    }
+
+    private TemplateDTO newTemplate(String id, String name, long timestamp) {
+        final TemplateDTO template = new TemplateDTO();
+        template.setId(id);
+        template.setName(name);
+        template.setTimestamp(new Date(timestamp));
+        return template;
+    }
+}
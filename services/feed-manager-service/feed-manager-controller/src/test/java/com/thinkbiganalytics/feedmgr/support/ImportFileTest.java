@@ -0,0 +1,154 @@
+package com.thinkbiganalytics.feedmgr.support;
+
+/*-
+ * #%L
+ * thinkbig-feed-manager-controller
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.feedmgr.rest.ImportComponent;
+import com.thinkbiganalytics.feedmgr.rest.ImportType;
+import com.thinkbiganalytics.feedmgr.rest.model.ImportComponentOption;
+import com.thinkbiganalytics.feedmgr.rest.model.RegisteredTemplate;
+import com.thinkbiganalytics.feedmgr.service.feed.ExportImportFeedService;
+import com.thinkbiganalytics.feedmgr.service.template.ExportImportTemplateService;
+import com.thinkbiganalytics.feedmgr.util.ImportUtil;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ImportFileTest {
+
+    /**
+     * Size of the padding entry used to make the archive larger than any acceptable heap overhead
+     */
+    private static final int LARGE_ENTRY_BYTES = 32 * 1024 * 1024;
+
+    /**
+     * Maximum bytes the import may allocate while spooling and reading the small entries of the large archive
+     */
+    private static final long MAX_ALLOCATED_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Verify a streamed feed export can be read back from a spooled import file.
+     */
+    @Test
+    public void testExportRoundTrip() throws Exception {
+        RegisteredTemplate template = new RegisteredTemplate();
+        template.setTemplateName("my template");
+        ExportImportTemplateService.ExportTemplate exportTemplate =
+            new ExportImportTemplateService.ExportTemplate("my_template.template.zip", template, "<template/>", Arrays.asList("<reusable0/>", "<reusable1/>"));
+        ExportImportFeedService.ExportFeed exportFeed = new ExportImportFeedService.ExportFeed("my_feed.feed.zip", exportTemplate, "{\"feedName\":\"my feed\"}");
+
+        File exported = File.createTempFile("kylo-export-test", ".zip");
+        try {
+            try (OutputStream out = new FileOutputStream(exported)) {
+                exportFeed.writeTo(out);
+            }
+
+            try (InputStream in = Files.newInputStream(exported.toPath()); ImportFile importFile = ImportFile.spool("my_feed.feed.zip", in)) {
+                Assert.assertEquals(exported.length(), importFile.getFile().length());
+                Assert.assertEquals("<template/>", importFile.readEntry(ExportImportTemplateService.NIFI_TEMPLATE_XML_FILE));
+                Assert.assertEquals(Arrays.asList("<reusable0/>", "<reusable1/>"), importFile.readEntries(ExportImportTemplateService.NIFI_CONNECTING_REUSABLE_TEMPLATE_XML_FILE));
+                Assert.assertTrue(importFile.readEntry(ExportImportTemplateService.TEMPLATE_JSON_FILE).contains("my template"));
+                Assert.assertEquals("{\"feedName\":\"my feed\"}", importFile.readEntry(ExportImportFeedService.FEED_JSON_FILE));
+                Assert.assertNull(importFile.readEntry("missing"));
+
+                Set<ImportComponent> components = ImportUtil.inspectZipComponents(importFile, ImportType.FEED).stream()
+                    .map(ImportComponentOption::getImportComponent)
+                    .collect(Collectors.toSet());
+                Assert.assertTrue(components.contains(ImportComponent.NIFI_TEMPLATE));
+                Assert.assertTrue(components.contains(ImportComponent.TEMPLATE_DATA));
+                Assert.assertTrue(components.contains(ImportComponent.REUSABLE_TEMPLATE));
+                Assert.assertTrue(components.contains(ImportComponent.FEED_DATA));
+
+                importFile.close();
+                Assert.assertFalse(importFile.getFile().exists());
+            }
+        } finally {
+            Files.deleteIfExists(exported.toPath());
+        }
+    }
+
+    /**
+     * Verify the heap allocated to spool and inspect an import does not grow with the size of the archive.
+     */
+    @Test
+    public void testImportHeapBounded() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        File archive = createLargeArchive();
+        try {
+            final long threadId = Thread.currentThread().getId();
+            final long before = threadBean.getThreadAllocatedBytes(threadId);
+
+            String templateJson;
+            Set<String> entryNames;
+            try (InputStream in = Files.newInputStream(archive.toPath()); ImportFile importFile = ImportFile.spool("large.template.zip", in)) {
+                entryNames = importFile.getEntryNames();
+                ZipFileUtil.validateZipEntriesWithRequiredEntries(importFile, entryNames, null);
+                templateJson = importFile.readEntry(ExportImportTemplateService.TEMPLATE_JSON_FILE);
+            }
+
+            final long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+            Assert.assertEquals("{}", templateJson);
+            Assert.assertEquals(3, entryNames.size());
+            Assert.assertTrue("Import of a " + archive.length() + " byte archive allocated " + allocated + " bytes", allocated < MAX_ALLOCATED_BYTES);
+        } finally {
+            Files.deleteIfExists(archive.toPath());
+        }
+    }
+
+    /**
+     * Creates an archive with a large incompressible entry between the small template entries.
+     */
+    private File createLargeArchive() throws IOException {
+        File archive = File.createTempFile("kylo-import-test", ".zip");
+        Random random = new Random(0);
+        byte[] chunk = new byte[64 * 1024];
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(archive))) {
+            ZipFileUtil.writeEntry(zos, ExportImportTemplateService.NIFI_TEMPLATE_XML_FILE, "<template/>");
+            zos.putNextEntry(new ZipEntry("padding.bin"));
+            for (int written = 0; written < LARGE_ENTRY_BYTES; written += chunk.length) {
+                random.nextBytes(chunk);
+                zos.write(chunk);
+            }
+            zos.closeEntry();
+            ZipFileUtil.writeEntry(zos, ExportImportTemplateService.TEMPLATE_JSON_FILE, "{}");
+        }
+        return archive;
+    }
+}
@@ -273,9 +273,19 @@ public class JobsRestController {
                                  @QueryParam("limit") @DefaultValue("10") Integer limit,
                                  @QueryParam("start") @DefaultValue("1") Integer start,
                                  @QueryParam("filter") String filter,
+                                 @QueryParam("after") String after,
+                                 @QueryParam("countLimit") Long countLimit,
                                  @Context HttpServletRequest request) {
         return metadataAccess.read(() -> {
-            Page<ExecutedJob> page = jobExecutionProvider.findAll(filter, QueryUtils.pageRequest(start, limit, sort)).map(jobExecution -> JobModelTransform.executedJobSimple(jobExecution));
+            Page<ExecutedJob> page;
+            if (after != null) {
+                // keyset paging by most recent start time; an empty token requests the first page
+                page = jobExecutionProvider.findAllAfter(filter, after.isEmpty() ? null : after, limit, countLimit != null ? countLimit : 0)
+                    .map(jobExecution -> JobModelTransform.executedJobSimple(jobExecution));
+            } else {
+                page = jobExecutionProvider.findAll(filter, QueryUtils.pageRequest(start, limit, sort), countLimit != null ? countLimit : Long.MAX_VALUE)
+                    .map(jobExecution -> JobModelTransform.executedJobSimple(jobExecution));
+            }
             return ModelUtils.toSearchResult(page);
         });
 
@@ -35,7 +35,7 @@ import com.thinkbiganalytics.metadata.api.alerts.EntityAwareAlertSummary;
 import com.thinkbiganalytics.metadata.api.alerts.KyloEntityAwareAlertSummary;
 import com.thinkbiganalytics.metadata.jpa.alerts.JpaAlert;
 import com.thinkbiganalytics.metadata.jpa.alerts.QJpaAlert;
-import com.thinkbiganalytics.metadata.jpa.feed.FeedAclIndexQueryAugmentor;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.metadata.jpa.feed.QJpaOpsManagerFeed;
 import com.thinkbiganalytics.metadata.jpa.sla.QJpaServiceLevelAgreementDescription;
 import com.thinkbiganalytics.metadata.jpa.support.CommonFilterTranslations;
@@ -57,9 +57,12 @@ public class KyloEntityAwareAlertCriteria extends DefaultAlertCriteria {
 
     private AccessController controller;
 
-    public KyloEntityAwareAlertCriteria(JPAQueryFactory queryFactory, AccessController controller) {
+    private FeedAclCache aclCache;
+
+    public KyloEntityAwareAlertCriteria(JPAQueryFactory queryFactory, AccessController controller, FeedAclCache aclCache) {
         super(queryFactory);
         this.controller = controller;
+        this.aclCache = aclCache;
     }
 
 
@@ -80,8 +83,8 @@ public class KyloEntityAwareAlertCriteria extends DefaultAlertCriteria {
             .limit(getLimit());
 
         List<Predicate> preds = filter(alert);
-        preds.add(feed.isNull().or(feed.isNotNull().and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, controller.isEntityAccessControlled()))));
-        preds.add(slaFeed.isNull().or(slaFeed.isNotNull().and(FeedAclIndexQueryAugmentor.generateExistsExpression(slaFeed.id, controller.isEntityAccessControlled()))));
+        preds.add(feed.isNull().or(feed.isNotNull().and(aclCache.generateAccessExpression(feed.id, controller.isEntityAccessControlled()))));
+        preds.add(slaFeed.isNull().or(slaFeed.isNotNull().and(aclCache.generateAccessExpression(slaFeed.id, controller.isEntityAccessControlled()))));
         BooleanBuilder orFilter = orFilter(alert, feed, sla);
 
         // When limiting and using "after" criteria only, we need to sort ascending to get the next n values after the given id/time.
@@ -120,8 +123,8 @@ public class KyloEntityAwareAlertCriteria extends DefaultAlertCriteria {
             .leftJoin(sla.feeds,slaFeed)
             .groupBy(alert.typeString, alert.subtype, feed.id, feed.name,sla.slaId,sla.name, alert.level);
         List<Predicate> preds = filter(alert);
-        preds.add(feed.isNull().or(feed.isNotNull().and(FeedAclIndexQueryAugmentor.generateExistsExpression(feed.id, controller.isEntityAccessControlled()))));
-        preds.add(slaFeed.isNull().or(slaFeed.isNotNull().and(FeedAclIndexQueryAugmentor.generateExistsExpression(slaFeed.id, controller.isEntityAccessControlled()))));
+        preds.add(feed.isNull().or(feed.isNotNull().and(aclCache.generateAccessExpression(feed.id, controller.isEntityAccessControlled()))));
+        preds.add(slaFeed.isNull().or(slaFeed.isNotNull().and(aclCache.generateAccessExpression(slaFeed.id, controller.isEntityAccessControlled()))));
         BooleanBuilder orFilter = orFilter(alert, feed, sla);
 
         return (JPAQuery<AlertSummary>)  super.addWhere(query, preds, orFilter);
@@ -36,6 +36,7 @@ import com.thinkbiganalytics.alerts.spi.defaults.KyloEntityAwareAlertCriteria;
 import com.thinkbiganalytics.metadata.api.MetadataAccess;
 import com.thinkbiganalytics.metadata.jpa.alerts.JpaAlert;
 import com.thinkbiganalytics.metadata.jpa.alerts.JpaAlertRepository;
+import com.thinkbiganalytics.metadata.jpa.feed.security.FeedAclCache;
 import com.thinkbiganalytics.metadata.jpa.sla.QJpaServiceLevelAgreementDescription;
 import com.thinkbiganalytics.metadata.jpa.support.CommonFilterTranslations;
 import com.thinkbiganalytics.security.AccessController;
@@ -56,6 +57,9 @@ public class KyloEntityAwareAlertManager extends DefaultAlertManager {
     @Inject
     private AccessController controller;
 
+    @Inject
+    private FeedAclCache aclCache;
+
     @Inject
     private MetadataAccess metadataAccess;
 
@@ -81,7 +85,7 @@ public class KyloEntityAwareAlertManager extends DefaultAlertManager {
     }
 
     public KyloEntityAwareAlertCriteria criteria() {
-        return new KyloEntityAwareAlertCriteria(queryFactory, controller);
+        return new KyloEntityAwareAlertCriteria(queryFactory, controller, aclCache);
     }
 
 
@@ -30,7 +30,6 @@ import com.thinkbiganalytics.metadata.sla.DefaultServiceLevelAgreementScheduler;
 import com.thinkbiganalytics.metadata.sla.JpaJcrServiceLevelAgreementChecker;
 import com.thinkbiganalytics.metadata.sla.ServiceLevelAgreementActionAlertResponderFactory;
 import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementChecker;
-import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementScheduler;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -48,7 +47,7 @@ public class OperationlMetadataServiceSpringConfiguration {
     }
 
     @Bean
-    public ServiceLevelAgreementScheduler serviceLevelAgreementScheduler() {
+    public DefaultServiceLevelAgreementScheduler serviceLevelAgreementScheduler() {
         return new DefaultServiceLevelAgreementScheduler();
     }
 
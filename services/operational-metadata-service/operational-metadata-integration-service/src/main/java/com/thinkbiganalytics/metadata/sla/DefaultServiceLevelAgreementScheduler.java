@@ -20,43 +20,53 @@ package com.thinkbiganalytics.metadata.sla;
  * #L%
  */
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.thinkbiganalytics.cluster.ClusterMessage;
 import com.thinkbiganalytics.cluster.ClusterService;
 import com.thinkbiganalytics.cluster.ClusterServiceMessageReceiver;
 import com.thinkbiganalytics.metadata.api.MetadataAccess;
 import com.thinkbiganalytics.metadata.api.PostMetadataConfigAction;
 import com.thinkbiganalytics.metadata.modeshape.sla.JcrServiceLevelAgreement;
+import com.thinkbiganalytics.metadata.sla.api.Metric;
 import com.thinkbiganalytics.metadata.sla.api.ServiceLevelAgreement;
+import com.thinkbiganalytics.metadata.sla.spi.BatchMetricAssessor;
 import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementChecker;
 import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementProvider;
 import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementScheduler;
+import com.thinkbiganalytics.metadata.sla.spi.core.ServiceLevelAgreementEvaluator;
 import com.thinkbiganalytics.scheduler.JobIdentifier;
 import com.thinkbiganalytics.scheduler.JobScheduler;
 import com.thinkbiganalytics.scheduler.JobSchedulerEvent;
-import com.thinkbiganalytics.scheduler.JobSchedulerException;
 import com.thinkbiganalytics.scheduler.QuartzScheduler;
 import com.thinkbiganalytics.scheduler.TriggerIdentifier;
 import com.thinkbiganalytics.scheduler.model.DefaultJobIdentifier;
 import com.thinkbiganalytics.scheduler.model.DefaultTriggerIdentifier;
 
 import org.apache.commons.lang3.StringUtils;
+import org.quartz.CronExpression;
+import org.quartz.JobKey;
 import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.GroupMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
-import java.util.HashMap;
+import java.io.Serializable;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
 /**
- * Provides the default implementation for service level agreement scheduling.
+ * Provides the default implementation for service level agreement scheduling. A single Quartz job polls the agreements that are due from a {@link ServiceLevelAgreementEvaluator}
+ * and evaluates them in batches. Each node keeps its own evaluator in sync with the other nodes of the cluster.
  */
 public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreementScheduler, PostMetadataConfigAction, ClusterServiceMessageReceiver {
 
@@ -66,11 +76,31 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
 
     public static String QTZ_JOB_UNSCHEDULED_MESSAGE_TYPE = "QTZ_JOB_UNSCHEDULED";
 
+    /**
+     * Quartz group of the SLA jobs
+     */
+    private static final String SLA_GROUP = "SLA";
+
+    /**
+     * Quartz job that evaluates the due agreements
+     */
+    private static final JobIdentifier EVALUATION_JOB = new DefaultJobIdentifier("SLA Evaluation", SLA_GROUP);
+
+    /**
+     * How often in milliseconds that due agreements may be polled
+     */
+    private static final long TICK_DURATION = 1000L;
+
     @Inject
     ServiceLevelAgreementProvider slaProvider;
     private String DEFAULT_CRON = "0 0/5 * 1/1 * ? *";// every 5 min
     @Value("${sla.cron.default:0 0/5 * 1/1 * ? *}")
     private String defaultCron;
+    private String DEFAULT_TICK_CRON = "0/30 * * * * ? *";// every 30 sec
+    @Value("${sla.evaluation.tick.cron:0/30 * * * * ? *}")
+    private String tickCron;
+    @Value("${sla.evaluation.batch.size:100}")
+    private int batchSize;
     @Inject
     private JobScheduler jobScheduler;
     @Inject
@@ -81,7 +111,26 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
     @Inject
     private ClusterService clusterService;
 
-    private Map<ServiceLevelAgreement.ID, String> scheduledJobNames = new ConcurrentHashMap<>();
+    @Autowired(required = false)
+    private List<BatchMetricAssessor<? extends Metric, ? extends Serializable>> metricAssessors;
+
+    /**
+     * Determines which agreements are due
+     */
+    private ServiceLevelAgreementEvaluator evaluator;
+
+    /**
+     * Agreements that are scheduled but disabled
+     */
+    private Set<ServiceLevelAgreement.ID> disabledAgreements = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    @PostConstruct
+    public void init() throws ParseException {
+        evaluator = new ServiceLevelAgreementEvaluator(slaChecker, new CronExpression(StringUtils.isBlank(defaultCron) ? DEFAULT_CRON : defaultCron), TICK_DURATION);
+        if (metricAssessors != null) {
+            metricAssessors.forEach(evaluator::registerMetricAssessor);
+        }
+    }
 
     /**
      * Called on startup as part of the PostMetadataConfigAction.
@@ -94,47 +143,50 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
 
                  if (agreements != null) {
                      for (ServiceLevelAgreement agreement : agreements) {
-                         JobIdentifier jobIdentifier = slaJobName(agreement);
-                         QuartzScheduler scheduler = (QuartzScheduler)jobScheduler;
-                         if(!scheduler.jobExists(jobIdentifier)) {
-                             scheduleServiceLevelAgreement(agreement);
-                         }
+                         scheduleLocally(agreement);
                      }
                  }
 
                  return null;
              }, MetadataAccess.SERVICE);
 
+        deleteLegacyJobs();
+        scheduleEvaluationJob();
     }
 
-    private String getUniqueName(String name) {
-        String uniqueName = name;
-        final String checkName = name;
-        String matchingName = Iterables.tryFind(scheduledJobNames.values(), new Predicate<String>() {
-            @Override
-            public boolean apply(String s) {
-                return s.equalsIgnoreCase(checkName);
-            }
-        }).orNull();
-        if (matchingName != null) {
-            //get numeric string after '-';
-            if (StringUtils.contains(matchingName, "-")) {
-                String number = StringUtils.substringAfterLast(matchingName, "-");
-                if (StringUtils.isNotBlank(number)) {
-                    number = StringUtils.trim(number);
-                    if (StringUtils.isNumeric(number)) {
-                        Integer num = Integer.parseInt(number);
-                        num++;
-                        uniqueName += "-" + num;
-                    } else {
-                        uniqueName += "-1";
+    /**
+     * Evaluates the agreements that are due. Called by the {@link SlaQuartzJobBean}.
+     */
+    public void evaluateDueAgreements() {
+        final List<ServiceLevelAgreement.ID> due = evaluator.pollDue(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        for (final List<ServiceLevelAgreement.ID> batch : Lists.partition(due, Math.max(batchSize, 1))) {
+            try {
+                metadataAccess.commit(() -> {
+                    final List<ServiceLevelAgreement> agreements = new ArrayList<>(batch.size());
+                    for (final ServiceLevelAgreement.ID slaId : batch) {
+                        final ServiceLevelAgreement sla = slaProvider.getAgreement(slaId);
+                        if (sla == null) {
+                            log.error("UNABLE TO FIND SLA for {} ", slaId);
+                            evaluator.unschedule(slaId);
+                        } else if (sla.isEnabled()) {
+                            agreements.add(sla);
+                        } else {
+                            log.info("SLA {} will not fire since it is disabled ", sla.getName());
+                        }
                     }
-                }
-            } else {
-                uniqueName += "-1";
+                    evaluator.evaluate(agreements);
+                }, MetadataAccess.SERVICE);
+            } catch (final Exception e) {
+                log.error("Unable to evaluate {} SLAs: {}", batch.size(), e, e);
             }
         }
-        return uniqueName;
+        log.debug("Evaluated {} due SLAs in {} ms. {} SLAs checked and {} unchanged since startup.", due.size(), System.currentTimeMillis() - start, evaluator.getCheckedCount(),
+                  evaluator.getUnchangedCount());
     }
 
     /**
@@ -158,58 +210,22 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
      * @return true if we were able to remove the SLA from the scheduler
      */
     public boolean unscheduleServiceLevelAgreement(ServiceLevelAgreement.ID slaId) {
-        boolean unscheduled = false;
-        JobIdentifier scheduledJobId = null;
-        try {
-            if (scheduledJobNames.containsKey(slaId)) {
-                scheduledJobId = jobIdentifierForName(scheduledJobNames.get(slaId));
-                log.debug("Unscheduling sla job " + scheduledJobId.getName());
-                jobScheduler.deleteJob(scheduledJobId);
-                scheduledJobNames.remove(slaId);
-                unscheduled = true;
-                if(clusterService.isClustered()) {
-                    clusterService.sendMessageToOthers(QTZ_JOB_UNSCHEDULED_MESSAGE_TYPE,new ScheduledServiceLevelAgreementClusterMessage(slaId,scheduledJobId));
-                }
+        disabledAgreements.remove(slaId);
+        boolean unscheduled = evaluator.unschedule(slaId);
+        if (unscheduled) {
+            log.debug("Unscheduling sla {}", slaId);
+            if (clusterService.isClustered()) {
+                clusterService.sendMessageToOthers(QTZ_JOB_UNSCHEDULED_MESSAGE_TYPE, new ScheduledServiceLevelAgreementClusterMessage(slaId, EVALUATION_JOB));
             }
-        } catch (JobSchedulerException e) {
-            log.error("Unable to delete the SLA Job " + scheduledJobId);
         }
         return unscheduled;
     }
 
-
-    private JobIdentifier slaJobName(ServiceLevelAgreement sla) {
-        String name = sla.getName();
-        if (scheduledJobNames.containsKey(sla.getId())) {
-            name = scheduledJobNames.get(sla.getId());
-        } else {
-            //ensure the name is unique in the saved ist
-            name = getUniqueName(name);
-        }
-        return jobIdentifierForName(name);
-    }
-
-    private JobIdentifier jobIdentifierForName(String name) {
-        JobIdentifier jobIdentifier = new DefaultJobIdentifier(name, "SLA");
-        return jobIdentifier;
-    }
-
     private TriggerIdentifier triggerIdentifier(JobIdentifier jobIdentifier) {
         TriggerIdentifier triggerIdentifier = new DefaultTriggerIdentifier(jobIdentifier.getName(), jobIdentifier.getGroup());
         return triggerIdentifier;
     }
 
-    private TriggerIdentifier triggerIdentifier(String name) {
-        TriggerIdentifier triggerIdentifier = new DefaultTriggerIdentifier(name, "SLA");
-        return triggerIdentifier;
-    }
-
-    private ServiceLevelAgreement.ID slaIdForJobIdentifier(JobIdentifier jobIdentifier) {
-        String jobIdentifierName = jobIdentifier.getName();
-        return scheduledJobNames.entrySet().stream().filter(entry -> entry.getValue().equalsIgnoreCase(jobIdentifierName)).map(entry -> entry.getKey()).findFirst().orElse(null);
-
-    }
-
     /**
      * Used to disable the schedule of the SLA, so that it no longer executes until subsequently re-enabled
      *
@@ -217,12 +233,10 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
      */
     public void disableServiceLevelAgreement(ServiceLevelAgreement sla) {
         ServiceLevelAgreement.ID slaId = sla.getId();
-        if (scheduledJobNames.containsKey(slaId)) {
-            JobIdentifier scheduledJobId = jobIdentifierForName(scheduledJobNames.get(slaId));
-            try {
-                jobScheduler.pauseTriggersOnJob(scheduledJobId);
-            } catch (JobSchedulerException e) {
-                log.error("Unable to pause the schedule for the disabled SLA {} ", sla.getName());
+        if (evaluator.unschedule(slaId)) {
+            disabledAgreements.add(slaId);
+            if (clusterService.isClustered()) {
+                clusterService.sendMessageToOthers(QTZ_JOB_UNSCHEDULED_MESSAGE_TYPE, new ScheduledServiceLevelAgreementClusterMessage(slaId, EVALUATION_JOB));
             }
         }
     }
@@ -233,36 +247,45 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
      * @param sla The SLA to enable
      */
     public void enableServiceLevelAgreement(ServiceLevelAgreement sla) {
-
         ServiceLevelAgreement.ID slaId = sla.getId();
-        if (scheduledJobNames.containsKey(slaId)) {
-            JobIdentifier scheduledJobId = jobIdentifierForName(scheduledJobNames.get(slaId));
-            try {
-                jobScheduler.resumeTriggersOnJob(scheduledJobId);
-            } catch (JobSchedulerException e) {
-                log.error("Unable to resume the schedule for the enabled SLA {} ", sla.getName());
+        if (disabledAgreements.remove(slaId)) {
+            evaluator.schedule(slaId);
+            if (clusterService.isClustered()) {
+                clusterService.sendMessageToOthers(QTZ_JOB_SCHEDULED_MESSAGE_TYPE, new ScheduledServiceLevelAgreementClusterMessage(slaId, EVALUATION_JOB));
             }
         }
     }
 
     /**
-     * Schedule the SlaQuartzJobBean for the given sla
-     * @param jobIdentifier the job identifier for this schedule
-     * @param slaId the SLA id
+     * Schedule the SlaQuartzJobBean that evaluates the due SLAs
      */
-    private void scheduleSlaJob(JobIdentifier jobIdentifier, ServiceLevelAgreement.ID slaId){
-
-        QuartzScheduler scheduler = (QuartzScheduler)jobScheduler;
-        TriggerIdentifier triggerIdentifier =triggerIdentifier(jobIdentifier);
-        Map<String,Object> map = new HashMap<String,Object>();
-        map.put(SlaQuartzJobBean.SLA_ID_PARAM,slaId);
+    private void scheduleEvaluationJob() {
+        QuartzScheduler scheduler = (QuartzScheduler) jobScheduler;
         try {
-            scheduler.scheduleJob(jobIdentifier, triggerIdentifier, SlaQuartzJobBean.class, (StringUtils.isBlank(defaultCron) ? DEFAULT_CRON : defaultCron), map);
-        }catch(SchedulerException e) {
-            e.printStackTrace();
+            if (!scheduler.jobExists(EVALUATION_JOB)) {
+                scheduler.scheduleJob(EVALUATION_JOB, triggerIdentifier(EVALUATION_JOB), SlaQuartzJobBean.class, (StringUtils.isBlank(tickCron) ? DEFAULT_TICK_CRON : tickCron), null);
+            }
+        } catch (SchedulerException e) {
+            log.error("Unable to schedule the SLA evaluation job: {}", e, e);
         }
     }
 
+    /**
+     * Removes the jobs that evaluated a single SLA from previous versions
+     */
+    private void deleteLegacyJobs() {
+        QuartzScheduler scheduler = (QuartzScheduler) jobScheduler;
+        try {
+            for (JobKey jobKey : scheduler.getScheduler().getJobKeys(GroupMatcher.jobGroupEquals(SLA_GROUP))) {
+                if (!EVALUATION_JOB.getName().equals(jobKey.getName())) {
+                    log.info("Removing the SLA job {} since SLAs are evaluated by the {} job", jobKey.getName(), EVALUATION_JOB.getName());
+                    scheduler.getScheduler().deleteJob(jobKey);
+                }
+            }
+        } catch (SchedulerException e) {
+            log.error("Unable to remove the previous SLA jobs: {}", e, e);
+        }
+    }
 
     /**
      * Schedules an SLA to be run
@@ -270,22 +293,24 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
      * @param sla The SLA to schedule
      */
     public void scheduleServiceLevelAgreement(ServiceLevelAgreement sla) {
-            if (scheduledJobNames.containsKey(sla.getId())) {
-                unscheduleServiceLevelAgreement(sla);
-            }
-            JobIdentifier jobIdentifier = slaJobName(sla);
-            ServiceLevelAgreement.ID slaId = sla.getId();
-            //schedule the job
-            scheduleSlaJob(jobIdentifier,slaId);
-            log.debug("Schedule sla job " + jobIdentifier.getName());
-            scheduledJobNames.put(sla.getId(), jobIdentifier.getName());
-            //notify the other schedulers in the cluster of the scheduled job name
-            if(clusterService.isClustered()) {
-                clusterService.sendMessageToOthers(QTZ_JOB_SCHEDULED_MESSAGE_TYPE, new ScheduledServiceLevelAgreementClusterMessage(slaId, jobIdentifier));
-            }
+        scheduleLocally(sla);
+        log.debug("Schedule sla {}", sla.getName());
+        //notify the other schedulers in the cluster of the scheduled sla
+        if (clusterService.isClustered()) {
+            clusterService.sendMessageToOthers(QTZ_JOB_SCHEDULED_MESSAGE_TYPE, new ScheduledServiceLevelAgreementClusterMessage(sla.getId(), EVALUATION_JOB));
+        }
+    }
 
-        if (!sla.isEnabled()) {
-            disableServiceLevelAgreement(sla);
+    /**
+     * Adds the SLA to the evaluator on this node, or marks it as disabled.
+     */
+    private void scheduleLocally(ServiceLevelAgreement sla) {
+        if (sla.isEnabled()) {
+            disabledAgreements.remove(sla.getId());
+            evaluator.schedule(sla.getId());
+        } else {
+            evaluator.unschedule(sla.getId());
+            disabledAgreements.add(sla.getId());
         }
     }
 
@@ -298,12 +323,6 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
     public void onJobSchedulerEvent(JobSchedulerEvent event) {
         try {
             switch (event.getEvent()) {
-                case PAUSE_JOB:
-                    pauseServiceLevelAgreement(event);
-                    break;
-                case RESUME_JOB:
-                    resumeServiceLevelAgreement(event);
-                    break;
                 case PAUSE_ALL_JOBS:
                     pauseAllServiceLevelAgreements();
                     break;
@@ -319,38 +338,30 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
         }
     }
 
-    private void resumeServiceLevelAgreement(JobSchedulerEvent event) {
-        ServiceLevelAgreement.ID slaId = slaIdForJobIdentifier(event.getJobIdentifier());
-        if (slaId != null) {
-            metadataAccess.commit(() -> enable(slaId), MetadataAccess.SERVICE);
-        }
-    }
-
-    private void pauseServiceLevelAgreement(JobSchedulerEvent event) {
-        ServiceLevelAgreement.ID slaId = slaIdForJobIdentifier(event.getJobIdentifier());
-        if (slaId != null) {
-            metadataAccess.commit(() -> disable(slaId), MetadataAccess.SERVICE);
-        }
-    }
-
     private void pauseAllServiceLevelAgreements() {
         metadataAccess.commit(() -> {
-            scheduledJobNames.keySet().stream().forEach(slaId -> disable(slaId));
+            slaProvider.getAgreements().stream().filter(ServiceLevelAgreement::isEnabled).forEach(sla -> disable(sla.getId()));
         }, MetadataAccess.SERVICE);
     }
 
     private void resumeAllServiceLevelAgreements() {
         metadataAccess.commit(() -> {
-            scheduledJobNames.keySet().stream().forEach(slaId -> enable(slaId));
+            new ArrayList<>(disabledAgreements).forEach(slaId -> enable(slaId));
         }, MetadataAccess.SERVICE);
     }
 
     private void enable(ServiceLevelAgreement.ID slaId) {
-        findAgreement(slaId).ifPresent(sla -> ((JcrServiceLevelAgreement) sla).setEnabled(true));
+        findAgreement(slaId).ifPresent(sla -> {
+            ((JcrServiceLevelAgreement) sla).setEnabled(true);
+            enableServiceLevelAgreement(sla);
+        });
     }
 
     private void disable(ServiceLevelAgreement.ID slaId) {
-        findAgreement(slaId).ifPresent(sla -> ((JcrServiceLevelAgreement) sla).setEnabled(false));
+        findAgreement(slaId).ifPresent(sla -> {
+            ((JcrServiceLevelAgreement) sla).setEnabled(false);
+            disableServiceLevelAgreement(sla);
+        });
     }
 
     /**
@@ -363,7 +374,7 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
 
 
     /**
-     * Keep the job name cache in sync across clusters
+     * Keep the scheduled SLAs in sync across clusters
      * @param from cluser address sending the message
      * @param message the message
      */
@@ -372,11 +383,12 @@ public class DefaultServiceLevelAgreementScheduler implements ServiceLevelAgreem
 
         if(QTZ_JOB_SCHEDULED_MESSAGE_TYPE.equalsIgnoreCase(message.getType())){
             ScheduledServiceLevelAgreementClusterMessage msg = (ScheduledServiceLevelAgreementClusterMessage) message.getMessage();
-            scheduledJobNames.put(msg.getSlaId(),msg.getJobIdentifier().getName());
+            disabledAgreements.remove(msg.getSlaId());
+            evaluator.schedule(msg.getSlaId());
         }
         else if(QTZ_JOB_UNSCHEDULED_MESSAGE_TYPE.equalsIgnoreCase(message.getType())) {
             ScheduledServiceLevelAgreementClusterMessage msg = (ScheduledServiceLevelAgreementClusterMessage) message.getMessage();
-            scheduledJobNames.remove(msg.getSlaId());
+            evaluator.unschedule(msg.getSlaId());
         }
     }
 
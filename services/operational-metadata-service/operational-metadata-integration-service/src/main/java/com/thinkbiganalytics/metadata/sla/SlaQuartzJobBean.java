@@ -20,54 +20,35 @@ package com.thinkbiganalytics.metadata.sla;
  * #L%
  */
 
-import com.thinkbiganalytics.metadata.api.MetadataAccess;
-import com.thinkbiganalytics.metadata.sla.api.ServiceLevelAgreement;
-import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementChecker;
-import com.thinkbiganalytics.metadata.sla.spi.ServiceLevelAgreementProvider;
-
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 
-import java.util.Map;
-
 import javax.inject.Inject;
 
 /**
- * Quartz Scheduled Job Bean that will run the SLA code
+ * Quartz Scheduled Job Bean that will run the SLA code, evaluating all of the SLAs that are due in batches through the {@link DefaultServiceLevelAgreementScheduler}
  */
+@DisallowConcurrentExecution
 public class SlaQuartzJobBean extends QuartzJobBean{
+    /**
+     * Job parameter of previous versions that scheduled a job for each SLA
+     */
     public static final String SLA_ID_PARAM = "SLA_ID";
     private static final Logger log = LoggerFactory.getLogger(SlaQuartzJobBean.class);
-    @Inject
-    ServiceLevelAgreementProvider slaProvider;
 
     @Inject
-    private ServiceLevelAgreementChecker slaChecker;
-    @Inject
-    private MetadataAccess metadataAccess;
+    private DefaultServiceLevelAgreementScheduler slaScheduler;
 
     @Override
     protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
-        //query for this SLA
-        final Map<String,   Object> jobDataMap = context.getMergedJobDataMap();
-
-        metadataAccess.commit(() -> {
-            ServiceLevelAgreement.ID slaId = (ServiceLevelAgreement.ID)jobDataMap.get(SLA_ID_PARAM);
-            ServiceLevelAgreement sla = slaProvider.getAgreement(slaId);
-            if (sla != null) {
-                ///Unable to find the SLA... Remove the SLA from teh schedule
-                //   unscheduleServiceLevelAgreement(slaId);
-                if (sla.isEnabled()) {
-                    slaChecker.checkAgreement(sla);
-                } else {
-                    log.info("SLA {} will not fire since it is disabled ", sla.getName());
-                }
-            }else {
-                log.error("UNABLE TO FIND SLA for {} ",slaId);
-            }
-        }, MetadataAccess.SERVICE);
+        if (context.getMergedJobDataMap().containsKey(SLA_ID_PARAM)) {
+            log.debug("Ignoring the previous SLA job {}", context.getJobDetail().getKey());
+        } else {
+            slaScheduler.evaluateDueAgreements();
+        }
     }
 }
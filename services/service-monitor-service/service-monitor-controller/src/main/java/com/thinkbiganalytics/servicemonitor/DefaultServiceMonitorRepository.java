@@ -21,6 +21,7 @@ package com.thinkbiganalytics.servicemonitor;
  */
 
 import com.thinkbiganalytics.servicemonitor.model.ServiceStatusResponse;
+import com.thinkbiganalytics.servicemonitor.model.ServiceStatusSnapshot;
 
 import org.springframework.stereotype.Component;
 
@@ -39,6 +40,10 @@ public class DefaultServiceMonitorRepository implements ServiceMonitorRepository
     private ServiceMonitorManager serviceStatus;
 
     public List<ServiceStatusResponse> listServices() {
-        return serviceStatus.doServiceCheck();
+        return serviceStatus.getServiceStatus();
+    }
+
+    public ServiceStatusSnapshot getSnapshot() {
+        return serviceStatus.getSnapshot();
     }
 }
@@ -21,6 +21,7 @@ package com.thinkbiganalytics.servicemonitor;
  */
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.thinkbiganalytics.alerts.api.Alert;
 import com.thinkbiganalytics.alerts.api.AlertProvider;
 import com.thinkbiganalytics.alerts.service.ServiceStatusAlerts;
@@ -28,36 +29,63 @@ import com.thinkbiganalytics.alerts.spi.AlertManager;
 import com.thinkbiganalytics.servicemonitor.check.ServiceStatusCheck;
 import com.thinkbiganalytics.servicemonitor.check.ServicesStatusCheck;
 import com.thinkbiganalytics.servicemonitor.model.ServiceStatusResponse;
+import com.thinkbiganalytics.servicemonitor.model.ServiceStatusSnapshot;
+import com.thinkbiganalytics.servicemonitor.model.ServiceStatusSnapshotEntry;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
 /**
- * Application Bean that looks for all beans implementing either ServiceStatusCheck or ServicesStatusCheck
+ * Application Bean that looks for all beans implementing either ServiceStatusCheck or ServicesStatusCheck.
+ *
+ * Each check is polled in the background on a shared scheduler using its own interval and deadline.
+ * The results are stored in a versioned snapshot so requests for the service status return immediately and never wait on an external system.
+ * Alerts are only created or handled when a service changes state.
+ *
+ * The polling is configured with the following properties (all in millis):
+ * <ul>
+ * <li>{@code kylo.service-monitor.check.interval} - the delay between checks (default 30000)</li>
+ * <li>{@code kylo.service-monitor.check.timeout} - the deadline for a single check (default 20000)</li>
+ * <li>{@code kylo.service-monitor.check.<beanName>.interval} and {@code kylo.service-monitor.check.<beanName>.timeout} - overrides for a single check</li>
+ * </ul>
  */
 @Configuration
-public class ServiceMonitorManager implements ApplicationContextAware, InitializingBean {
+public class ServiceMonitorManager implements ApplicationContextAware, InitializingBean, DisposableBean {
 
-    private List<ServiceStatusCheck> services;
-    private List<ServicesStatusCheck> servicesHealth;
-    private ApplicationContext applicationContext;
-    private int totalServices;
+    private static final Logger log = LoggerFactory.getLogger(ServiceMonitorManager.class);
+
+    static final String PROPERTY_PREFIX = "kylo.service-monitor.check.";
+    static final long DEFAULT_INTERVAL_MILLIS = 30000L;
+    static final long DEFAULT_TIMEOUT_MILLIS = 20000L;
 
     @Inject
     AlertProvider alertProvider;
@@ -66,12 +94,30 @@ public class ServiceMonitorManager implements ApplicationContextAware, Initializ
     @Named("kyloAlertManager")
     AlertManager alertManager;
 
+    private final List<ServiceCheck> checks = new ArrayList<>();
+    private ApplicationContext applicationContext;
 
-    public ServiceMonitorManager() {
-        this.services = new ArrayList<>();
-        this.servicesHealth = new ArrayList<>();
+    /**
+     * Runs the polling of each check on its own schedule
+     */
+    private ScheduledExecutorService scheduler;
 
-    }
+    /**
+     * Runs the checks themselves so the poller can abandon a check that exceeds its deadline
+     */
+    private ExecutorService checkExecutor;
+
+    /**
+     * The latest result of each check, keyed by check name. Replaced as a whole on every update.
+     */
+    private volatile Map<String, CheckResult> results = Collections.emptyMap();
+
+    private volatile long version = 0L;
+
+    /**
+     * The last known state of each service, used to only alert on state transitions
+     */
+    private final Map<String, ServiceStatusResponse.STATE> lastKnownStates = new HashMap<>();
 
 
     @Override
@@ -81,103 +127,144 @@ public class ServiceMonitorManager implements ApplicationContextAware, Initializ
 
     @Override
     public void afterPropertiesSet() throws Exception {
+        Environment env = applicationContext.getEnvironment();
         Map<String, ServiceStatusCheck> map = applicationContext.getBeansOfType(ServiceStatusCheck.class);
         if (map != null) {
-            this.services.addAll(map.values());
+            map.forEach((name, check) -> addCheck(name, () -> Collections.singletonList(check.healthCheck()), env));
         }
         Map<String, ServicesStatusCheck> servicesMap = applicationContext.getBeansOfType(ServicesStatusCheck.class);
         if (servicesMap != null) {
-            this.servicesHealth.addAll(servicesMap.values());
+            servicesMap.forEach((name, check) -> addCheck(name, check::healthCheck, env));
         }
-        totalServices = this.services.size() + this.servicesHealth.size();
-
+        start();
     }
 
+    @Override
+    public void destroy() throws Exception {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (checkExecutor != null) {
+            checkExecutor.shutdownNow();
+        }
+    }
 
-    private Callable<List<ServiceStatusResponse>> servicesCheckAsCallable(final ServicesStatusCheck servicesStatusCheck) {
-        return new Callable<List<ServiceStatusResponse>>() {
-            @Override
-            public List<ServiceStatusResponse> call() throws Exception {
-                return servicesStatusCheck.healthCheck();
-            }
-        };
+    private void addCheck(String name, Callable<List<ServiceStatusResponse>> check, Environment env) {
+        long defaultInterval = env.getProperty(PROPERTY_PREFIX + "interval", Long.class, DEFAULT_INTERVAL_MILLIS);
+        long defaultTimeout = env.getProperty(PROPERTY_PREFIX + "timeout", Long.class, DEFAULT_TIMEOUT_MILLIS);
+        long interval = env.getProperty(PROPERTY_PREFIX + name + ".interval", Long.class, defaultInterval);
+        long timeout = env.getProperty(PROPERTY_PREFIX + name + ".timeout", Long.class, defaultTimeout);
+        addCheck(name, check, interval, timeout);
     }
 
-    private Callable<List<ServiceStatusResponse>> serviceCheckAsCallable(final ServiceStatusCheck servicesStatusCheck) {
-        return new Callable<List<ServiceStatusResponse>>() {
-            @Override
-            public List<ServiceStatusResponse> call() throws Exception {
-                return Arrays.asList(servicesStatusCheck.healthCheck());
-            }
-        };
+    /**
+     * Register a check to be polled
+     *
+     * @param name           a unique name for the check
+     * @param check          the check returning the status of one or more services
+     * @param intervalMillis the delay between the end of one check and the start of the next
+     * @param timeoutMillis  the time to wait for the check before marking it as timed out
+     */
+    void addCheck(String name, Callable<List<ServiceStatusResponse>> check, long intervalMillis, long timeoutMillis) {
+        checks.add(new ServiceCheck(name, check, intervalMillis, timeoutMillis));
     }
 
+    /**
+     * Start polling all the registered checks
+     */
+    void start() {
+        if (checks.isEmpty()) {
+            return;
+        }
+        scheduler = Executors.newScheduledThreadPool(checks.size(), new ThreadFactoryBuilder().setNameFormat("service-monitor-poller-%d").setDaemon(true).build());
+        checkExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("service-monitor-check-%d").setDaemon(true).build());
+        for (ServiceCheck check : checks) {
+            scheduler.scheduleWithFixedDelay(check::poll, 0, check.intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
 
     /**
-     * Run a service check on the system.
-     * Each service will run in a separate thread and return status back
+     * Return the last known status of each service.
+     * This does not call out to any service, it returns the latest results of the background checks.
      *
      * @return a list of service status objects
      */
-    public List<ServiceStatusResponse> doServiceCheck() {
-        List<ServiceStatusResponse> serviceHealthResponseList = new ArrayList<ServiceStatusResponse>();
-        if (totalServices > 0) {
-            ExecutorService pool = Executors.newFixedThreadPool(totalServices);
-            List<Callable<List<ServiceStatusResponse>>> tasks = new ArrayList<>();
-            for (ServiceStatusCheck serviceHealth : services) {
-                tasks.add(serviceCheckAsCallable(serviceHealth));
-            }
-            for (ServicesStatusCheck serviceHealth : servicesHealth) {
-                tasks.add(servicesCheckAsCallable(serviceHealth));
-            }
-
-            try {
-                List<Future<List<ServiceStatusResponse>>> results = pool.invokeAll(tasks);
-
-                for (Future<List<ServiceStatusResponse>> result : results) {
-                    try {
-                        List<ServiceStatusResponse> responses = result.get();
-                        if (responses != null) {
-                            for (ServiceStatusResponse response : responses) {
-                                if (response != null) {
-                                    serviceHealthResponseList.add(response);
-                                }
-                            }
-                        }
-
-                    } catch (Exception e) {
-
-                    }
-                }
-            } catch (Exception e) {
+    public List<ServiceStatusResponse> getServiceStatus() {
+        return results.values().stream()
+            .flatMap(result -> result.responses.stream())
+            .collect(Collectors.toList());
+    }
 
+    /**
+     * Return the last known status of each service along with how stale each status is
+     *
+     * @return the current snapshot
+     */
+    public ServiceStatusSnapshot getSnapshot() {
+        long snapshotVersion;
+        Map<String, CheckResult> current;
+        synchronized (this) {
+            snapshotVersion = version;
+            current = results;
+        }
+        long now = System.currentTimeMillis();
+        List<ServiceStatusSnapshotEntry> entries = new ArrayList<>();
+        for (CheckResult result : current.values()) {
+            long staleMillis = result.lastUpdated != null ? now - result.lastUpdated.getTime() : 0L;
+            boolean stale = result.timedOut || result.error != null || staleMillis > result.check.intervalMillis + result.check.timeoutMillis;
+            for (ServiceStatusResponse response : result.responses) {
+                ServiceStatusSnapshotEntry entry = new ServiceStatusSnapshotEntry(result.check.name, response);
+                entry.setLastUpdated(result.lastUpdated);
+                entry.setStaleMillis(staleMillis);
+                entry.setStale(stale);
+                entry.setTimedOut(result.timedOut);
+                entry.setError(result.error);
+                entries.add(entry);
             }
-            pool.shutdown();
-
         }
-        notifyAlerts(serviceHealthResponseList);
-        return serviceHealthResponseList;
+        return new ServiceStatusSnapshot(snapshotVersion, new Date(now), entries);
     }
 
-    private void notifyAlerts(List<ServiceStatusResponse> responses){
-
-        if(responses != null){
-            responses.stream().forEach(serviceStatusResponse ->  {
+    /**
+     * Store the result of a check in a new version of the snapshot and alert on any services that changed state
+     */
+    private void publish(CheckResult result) {
+        synchronized (this) {
+            Map<String, CheckResult> updated = new LinkedHashMap<>(results);
+            updated.put(result.check.name, result);
+            results = Collections.unmodifiableMap(updated);
+            version++;
+        }
+        if (!result.timedOut && result.error == null) {
+            notifyAlerts(result.responses);
+        }
+    }
 
-                if (ServiceStatusResponse.STATE.DOWN.equals(serviceStatusResponse.getState())) {
+    private void notifyAlerts(List<ServiceStatusResponse> responses) {
+        for (ServiceStatusResponse serviceStatusResponse : responses) {
+            ServiceStatusResponse.STATE state = serviceStatusResponse.getState();
+            ServiceStatusResponse.STATE previous;
+            synchronized (lastKnownStates) {
+                previous = lastKnownStates.put(serviceStatusResponse.getServiceName(), state);
+            }
+            if (Objects.equals(previous, state)) {
+                continue;
+            }
+            try {
+                if (ServiceStatusResponse.STATE.DOWN.equals(state)) {
                     notifyServiceDown(serviceStatusResponse);
-                } else if (ServiceStatusResponse.STATE.UP.equals(serviceStatusResponse.getState())) {
+                } else if (ServiceStatusResponse.STATE.UP.equals(state)) {
                     notifyServiceUp(serviceStatusResponse);
                 }
-
-            });
+            } catch (Exception e) {
+                log.error("Unable to update the alerts for service {} ", serviceStatusResponse.getServiceName(), e);
+            }
         }
-
     }
 
 
     private void notifyServiceDown(ServiceStatusResponse serviceStatusResponse) {
-        //called every time a service is marked as down/unhealthy
+        //called when a service transitions to down/unhealthy
         //find
         Iterator<? extends Alert>
             unhandledAlerts = alertProvider.getAlerts(alertProvider.criteria().type(ServiceStatusAlerts.SERVICE_STATUS_ALERT_TYPE).subtype(serviceStatusResponse.getServiceName()).state(
@@ -193,7 +280,7 @@ public class ServiceMonitorManager implements ApplicationContextAware, Initializ
     }
 
     private void notifyServiceUp(ServiceStatusResponse serviceStatusResponse) {
-        //called every time a service is marked as healthy
+        //called when a service transitions to healthy
         Iterator<? extends com.thinkbiganalytics.alerts.api.Alert>
             unhandledAlerts = alertProvider.getAlerts(alertProvider.criteria().type(ServiceStatusAlerts.SERVICE_STATUS_ALERT_TYPE).subtype(serviceStatusResponse.getServiceName()).state(
             com.thinkbiganalytics.alerts.api.Alert.State.UNHANDLED).asServiceAccount(true));
@@ -204,5 +291,86 @@ public class ServiceMonitorManager implements ApplicationContextAware, Initializ
         }
     }
 
+    /**
+     * A registered check along with its schedule
+     */
+    private class ServiceCheck {
+
+        private final String name;
+        private final Callable<List<ServiceStatusResponse>> check;
+        private final long intervalMillis;
+        private final long timeoutMillis;
+
+        /**
+         * The currently running check. A new check is not started until the previous one finishes, even if it exceeded its deadline,
+         * so a hung service never ties up more than one thread and its late result is still picked up by the next poll.
+         */
+        private Future<List<ServiceStatusResponse>> inFlight;
+
+        ServiceCheck(String name, Callable<List<ServiceStatusResponse>> check, long intervalMillis, long timeoutMillis) {
+            this.name = name;
+            this.check = check;
+            this.intervalMillis = intervalMillis;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        /**
+         * Run the check and store the result.  Called by the scheduler so it must never throw.
+         */
+        void poll() {
+            try {
+                if (inFlight == null || inFlight.isDone()) {
+                    inFlight = checkExecutor.submit(check);
+                }
+                List<ServiceStatusResponse> responses = inFlight.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                publish(CheckResult.success(this, responses));
+            } catch (TimeoutException e) {
+                log.warn("Service check {} did not complete within {} ms", name, timeoutMillis);
+                publish(CheckResult.failure(this, results.get(name), true, "Check did not complete within " + timeoutMillis + " ms"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Service check {} failed", name, cause);
+                publish(CheckResult.failure(this, results.get(name), false, cause.getMessage()));
+            } catch (Exception e) {
+                log.error("Unable to poll service check {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * The immutable result of a single run of a check
+     */
+    private static class CheckResult {
+
+        private final ServiceCheck check;
+        private final List<ServiceStatusResponse> responses;
+        private final Date lastUpdated;
+        private final boolean timedOut;
+        private final String error;
+
+        private CheckResult(ServiceCheck check, List<ServiceStatusResponse> responses, Date lastUpdated, boolean timedOut, String error) {
+            this.check = check;
+            this.responses = responses;
+            this.lastUpdated = lastUpdated;
+            this.timedOut = timedOut;
+            this.error = error;
+        }
 
+        static CheckResult success(ServiceCheck check, List<ServiceStatusResponse> responses) {
+            List<ServiceStatusResponse> nonNull = responses == null ? Collections.emptyList()
+                                                                    : responses.stream().filter(Objects::nonNull).collect(Collectors.toList());
+            return new CheckResult(check, Collections.unmodifiableList(nonNull), new Date(), false, null);
+        }
+
+        /**
+         * A failed check keeps the last known responses so they can be reported as stale
+         */
+        static CheckResult failure(ServiceCheck check, CheckResult previous, boolean timedOut, String error) {
+            List<ServiceStatusResponse> responses = previous != null ? previous.responses : Collections.emptyList();
+            Date lastUpdated = previous != null ? previous.lastUpdated : null;
+            return new CheckResult(check, responses, lastUpdated, timedOut, error);
+        }
+    }
 }
@@ -22,6 +22,7 @@ package com.thinkbiganalytics.servicemonitor;
 
 
 import com.thinkbiganalytics.servicemonitor.model.ServiceStatusResponse;
+import com.thinkbiganalytics.servicemonitor.model.ServiceStatusSnapshot;
 
 import java.util.List;
 
@@ -34,4 +35,11 @@ public interface ServiceMonitorRepository {
      * @return The status of services
      */
     List<ServiceStatusResponse> listServices();
+
+    /**
+     * Returns the status of services along with how stale each status is
+     *
+     * @return the latest snapshot of the service status
+     */
+    ServiceStatusSnapshot getSnapshot();
 }
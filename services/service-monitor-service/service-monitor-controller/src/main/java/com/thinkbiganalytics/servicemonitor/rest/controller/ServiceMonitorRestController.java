@@ -22,6 +22,7 @@ package com.thinkbiganalytics.servicemonitor.rest.controller;
 
 import com.thinkbiganalytics.servicemonitor.ServiceMonitorRepository;
 import com.thinkbiganalytics.servicemonitor.model.ServiceStatusResponse;
+import com.thinkbiganalytics.servicemonitor.model.ServiceStatusSnapshot;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
@@ -58,4 +59,20 @@ public class ServiceMonitorRestController {
     public Response listServices() {
         return Response.ok(serviceRepository.listServices()).build();
     }
+
+    /**
+     * Return the latest snapshot of all services including how stale the status of each service is
+     *
+     * @return the versioned snapshot of the service status
+     */
+    @GET
+    @Path("/snapshot")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation("Gets the latest snapshot of all services, their health and how stale it is")
+    @ApiResponses(
+        @ApiResponse(code = 200, message = "Returns the snapshot.", response = ServiceStatusSnapshot.class)
+    )
+    public Response getSnapshot() {
+        return Response.ok(serviceRepository.getSnapshot()).build();
+    }
 }
@@ -0,0 +1,152 @@
+package com.thinkbiganalytics.servicemonitor;
+
+/*-
+ * #%L
+ * thinkbig-service-monitor-controller
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.alerts.api.Alert;
+import com.thinkbiganalytics.alerts.api.AlertCriteria;
+import com.thinkbiganalytics.alerts.api.AlertProvider;
+import com.thinkbiganalytics.alerts.spi.AlertManager;
+import com.thinkbiganalytics.servicemonitor.model.DefaultServiceComponent;
+import com.thinkbiganalytics.servicemonitor.model.DefaultServiceStatusResponse;
+import com.thinkbiganalytics.servicemonitor.model.ServiceComponent;
+import com.thinkbiganalytics.servicemonitor.model.ServiceStatusResponse;
+import com.thinkbiganalytics.servicemonitor.model.ServiceStatusSnapshot;
+import com.thinkbiganalytics.servicemonitor.model.ServiceStatusSnapshotEntry;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+public class ServiceMonitorManagerTest {
+
+    /**
+     * Manager under test
+     */
+    private ServiceMonitorManager manager;
+
+    /**
+     * Mock alert manager used to verify alerts are only created on state transitions
+     */
+    private AlertManager alertManager;
+
+    /**
+     * Set up test environment.
+     */
+    @Before
+    public void setUp() {
+        manager = new ServiceMonitorManager();
+        manager.alertProvider = Mockito.mock(AlertProvider.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(manager.alertProvider.getAlerts(Mockito.any(AlertCriteria.class))).then(invocation -> Collections.emptyIterator());
+        alertManager = Mockito.mock(AlertManager.class);
+        manager.alertManager = alertManager;
+    }
+
+    /**
+     * Clean up test environment.
+     */
+    @After
+    public void tearDown() throws Exception {
+        manager.destroy();
+    }
+
+    /**
+     * Verify a hung check does not block the snapshot and its last known status is reported as stale.
+     */
+    @Test
+    public void testCheckDeadline() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        manager.addCheck("fast", () -> Collections.singletonList(status("fast", ServiceComponent.STATE.UP)), 10, 1000);
+        manager.addCheck("hung", () -> {
+            if (calls.incrementAndGet() > 1) {
+                release.await();
+            }
+            return Collections.singletonList(status("hung", ServiceComponent.STATE.UP));
+        }, 10, 50);
+        manager.start();
+
+        // Second run of the hung check exceeds its deadline
+        ServiceStatusSnapshot timedOut = waitForSnapshot(s -> entry(s, "hung") != null && entry(s, "hung").isTimedOut());
+        Assert.assertTrue(entry(timedOut, "hung").isStale());
+        Assert.assertFalse(entry(timedOut, "fast").isStale());
+        Assert.assertEquals(2, manager.getServiceStatus().size());
+
+        // Late result should still be picked up
+        release.countDown();
+        ServiceStatusSnapshot recovered = waitForSnapshot(s -> !entry(s, "hung").isTimedOut());
+        Assert.assertFalse(entry(recovered, "hung").isStale());
+        Assert.assertTrue(recovered.getVersion() > timedOut.getVersion());
+    }
+
+    /**
+     * Verify alerts are only created when a service changes state.
+     */
+    @Test
+    public void testAlertOnTransition() throws Exception {
+        final AtomicReference<ServiceComponent.STATE> state = new AtomicReference<>(ServiceComponent.STATE.DOWN);
+        manager.addCheck("flaky", () -> Collections.singletonList(status("flaky", state.get())), 5, 1000);
+        manager.start();
+
+        waitForSnapshot(s -> s.getVersion() > 10);
+        Mockito.verify(alertManager, Mockito.times(1)).create(Mockito.any(), Mockito.eq("flaky"), Mockito.eq(Alert.Level.FATAL), Mockito.anyString(), Mockito.any());
+
+        state.set(ServiceComponent.STATE.UP);
+        long version = manager.getSnapshot().getVersion();
+        waitForSnapshot(s -> s.getVersion() > version + 10);
+        state.set(ServiceComponent.STATE.DOWN);
+        long downVersion = manager.getSnapshot().getVersion();
+        waitForSnapshot(s -> s.getVersion() > downVersion + 10);
+        Mockito.verify(alertManager, Mockito.times(2)).create(Mockito.any(), Mockito.eq("flaky"), Mockito.eq(Alert.Level.FATAL), Mockito.anyString(), Mockito.any());
+    }
+
+    private ServiceStatusSnapshotEntry entry(ServiceStatusSnapshot snapshot, String serviceName) {
+        return snapshot.getServices().stream().filter(entry -> serviceName.equals(entry.getServiceName())).findFirst().orElse(null);
+    }
+
+    private ServiceStatusSnapshot waitForSnapshot(Predicate<ServiceStatusSnapshot> condition) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < 5000) {
+            ServiceStatusSnapshot snapshot = manager.getSnapshot();
+            if (condition.test(snapshot)) {
+                return snapshot;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.fail("Timed out waiting for snapshot");
+        return null;
+    }
+
+    private ServiceStatusResponse status(String name, ServiceComponent.STATE state) {
+        ServiceComponent component = new DefaultServiceComponent.Builder(name, state).build();
+        List<ServiceComponent> components = Collections.singletonList(component);
+        return new DefaultServiceStatusResponse(name, components);
+    }
+}
@@ -20,14 +20,17 @@ package com.thinkbiganalytics.spark.shell.cluster;
  * #L%
  */
 
+import com.thinkbiganalytics.cluster.CoalescableMessage;
 import com.thinkbiganalytics.spark.shell.SparkShellProcess;
 
 import java.io.Serializable;
 
 /**
  * Message to indicate a change to a Spark Shell process
+ *
+ * <p>Only the latest change for a client is sent when several are sent close together.</p>
  */
-public class SparkShellProcessChangedMessage implements Serializable {
+public class SparkShellProcessChangedMessage implements CoalescableMessage {
 
     /**
      * Identifier for this message type
@@ -54,6 +57,11 @@ public class SparkShellProcessChangedMessage implements Serializable {
         this.clientId = clientId;
     }
 
+    @Override
+    public Serializable getCoalescingKey() {
+        return clientId;
+    }
+
     public SparkShellProcess getProcess() {
         return process;
     }
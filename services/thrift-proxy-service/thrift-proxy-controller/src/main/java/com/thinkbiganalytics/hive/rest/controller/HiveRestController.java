@@ -20,12 +20,15 @@ package com.thinkbiganalytics.hive.rest.controller;
  * #L%
  */
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thinkbiganalytics.discovery.schema.DatabaseMetadata;
 import com.thinkbiganalytics.discovery.schema.QueryResult;
 import com.thinkbiganalytics.discovery.schema.TableSchema;
+import com.thinkbiganalytics.hive.rest.model.HiveQueryCursorResponse;
 import com.thinkbiganalytics.hive.service.HiveMetastoreService;
+import com.thinkbiganalytics.hive.service.HiveQueryCursor;
 import com.thinkbiganalytics.hive.service.HiveService;
 import com.thinkbiganalytics.rest.model.RestResponseStatus;
 
@@ -39,14 +42,20 @@ import java.security.AccessControlException;
 import java.sql.SQLException;
 import java.util.List;
 
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
+import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -64,6 +73,16 @@ public class HiveRestController {
 
     public static final String BASE = "/v1/hive";
 
+    /**
+     * Maximum number of rows returned by a single cursor page
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 10000;
+
+    /**
+     * Serializes responses. Thread-safe once configured.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     @Autowired
     private Environment env;
 
@@ -181,6 +200,89 @@ public class HiveRestController {
     }
 
 
+    @POST
+    @Path("/cursors")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation("Executes a Hive query and keeps the result open as a cursor that can be read in pages.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "Returns the cursor id and result columns.", response = HiveQueryCursorResponse.class),
+                      @ApiResponse(code = 500, message = "Hive is unavailable or too many queries are open.", response = RestResponseStatus.class)
+                  })
+    public Response openCursor(@FormParam("query") String query) {
+        HiveQueryCursor cursor;
+        try {
+            cursor = hiveService.openCursor(query);
+        } catch (DataAccessException e) {
+            if (e.getCause() != null && e.getCause().getMessage() != null && e.getCause().getMessage().contains("HiveAccessControlException Permission denied")) {
+                throw new AccessControlException("You do not have permission to execute this hive query");
+            }
+            log.error("Error opening Hive cursor for query: " + query, e);
+            throw e;
+        }
+        return Response.ok(asJson(new HiveQueryCursorResponse(cursor))).build();
+    }
+
+    @GET
+    @Path("/cursors/{cursorId}/rows")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Reads the next page of rows from an open cursor.",
+                  notes = "Rows are arrays of values in column order and are written to the response as they are read from Hive. The cursor is closed after the last row. "
+                          + "If Hive fails after the response has started, the response ends with an error field and the cursor is closed.")
+    @ApiResponses({
+                      @ApiResponse(code = 200, message = "Returns the rows."),
+                      @ApiResponse(code = 404, message = "The cursor does not exist or has been closed.", response = RestResponseStatus.class),
+                      @ApiResponse(code = 500, message = "Hive is unavailable.", response = RestResponseStatus.class)
+                  })
+    public Response fetchCursor(@PathParam("cursorId") String cursorId, @QueryParam("limit") @DefaultValue("1000") Integer limit) {
+        final HiveQueryCursor cursor = hiveService.getCursor(cursorId);
+        if (cursor == null) {
+            throw new NotFoundException("Query cursor not found: " + cursorId);
+        }
+        final int pageSize = Math.max(1, Math.min(limit, MAX_CURSOR_PAGE_SIZE));
+
+        final StreamingOutput output = outputStream -> {
+            final JsonGenerator generator = MAPPER.getFactory().createGenerator(outputStream);
+            final long offset = cursor.getRowsFetched();
+            generator.writeStartObject();
+            generator.writeStringField("id", cursorId);
+            generator.writeNumberField("offset", offset);
+            generator.writeArrayFieldStart("rows");
+            String error = null;
+            try {
+                hiveService.fetchCursor(cursorId, pageSize, generator::writeObject);
+            } catch (RuntimeException e) {
+                // The status has already been sent so report the failure in the body
+                log.error("Error reading Hive cursor {}", cursorId, e);
+                hiveService.cancelCursor(cursorId);
+                error = (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName();
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("count", cursor.getRowsFetched() - offset);
+            generator.writeBooleanField("hasMore", !cursor.isClosed());
+            if (error != null) {
+                generator.writeStringField("error", error);
+            }
+            generator.writeEndObject();
+            generator.flush();
+        };
+        return Response.ok(output, MediaType.APPLICATION_JSON).build();
+    }
+
+    @DELETE
+    @Path("/cursors/{cursorId}")
+    @ApiOperation("Cancels the query, if still running, and closes the cursor.")
+    @ApiResponses({
+                      @ApiResponse(code = 204, message = "The cursor was closed."),
+                      @ApiResponse(code = 404, message = "The cursor does not exist or has been closed.", response = RestResponseStatus.class)
+                  })
+    public Response cancelCursor(@PathParam("cursorId") String cursorId) {
+        if (!hiveService.cancelCursor(cursorId)) {
+            throw new NotFoundException("Query cursor not found: " + cursorId);
+        }
+        return Response.noContent().build();
+    }
+
     @GET
     @Path("/schemas/{schema}/tables/{table}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -274,9 +376,8 @@ public class HiveRestController {
 
     private String asJson(Object object) {
         String json = null;
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            json = mapper.writeValueAsString(object);
+            json = MAPPER.writeValueAsString(object);
         } catch (JsonProcessingException e) {
             log.error("Error converting object to JSON String ", e);
         }
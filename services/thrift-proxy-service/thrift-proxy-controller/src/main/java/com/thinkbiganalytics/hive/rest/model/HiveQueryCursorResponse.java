@@ -0,0 +1,85 @@
+package com.thinkbiganalytics.hive.rest.model;
+
+/*-
+ * #%L
+ * thinkbig-thrift-proxy-controller
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.discovery.schema.QueryResultColumn;
+import com.thinkbiganalytics.hive.service.HiveQueryCursor;
+
+import java.util.List;
+
+/**
+ * The public view of an open Hive query cursor: its id, result columns, and paging position.
+ */
+public class HiveQueryCursorResponse {
+
+    private String id;
+    private List<QueryResultColumn> columns;
+    private long offset;
+    private boolean hasMore;
+
+    public HiveQueryCursorResponse() {
+    }
+
+    public HiveQueryCursorResponse(HiveQueryCursor cursor) {
+        this.id = cursor.getId();
+        this.columns = cursor.getColumns();
+        this.offset = cursor.getRowsFetched();
+        this.hasMore = !cursor.isClosed();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<QueryResultColumn> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<QueryResultColumn> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @return the number of rows already read, which is the offset of the next page
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * @return true if more rows may be read from the cursor
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
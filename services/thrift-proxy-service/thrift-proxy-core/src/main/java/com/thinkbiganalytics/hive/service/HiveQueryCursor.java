@@ -0,0 +1,183 @@
+package com.thinkbiganalytics.hive.service;
+
+/*-
+ * #%L
+ * thinkbig-thrift-proxy-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.discovery.schema.QueryResultColumn;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+/**
+ * A server-side handle to an open Hive query.
+ *
+ * <p>Rows are pulled from the JDBC result set on demand, in pages, and handed to a {@link RowHandler} as compact arrays in column order.
+ * The statement and connection stay open until the cursor is exhausted, cancelled, or expired by {@link HiveService}.</p>
+ */
+public class HiveQueryCursor {
+
+    /**
+     * Receives the rows of a page as they are read from the result set.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+
+        void row(Object[] values) throws IOException;
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String query;
+    private final String owner;
+    private final DataSource dataSource;
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final List<QueryResultColumn> columns;
+
+    private long rowsFetched;
+    private volatile boolean exhausted;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile long lastAccessed = System.currentTimeMillis();
+
+    HiveQueryCursor(String query, String owner, DataSource dataSource, Connection connection, Statement statement, ResultSet resultSet, List<QueryResultColumn> columns) {
+        this.query = query;
+        this.owner = owner;
+        this.dataSource = dataSource;
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.columns = columns;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the user that opened the cursor, or null if the query was not run as a specific user
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    public List<QueryResultColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the number of rows returned so far, which is the offset of the next page
+     */
+    public synchronized long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    /**
+     * @return true if every row has been read
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    public long getLastAccessed() {
+        return lastAccessed;
+    }
+
+    /**
+     * Reads up to {@code maxRows} rows and passes each to the handler. The cursor is closed once the result set is exhausted.
+     *
+     * @param maxRows the maximum number of rows to read
+     * @param handler receives each row
+     * @return the number of rows read
+     */
+    public synchronized int fetch(int maxRows, RowHandler handler) throws SQLException, IOException {
+        if (closed.get()) {
+            throw new IllegalStateException("Cursor " + id + " is closed");
+        }
+        lastAccessed = System.currentTimeMillis();
+        final int columnCount = columns.size();
+        int count = 0;
+        try {
+            while (count < maxRows) {
+                if (!resultSet.next()) {
+                    exhausted = true;
+                    break;
+                }
+                Object[] values = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = resultSet.getObject(i + 1);
+                }
+                handler.row(values);
+                count++;
+            }
+        } finally {
+            rowsFetched += count;
+            lastAccessed = System.currentTimeMillis();
+        }
+        if (exhausted) {
+            close();
+        }
+        return count;
+    }
+
+    /**
+     * Cancels the running statement, if the driver supports it, and releases the cursor's resources.
+     * May be called from a thread other than the one fetching.
+     */
+    public void cancel() {
+        if (!closed.get() && !exhausted) {
+            try {
+                statement.cancel();
+            } catch (SQLException | UnsupportedOperationException e) {
+                // not every driver supports cancel; closing the statement below has the same effect once the fetch returns
+            }
+        }
+        close();
+    }
+
+    /**
+     * Releases the result set, statement and connection.
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            JdbcUtils.closeResultSet(resultSet);
+            JdbcUtils.closeStatement(statement);
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
@@ -21,6 +21,7 @@ package com.thinkbiganalytics.hive.service;
  */
 
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.thinkbiganalytics.discovery.model.DefaultQueryResult;
 import com.thinkbiganalytics.discovery.model.DefaultQueryResultColumn;
 import com.thinkbiganalytics.discovery.schema.QueryResult;
@@ -36,23 +37,38 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.sql.DataSource;
 
@@ -73,6 +89,28 @@ public class HiveService {
     @Qualifier("kerberosHiveConfiguration")
     private KerberosTicketConfiguration kerberosHiveConfiguration;
 
+    /**
+     * Number of rows the Hive driver fetches from HiveServer2 per round trip when reading a cursor
+     */
+    @Value("${hive.query.cursor.fetch-size:1000}")
+    private int cursorFetchSize;
+
+    /**
+     * Milliseconds a cursor may go unread before it is cancelled and closed
+     */
+    @Value("${hive.query.cursor.idle-timeout:300000}")
+    private long cursorIdleTimeout;
+
+    /**
+     * Maximum number of cursors open at once across all users
+     */
+    @Value("${hive.query.cursor.max-open:50}")
+    private int maxOpenCursors;
+
+    private final Map<String, HiveQueryCursor> cursors = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService cursorReaper;
+
     private DBSchemaParser schemaParser = null;
 
     public DataSource getDataSource() {
@@ -160,7 +198,6 @@ public class HiveService {
     public QueryResult query(String query) throws DataAccessException {
         final DefaultQueryResult queryResult = new DefaultQueryResult(query);
         final List<QueryResultColumn> columns = new ArrayList<>();
-        final Map<String, Integer> displayNameMap = new HashMap<>();
         if (!validateQuery(query)) {
             throw new DataRetrievalFailureException("Invalid Query: " + query);
         }
@@ -172,27 +209,7 @@ public class HiveService {
                     @Override
                     public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
                         if (columns.isEmpty()) {
-                            ResultSetMetaData rsMetaData = rs.getMetaData();
-                            for (int i = 1; i <= rsMetaData.getColumnCount(); i++) {
-                                String colName = rsMetaData.getColumnName(i);
-                                DefaultQueryResultColumn column = new DefaultQueryResultColumn();
-                                column.setField(rsMetaData.getColumnName(i));
-                                String displayName = rsMetaData.getColumnLabel(i);
-                                column.setHiveColumnLabel(displayName);
-                                //remove the table name if it exists
-                                displayName = StringUtils.contains(displayName, ".") ? StringUtils.substringAfterLast(displayName, ".") : displayName;
-                                Integer count = 0;
-                                if (displayNameMap.containsKey(displayName)) {
-                                    count = displayNameMap.get(displayName);
-                                    count++;
-                                }
-                                displayNameMap.put(displayName, count);
-                                column.setDisplayName(displayName + "" + (count > 0 ? count : ""));
-
-                                column.setTableName(StringUtils.substringAfterLast(rsMetaData.getColumnName(i), "."));
-                                column.setDataType(ParserHelper.sqlTypeToHiveType(rsMetaData.getColumnType(i)));
-                                columns.add(column);
-                            }
+                            columns.addAll(getColumns(rs.getMetaData()));
                             queryResult.setColumns(columns);
                         }
                         Map<String, Object> row = new LinkedHashMap<>();
@@ -212,6 +229,170 @@ public class HiveService {
         }, kerberosHiveConfiguration);
     }
 
+    /**
+     * Describes the columns of a result set. Display names have the table prefix removed and are made unique with a numeric suffix.
+     */
+    private List<QueryResultColumn> getColumns(ResultSetMetaData rsMetaData) throws SQLException {
+        final List<QueryResultColumn> columns = new ArrayList<>();
+        final Map<String, Integer> displayNameMap = new HashMap<>();
+        for (int i = 1; i <= rsMetaData.getColumnCount(); i++) {
+            DefaultQueryResultColumn column = new DefaultQueryResultColumn();
+            column.setField(rsMetaData.getColumnName(i));
+            String displayName = rsMetaData.getColumnLabel(i);
+            column.setHiveColumnLabel(displayName);
+            //remove the table name if it exists
+            displayName = StringUtils.contains(displayName, ".") ? StringUtils.substringAfterLast(displayName, ".") : displayName;
+            Integer count = 0;
+            if (displayNameMap.containsKey(displayName)) {
+                count = displayNameMap.get(displayName);
+                count++;
+            }
+            displayNameMap.put(displayName, count);
+            column.setDisplayName(displayName + "" + (count > 0 ? count : ""));
+
+            column.setTableName(StringUtils.substringAfterLast(rsMetaData.getColumnName(i), "."));
+            column.setDataType(ParserHelper.sqlTypeToHiveType(rsMetaData.getColumnType(i)));
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    /**
+     * Executes the query and leaves the result set open as a cursor so that rows can be read in pages with {@link #fetchCursor(String, int, HiveQueryCursor.RowHandler)}.
+     *
+     * @param query the query to execute
+     * @return the open cursor
+     * @throws DataAccessException if the query is invalid, cannot be executed, or too many cursors are open
+     */
+    public HiveQueryCursor openCursor(@Nonnull final String query) throws DataAccessException {
+        if (!validateQuery(query)) {
+            throw new DataRetrievalFailureException("Invalid Query: " + query);
+        }
+        expireIdleCursors();
+        if (cursors.size() >= maxOpenCursors) {
+            throw new DataRetrievalFailureException("Unable to execute query. The maximum of " + maxOpenCursors + " open Hive queries has been reached.");
+        }
+
+        final HiveQueryCursor cursor = KerberosUtil.runWithOrWithoutKerberos(() -> {
+            final DataSource dataSource = getDataSource();
+            Connection connection = null;
+            Statement statement = null;
+            ResultSet resultSet = null;
+            try {
+                connection = KerberosUtil.getConnectionWithOrWithoutKerberos(dataSource, kerberosHiveConfiguration);
+                statement = connection.createStatement();
+                //  Setting in order to query complex formats like parquet
+                statement.execute("set hive.optimize.index.filter=false");
+                statement.setFetchSize(cursorFetchSize);
+                resultSet = statement.executeQuery(query);
+                return new HiveQueryCursor(query, getCurrentUser(), dataSource, connection, statement, resultSet, getColumns(resultSet.getMetaData()));
+            } catch (SQLException e) {
+                JdbcUtils.closeResultSet(resultSet);
+                JdbcUtils.closeStatement(statement);
+                DataSourceUtils.releaseConnection(connection, dataSource);
+                throw jdbcTemplate.getExceptionTranslator().translate("openCursor", query, e);
+            }
+        }, kerberosHiveConfiguration);
+
+        cursors.put(cursor.getId(), cursor);
+        return cursor;
+    }
+
+    /**
+     * Gets an open cursor. Cursors are only visible to the user that opened them.
+     *
+     * @param cursorId the cursor id
+     * @return the cursor, or null if it does not exist or has been closed
+     */
+    @Nullable
+    public HiveQueryCursor getCursor(@Nonnull final String cursorId) {
+        final HiveQueryCursor cursor = cursors.get(cursorId);
+        if (cursor == null || !Objects.equals(cursor.getOwner(), getCurrentUser())) {
+            return null;
+        }
+        return cursor;
+    }
+
+    /**
+     * Reads the next page of rows from an open cursor. The cursor is removed once all rows have been read.
+     *
+     * @param cursorId the cursor id
+     * @param maxRows  the maximum number of rows to read
+     * @param handler  receives each row as it is read
+     * @return the number of rows read, or -1 if the cursor does not exist
+     */
+    public int fetchCursor(@Nonnull final String cursorId, final int maxRows, @Nonnull final HiveQueryCursor.RowHandler handler) throws DataAccessException {
+        final HiveQueryCursor cursor = getCursor(cursorId);
+        if (cursor == null) {
+            return -1;
+        }
+        try {
+            return KerberosUtil.runWithOrWithoutKerberos(() -> {
+                try {
+                    return cursor.fetch(maxRows, handler);
+                } catch (SQLException e) {
+                    cursor.close();
+                    throw jdbcTemplate.getExceptionTranslator().translate("fetchCursor", cursor.getQuery(), e);
+                }
+            }, kerberosHiveConfiguration);
+        } finally {
+            if (cursor.isClosed()) {
+                cursors.remove(cursorId, cursor);
+            }
+        }
+    }
+
+    /**
+     * Cancels the query if it is still running and closes the cursor.
+     *
+     * @param cursorId the cursor id
+     * @return true if the cursor was found and closed
+     */
+    public boolean cancelCursor(@Nonnull final String cursorId) {
+        final HiveQueryCursor cursor = getCursor(cursorId);
+        if (cursor != null && cursors.remove(cursorId, cursor)) {
+            cursor.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closes cursors that have not been read within the idle timeout.
+     */
+    private void expireIdleCursors() {
+        final long expireBefore = System.currentTimeMillis() - cursorIdleTimeout;
+        cursors.values().stream()
+            .filter(cursor -> cursor.getLastAccessed() < expireBefore)
+            .forEach(cursor -> {
+                if (cursors.remove(cursor.getId(), cursor)) {
+                    log.debug("Closing Hive query cursor {} after {} ms idle", cursor.getId(), cursorIdleTimeout);
+                    cursor.cancel();
+                }
+            });
+    }
+
+    @Nullable
+    private String getCurrentUser() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    @PostConstruct
+    private void startCursorReaper() {
+        cursorReaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("hive-cursor-reaper-%d").setDaemon(true).build());
+        cursorReaper.scheduleWithFixedDelay(this::expireIdleCursors, cursorIdleTimeout, cursorIdleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void closeCursors() {
+        if (cursorReaper != null) {
+            cursorReaper.shutdownNow();
+        }
+        cursors.values().forEach(HiveQueryCursor::cancel);
+        cursors.clear();
+    }
+
     /**
      * Executes a single SQL update operation (such as insert, update, or delete).
      *
@@ -0,0 +1,264 @@
+package com.thinkbiganalytics.hive.service;
+
+/*-
+ * #%L
+ * thinkbig-thrift-proxy-core
+ * %%
+ * Copyright (C) 2017 ThinkBig Analytics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.thinkbiganalytics.kerberos.KerberosTicketConfiguration;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+public class HiveServiceTest {
+
+    /**
+     * Hive connection
+     */
+    private Connection connection;
+
+    /**
+     * Result set of the query
+     */
+    private ResultSet resultSet;
+
+    /**
+     * Hive service being tested
+     */
+    private HiveService service;
+
+    /**
+     * Hive statement
+     */
+    private Statement statement;
+
+    /**
+     * Set up the service with a mock data source that returns three rows of two columns.
+     */
+    @Before
+    public void setUp() throws Exception {
+        final ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        Mockito.when(metaData.getColumnCount()).thenReturn(2);
+        Mockito.when(metaData.getColumnName(1)).thenReturn("t.id");
+        Mockito.when(metaData.getColumnLabel(1)).thenReturn("t.id");
+        Mockito.when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        Mockito.when(metaData.getColumnName(2)).thenReturn("t.name");
+        Mockito.when(metaData.getColumnLabel(2)).thenReturn("t.name");
+        Mockito.when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+
+        resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSet.getMetaData()).thenReturn(metaData);
+        Mockito.when(resultSet.next()).thenReturn(true, true, true, false);
+        Mockito.when(resultSet.getObject(1)).thenReturn(1, 2, 3);
+        Mockito.when(resultSet.getObject(2)).thenReturn("a", "b", "c");
+
+        statement = Mockito.mock(Statement.class);
+        Mockito.when(statement.executeQuery(Mockito.anyString())).thenReturn(resultSet);
+
+        connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+
+        final DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setExceptionTranslator(new SQLStateSQLExceptionTranslator());
+
+        service = new HiveService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "kerberosHiveConfiguration", new KerberosTicketConfiguration());
+        ReflectionTestUtils.setField(service, "cursorFetchSize", 100);
+        ReflectionTestUtils.setField(service, "cursorIdleTimeout", 60000L);
+        ReflectionTestUtils.setField(service, "maxOpenCursors", 10);
+
+        setUser("dladmin");
+    }
+
+    /**
+     * Clean up the security context.
+     */
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Verify opening a cursor executes the query with the fetch size and describes the columns.
+     */
+    @Test
+    public void testOpenCursor() throws Exception {
+        final HiveQueryCursor cursor = service.openCursor("SELECT * FROM t");
+
+        Assert.assertEquals("dladmin", cursor.getOwner());
+        Assert.assertEquals(2, cursor.getColumns().size());
+        Assert.assertEquals("id", cursor.getColumns().get(0).getDisplayName());
+        Assert.assertEquals("string", cursor.getColumns().get(1).getDataType());
+        Assert.assertSame(cursor, service.getCursor(cursor.getId()));
+        Mockito.verify(statement).setFetchSize(100);
+        Mockito.verify(statement).executeQuery("SELECT * FROM t");
+    }
+
+    /**
+     * Verify queries other than selects are rejected and the number of open cursors is limited.
+     */
+    @Test
+    public void testOpenCursorRejected() {
+        try {
+            service.openCursor("DROP TABLE t");
+            Assert.fail("Expected invalid query");
+        } catch (DataRetrievalFailureException e) {
+            // expected
+        }
+
+        ReflectionTestUtils.setField(service, "maxOpenCursors", 1);
+        service.openCursor("SELECT * FROM t");
+        try {
+            service.openCursor("SELECT * FROM t");
+            Assert.fail("Expected too many cursors");
+        } catch (DataRetrievalFailureException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Verify rows are read in pages and the cursor is closed after the last row.
+     */
+    @Test
+    public void testFetchCursor() throws Exception {
+        final HiveQueryCursor cursor = service.openCursor("SELECT * FROM t");
+        final List<Object[]> rows = new ArrayList<>();
+
+        Assert.assertEquals(2, service.fetchCursor(cursor.getId(), 2, rows::add));
+        Assert.assertEquals(2, cursor.getRowsFetched());
+        Assert.assertFalse(cursor.isClosed());
+
+        Assert.assertEquals(1, service.fetchCursor(cursor.getId(), 2, rows::add));
+        Assert.assertTrue(cursor.isExhausted());
+        Assert.assertTrue(cursor.isClosed());
+        Assert.assertNull(service.getCursor(cursor.getId()));
+        Assert.assertEquals(-1, service.fetchCursor(cursor.getId(), 2, rows::add));
+
+        Assert.assertEquals(3, rows.size());
+        Assert.assertArrayEquals(new Object[]{1, "a"}, rows.get(0));
+        Assert.assertArrayEquals(new Object[]{3, "c"}, rows.get(2));
+        Mockito.verify(resultSet).close();
+        Mockito.verify(statement).close();
+        Mockito.verify(connection).close();
+    }
+
+    /**
+     * Verify a failed fetch closes the cursor.
+     */
+    @Test
+    public void testFetchCursorError() throws Exception {
+        final HiveQueryCursor cursor = service.openCursor("SELECT * FROM t");
+        Mockito.when(resultSet.next()).thenThrow(new SQLException("connection lost"));
+
+        try {
+            service.fetchCursor(cursor.getId(), 2, values -> Assert.fail("Unexpected row"));
+            Assert.fail("Expected fetch to fail");
+        } catch (DataAccessException e) {
+            // expected
+        }
+        Assert.assertTrue(cursor.isClosed());
+        Assert.assertNull(service.getCursor(cursor.getId()));
+        Mockito.verify(connection).close();
+    }
+
+    /**
+     * Verify cursors are only visible to the user that opened them.
+     */
+    @Test
+    public void testCursorOwner() throws Exception {
+        final HiveQueryCursor cursor = service.openCursor("SELECT * FROM t");
+
+        setUser("other");
+        Assert.assertNull(service.getCursor(cursor.getId()));
+        Assert.assertEquals(-1, service.fetchCursor(cursor.getId(), 2, values -> Assert.fail("Unexpected row")));
+        Assert.assertFalse(service.cancelCursor(cursor.getId()));
+        Assert.assertFalse(cursor.isClosed());
+
+        setUser("dladmin");
+        Assert.assertSame(cursor, service.getCursor(cursor.getId()));
+    }
+
+    /**
+     * Verify cancelling a cursor cancels the statement and releases the connection.
+     */
+    @Test
+    public void testCancelCursor() throws Exception {
+        final HiveQueryCursor cursor = service.openCursor("SELECT * FROM t");
+
+        Assert.assertTrue(service.cancelCursor(cursor.getId()));
+        Assert.assertTrue(cursor.isClosed());
+        Assert.assertNull(service.getCursor(cursor.getId()));
+        Assert.assertFalse(service.cancelCursor(cursor.getId()));
+        Mockito.verify(statement).cancel();
+        Mockito.verify(connection).close();
+
+        try {
+            cursor.fetch(1, values -> Assert.fail("Unexpected row"));
+            Assert.fail("Expected closed cursor");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Verify idle cursors are cancelled when another cursor is opened.
+     */
+    @Test
+    public void testExpireIdleCursors() throws Exception {
+        final HiveQueryCursor idle = service.openCursor("SELECT * FROM t");
+
+        // Every existing cursor is idle with a negative timeout
+        ReflectionTestUtils.setField(service, "cursorIdleTimeout", -60000L);
+        final HiveQueryCursor active = service.openCursor("SELECT * FROM t");
+
+        Assert.assertTrue(idle.isClosed());
+        Assert.assertNull(service.getCursor(idle.getId()));
+        Assert.assertFalse(active.isClosed());
+        Assert.assertSame(active, service.getCursor(active.getId()));
+        Mockito.verify(statement).cancel();
+    }
+
+    private void setUser(String user) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user, "password"));
+    }
+}
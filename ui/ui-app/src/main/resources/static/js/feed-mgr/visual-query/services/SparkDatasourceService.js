@@ -16,10 +16,11 @@ define(["angular", "feed-mgr/visual-query/module-name", "feed-mgr/visual-query/m
              * @private
              * @param {string} sql the SQL query
              * @param {Array.<Datasource>} datasources the data source
+             * @param {number} [opt_limit] the maximum number of rows to read from a JDBC data source
              * @returns {string} the Spark script
              * @throws {Error} if there are too many data sources
              */
-            fromSql: function (sql, datasources) {
+            fromSql: function (sql, datasources, opt_limit) {
                 if (datasources != null && datasources.length !== 1) {
                     throw new Error("Not valid datasources: " + datasources);
                 } else if (datasources == null || datasources.length === 0 || datasources[0].id === VisualQueryService.HIVE_DATASOURCE) {
@@ -27,7 +28,7 @@ define(["angular", "feed-mgr/visual-query/module-name", "feed-mgr/visual-query/m
                 } else {
                     var subquery = "(" + sql + ") AS KYLO_SPARK_QUERY";
                     return "var " + SparkParserService.DATA_FRAME_VARIABLE + " = " + DATASOURCE_PROVIDER + ".getTableFromDatasource(\"" + StringUtils.escapeScala(subquery) + "\", \""
-                           + datasources[0].id + "\", sqlContext)\n";
+                           + datasources[0].id + "\", " + this.getLimitScript(opt_limit) + "sqlContext)\n";
                 }
             },
 
@@ -36,8 +37,9 @@ define(["angular", "feed-mgr/visual-query/module-name", "feed-mgr/visual-query/m
              *
              * @private
              * @param {VisualQueryModel} visualQueryModel the visual query model
+             * @param {number} [opt_limit] the maximum number of rows to read from a JDBC data source, if it is the only table
              */
-            fromVisualQueryModel: function (visualQueryModel) {
+            fromVisualQueryModel: function (visualQueryModel, opt_limit) {
                 var self = this;
                 var tree = VisualQueryService.sqlBuilder(visualQueryModel).buildTree();
 
@@ -65,14 +67,15 @@ define(["angular", "feed-mgr/visual-query/module-name", "feed-mgr/visual-query/m
 
                 // Build table script
                 var script = "";
+                var aliases = _.keys(tablesByAlias);
 
-                _.keys(tablesByAlias).sort().forEach(function (alias) {
+                aliases.sort().forEach(function (alias) {
                     var table = tablesByAlias[alias];
 
                     script += "val " + alias + " = ";
                     if (angular.isString(table.datasourceId) && table.datasourceId !== VisualQueryService.HIVE_DATASOURCE) {
                         script += DATASOURCE_PROVIDER + ".getTableFromDatasource(\"" + StringUtils.escapeScala(table.schemaname + "." + table.relname) + "\", \"" + table.datasourceId
-                                  + "\", sqlContext)";
+                                  + "\", " + ((aliases.length === 1) ? self.getLimitScript(opt_limit) : "") + "sqlContext)";
                     } else {
                         script += "sqlContext.table(\"" + StringUtils.escapeScala(table.schemaname + "." + table.relname) + "\")"
                     }
@@ -101,6 +104,17 @@ define(["angular", "feed-mgr/visual-query/module-name", "feed-mgr/visual-query/m
                 return script;
             },
 
+            /**
+             * Generates the limit argument for reading a table from a JDBC data source.
+             *
+             * @private
+             * @param {number} [opt_limit] the maximum number of rows
+             * @returns {string} the Spark script
+             */
+            getLimitScript: function (opt_limit) {
+                return (angular.isNumber(opt_limit) && opt_limit > 0) ? opt_limit + "L, " : "";
+            },
+
             /**
              * Generates a Spark script for the specified join expression.
              *
@@ -175,14 +189,15 @@ define(["angular", "feed-mgr/visual-query/module-name", "feed-mgr/visual-query/m
              *
              * @param {string|VisualQueryModel} source the SQL query or visual query model
              * @param {Array.<Datasource>} datasources the list of datasources used
+             * @param {number} [opt_limit] the maximum number of rows to read from a JDBC data source, which is applied by the database
              * @returns {string} the Spark script
              * @throws {Error} if there are too many data sources for the source
              */
-            toScript: function (source, datasources) {
+            toScript: function (source, datasources, opt_limit) {
                 if (angular.isString(source)) {
-                    return SparkDatasourceService.fromSql(source, datasources);
+                    return SparkDatasourceService.fromSql(source, datasources, opt_limit);
                 } else if (angular.isObject(source)) {
-                    return SparkDatasourceService.fromVisualQueryModel(source);
+                    return SparkDatasourceService.fromVisualQueryModel(source, opt_limit);
                 }
             }
         };
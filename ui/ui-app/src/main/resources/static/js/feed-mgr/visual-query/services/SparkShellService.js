@@ -127,6 +127,14 @@ angular.module(moduleName).factory("SparkShellService", ["$http", "$mdDialog", "
          */
         this.source_ = SparkDatasourceService.toScript(source, opt_datasources);
 
+        /**
+         * The source SQL or visual query model and its data sources, for reading a limited number of rows from JDBC data sources.
+         *
+         * @private
+         * @type {{source: (string|VisualQueryModel), datasources: Array.<Datasource>}}
+         */
+        this.sourceModel_ = {source: source, datasources: opt_datasources};
+
         /**
          * List of states.
          *
@@ -333,7 +341,12 @@ angular.module(moduleName).factory("SparkShellService", ["$http", "$mdDialog", "
             var sparkScript = "import org.apache.spark.sql._\n";
 
             if (start === 0) {
-                sparkScript += this.source_;
+                if (sample && this.limit_ > 0 && (this.limitBeforeSample_ || !(this.sample_ > 0 && this.sample_ < 1))) {
+                    // Limit is the first operation so JDBC data sources can apply it
+                    sparkScript += SparkDatasourceService.toScript(this.sourceModel_.source, this.sourceModel_.datasources, this.limit_);
+                } else {
+                    sparkScript += this.source_;
+                }
                 sparkScript += SparkParserService.DATA_FRAME_VARIABLE + " = " + SparkParserService.DATA_FRAME_VARIABLE;
                 if (sample && this.limitBeforeSample_ && this.limit_ > 0) {
                     sparkScript += ".limit(" + this.limit_ + ")";
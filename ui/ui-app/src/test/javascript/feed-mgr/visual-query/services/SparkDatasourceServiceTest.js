@@ -161,6 +161,12 @@ define(["angularMocks", "feed-mgr/visual-query/module-name", "feed-mgr/visual-qu
                                + " tbl11.col(\"sample_t1_id\").as(\"t2_sample_t1_id\"))\n");
         }));
 
+        it("should push the limit down to a JDBC data source", mocks.inject(function (SparkDatasourceService) {
+            expect(SparkDatasourceService.toScript("SELECT * FROM sample.t2", [{"id": "0e63b63e-e1c3-4502-99fb-b86272bc6ede"}], 1000))
+                .toBe("var df = datasourceProvider.getTableFromDatasource(\"(SELECT * FROM sample.t2) AS KYLO_SPARK_QUERY\", \"0e63b63e-e1c3-4502-99fb-b86272bc6ede\", 1000L, sqlContext)\n");
+            expect(SparkDatasourceService.toScript("SELECT * FROM sample.t1", null, 1000)).toBe("var df = sqlContext.sql(\"SELECT * FROM sample.t1\")\n");
+        }));
+
         it("should produce Spark for pre-joined tables", mocks.inject(function (SparkDatasourceService) {
             var spark = SparkDatasourceService.toScript({
                 "nodes": [{
@@ -297,5 +303,11 @@ define(["angularMocks", "feed-mgr/visual-query/module-name", "feed-mgr/visual-qu
                                + " tbl11.col(\"id\").as(\"t2_id\", new org.apache.spark.sql.types.MetadataBuilder().putString(\"comment\", \"t2 id\").build()), tbl11.col(\"t1_id\").as(\"t2_t1_id\"),"
                                + " tbl11.col(\"sample_t1_id\").as(\"t2_sample_t1_id\"))\n");
         }));
+
+        it("should push the limit down to a JDBC data source", mocks.inject(function (SparkDatasourceService) {
+            expect(SparkDatasourceService.toScript("SELECT * FROM sample.t2", [{"id": "0e63b63e-e1c3-4502-99fb-b86272bc6ede"}], 1000))
+                .toBe("var df = datasourceProvider.getTableFromDatasource(\"(SELECT * FROM sample.t2) AS KYLO_SPARK_QUERY\", \"0e63b63e-e1c3-4502-99fb-b86272bc6ede\", 1000L, sqlContext)\n");
+            expect(SparkDatasourceService.toScript("SELECT * FROM sample.t1", null, 1000)).toBe("var df = sqlContext.sql(\"SELECT * FROM sample.t1\")\n");
+        }));
     });
 });